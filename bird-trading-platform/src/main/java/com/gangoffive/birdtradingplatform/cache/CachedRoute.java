@@ -0,0 +1,59 @@
+package com.gangoffive.birdtradingplatform.cache;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//public catalog GET endpoints whose responses do not depend on the caller
+public enum CachedRoute {
+    //pages, searches and cards of many products, any product change may reorder them
+    LISTING("/api/v1/(products|birds|foods|accessories)(/(pages/\\d+|scroll|search|filter|top-product|by-shop-id" +
+            "|by-shop-id/scroll|id))?|/api/v1/products/\\d+/(relevant|bought-together)"),
+    PRODUCT("/api/v1/products/(\\d{1,18})"),
+    //detail, reviews and related products of one product; the shop summary in it ages out with the ttl
+    PRODUCT_PAGE("/api/v1/products/(\\d{1,18})/page"),
+    REVIEW("/api/v1/reviews/products/(\\d{1,18})"),
+    PROMOTION("/api/v1/promotions"),
+    TYPE("/api/v1/types(/(birds|foods|accessories))?"),
+    TAG("/api/v1/tags/shops/\\d+");
+
+    private final Pattern pattern;
+
+    CachedRoute(String pattern) {
+        this.pattern = Pattern.compile(pattern);
+    }
+
+    public record Match(CachedRoute route, Set<String> dependencies) {
+    }
+
+    public static Optional<Match> match(String path) {
+        return Arrays.stream(values())
+                .map(route -> route.dependencies(path))
+                .flatMap(Optional::stream)
+                .findFirst();
+    }
+
+    public static String productDependency(long productId) {
+        return PRODUCT.name() + ":" + productId;
+    }
+
+    public static String reviewDependency(long productId) {
+        return REVIEW.name() + ":" + productId;
+    }
+
+    private Optional<Match> dependencies(String path) {
+        Matcher matcher = pattern.matcher(path);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Match(this, switch (this) {
+            case PRODUCT -> Set.of(productDependency(Long.parseLong(matcher.group(1))));
+            case REVIEW -> Set.of(reviewDependency(Long.parseLong(matcher.group(1))));
+            case PRODUCT_PAGE -> Set.of(productDependency(Long.parseLong(matcher.group(1))),
+                    reviewDependency(Long.parseLong(matcher.group(1))), LISTING.name());
+            default -> Set.of(this.name());
+        }));
+    }
+}
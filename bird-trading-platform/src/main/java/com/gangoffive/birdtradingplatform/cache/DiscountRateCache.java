@@ -0,0 +1,89 @@
+package com.gangoffive.birdtradingplatform.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+//compiled discount rates of each product. Every eviction ticks the version and the evicted products remember
+//the tick, rates of a product read before its own change are never stored after it; the ttl bounds how long a
+//change made on another node is missed
+public class DiscountRateCache {
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Long, Long> evictedAt = new ConcurrentHashMap<>();
+    //a clear stands for an eviction of every product
+    private volatile long clearedAt;
+
+    private record Entry(int[] discountRates, long expiresAtMillis) {
+    }
+
+    public DiscountRateCache(long ttlMillis, int maxEntries, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    //read before loading the rates and passed to put
+    public long version() {
+        return version.get();
+    }
+
+    //null when the product is not cached
+    public int[] get(long productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() <= clock.getAsLong()) {
+            entries.remove(productId, entry);
+            return null;
+        }
+        return entry.discountRates();
+    }
+
+    //false when a promotion set of the product changed since the version was read
+    public boolean put(long productId, int[] discountRates, long readVersion) {
+        if (entries.size() >= maxEntries) {
+            long now = clock.getAsLong();
+            entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(productId, new Entry(discountRates, clock.getAsLong() + ttlMillis));
+        //checked after the write, an eviction racing with it either sees the entry or moved the version
+        if (clearedAt > readVersion || evictedAt.getOrDefault(productId, 0L) > readVersion) {
+            entries.remove(productId);
+            return false;
+        }
+        return true;
+    }
+
+    public void evict(Collection<Long> productIds) {
+        long evictedVersion = version.incrementAndGet();
+        productIds.forEach(productId -> {
+            evictedAt.merge(productId, evictedVersion, Math::max);
+            entries.remove(productId);
+        });
+        //the ticks are only needed by puts in flight, past the bound they are folded into one clear
+        if (evictedAt.size() > maxEntries) {
+            clearedAt = version.incrementAndGet();
+            evictedAt.clear();
+        }
+    }
+
+    public void clear() {
+        clearedAt = version.incrementAndGet();
+        evictedAt.clear();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,45 @@
+package com.gangoffive.birdtradingplatform.cache;
+
+import com.gangoffive.birdtradingplatform.entity.Tag;
+import com.gangoffive.birdtradingplatform.entity.TypeAccessory;
+import com.gangoffive.birdtradingplatform.entity.TypeBird;
+import com.gangoffive.birdtradingplatform.entity.TypeFood;
+import com.gangoffive.birdtradingplatform.search.NameIndex;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//types and tags as read at one moment; never changed once built, a change replaces the whole snapshot
+public record ReferenceData(
+        NameIndex<TypeBird> typeBirds,
+        NameIndex<TypeFood> typeFoods,
+        NameIndex<TypeAccessory> typeAccessories,
+        NameIndex<Tag> tags,
+        Map<Long, Tag> tagsById
+) {
+    //what an invalidation message says was created
+    public enum Change {
+        TYPE_BIRD, TYPE_FOOD, TYPE_ACCESSORY, TAG;
+
+        public boolean isType() {
+            return this != TAG;
+        }
+    }
+
+    public static ReferenceData of(
+            Collection<TypeBird> typeBirds,
+            Collection<TypeFood> typeFoods,
+            Collection<TypeAccessory> typeAccessories,
+            Collection<Tag> tags
+    ) {
+        return new ReferenceData(
+                NameIndex.build(typeBirds, TypeBird::getName),
+                NameIndex.build(typeFoods, TypeFood::getName),
+                NameIndex.build(typeAccessories, TypeAccessory::getName),
+                NameIndex.build(tags, Tag::getName),
+                Map.copyOf(tags.stream().collect(Collectors.toMap(Tag::getId, Function.identity())))
+        );
+    }
+}
@@ -0,0 +1,141 @@
+package com.gangoffive.birdtradingplatform.cache;
+
+import java.util.*;
+import java.util.function.LongSupplier;
+
+//serialized responses bounded by their total size, least recently used first out; every entry lists the
+//dependencies it was built from so a change drops exactly the entries that read it
+public class ResponseCache {
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Set<String>> keysByDependency = new HashMap<>();
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    //a clock ticked by every invalidation; each dependency remembers the tick it was last invalidated at, so a
+    //response is refused only when one of its own dependencies changed while it was computed
+    private long generation;
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+    private long clearedAt;
+
+    //eTag is null and lastModified -1 when the response carried no validators
+    public record CachedResponse(int status, String contentType, String eTag, long lastModified, byte[] body,
+                                 long expiresAtMillis, Set<String> dependencies) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, long invalidations, int entries, long bytes) {
+    }
+
+    public ResponseCache(long maxBytes, long maxEntryBytes, LongSupplier clock) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.clock = clock;
+    }
+
+    public synchronized Optional<CachedResponse> get(String key) {
+        CachedResponse response = entries.get(key);
+        if (response != null && response.expiresAtMillis() <= clock.getAsLong()) {
+            this.remove(key);
+            response = null;
+        }
+        if (response == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(response);
+    }
+
+    //read before computing the response and passed to put
+    public synchronized long generation() {
+        return generation;
+    }
+
+    //false when the body is over the entry limit or one of the dependencies was invalidated since the
+    //generation was read
+    public synchronized boolean put(String key, int status, String contentType, String eTag, long lastModified,
+                                    byte[] body, long ttlMillis, Set<String> dependencies, long readGeneration) {
+        if (this.invalidatedSince(dependencies, readGeneration) || body.length > maxEntryBytes
+                || body.length > maxBytes) {
+            return false;
+        }
+        this.remove(key);
+        CachedResponse response = new CachedResponse(status, contentType, eTag, lastModified, body,
+                clock.getAsLong() + ttlMillis, Set.copyOf(dependencies));
+        entries.put(key, response);
+        bytes += body.length;
+        dependencies.forEach(dependency -> keysByDependency
+                .computeIfAbsent(dependency, ignored -> new HashSet<>())
+                .add(key));
+        Iterator<Map.Entry<String, CachedResponse>> leastRecentlyUsed = entries.entrySet().iterator();
+        while (bytes > maxBytes && leastRecentlyUsed.hasNext()) {
+            Map.Entry<String, CachedResponse> evicted = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            this.unlink(evicted.getKey(), evicted.getValue());
+            evictions++;
+        }
+        return true;
+    }
+
+    //returns how many entries were dropped
+    public synchronized int invalidate(String dependency) {
+        invalidatedAt.put(dependency, ++generation);
+        Set<String> keys = keysByDependency.remove(dependency);
+        if (keys == null) {
+            return 0;
+        }
+        new ArrayList<>(keys).forEach(this::remove);
+        invalidations += keys.size();
+        return keys.size();
+    }
+
+    public synchronized void clear() {
+        //every dependency is invalidated, their own ticks are not needed any more
+        clearedAt = ++generation;
+        invalidatedAt.clear();
+        invalidations += entries.size();
+        entries.clear();
+        keysByDependency.clear();
+        bytes = 0;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size(), bytes);
+    }
+
+    private boolean invalidatedSince(Set<String> dependencies, long readGeneration) {
+        if (clearedAt > readGeneration) {
+            return true;
+        }
+        for (String dependency : dependencies) {
+            if (invalidatedAt.getOrDefault(dependency, 0L) > readGeneration) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(String key) {
+        CachedResponse response = entries.remove(key);
+        if (response != null) {
+            this.unlink(key, response);
+        }
+    }
+
+    private void unlink(String key, CachedResponse response) {
+        bytes -= response.body().length;
+        response.dependencies().forEach(dependency -> {
+            Set<String> keys = keysByDependency.get(dependency);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByDependency.remove(dependency);
+                }
+            }
+        });
+    }
+}
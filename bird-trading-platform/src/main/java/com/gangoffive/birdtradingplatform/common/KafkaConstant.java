@@ -5,5 +5,6 @@ public class KafkaConstant {
     public static final String KAFKA_PUBLIC_NOTIFICATION = "notification-public";
     public static final String KAFKA_PRIVATE_NOTIFICATION = "notification-private";
     public static final String KAFKA_PRIVATE_CHAT = "message-private";
+    public static final String KAFKA_REFERENCE_DATA = "reference-data-changed";
     public static final String KAFKA_GROUP_ID = "bird-trading-platform";
 }
@@ -15,6 +15,10 @@ public class NotifiConstant {
 
     public static final String ORDER_SUCCESS_DELIVERED_TO_CUSTOMER = "Order with ID %s successfully DELIVERED to the customer!";
 
+    //PAYMENT
+    public static final String PAYMENT_COMPLETED_CONTENT = "Payment %s successful. Your package order ID is %d.";
+    public static final String PAYMENT_FAILED_CONTENT = "Payment %s failed: %s";
+
     //BAN
     public static final String BAN_SHOP_FOR_USER_NAME = "YOUR SHOP";
 
@@ -8,6 +8,10 @@ import java.util.List;
 public class ProductStatusConstant {
     public static List<ProductStatus> LIST_STATUS_GET_FOR_USER = Arrays.asList(ProductStatus.ACTIVE);
     public static int QUANTITY_PRODUCT_FOR_USER = 0;
+    //same rule as the product listings for native queries over p (product), ps (summary) and sh (shop):
+    //in stock, active, not deleted, in an active shop
+    public static final String LISTED_FOR_USER_SQL = "p.quantity > :quantity AND ps.is_deleted = FALSE " +
+            "AND p.status IN (:statuses) AND sh.status IN (:shopStatuses)";
     public static List<ProductStatus> LIST_STATUS_GET_FOR_SHOP_OWNER = Arrays.asList(
             ProductStatus.INACTIVE, ProductStatus.ACTIVE, ProductStatus.BAN
     );
@@ -2,4 +2,11 @@ package com.gangoffive.birdtradingplatform.common;
 
 public class ScheduleConstant {
     public static final long TIME_BEFORE_TAKE_THE_VOUCHER = 6 * 60 * 60 * 1000;
+    //promotion boundaries missed within this window (e.g. while the app was down) are replayed on startup
+    public static final long PROMOTION_CATCH_UP_WINDOW = 24 * 60 * 60 * 1000;
+    //fire slightly after midnight so the database CURRENT_DATE has already rolled over
+    public static final long PROMOTION_BOUNDARY_DELAY = 5 * 1000;
+    public static final long PROMOTION_RETRY_DELAY = 60 * 1000;
+    //stock held for a paypal payment that has not been approved is given back after this time
+    public static final long STOCK_RESERVATION_TIMEOUT = 30 * 60 * 1000;
 }
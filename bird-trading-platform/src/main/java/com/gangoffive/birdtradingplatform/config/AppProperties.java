@@ -3,7 +3,9 @@ package com.gangoffive.birdtradingplatform.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "app")
 public class AppProperties {
@@ -25,6 +27,34 @@ public class AppProperties {
 
     private final ShopOwner shopOwner = new ShopOwner();
 
+    private final SummaryRebuild summaryRebuild = new SummaryRebuild();
+
+    private final PaymentCompletion paymentCompletion = new PaymentCompletion();
+
+    private final Search search = new Search();
+
+    private final CatalogFilter catalogFilter = new CatalogFilter();
+
+    private final ProductCatalog productCatalog = new ProductCatalog();
+
+    private final ProductHierarchyMigration productHierarchyMigration = new ProductHierarchyMigration();
+
+    private final TopProducts topProducts = new TopProducts();
+
+    private final Similarity similarity = new Similarity();
+
+    private final CoPurchase coPurchase = new CoPurchase();
+
+    private final ResponseCache responseCache = new ResponseCache();
+
+    private final ReferenceData referenceData = new ReferenceData();
+
+    private final ProductPage productPage = new ProductPage();
+
+    private final PromotionPrice promotionPrice = new PromotionPrice();
+
+    private final CheckoutQuote checkoutQuote = new CheckoutQuote();
+
     public static final class Auth {
         private String secretKey;
         private Long tokenExpiration;
@@ -213,6 +243,13 @@ public class AppProperties {
 
     public static final class Ship {
         private String url;
+        private int threads = 4;
+        private long connectTimeoutMillis = 1000;
+        private long requestTimeoutMillis = 2000;
+        private long cacheTtlMillis = 600_000;
+        private int maxCacheEntries = 10_000;
+        private int failureThreshold = 5;
+        private long openMillis = 30_000;
 
         public String getUrl() {
             return url;
@@ -221,6 +258,62 @@ public class AppProperties {
         public void setUrl(String url) {
             this.url = url;
         }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public long getConnectTimeoutMillis() {
+            return connectTimeoutMillis;
+        }
+
+        public void setConnectTimeoutMillis(long connectTimeoutMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+        }
+
+        public long getRequestTimeoutMillis() {
+            return requestTimeoutMillis;
+        }
+
+        public void setRequestTimeoutMillis(long requestTimeoutMillis) {
+            this.requestTimeoutMillis = requestTimeoutMillis;
+        }
+
+        public long getCacheTtlMillis() {
+            return cacheTtlMillis;
+        }
+
+        public void setCacheTtlMillis(long cacheTtlMillis) {
+            this.cacheTtlMillis = cacheTtlMillis;
+        }
+
+        public int getMaxCacheEntries() {
+            return maxCacheEntries;
+        }
+
+        public void setMaxCacheEntries(int maxCacheEntries) {
+            this.maxCacheEntries = maxCacheEntries;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public long getOpenMillis() {
+            return openMillis;
+        }
+
+        public void setOpenMillis(long openMillis) {
+            this.openMillis = openMillis;
+        }
     }
 
     public static final class ShopOwner {
@@ -235,6 +328,502 @@ public class AppProperties {
         }
     }
 
+    public static final class SummaryRebuild {
+        private int chunkSize = 500;
+        private int threads = 4;
+        private boolean runOnStartup;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public boolean isRunOnStartup() {
+            return runOnStartup;
+        }
+
+        public void setRunOnStartup(boolean runOnStartup) {
+            this.runOnStartup = runOnStartup;
+        }
+    }
+
+    public static final class PaymentCompletion {
+        private int threads = 4;
+        private int maxAttempts = 6;
+        private long backoffMillis = 2000;
+        private long maxBackoffMillis = 5 * 60 * 1000;
+        private long leaseMillis = 2 * 60 * 1000;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getBackoffMillis() {
+            return backoffMillis;
+        }
+
+        public void setBackoffMillis(long backoffMillis) {
+            this.backoffMillis = backoffMillis;
+        }
+
+        public long getMaxBackoffMillis() {
+            return maxBackoffMillis;
+        }
+
+        public void setMaxBackoffMillis(long maxBackoffMillis) {
+            this.maxBackoffMillis = maxBackoffMillis;
+        }
+
+        public long getLeaseMillis() {
+            return leaseMillis;
+        }
+
+        public void setLeaseMillis(long leaseMillis) {
+            this.leaseMillis = leaseMillis;
+        }
+    }
+
+    public static final class Search {
+        private int maxCandidates = 2000;
+        private int resultLimit = 50;
+        private long rebuildIntervalMillis = 10 * 60 * 1000;
+
+        public int getMaxCandidates() {
+            return maxCandidates;
+        }
+
+        public void setMaxCandidates(int maxCandidates) {
+            this.maxCandidates = maxCandidates;
+        }
+
+        public int getResultLimit() {
+            return resultLimit;
+        }
+
+        public void setResultLimit(int resultLimit) {
+            this.resultLimit = resultLimit;
+        }
+
+        public long getRebuildIntervalMillis() {
+            return rebuildIntervalMillis;
+        }
+
+        public void setRebuildIntervalMillis(long rebuildIntervalMillis) {
+            this.rebuildIntervalMillis = rebuildIntervalMillis;
+        }
+    }
+
+    public static final class CatalogFilter {
+        private long reloadIntervalMillis = 10 * 60 * 1000;
+        private long compactIntervalMillis = 1000;
+        private List<Double> priceBucketEdges = new ArrayList<>(List.of(0.0, 50.0, 100.0, 200.0, 500.0, 1000.0, 2000.0, 5000.0));
+
+        public long getReloadIntervalMillis() {
+            return reloadIntervalMillis;
+        }
+
+        public void setReloadIntervalMillis(long reloadIntervalMillis) {
+            this.reloadIntervalMillis = reloadIntervalMillis;
+        }
+
+        public long getCompactIntervalMillis() {
+            return compactIntervalMillis;
+        }
+
+        public void setCompactIntervalMillis(long compactIntervalMillis) {
+            this.compactIntervalMillis = compactIntervalMillis;
+        }
+
+        public List<Double> getPriceBucketEdges() {
+            return priceBucketEdges;
+        }
+
+        public void setPriceBucketEdges(List<Double> priceBucketEdges) {
+            this.priceBucketEdges = priceBucketEdges;
+        }
+    }
+
+    public static final class ProductCatalog {
+        private long repairIntervalMillis = 30 * 60 * 1000;
+        private int repairChunkSize = 1000;
+
+        public long getRepairIntervalMillis() {
+            return repairIntervalMillis;
+        }
+
+        public void setRepairIntervalMillis(long repairIntervalMillis) {
+            this.repairIntervalMillis = repairIntervalMillis;
+        }
+
+        public int getRepairChunkSize() {
+            return repairChunkSize;
+        }
+
+        public void setRepairChunkSize(int repairChunkSize) {
+            this.repairChunkSize = repairChunkSize;
+        }
+    }
+
+    public static final class ProductHierarchyMigration {
+        private int chunkSize = 1000;
+        private int verifyPasses = 3;
+        private boolean runOnStartup;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getVerifyPasses() {
+            return verifyPasses;
+        }
+
+        public void setVerifyPasses(int verifyPasses) {
+            this.verifyPasses = verifyPasses;
+        }
+
+        public boolean isRunOnStartup() {
+            return runOnStartup;
+        }
+
+        public void setRunOnStartup(boolean runOnStartup) {
+            this.runOnStartup = runOnStartup;
+        }
+    }
+
+    public static final class TopProducts {
+        private int size = 8;
+        private int capacity = 32;
+        private long reloadIntervalMillis = 10 * 60 * 1000;
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public long getReloadIntervalMillis() {
+            return reloadIntervalMillis;
+        }
+
+        public void setReloadIntervalMillis(long reloadIntervalMillis) {
+            this.reloadIntervalMillis = reloadIntervalMillis;
+        }
+    }
+
+    public static final class Similarity {
+        private int size = 8;
+        private int width = 16;
+        private int maxPostingSize = 1000;
+        private int chunkSize = 500;
+        private int threads = 4;
+        private double tagWeight = 1.0;
+        private double typeWeight = 0.5;
+        private double coPurchaseWeight = 1.0;
+        private double priceWeight = 0.25;
+        private long rebuildIntervalMillis = 30 * 60 * 1000;
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public void setWidth(int width) {
+            this.width = width;
+        }
+
+        public int getMaxPostingSize() {
+            return maxPostingSize;
+        }
+
+        public void setMaxPostingSize(int maxPostingSize) {
+            this.maxPostingSize = maxPostingSize;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public double getTagWeight() {
+            return tagWeight;
+        }
+
+        public void setTagWeight(double tagWeight) {
+            this.tagWeight = tagWeight;
+        }
+
+        public double getTypeWeight() {
+            return typeWeight;
+        }
+
+        public void setTypeWeight(double typeWeight) {
+            this.typeWeight = typeWeight;
+        }
+
+        public double getCoPurchaseWeight() {
+            return coPurchaseWeight;
+        }
+
+        public void setCoPurchaseWeight(double coPurchaseWeight) {
+            this.coPurchaseWeight = coPurchaseWeight;
+        }
+
+        public double getPriceWeight() {
+            return priceWeight;
+        }
+
+        public void setPriceWeight(double priceWeight) {
+            this.priceWeight = priceWeight;
+        }
+
+        public long getRebuildIntervalMillis() {
+            return rebuildIntervalMillis;
+        }
+
+        public void setRebuildIntervalMillis(long rebuildIntervalMillis) {
+            this.rebuildIntervalMillis = rebuildIntervalMillis;
+        }
+    }
+
+    public static final class CoPurchase {
+        private int size = 8;
+        private int partnersPerProduct = 20;
+        private int depth = 4;
+        private int width = 1 << 18;
+        private int chunkSize = 1000;
+        private int threads = 4;
+        private boolean runOnStartup = true;
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getPartnersPerProduct() {
+            return partnersPerProduct;
+        }
+
+        public void setPartnersPerProduct(int partnersPerProduct) {
+            this.partnersPerProduct = partnersPerProduct;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public void setDepth(int depth) {
+            this.depth = depth;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public void setWidth(int width) {
+            this.width = width;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public boolean isRunOnStartup() {
+            return runOnStartup;
+        }
+
+        public void setRunOnStartup(boolean runOnStartup) {
+            this.runOnStartup = runOnStartup;
+        }
+    }
+
+    public static final class ResponseCache {
+        private boolean enabled = true;
+        private long maxBytes = 64L * 1024 * 1024;
+        private long maxEntryBytes = 1024 * 1024;
+        //per CachedRoute name
+        private Map<String, Long> ttlMillis = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public long getMaxEntryBytes() {
+            return maxEntryBytes;
+        }
+
+        public void setMaxEntryBytes(long maxEntryBytes) {
+            this.maxEntryBytes = maxEntryBytes;
+        }
+
+        public Map<String, Long> getTtlMillis() {
+            return ttlMillis;
+        }
+
+        public void setTtlMillis(Map<String, Long> ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+    }
+
+    public static final class ReferenceData {
+        //fallback for invalidation messages a node missed
+        private long reloadIntervalMillis = 600_000;
+
+        public long getReloadIntervalMillis() {
+            return reloadIntervalMillis;
+        }
+
+        public void setReloadIntervalMillis(long reloadIntervalMillis) {
+            this.reloadIntervalMillis = reloadIntervalMillis;
+        }
+    }
+
+    public static final class ProductPage {
+        private int threads = 8;
+        private int queueCapacity = 64;
+        //shared by every optional section of one page
+        private long timeoutMillis = 800;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    public static final class PromotionPrice {
+        //how long a promotion change made on another node can go unseen
+        private long ttlMillis = 60_000;
+        private int maxEntries = 100_000;
+
+        public long getTtlMillis() {
+            return ttlMillis;
+        }
+
+        public void setTtlMillis(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static final class CheckoutQuote {
+        private long ttlMillis = 600_000;
+
+        public long getTtlMillis() {
+            return ttlMillis;
+        }
+
+        public void setTtlMillis(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+    }
+
     public Auth getAuth() {
         return auth;
     }
@@ -270,4 +859,60 @@ public class AppProperties {
     public ShopOwner getShopOwner() {
         return shopOwner;
     }
+
+    public SummaryRebuild getSummaryRebuild() {
+        return summaryRebuild;
+    }
+
+    public PaymentCompletion getPaymentCompletion() {
+        return paymentCompletion;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public CatalogFilter getCatalogFilter() {
+        return catalogFilter;
+    }
+
+    public ProductCatalog getProductCatalog() {
+        return productCatalog;
+    }
+
+    public ProductHierarchyMigration getProductHierarchyMigration() {
+        return productHierarchyMigration;
+    }
+
+    public TopProducts getTopProducts() {
+        return topProducts;
+    }
+
+    public Similarity getSimilarity() {
+        return similarity;
+    }
+
+    public CoPurchase getCoPurchase() {
+        return coPurchase;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public ReferenceData getReferenceData() {
+        return referenceData;
+    }
+
+    public ProductPage getProductPage() {
+        return productPage;
+    }
+
+    public PromotionPrice getPromotionPrice() {
+        return promotionPrice;
+    }
+
+    public CheckoutQuote getCheckoutQuote() {
+        return checkoutQuote;
+    }
 }
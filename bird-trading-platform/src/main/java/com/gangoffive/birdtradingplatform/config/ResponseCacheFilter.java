@@ -0,0 +1,108 @@
+package com.gangoffive.birdtradingplatform.config;
+
+import com.gangoffive.birdtradingplatform.cache.CachedRoute;
+import com.gangoffive.birdtradingplatform.cache.ResponseCache;
+import com.gangoffive.birdtradingplatform.service.ResponseCacheService;
+import jakarta.annotation.Nonnull;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+//serves anonymous GETs of the public catalog from the response cache; requests carrying a token always
+//go to the controllers
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final String CACHE_HEADER = "X-Cache";
+
+    private final ResponseCacheService responseCacheService;
+    private final AppProperties appProperties;
+
+    @Override
+    protected boolean shouldNotFilter(@Nonnull HttpServletRequest request) {
+        return !appProperties.getResponseCache().isEnabled()
+                || !HttpMethod.GET.matches(request.getMethod())
+                || request.getHeader(HttpHeaders.AUTHORIZATION) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @Nonnull HttpServletRequest request,
+            @Nonnull HttpServletResponse response,
+            @Nonnull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Optional<CachedRoute.Match> match = CachedRoute.match(request.getServletPath());
+        if (match.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = this.key(request);
+        Optional<ResponseCache.CachedResponse> cached = responseCacheService.get(key);
+        if (cached.isPresent()) {
+            response.setHeader(CACHE_HEADER, "HIT");
+            //the stored validators answer conditional requests like the controller would
+            if (new ServletWebRequest(request, response)
+                    .checkNotModified(cached.get().eTag(), cached.get().lastModified())) {
+                return;
+            }
+            response.setStatus(cached.get().status());
+            response.setContentType(cached.get().contentType());
+            response.setContentLength(cached.get().body().length);
+            response.getOutputStream().write(cached.get().body());
+            return;
+        }
+        long generation = responseCacheService.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        wrapper.setHeader(CACHE_HEADER, "MISS");
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() == HttpStatus.OK.value() && wrapper.getContentType() != null) {
+                byte[] body = wrapper.getContentAsByteArray();
+                //responses without a version of their own (listings, the product page) are tagged by their bytes
+                String eTag = wrapper.getHeader(HttpHeaders.ETAG);
+                if (eTag == null) {
+                    eTag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+                    wrapper.setHeader(HttpHeaders.ETAG, eTag);
+                }
+                HttpHeaders validators = new HttpHeaders();
+                Optional.ofNullable(wrapper.getHeader(HttpHeaders.LAST_MODIFIED))
+                        .ifPresent(lastModified -> validators.set(HttpHeaders.LAST_MODIFIED, lastModified));
+                responseCacheService.put(key, match.get(), wrapper.getStatus(), wrapper.getContentType(),
+                        eTag, validators.getLastModified(), body, generation);
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    //path plus the query parameters sorted by name, so the same page asked in another order shares an entry
+    private String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getServletPath());
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            key.append(separator).append(parameter.getKey()).append('=')
+                    .append(String.join(",", Arrays.asList(parameter.getValue())));
+            separator = '&';
+        }
+        return key.toString();
+    }
+}
@@ -31,6 +31,11 @@ public class AccessoryController {
         return accessoryService.retrieveAccessoryByPageNumber(pageNumber);
     }
 
+    @GetMapping("accessories/scroll")
+    public ResponseEntity<?> retrieveAccessoryByCursor(@RequestParam(required = false) String cursor) {
+        return accessoryService.retrieveAccessoryByCursor(cursor);
+    }
+
     @GetMapping("accessories/search")
     public List<AccessoryDto> findBirdByName(@RequestParam String name) {
         return accessoryService.findAccessoryByName(name);
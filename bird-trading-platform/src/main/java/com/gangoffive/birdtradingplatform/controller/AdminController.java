@@ -4,6 +4,7 @@ package com.gangoffive.birdtradingplatform.controller;
 import com.gangoffive.birdtradingplatform.dto.*;
 import com.gangoffive.birdtradingplatform.service.*;
 import com.gangoffive.birdtradingplatform.util.JsonUtil;
+import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +19,10 @@ import java.util.List;
 public class AdminController {
     private final AdminService adminService;
     private final PaypalService paypalService;
+    private final ProductSummaryRebuildService productSummaryRebuildService;
+    private final ProductHierarchyMigrationService productHierarchyMigrationService;
+    private final CoPurchaseService coPurchaseService;
+    private final ResponseCacheService responseCacheService;
 
     @GetMapping("admin/bump-chart")
     public List<DataBumpChartDto> getDataBumpChartRankOfShop() {
@@ -34,4 +39,60 @@ public class AdminController {
         paypalService.createPayout(payoutDto);
     }
 
+    @PostMapping("admin/product-summary/rebuild")
+    public ResponseEntity<?> rebuildProductSummary(@RequestParam(defaultValue = "true") boolean resume) {
+        if (!productSummaryRebuildService.startRebuild(resume)) {
+            return ResponseUtils.getErrorResponseConflict("Product summary rebuild is already running.");
+        }
+        return ResponseEntity.ok(productSummaryRebuildService.getProgress());
+    }
+
+    @GetMapping("admin/product-summary/rebuild")
+    public ResponseEntity<?> getProductSummaryRebuildProgress() {
+        ProductSummaryRebuildDto progress = productSummaryRebuildService.getProgress();
+        if (progress == null) {
+            return ResponseUtils.getErrorResponseNotFound("Product summary has never been rebuilt.");
+        }
+        return ResponseEntity.ok(progress);
+    }
+
+    @PostMapping("admin/product-hierarchy/migration")
+    public ResponseEntity<?> migrateProductHierarchy(@RequestParam(defaultValue = "true") boolean resume) {
+        if (!productHierarchyMigrationService.startMigration(resume)) {
+            return ResponseUtils.getErrorResponseConflict("Product hierarchy migration is already running.");
+        }
+        return ResponseEntity.ok(productHierarchyMigrationService.getProgress());
+    }
+
+    @GetMapping("admin/product-hierarchy/migration")
+    public ResponseEntity<?> getProductHierarchyMigrationProgress() {
+        ProductHierarchyMigrationDto progress = productHierarchyMigrationService.getProgress();
+        if (progress == null) {
+            return ResponseUtils.getErrorResponseNotFound("Product hierarchy has never been migrated.");
+        }
+        return ResponseEntity.ok(progress);
+    }
+
+    @PostMapping("admin/co-purchase/backfill")
+    public ResponseEntity<?> backfillCoPurchases() {
+        if (!coPurchaseService.startBackfill()) {
+            return ResponseUtils.getErrorResponseConflict("Co-purchase backfill is already running.");
+        }
+        return ResponseEntity.ok(coPurchaseService.getProgress());
+    }
+
+    @GetMapping("admin/co-purchase/backfill")
+    public ResponseEntity<?> getCoPurchaseBackfillProgress() {
+        CoPurchaseBackfillDto progress = coPurchaseService.getProgress();
+        if (progress == null) {
+            return ResponseUtils.getErrorResponseNotFound("Co-purchases have not been backfilled since startup.");
+        }
+        return ResponseEntity.ok(progress);
+    }
+
+    @GetMapping("admin/response-cache/stats")
+    public ResponseEntity<?> getResponseCacheStats() {
+        return ResponseEntity.ok(responseCacheService.getStats());
+    }
+
 }
@@ -30,6 +30,11 @@ public class BirdController {
         return birdService.retrieveBirdByPageNumber(pageNumber);
     }
 
+    @GetMapping("birds/scroll")
+    public ResponseEntity<?> retrieveBirdByCursor(@RequestParam(required = false) String cursor) {
+        return birdService.retrieveBirdByCursor(cursor);
+    }
+
     @GetMapping("birds/search")
     public List<BirdDto> findBirdByName(@RequestParam String name) {
         return birdService.findBirdByName(name);
@@ -32,6 +32,11 @@ public class FoodController {
         return foodService.retrieveFoodByPageNumber(pageNumber);
     }
 
+    @GetMapping("foods/scroll")
+    public ResponseEntity<?> retrieveFoodByCursor(@RequestParam(required = false) String cursor) {
+        return foodService.retrieveFoodByCursor(cursor);
+    }
+
     @GetMapping("foods/search")
     public List<FoodDto> findFoodByName(@RequestParam String name) {
         return foodService.findFoodByName(name);
@@ -1,18 +1,22 @@
 package com.gangoffive.birdtradingplatform.controller;
 
 import com.gangoffive.birdtradingplatform.service.InfoService;
+import com.gangoffive.birdtradingplatform.service.ResourceVersionService;
+import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/v1/")
 @RequiredArgsConstructor
 public class InfoController {
     private final InfoService infoService;
+    private final ResourceVersionService resourceVersionService;
 
     @GetMapping("info")
     public ResponseEntity<?> getUserInfo(@RequestParam String token) {
@@ -20,7 +24,10 @@ public class InfoController {
     }
 
     @GetMapping("shop-info")
-    public ResponseEntity<?> getShopInfo(@RequestParam Long id) {
+    public ResponseEntity<?> getShopInfo(@RequestParam Long id, WebRequest webRequest) {
+        if (ResponseUtils.isNotModified(webRequest, resourceVersionService.getShopVersion(id))) {
+            return null;
+        }
         return infoService.getShopInfo(id);
     }
 }
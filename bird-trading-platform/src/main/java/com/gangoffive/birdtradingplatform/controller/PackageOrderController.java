@@ -3,10 +3,13 @@ package com.gangoffive.birdtradingplatform.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gangoffive.birdtradingplatform.dto.ItemByShopDto;
 import com.gangoffive.birdtradingplatform.dto.OrderShopOwnerFilterDto;
 import com.gangoffive.birdtradingplatform.dto.PackageOrderAdminFilterDto;
 import com.gangoffive.birdtradingplatform.dto.PackageOrderRequestDto;
 import com.gangoffive.birdtradingplatform.service.PackageOrderService;
+import com.gangoffive.birdtradingplatform.service.PaymentCompletionService;
+import com.gangoffive.birdtradingplatform.service.ShippingQuoteService;
 import com.gangoffive.birdtradingplatform.util.JsonUtil;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import lombok.RequiredArgsConstructor;
@@ -25,13 +28,35 @@ import java.util.Map;
 public class PackageOrderController {
 
     private final PackageOrderService packageOrderService;
+    private final PaymentCompletionService paymentCompletionService;
+    private final ShippingQuoteService shippingQuoteService;
+
     @PostMapping("/package-order")
     public ResponseEntity<?> getPackageOrder(
             @RequestBody PackageOrderRequestDto packageOrderRequestDto,
             @RequestParam(value = "paymentId", required = false) String paymentId,
             @RequestParam(value = "PayerID", required = false) String payerId
     ) {
-        return packageOrderService.packageOrder(packageOrderRequestDto, paymentId, payerId);
+        //buyer is back from paypal: record the payment and let the completion workers execute it
+        if (paymentId != null && payerId != null) {
+            return paymentCompletionService.submit(packageOrderRequestDto, paymentId, payerId);
+        }
+        //a quoted cart is not asked to the ship service again
+        if (packageOrderRequestDto.getQuoteToken() == null) {
+            this.quoteShipping(packageOrderRequestDto);
+        }
+        return packageOrderService.packageOrder(packageOrderRequestDto);
+    }
+
+    @PostMapping("/package-order/quote")
+    public ResponseEntity<?> quoteCheckout(@RequestBody PackageOrderRequestDto packageOrderRequestDto) {
+        this.quoteShipping(packageOrderRequestDto);
+        return packageOrderService.quoteCheckout(packageOrderRequestDto);
+    }
+
+    @GetMapping("/package-order/payment/{paymentId}")
+    public ResponseEntity<?> getPaymentCompletion(@PathVariable String paymentId) {
+        return paymentCompletionService.getCompletion(paymentId);
     }
 
     @GetMapping("/package-order/view-all-package-order")
@@ -47,4 +72,13 @@ public class PackageOrderController {
             return ResponseUtils.getErrorResponseBadRequest("Data parse not correct.");
         }
     }
+
+    //quote the shops before the checkout transaction opens, inside it the fees come from the cache
+    private void quoteShipping(PackageOrderRequestDto packageOrderRequestDto) {
+        if (packageOrderRequestDto.getCartInfo() != null && packageOrderRequestDto.getCartInfo().getItemsByShop() != null) {
+            shippingQuoteService.quote(packageOrderRequestDto.getCartInfo().getItemsByShop().stream()
+                    .map(ItemByShopDto::getDistance)
+                    .toList());
+        }
+    }
 }
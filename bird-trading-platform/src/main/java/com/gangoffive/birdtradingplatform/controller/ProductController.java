@@ -3,7 +3,9 @@ package com.gangoffive.birdtradingplatform.controller;
 import com.gangoffive.birdtradingplatform.api.response.ErrorResponse;
 import com.gangoffive.birdtradingplatform.dto.*;
 import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import com.gangoffive.birdtradingplatform.service.ProductPageService;
 import com.gangoffive.birdtradingplatform.service.ProductService;
+import com.gangoffive.birdtradingplatform.service.ResourceVersionService;
 import com.gangoffive.birdtradingplatform.util.JsonUtil;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -22,6 +25,8 @@ import java.util.List;
 public class ProductController {
     private final ProductService productService;
     private final ProductRepository productRepository;
+    private final ResourceVersionService resourceVersionService;
+    private final ProductPageService productPageService;
 
     @GetMapping()
     public List<ProductDto> retrieveAllProduct() {
@@ -33,11 +38,22 @@ public class ProductController {
         return productService.retrieveProductByPageNumber(pageNumber);
     }
 
+    @GetMapping("/products/scroll")
+    public ResponseEntity<?> retrieveProductByCursor(@RequestParam(required = false) String cursor) {
+        return productService.retrieveProductByCursor(cursor);
+    }
+
     @GetMapping("/products/by-shop-id")
     public ResponseEntity retrieveAllProduct(@RequestParam int pageNumber, @RequestParam Long shopId) {
         return productService.retrieveProductByShopId(shopId, pageNumber);
     }
 
+    @GetMapping("/products/by-shop-id/scroll")
+    public ResponseEntity<?> retrieveProductByShopIdAndCursor(@RequestParam Long shopId,
+                                                              @RequestParam(required = false) String cursor) {
+        return productService.retrieveProductByShopIdAndCursor(shopId, cursor);
+    }
+
     @GetMapping("/products/top-product")
     public ResponseEntity<?> retrieveTopProduct() {
         List<ProductCartDto> result = productService.retrieveTopProduct();
@@ -55,10 +71,19 @@ public class ProductController {
     }
 
     @GetMapping("/products/{id}")
-    public ResponseEntity<?> findProductById(@PathVariable Long id) {
+    public ResponseEntity<?> findProductById(@PathVariable Long id, WebRequest webRequest) {
+        if (ResponseUtils.isNotModified(webRequest, resourceVersionService.getProductVersion(id))) {
+            return null;
+        }
         return productService.retrieveProductById(id);
     }
 
+    @GetMapping("/products/{id}/page")
+    public ResponseEntity<?> getProductPage(@PathVariable Long id,
+                                            @RequestParam(defaultValue = "1") int reviewPageNumber) {
+        return productPageService.getProductPage(id, reviewPageNumber);
+    }
+
     @GetMapping("/products/id")
     public ResponseEntity<?> findProductByListId(@RequestParam("id") long[] ids ) {
         return productService.retrieveProductByListId(ids);
@@ -126,6 +151,11 @@ public class ProductController {
         return productService.getProductRelevantBaseOnId(productId);
     }
 
+    @GetMapping("/products/{productId}/bought-together")
+    public ResponseEntity<?> getProductBoughtTogether(@PathVariable long productId) {
+        return productService.getProductBoughtTogether(productId);
+    }
+
     @GetMapping("/products")
     public ResponseEntity<?> getProductByTagAndShopId(@RequestParam("shopid") long shopId, @RequestParam("tagid") long[] tagId) {
         return productService.retrieveProductByShopidAndTagId(shopId, tagId);
@@ -20,4 +20,8 @@ public class PromotionShopController {
     public ResponseEntity<?> createNewPromotionShop(@RequestBody PromotionShopDto promotionShop) {
         return promotionShopService.createNewPromotionShop(promotionShop);
     }
+    @PutMapping("/promotion-shop")
+    public ResponseEntity<?> updatePromotionShop(@RequestBody PromotionShopDto promotionShop) {
+        return promotionShopService.updatePromotionShop(promotionShop);
+    }
 }
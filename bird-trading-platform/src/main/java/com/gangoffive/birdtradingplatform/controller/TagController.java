@@ -2,11 +2,14 @@ package com.gangoffive.birdtradingplatform.controller;
 
 import com.gangoffive.birdtradingplatform.dto.TagDto;
 import com.gangoffive.birdtradingplatform.entity.Tag;
+import com.gangoffive.birdtradingplatform.service.ResourceVersionService;
 import com.gangoffive.birdtradingplatform.service.TagService;
+import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,6 +19,7 @@ import java.util.List;
 @Slf4j
 public class TagController {
     private final TagService tagService;
+    private final ResourceVersionService resourceVersionService;
 
     @GetMapping("shop-owner/tags")
     public List<Tag> getAllTags() {
@@ -28,7 +32,10 @@ public class TagController {
     }
 
     @GetMapping("/tags/shops/{shopId}")
-    public ResponseEntity<?> getAllTagByShopOwnerId(@PathVariable Long shopId) {
+    public ResponseEntity<?> getAllTagByShopOwnerId(@PathVariable Long shopId, WebRequest webRequest) {
+        if (ResponseUtils.isNotModified(webRequest, resourceVersionService.getShopTagVersion(shopId))) {
+            return null;
+        }
         return tagService.getAllTagByShopOwnerId(shopId);
     }
 
@@ -4,16 +4,21 @@ import com.gangoffive.birdtradingplatform.dto.TypeDto;
 import com.gangoffive.birdtradingplatform.entity.TypeAccessory;
 import com.gangoffive.birdtradingplatform.entity.TypeBird;
 import com.gangoffive.birdtradingplatform.entity.TypeFood;
+import com.gangoffive.birdtradingplatform.enums.Category;
+import com.gangoffive.birdtradingplatform.service.ResourceVersionService;
 import com.gangoffive.birdtradingplatform.service.TypeAccessoryService;
 import com.gangoffive.birdtradingplatform.service.TypeBirdService;
 import com.gangoffive.birdtradingplatform.service.TypeFoodService;
+import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import com.gangoffive.birdtradingplatform.wrapper.TypeAllWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -23,9 +28,13 @@ public class TypeController {
     private final TypeFoodService typeFoodService;
     private final TypeAccessoryService typeAccessoryService;
     private final TypeBirdService typeBirdService;
+    private final ResourceVersionService resourceVersionService;
 
     @GetMapping("/types")
-    public ResponseEntity<?> retrieveAllType () {
+    public ResponseEntity<?> retrieveAllType(WebRequest webRequest) {
+        if (this.isNotModified(webRequest, List.of(Category.BIRD, Category.FOOD, Category.ACCESSORY))) {
+            return null;
+        }
         List<TypeFood> typeFoods = typeFoodService.getAllTypeFood();
         List<TypeAccessory> typeAccessories = typeAccessoryService.getAllTypeAccessory();
         List<TypeBird> typeBirds = typeBirdService.getAllTypeBird();
@@ -34,19 +43,28 @@ public class TypeController {
     }
 
     @GetMapping("/types/birds")
-    public ResponseEntity<?> retrieveTypeBird() {
+    public ResponseEntity<?> retrieveTypeBird(WebRequest webRequest) {
+        if (this.isNotModified(webRequest, List.of(Category.BIRD))) {
+            return null;
+        }
         List<TypeBird> typeBirds = typeBirdService.getAllTypeBird();
         return ResponseEntity.ok(typeBirds);
     }
 
     @GetMapping("/types/foods")
-    public ResponseEntity<?> retrieveTypeFood() {
+    public ResponseEntity<?> retrieveTypeFood(WebRequest webRequest) {
+        if (this.isNotModified(webRequest, List.of(Category.FOOD))) {
+            return null;
+        }
         List<TypeFood> typeFoods = typeFoodService.getAllTypeFood();
         return ResponseEntity.ok(typeFoods);
     }
 
     @GetMapping("/types/accessories")
-    public ResponseEntity<?> retrieveTypeAccessory() {
+    public ResponseEntity<?> retrieveTypeAccessory(WebRequest webRequest) {
+        if (this.isNotModified(webRequest, List.of(Category.ACCESSORY))) {
+            return null;
+        }
         List<TypeAccessory> typeAccessories = typeAccessoryService.getAllTypeAccessory();
         return ResponseEntity.ok(typeAccessories);
     }
@@ -65,4 +83,7 @@ public class TypeController {
         return typeAccessoryService.createNewAccessoryType(typeDto);
     }
 
+    private boolean isNotModified(WebRequest webRequest, List<Category> categories) {
+        return ResponseUtils.isNotModified(webRequest, Optional.of(resourceVersionService.getTypeVersion(categories)));
+    }
 }
@@ -0,0 +1,32 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class CatalogFacetDto {
+    //type id to number of products
+    private Map<Long, Integer> types;
+    private List<PriceBucket> prices;
+    //index is the whole number of stars, 0 to 5
+    private int[] stars;
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @ToString
+    public static class PriceBucket {
+        private double from;
+        //null for the last bucket
+        private Double to;
+        private int count;
+    }
+}
@@ -0,0 +1,26 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import com.gangoffive.birdtradingplatform.entity.Product;
+import com.gangoffive.birdtradingplatform.entity.Promotion;
+import com.gangoffive.birdtradingplatform.entity.ShopOwner;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+//snapshot of everything one checkout reads, loaded once and shared by the validators and the save
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@ToString
+public class CheckoutContextDto {
+    private PackageOrderRequestDto packageOrder;
+    private Map<Long, Integer> productOrder;
+    //orderable products only (product and shop not banned), keyed by id
+    private Map<Long, Product> products;
+    private Map<Long, Double> discountedPrices;
+    private List<Promotion> promotions;
+    private List<ShopOwner> shopOwners;
+}
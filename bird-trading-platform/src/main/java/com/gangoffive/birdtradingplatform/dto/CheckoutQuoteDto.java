@@ -0,0 +1,16 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import lombok.*;
+
+//the cart with every total computed on the server, sent back as is with the token to place the order
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@ToString
+public class CheckoutQuoteDto {
+    private CartDto cartInfo;
+    private String quoteToken;
+    private long expiresAt;
+}
@@ -0,0 +1,21 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import lombok.*;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class CoPurchaseBackfillDto {
+    private RebuildStatus status;
+    private long lastPackageOrderId;
+    private long processedBaskets;
+    private double basketsPerSecond;
+    private Date startedDate;
+    private Date finishedDate;
+}
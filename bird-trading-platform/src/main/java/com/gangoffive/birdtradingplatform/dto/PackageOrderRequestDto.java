@@ -13,4 +13,6 @@ import java.util.Map;
 public class PackageOrderRequestDto {
     private UserOrderDto userInfo;
     private CartDto cartInfo;
+    //from the quote endpoint, the cart is then checked against it instead of recomputed
+    private String quoteToken;
 }
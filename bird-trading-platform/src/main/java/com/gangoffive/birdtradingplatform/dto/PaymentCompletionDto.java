@@ -0,0 +1,18 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import com.gangoffive.birdtradingplatform.enums.PaymentCompletionStatus;
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@ToString
+public class PaymentCompletionDto {
+    private String paymentId;
+    private PaymentCompletionStatus status;
+    private int attempts;
+    private Long packageOrderId;
+    private String errorMessage;
+}
@@ -0,0 +1,31 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+public interface ProductCardView {
+    Long getId();
+
+    String getName();
+
+    Double getPrice();
+
+    String getImgUrl();
+
+    Integer getQuantity();
+
+    Integer getCategoryId();
+
+    Long getTypeId();
+
+    String getTypeName();
+
+    Double getStar();
+
+    Long getShopId();
+
+    String getShopName();
+
+    String getShopAvatarImgUrl();
+
+    Long getAddressId();
+
+    String getAddress();
+}
@@ -0,0 +1,7 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+public interface ProductDiscountRateView {
+    Long getProductId();
+
+    Integer getDiscountRate();
+}
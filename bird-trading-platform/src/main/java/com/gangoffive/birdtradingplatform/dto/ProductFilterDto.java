@@ -21,4 +21,6 @@ public class ProductFilterDto {
     private int pageNumber;
     private Long shopId;
     private Long checkListTypeId;
+    //set (blank for the first page) to page with continuation tokens instead of page numbers
+    private String cursor;
 }
@@ -0,0 +1,24 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import lombok.*;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ProductHierarchyMigrationDto {
+    private Long id;
+    private RebuildStatus status;
+    private long lastProductId;
+    private long copiedTotal;
+    private long recopiedTotal;
+    private long mismatchTotal;
+    private double rowsPerSecond;
+    private Date startedDate;
+    private Date updatedDate;
+}
@@ -0,0 +1,7 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+public interface ProductPriceView {
+    Long getProductId();
+
+    Double getPrice();
+}
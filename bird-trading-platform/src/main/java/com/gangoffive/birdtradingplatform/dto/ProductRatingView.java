@@ -0,0 +1,7 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+public interface ProductRatingView {
+    Long getProductId();
+
+    Double getStar();
+}
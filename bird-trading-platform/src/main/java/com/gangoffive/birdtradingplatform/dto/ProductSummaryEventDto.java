@@ -0,0 +1,22 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ProductSummaryEventDto {
+    private Long productId;
+    private ProductSummaryEventType type;
+    //ORDER_DETAIL_CREATED: quantity ordered
+    private int quantity;
+    //REVIEW_ADDED: star of the new review
+    private int star;
+    //PRODUCT_STATUS_CHANGED: new status of the product
+    private ProductStatus status;
+}
@@ -0,0 +1,22 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import lombok.*;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ProductSummaryRebuildDto {
+    private Long id;
+    private RebuildStatus status;
+    private long lastProductId;
+    private long processedTotal;
+    private double rowsPerSecond;
+    private Date startedDate;
+    private Date updatedDate;
+}
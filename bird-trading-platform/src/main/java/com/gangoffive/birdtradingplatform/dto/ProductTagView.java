@@ -0,0 +1,9 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+public interface ProductTagView {
+    Long getProductId();
+
+    Long getTagId();
+
+    String getTagName();
+}
@@ -0,0 +1,16 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import lombok.*;
+
+import java.util.List;
+
+//published inside the transaction that changed the products, the product read models refresh after it commits
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class ProductsChangedEventDto {
+    private ProductSummaryEventType type;
+    private List<Long> productIds;
+}
@@ -0,0 +1,11 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import java.util.Date;
+
+public interface PromotionShopPeriodView {
+    Long getId();
+
+    Date getStartDate();
+
+    Date getEndDate();
+}
@@ -0,0 +1,16 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ResourceVersionDto {
+    //strong validator, a digest of every column the response is built from
+    private String eTag;
+    //-1 when the resource has no complete last update timestamp
+    private long lastModified;
+}
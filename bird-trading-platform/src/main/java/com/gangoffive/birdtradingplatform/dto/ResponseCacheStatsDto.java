@@ -0,0 +1,19 @@
+package com.gangoffive.birdtradingplatform.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ResponseCacheStatsDto {
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions;
+    private long invalidations;
+    private int entries;
+    private long bytes;
+}
@@ -9,7 +9,9 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "tblAccessory")
+@Table(name = "tblAccessory", indexes = {
+        @Index(name = "IDX_ACCESSORY_SHOP_LAST_UPDATED", columnList = "shop_id, last_updated, product_id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -11,7 +11,9 @@ import com.gangoffive.birdtradingplatform.enums.Gender;
 import org.hibernate.annotations.SQLDelete;
 
 @Entity
-@Table(name = "tblBird")
+@Table(name = "tblBird", indexes = {
+        @Index(name = "IDX_BIRD_SHOP_LAST_UPDATED", columnList = "shop_id, last_updated, product_id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Setter
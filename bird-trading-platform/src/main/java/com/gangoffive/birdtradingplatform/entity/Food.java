@@ -10,7 +10,9 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "tblFood")
+@Table(name = "tblFood", indexes = {
+        @Index(name = "IDX_FOOD_SHOP_LAST_UPDATED", columnList = "shop_id, last_updated, product_id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
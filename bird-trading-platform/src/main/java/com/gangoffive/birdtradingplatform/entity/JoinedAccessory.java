@@ -0,0 +1,25 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "tblProductAccessory")
+@DiscriminatorValue("3")
+@PrimaryKeyJoinColumn(name = "product_id", foreignKey = @ForeignKey(name = "FK_PRODUCT_ACCESSORY_PRODUCT"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class JoinedAccessory extends JoinedProduct {
+    @Column(nullable = false)
+    protected String origin;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "type_id",
+            foreignKey = @ForeignKey(name = "FK_PRODUCT_ACCESSORY_TYPE_ACCESSORY")
+    )
+    private TypeAccessory typeAccessory;
+}
@@ -0,0 +1,32 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import com.gangoffive.birdtradingplatform.enums.Gender;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "tblProductBird")
+@DiscriminatorValue("1")
+@PrimaryKeyJoinColumn(name = "product_id", foreignKey = @ForeignKey(name = "FK_PRODUCT_BIRD_PRODUCT"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class JoinedBird extends JoinedProduct {
+    protected int age;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    protected Gender gender;
+
+    @Column(nullable = false)
+    protected String color;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "type_id",
+            foreignKey = @ForeignKey(name = "FK_PRODUCT_BIRD_TYPE_BIRD")
+    )
+    private TypeBird typeBird;
+}
@@ -0,0 +1,25 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "tblProductFood")
+@DiscriminatorValue("2")
+@PrimaryKeyJoinColumn(name = "product_id", foreignKey = @ForeignKey(name = "FK_PRODUCT_FOOD_PRODUCT"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class JoinedFood extends JoinedProduct {
+    @Column(nullable = false)
+    protected double weight;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "type_id",
+            foreignKey = @ForeignKey(name = "FK_PRODUCT_FOOD_TYPE_FOOD")
+    )
+    private TypeFood typeFood;
+}
@@ -0,0 +1,84 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.util.Date;
+
+//the JOINED product hierarchy Product moves to: shared columns in tbl_product, category_id as the discriminator
+//and one detail table per category. The hierarchy migration fills it and triggers on the bird, food and
+//accessory tables keep it in step until the reads move over.
+@Entity
+@Table(name = "tblProduct", indexes = {
+        @Index(name = "IDX_PRODUCT_CATEGORY", columnList = "category_id, product_id"),
+        @Index(name = "IDX_PRODUCT_SHOP_LAST_UPDATED", columnList = "shop_id, last_updated, product_id")
+})
+@Inheritance(strategy = InheritanceType.JOINED)
+@DiscriminatorColumn(name = "category_id", discriminatorType = DiscriminatorType.INTEGER)
+@NoArgsConstructor
+@Getter
+@Setter
+public abstract class JoinedProduct {
+    @Id
+    @Column(name = "product_id")
+    //the same id table as Product, so rows written through either mapping never share an id
+    @SequenceGenerator(
+            name = "joined_product_id_seq",
+            sequenceName = "product_id_seq",
+            allocationSize = 50,
+            initialValue = 1
+    )
+    @GeneratedValue(
+            strategy = GenerationType.SEQUENCE,
+            generator = "joined_product_id_seq"
+    )
+    protected Long id;
+
+    @Column(nullable = false)
+    protected String name;
+
+    @Column(nullable = false)
+    protected double price;
+
+    @Column(nullable = false,
+            columnDefinition = "TEXT")
+    protected String description;
+
+    @Column(name = "created_date")
+    @CreationTimestamp
+    protected Date createdDate;
+
+    @Column(name = "last_updated")
+    @UpdateTimestamp
+    protected Date lastUpDated;
+
+    @Column(nullable = false)
+    protected Integer quantity;
+
+    @Column(name = "quantity_updated")
+    protected Date quantityUpdated;
+
+    @Column(name = "img_url", nullable = false,
+            columnDefinition = "TEXT")
+    protected String imgUrl;
+
+    @Column(name = "video_url",
+            columnDefinition = "TEXT")
+    protected String videoUrl;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    protected ProductStatus status;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "shop_id",
+            foreignKey = @ForeignKey(name = "FK_PRODUCT_SHOP_OWNER_BASE")
+    )
+    protected ShopOwner shopOwner;
+}
@@ -0,0 +1,37 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.util.Date;
+
+//notification message waiting for the relay to publish it, deleted once kafka acknowledged it
+@Entity(name = "tblNotification_Outbox")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@ToString
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    //receiver id, keeps one receiver's notifications in order on the same partition
+    @Column(name = "message_key")
+    private String messageKey;
+
+    @Lob
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_date")
+    private Date createdDate;
+}
@@ -0,0 +1,72 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import com.gangoffive.birdtradingplatform.enums.PaymentCompletionStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.util.Date;
+
+//outbox row of an approved paypal payment, finished by the payment completion workers
+@Entity(name = "tblPayment_Completion")
+@Table(indexes = {
+        @Index(name = "IDX_PAYMENT_COMPLETION_STATUS_NEXT_ATTEMPT", columnList = "status, next_attempt_date")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@ToString
+public class PaymentCompletion {
+    public static final int ERROR_MESSAGE_LENGTH = 255;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "payment_completion_id")
+    private Long id;
+
+    //paypal payment id, also the idempotency key of the whole completion
+    @Column(name = "payment_id", nullable = false, unique = true)
+    private String paymentId;
+
+    @Column(name = "payer_id", nullable = false)
+    private String payerId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    //PackageOrderRequestDto as json
+    @Lob
+    @Column(name = "request", nullable = false, columnDefinition = "TEXT")
+    private String request;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private PaymentCompletionStatus status;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "next_attempt_date")
+    private Date nextAttemptDate;
+
+    //a worker owns the row until then, a crashed worker's row is picked up again afterwards
+    @Column(name = "locked_until")
+    private Date lockedUntil;
+
+    @Column(name = "package_order_id")
+    private Long packageOrderId;
+
+    @Column(name = "error_message", length = ERROR_MESSAGE_LENGTH)
+    private String errorMessage;
+
+    @CreationTimestamp
+    @Column(name = "created_date")
+    private Date createdDate;
+
+    @UpdateTimestamp
+    @Column(name = "lasted_update")
+    private Date lastedUpdate;
+}
@@ -17,16 +17,19 @@ import java.util.List;
 @AllArgsConstructor
 @Getter
 @Setter
+//the JOINED mapping of the same products is JoinedProduct, kept in step by the hierarchy migration triggers
 @Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
 //@Where(clause = "is_deleted = false AND quantity > 0")
 //@EntityListeners(ProductEntityListener.class)
 public abstract class Product {
     @Id
     @Column(name = "product_id")
+    //pooled-lo (app wide, see hibernate.id.optimizer.pooled.preferred) hands out [next_val, next_val + 50)
+    //from memory, so a stored next_val written with allocationSize 1 stays valid and ids never collide
     @SequenceGenerator(
             name = "product_id_seq",
             sequenceName = "product_id_seq",
-            allocationSize = 1,
+            allocationSize = 50,
             initialValue = 1
     )
     @GeneratedValue(
@@ -57,6 +60,10 @@ public abstract class Product {
     @Column(nullable = false)
     protected Integer quantity;
 
+    //set by the stock updates, which leave last_updated alone so stock moves don't reorder the shop listings
+    @Column(name = "quantity_updated")
+    protected Date quantityUpdated;
+
     @Column(name = "img_url", nullable = false,
             columnDefinition = "TEXT")
     protected String imgUrl;
@@ -147,6 +154,14 @@ public abstract class Product {
         this.quantity = quantity;
     }
 
+    public Date getQuantityUpdated() {
+        return quantityUpdated;
+    }
+
+    public void setQuantityUpdated(Date quantityUpdated) {
+        this.quantityUpdated = quantityUpdated;
+    }
+
     public String getImgUrl() {
         return imgUrl;
     }
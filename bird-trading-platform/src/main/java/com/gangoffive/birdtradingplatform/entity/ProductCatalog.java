@@ -0,0 +1,71 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.enums.ShopOwnerStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+//one row per product copied from the bird/food/accessory tables, summary, type and shop so listings and cards
+//read a single table instead of the TABLE_PER_CLASS union; written only by ProductCatalogRepositoryCustom
+@Entity(name = "tblProduct_Catalog")
+@Table(indexes = {
+        @Index(name = "IDX_PRODUCT_CATALOG_CATEGORY_VISIBLE", columnList = "category_id, status, shop_status, product_id"),
+        @Index(name = "IDX_PRODUCT_CATALOG_SHOP_LAST_UPDATED", columnList = "shop_id, status, last_updated, product_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+public class ProductCatalog {
+    @Id
+    @Column(name = "product_id")
+    private Long id;
+
+    @Column(name = "category_id", nullable = false)
+    private int categoryId;
+
+    @Column(name = "type_id")
+    private Long typeId;
+
+    @Column(name = "type_name")
+    private String typeName;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    //first image of the product
+    @Column(name = "img_url", columnDefinition = "TEXT")
+    private String imgUrl;
+
+    @Column(name = "price", nullable = false)
+    private double price;
+
+    @Column(name = "discounted_price")
+    private double discountedPrice;
+
+    @Column(name = "star")
+    private double star;
+
+    @Column(name = "total_quantity_order")
+    private double totalQuantityOrder;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private ProductStatus status;
+
+    @Column(name = "shop_id", nullable = false)
+    private Long shopId;
+
+    @Column(name = "shop_status")
+    @Enumerated(EnumType.STRING)
+    private ShopOwnerStatus shopStatus;
+
+    @Column(name = "last_updated")
+    private Date lastUpdated;
+}
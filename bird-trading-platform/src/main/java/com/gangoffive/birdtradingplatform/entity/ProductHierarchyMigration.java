@@ -0,0 +1,51 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.util.Date;
+
+@Entity(name = "tblProduct_Hierarchy_Migration")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ProductHierarchyMigration {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "migration_id")
+    private Long id;
+
+    //every product with id <= lastProductId has been copied and verified once
+    @Column(name = "last_product_id")
+    private long lastProductId;
+
+    @Column(name = "copied_total")
+    private long copiedTotal;
+
+    //rows changed behind the copy and copied again by a verify pass
+    @Column(name = "recopied_total")
+    private long recopiedTotal;
+
+    //rows the last verify pass found different, 0 once the copy has caught up with the writes
+    @Column(name = "mismatch_total")
+    private long mismatchTotal;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private RebuildStatus status;
+
+    @CreationTimestamp
+    @Column(name = "started_date")
+    private Date startedDate;
+
+    @UpdateTimestamp
+    @Column(name = "updated_date")
+    private Date updatedDate;
+}
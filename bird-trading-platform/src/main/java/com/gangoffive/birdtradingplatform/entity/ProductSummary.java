@@ -2,9 +2,15 @@ package com.gangoffive.birdtradingplatform.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.annotations.Where;
 
+import java.util.Date;
+
 @Entity(name = "tblProduct_Summary")
+@Table(indexes = {
+        @Index(name = "IDX_PRODUCT_SUMMARY_DISCOUNTED_PRICE", columnList = "discounted_price, product_id")
+})
 @Data
 //@Where(clause = "is_deleted = false")
 public class ProductSummary {
@@ -25,6 +31,10 @@ public class ProductSummary {
     @Column(name = "review_total")
     private int reviewTotal;
 
+    //sum of all review stars, star = ratingTotal / reviewTotal
+    @Column(name = "rating_total")
+    private long ratingTotal;
+
     @Column(name = "category")
     private String category;
 
@@ -36,4 +46,9 @@ public class ProductSummary {
 
     @Column(name = "is_deleted")
     private boolean deleted;
+
+    //moved by every summary write, bulk ones included, product detail reports it as Last-Modified
+    @Column(name = "last_updated")
+    @UpdateTimestamp
+    private Date lastUpdated;
 }
@@ -0,0 +1,43 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.util.Date;
+
+@Entity(name = "tblProduct_Summary_Rebuild")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ProductSummaryRebuild {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rebuild_id")
+    private Long id;
+
+    //every product with id <= lastProductId has been rebuilt
+    @Column(name = "last_product_id")
+    private long lastProductId;
+
+    @Column(name = "processed_total")
+    private long processedTotal;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private RebuildStatus status;
+
+    @CreationTimestamp
+    @Column(name = "started_date")
+    private Date startedDate;
+
+    @UpdateTimestamp
+    @Column(name = "updated_date")
+    private Date updatedDate;
+}
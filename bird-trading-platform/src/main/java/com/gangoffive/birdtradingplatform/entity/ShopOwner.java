@@ -5,6 +5,7 @@ import com.gangoffive.birdtradingplatform.enums.ShopOwnerStatus;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.util.Date;
 import java.util.List;
@@ -51,6 +52,15 @@ public class ShopOwner {
 	@Column(name = " created_date")
 	@CreationTimestamp
 	private Date createdDate;
+
+	@Column(name = "last_updated")
+	@UpdateTimestamp
+	private Date lastUpdated;
+
+	//bumped in the database whenever an order detail or review of the shop is written, never by the entity
+	@Column(name = "sales_version", nullable = false, insertable = false, updatable = false,
+			columnDefinition = "BIGINT DEFAULT 0")
+	private long salesVersion;
 	
 	// one shop have one account
 	@OneToOne
@@ -0,0 +1,47 @@
+package com.gangoffive.birdtradingplatform.entity;
+
+import com.gangoffive.birdtradingplatform.enums.ReservationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.util.Date;
+
+@Entity(name = "tblStock_Reservation")
+@Table(indexes = {
+        @Index(name = "IDX_STOCK_RESERVATION_PAYMENT", columnList = "payment_id"),
+        @Index(name = "IDX_STOCK_RESERVATION_STATUS_EXPIRED", columnList = "status, expired_date")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@ToString
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "reservation_id")
+    private Long id;
+
+    //paypal payment id the stock is held for
+    @Column(name = "payment_id", nullable = false)
+    private String paymentId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private ReservationStatus status;
+
+    @Column(name = "expired_date")
+    private Date expiredDate;
+
+    @CreationTimestamp
+    @Column(name = "created_date")
+    private Date createdDate;
+}
@@ -0,0 +1,12 @@
+package com.gangoffive.birdtradingplatform.enums;
+
+public enum PaymentCompletionStatus {
+    //recorded, stock not confirmed yet
+    PENDING,
+    //stock confirmed, paypal execution pending or being retried
+    EXECUTING,
+    COMPLETED,
+    FAILED,
+    //paypal could not tell whether the buyer was charged, the stock stays held until someone checks
+    RECONCILING
+}
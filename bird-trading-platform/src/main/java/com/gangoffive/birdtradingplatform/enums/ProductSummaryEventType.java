@@ -0,0 +1,10 @@
+package com.gangoffive.birdtradingplatform.enums;
+
+public enum ProductSummaryEventType {
+    ORDER_DETAIL_CREATED,
+    REVIEW_ADDED,
+    PROMOTION_CHANGED,
+    PRODUCT_STATUS_CHANGED,
+    //published straight to the read models, stock is not part of the summary row
+    QUANTITY_CHANGED
+}
@@ -0,0 +1,46 @@
+package com.gangoffive.birdtradingplatform.enums;
+
+import com.gangoffive.birdtradingplatform.entity.Accessory;
+import com.gangoffive.birdtradingplatform.entity.Bird;
+import com.gangoffive.birdtradingplatform.entity.Food;
+import com.gangoffive.birdtradingplatform.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+//tables of each product category, for the native queries that read the categories one by one
+@AllArgsConstructor
+@Getter
+public enum ProductTable {
+    BIRD(Category.BIRD, Bird.class, "tbl_bird", "tbl_type_bird", "type_b_id", "tbl_tag_bird", "bird_id",
+            "tbl_product_bird", List.of("age", "gender", "color", "type_id")),
+    FOOD(Category.FOOD, Food.class, "tbl_food", "tbl_type_food", "type_f_id", "tbl_tag_food", "food_id",
+            "tbl_product_food", List.of("weight", "type_id")),
+    ACCESSORY(Category.ACCESSORY, Accessory.class, "tbl_accessory", "tbl_type_accessory", "type_a_id", "tbl_tag_accessory", "accessory_id",
+            "tbl_product_accessory", List.of("origin", "type_id"));
+
+    private final Category category;
+    //the summary rows name their category after it
+    private final Class<? extends Product> entityClass;
+    private final String productTable;
+    private final String typeTable;
+    private final String typeIdColumn;
+    private final String tagTable;
+    private final String tagProductColumn;
+    //the category table of the JOINED hierarchy and the subclass columns it takes over
+    private final String detailTable;
+    private final List<String> detailColumns;
+
+    public int getCategoryId() {
+        return category.getCategoryId();
+    }
+
+    public static ProductTable of(Category category) {
+        return Arrays.stream(ProductTable.values())
+                .filter(table -> table.getCategory() == category)
+                .findFirst()
+                .orElseThrow();
+    }
+}
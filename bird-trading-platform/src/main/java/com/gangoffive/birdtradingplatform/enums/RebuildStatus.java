@@ -0,0 +1,7 @@
+package com.gangoffive.birdtradingplatform.enums;
+
+public enum RebuildStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,7 @@
+package com.gangoffive.birdtradingplatform.enums;
+
+public enum ReservationStatus {
+    RESERVED,
+    COMMITTED,
+    RELEASED
+}
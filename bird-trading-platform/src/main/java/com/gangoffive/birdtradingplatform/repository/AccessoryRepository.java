@@ -5,6 +5,7 @@
  */
 package com.gangoffive.birdtradingplatform.repository;
 
+import com.gangoffive.birdtradingplatform.dto.ProductSeekView;
 import com.gangoffive.birdtradingplatform.entity.Accessory;
 import com.gangoffive.birdtradingplatform.entity.Product;
 import com.gangoffive.birdtradingplatform.entity.ShopOwner;
@@ -14,6 +15,7 @@ import com.gangoffive.birdtradingplatform.enums.ShopOwnerStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -25,13 +27,18 @@ import java.util.Optional;
 public interface AccessoryRepository extends JpaRepository<Accessory, Long> {
     Optional<List<Accessory>> findByNameLikeAndStatusInAndQuantityGreaterThanEqual(String name, List<ProductStatus> productStatuses, int quantity);
 
+    //name matches of the filters while the search index is still being built
+    @Query(value = "SELECT a.product_id FROM `bird-trading-platform`.tbl_accessory a " +
+            "WHERE a.name LIKE %?1% AND a.status = 'ACTIVE' LIMIT ?2", nativeQuery = true)
+    List<Long> findIdByNameLike(String name, int limit);
+
     @Query(value = "SELECT a.product_id " +
             "FROM `bird-trading-platform`.tbl_accessory a " +
             "INNER JOIN `bird-trading-platform`.tbl_product_summary ps " +
             "ON a.product_id= ps.product_id " +
             "INNER JOIN `bird-trading-platform`.tbl_shop_owner_acc sh " +
             "ON a.shop_id = sh.shop_id " +
-            "WHERE (MATCH(a.name) AGAINST (?1 IN NATURAL LANGUAGE MODE) OR a.name LIKE %?1%) " +
+            "WHERE (a.product_id IN (?1) OR ?9 IS NULL) " +
             "AND (a.type_id IN (?2) OR ?7 IS NULL) " +
             "And ps.star >= ?3 " +
             "And ps.discounted_price >= ?4 " +
@@ -40,8 +47,61 @@ public interface AccessoryRepository extends JpaRepository<Accessory, Long> {
             "And a.status = 'ACTIVE' " +
             "And a.quantity > 0 " +
             "And sh.status IN (?8) ", nativeQuery = true)
-    Page<Long> idFilter(String name, List<Long> listTypeId, double star,
-                        double lowestPrice, double highestPrice, Long id, Long typeId, List<String> shopOwnerStatuses, Pageable pageable);
+    Page<Long> idFilter(List<Long> productIds, List<Long> listTypeId, double star,
+                        double lowestPrice, double highestPrice, Long id, Long typeId, List<String> shopOwnerStatuses, Long checkProductIds, Pageable pageable);
+
+    //seek variants of idFilter without the count query, the page starts after (afterPrice, afterId); one query
+    //per direction so the row comparison and the plain ordering can walk the (discounted_price, product_id) index
+    @Query(value = "SELECT a.product_id AS productId, ps.discounted_price AS discountedPrice " +
+            "FROM `bird-trading-platform`.tbl_accessory a " +
+            "INNER JOIN `bird-trading-platform`.tbl_product_summary ps " +
+            "ON a.product_id = ps.product_id " +
+            "INNER JOIN `bird-trading-platform`.tbl_shop_owner_acc sh " +
+            "ON a.shop_id = sh.shop_id " +
+            "WHERE (a.product_id IN (?1) OR ?9 IS NULL) " +
+            "AND (a.type_id IN (?2) OR ?7 IS NULL) " +
+            "AND ps.star >= ?3 " +
+            "AND ps.discounted_price >= ?4 " +
+            "AND ps.discounted_price <= ?5 " +
+            "AND (COALESCE(?6, a.shop_id) = a.shop_id OR ?6 IS NULL) " +
+            "AND a.status = 'ACTIVE' " +
+            "AND a.quantity > 0 " +
+            "AND sh.status IN (?8) " +
+            "AND (ps.discounted_price, ps.product_id) > (?10, ?11) " +
+            "ORDER BY ps.discounted_price ASC, ps.product_id ASC " +
+            "LIMIT ?12", nativeQuery = true)
+    List<ProductSeekView> idFilterAfterAscending(List<Long> productIds, List<Long> listType, double star,
+                                                  double lowestPrice, double highestPrice, Long shopId, Long typeId,
+                                                  List<String> shopOwnerStatuses, Long checkProductIds, double afterPrice,
+                                                  long afterId, int limit);
+
+    @Query(value = "SELECT a.product_id AS productId, ps.discounted_price AS discountedPrice " +
+            "FROM `bird-trading-platform`.tbl_accessory a " +
+            "INNER JOIN `bird-trading-platform`.tbl_product_summary ps " +
+            "ON a.product_id = ps.product_id " +
+            "INNER JOIN `bird-trading-platform`.tbl_shop_owner_acc sh " +
+            "ON a.shop_id = sh.shop_id " +
+            "WHERE (a.product_id IN (?1) OR ?9 IS NULL) " +
+            "AND (a.type_id IN (?2) OR ?7 IS NULL) " +
+            "AND ps.star >= ?3 " +
+            "AND ps.discounted_price >= ?4 " +
+            "AND ps.discounted_price <= ?5 " +
+            "AND (COALESCE(?6, a.shop_id) = a.shop_id OR ?6 IS NULL) " +
+            "AND a.status = 'ACTIVE' " +
+            "AND a.quantity > 0 " +
+            "AND sh.status IN (?8) " +
+            "AND (ps.discounted_price, ps.product_id) < (?10, ?11) " +
+            "ORDER BY ps.discounted_price DESC, ps.product_id DESC " +
+            "LIMIT ?12", nativeQuery = true)
+    List<ProductSeekView> idFilterAfterDescending(List<Long> productIds, List<Long> listType, double star,
+                                                   double lowestPrice, double highestPrice, Long shopId, Long typeId,
+                                                   List<String> shopOwnerStatuses, Long checkProductIds, double afterPrice,
+                                                   long afterId, int limit);
+
+    List<Accessory> findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusInAndIdGreaterThanOrderByIdAsc(
+            int quantity, List<ProductStatus> productStatuses, List<ShopOwnerStatus> shopOwnerStatuses, Long id,
+            Pageable pageable
+    );
 
     Page<Accessory> findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(int quantity, List<ProductStatus> productStatuses,
                                                                                  List<ShopOwnerStatus> shopOwnerStatuses, Pageable pageable);
@@ -103,13 +163,13 @@ public interface AccessoryRepository extends JpaRepository<Accessory, Long> {
 
     Accessory findByIdAndShopOwner(Long id, ShopOwner shopOwner);
 
-    @Query("SELECT b FROM Accessory b WHERE b.id IN " +
+    @Query("SELECT b.id FROM Accessory b WHERE b.id IN " +
             "(SELECT DISTINCT b2.id FROM Accessory b2 JOIN b2.productSummary ps JOIN b2.tags t " +
             "JOIN b2.shopOwner sh " +
             "WHERE (b2.typeAccessory.id = :typeId OR ( t.id IN :tagIds ) OR TRUE = TRUE ) AND b2.quantity > 0 AND (b2.status IN :status) " +
             " AND (sh.status IN :statusShop )) " +
             "ORDER BY b.productSummary.totalQuantityOrder DESC")
-    List<Product> findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(@Param("typeId") long typeId,
+    List<Long> findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(@Param("typeId") long typeId,
                                                                       @Param("tagIds") List<Long> tagIds,
                                                                       @Param("status") List<ProductStatus> statusList,
                                                                       @Param("statusShop") List<ShopOwnerStatus> shopOwnerStatuses,
@@ -117,7 +177,16 @@ public interface AccessoryRepository extends JpaRepository<Accessory, Long> {
 
     Optional<List<Accessory>> findAllByShopOwnerAndStatus(ShopOwner shopOwner, ProductStatus productStatus);
 
-    Optional<List<Accessory>> findByTagsInAndShopOwner_IdAndStatusIn(List<Tag> tag, long shopId, List<ProductStatus> productStatuses);
+    @Query("SELECT DISTINCT b.id FROM Accessory b JOIN b.tags t WHERE t.id IN ?1 AND b.shopOwner.id = ?2 AND b.status IN ?3")
+    List<Long> findIdByTagIdInAndShopOwner_IdAndStatusIn(List<Long> tagIds, long shopId, List<ProductStatus> productStatuses);
 
     Optional<List<Accessory>> findByTagsInAndShopOwner_IdAndStatus(List<Tag> tags, long shopId, ProductStatus productStatus);
+
+    @Modifying
+    @Query(value = "UPDATE tbl_accessory SET quantity = quantity - ?2, quantity_updated = CURRENT_TIMESTAMP WHERE product_id = ?1 AND quantity >= ?2", nativeQuery = true)
+    int decreaseQuantity(Long productId, int quantity);
+
+    @Modifying
+    @Query(value = "UPDATE tbl_accessory SET quantity = quantity + ?2, quantity_updated = CURRENT_TIMESTAMP WHERE product_id = ?1", nativeQuery = true)
+    int increaseQuantity(Long productId, int quantity);
 }
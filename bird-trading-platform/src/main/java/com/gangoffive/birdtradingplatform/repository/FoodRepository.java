@@ -5,6 +5,7 @@
  */
 package com.gangoffive.birdtradingplatform.repository;
 
+import com.gangoffive.birdtradingplatform.dto.ProductSeekView;
 import com.gangoffive.birdtradingplatform.entity.Food;
 import com.gangoffive.birdtradingplatform.entity.Product;
 import com.gangoffive.birdtradingplatform.entity.ShopOwner;
@@ -14,6 +15,7 @@ import com.gangoffive.birdtradingplatform.enums.ShopOwnerStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -25,13 +27,18 @@ import java.util.Optional;
 public interface FoodRepository extends JpaRepository<Food, Long> {
     Optional<List<Food>> findByNameLike(String name);
 
+    //name matches of the filters while the search index is still being built
+    @Query(value = "SELECT f.product_id FROM `bird-trading-platform`.tbl_food f " +
+            "WHERE f.name LIKE %?1% AND f.status = 'ACTIVE' LIMIT ?2", nativeQuery = true)
+    List<Long> findIdByNameLike(String name, int limit);
+
     @Query(value = "SELECT f.product_id " +
             "FROM `bird-trading-platform`.tbl_food f " +
             "INNER JOIN `bird-trading-platform`.tbl_product_summary ps " +
             "ON f.product_id = ps.product_id " +
             "INNER JOIN `bird-trading-platform`.tbl_shop_owner_acc sh " +
             "ON f.shop_id = sh.shop_id " +
-            "WHERE (MATCH(f.name) AGAINST (?1 IN NATURAL LANGUAGE MODE) OR f.name LIKE %?1%)" +
+            "WHERE (f.product_id IN (?1) OR ?9 IS NULL) " +
 //            "AND (COALESCE(?2, f.type_id) IN (?2) OR ?2 IS NULL) " +
             "AND (f.type_id IN (?2) OR ?7 IS NULL) " +
             "AND ps.star >= ?3 " +
@@ -41,8 +48,61 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
             "And f.status = 'ACTIVE' " +
             "And f.quantity > 0 " +
             "And sh.status IN (?8) ", nativeQuery = true)
-    Page<Long> idFilter(String name, List<Long> listTypeId, double star,
-                        double lowestPrice, double highPrice, Long shopId, Long typeId, List<String> shopOwnerStatuses, Pageable pageable);
+    Page<Long> idFilter(List<Long> productIds, List<Long> listTypeId, double star,
+                        double lowestPrice, double highPrice, Long shopId, Long typeId, List<String> shopOwnerStatuses, Long checkProductIds, Pageable pageable);
+
+    //seek variants of idFilter without the count query, the page starts after (afterPrice, afterId); one query
+    //per direction so the row comparison and the plain ordering can walk the (discounted_price, product_id) index
+    @Query(value = "SELECT f.product_id AS productId, ps.discounted_price AS discountedPrice " +
+            "FROM `bird-trading-platform`.tbl_food f " +
+            "INNER JOIN `bird-trading-platform`.tbl_product_summary ps " +
+            "ON f.product_id = ps.product_id " +
+            "INNER JOIN `bird-trading-platform`.tbl_shop_owner_acc sh " +
+            "ON f.shop_id = sh.shop_id " +
+            "WHERE (f.product_id IN (?1) OR ?9 IS NULL) " +
+            "AND (f.type_id IN (?2) OR ?7 IS NULL) " +
+            "AND ps.star >= ?3 " +
+            "AND ps.discounted_price >= ?4 " +
+            "AND ps.discounted_price <= ?5 " +
+            "AND (COALESCE(?6, f.shop_id) = f.shop_id OR ?6 IS NULL) " +
+            "AND f.status = 'ACTIVE' " +
+            "AND f.quantity > 0 " +
+            "AND sh.status IN (?8) " +
+            "AND (ps.discounted_price, ps.product_id) > (?10, ?11) " +
+            "ORDER BY ps.discounted_price ASC, ps.product_id ASC " +
+            "LIMIT ?12", nativeQuery = true)
+    List<ProductSeekView> idFilterAfterAscending(List<Long> productIds, List<Long> listType, double star,
+                                                  double lowestPrice, double highestPrice, Long shopId, Long typeId,
+                                                  List<String> shopOwnerStatuses, Long checkProductIds, double afterPrice,
+                                                  long afterId, int limit);
+
+    @Query(value = "SELECT f.product_id AS productId, ps.discounted_price AS discountedPrice " +
+            "FROM `bird-trading-platform`.tbl_food f " +
+            "INNER JOIN `bird-trading-platform`.tbl_product_summary ps " +
+            "ON f.product_id = ps.product_id " +
+            "INNER JOIN `bird-trading-platform`.tbl_shop_owner_acc sh " +
+            "ON f.shop_id = sh.shop_id " +
+            "WHERE (f.product_id IN (?1) OR ?9 IS NULL) " +
+            "AND (f.type_id IN (?2) OR ?7 IS NULL) " +
+            "AND ps.star >= ?3 " +
+            "AND ps.discounted_price >= ?4 " +
+            "AND ps.discounted_price <= ?5 " +
+            "AND (COALESCE(?6, f.shop_id) = f.shop_id OR ?6 IS NULL) " +
+            "AND f.status = 'ACTIVE' " +
+            "AND f.quantity > 0 " +
+            "AND sh.status IN (?8) " +
+            "AND (ps.discounted_price, ps.product_id) < (?10, ?11) " +
+            "ORDER BY ps.discounted_price DESC, ps.product_id DESC " +
+            "LIMIT ?12", nativeQuery = true)
+    List<ProductSeekView> idFilterAfterDescending(List<Long> productIds, List<Long> listType, double star,
+                                                   double lowestPrice, double highestPrice, Long shopId, Long typeId,
+                                                   List<String> shopOwnerStatuses, Long checkProductIds, double afterPrice,
+                                                   long afterId, int limit);
+
+    List<Food> findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusInAndIdGreaterThanOrderByIdAsc(
+            int quantity, List<ProductStatus> productStatuses, List<ShopOwnerStatus> shopOwnerStatuses, Long id,
+            Pageable pageable
+    );
 
     Page<Food> findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(int quantity, List<ProductStatus> productStatuses,
                                                                             List<ShopOwnerStatus> shopOwnerStatuses, Pageable pageable);
@@ -104,13 +164,13 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
 
     Food findByIdAndShopOwner(Long id, ShopOwner shopOwner);
 
-    @Query("SELECT b FROM Food b WHERE b.id IN " +
+    @Query("SELECT b.id FROM Food b WHERE b.id IN " +
             "(SELECT DISTINCT b2.id FROM Food b2 JOIN b2.productSummary ps JOIN b2.tags t " +
             "JOIN b2.shopOwner sh " +
             "WHERE (b2.typeFood.id = :typeId OR (t.id IN :tagIds) OR True = True ) AND b2.quantity > 0 AND (b2.status IN :status)" +
             " AND (sh.status IN :statusShop )) " +
             "ORDER BY b.productSummary.totalQuantityOrder DESC")
-    List<Product> findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(@Param("typeId") long typeId,
+    List<Long> findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(@Param("typeId") long typeId,
                                                                       @Param("tagIds") List<Long> tagIds,
                                                                       @Param("status") List<ProductStatus> statusList,
                                                                       @Param("statusShop") List<ShopOwnerStatus> shopOwnerStatuses,
@@ -118,7 +178,16 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
 
     Optional<List<Food>> findAllByShopOwnerAndStatus(ShopOwner shopOwner, ProductStatus productStatus);
 
-    Optional<List<Food>> findByTagsInAndShopOwner_IdAndStatusIn(List<Tag> tag, long shopId, List<ProductStatus> productStatuses);
+    @Query("SELECT DISTINCT b.id FROM Food b JOIN b.tags t WHERE t.id IN ?1 AND b.shopOwner.id = ?2 AND b.status IN ?3")
+    List<Long> findIdByTagIdInAndShopOwner_IdAndStatusIn(List<Long> tagIds, long shopId, List<ProductStatus> productStatuses);
 
     Optional<List<Food>> findByTagsInAndShopOwner_IdAndStatus(List<Tag> tags, long shopId, ProductStatus productStatus);
+
+    @Modifying
+    @Query(value = "UPDATE tbl_food SET quantity = quantity - ?2, quantity_updated = CURRENT_TIMESTAMP WHERE product_id = ?1 AND quantity >= ?2", nativeQuery = true)
+    int decreaseQuantity(Long productId, int quantity);
+
+    @Modifying
+    @Query(value = "UPDATE tbl_food SET quantity = quantity + ?2, quantity_updated = CURRENT_TIMESTAMP WHERE product_id = ?1", nativeQuery = true)
+    int increaseQuantity(Long productId, int quantity);
 }
@@ -0,0 +1,9 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.JoinedProduct;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JoinedProductRepository extends JpaRepository<JoinedProduct, Long> {
+}
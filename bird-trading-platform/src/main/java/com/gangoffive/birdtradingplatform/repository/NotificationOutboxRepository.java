@@ -0,0 +1,13 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.NotificationOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long>, NotificationOutboxRepositoryCustom {
+    List<NotificationOutbox> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+}
@@ -0,0 +1,9 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.NotificationOutbox;
+
+import java.util.List;
+
+public interface NotificationOutboxRepositoryCustom {
+    int[] insertAllInBatch(List<NotificationOutbox> messages);
+}
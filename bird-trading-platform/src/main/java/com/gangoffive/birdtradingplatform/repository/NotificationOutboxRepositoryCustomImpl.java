@@ -0,0 +1,33 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.NotificationOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+@RequiredArgsConstructor
+public class NotificationOutboxRepositoryCustomImpl implements NotificationOutboxRepositoryCustom {
+    private static final String INSERT_OUTBOX = "INSERT INTO tbl_notification_outbox " +
+            "(topic, message_key, payload, created_date) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] insertAllInBatch(List<NotificationOutbox> messages) {
+        if (messages.isEmpty()) {
+            return new int[0];
+        }
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Asia/Bangkok"));
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return jdbcTemplate.batchUpdate(INSERT_OUTBOX, messages, messages.size(), (statement, message) -> {
+            statement.setString(1, message.getTopic());
+            statement.setString(2, message.getMessageKey());
+            statement.setString(3, message.getPayload());
+            statement.setTimestamp(4, now, calendar);
+        })[0];
+    }
+}
@@ -16,7 +16,7 @@ import java.util.Date;
 import java.util.List;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
+public interface NotificationRepository extends JpaRepository<Notification, Long>, NotificationRepositoryCustom {
     Page<Notification> findAllByNotiDateAfterAndAccount_IdAndRoleIs(Date dateAfter, long id, UserRole role, Pageable pageable);
 
     @Transactional
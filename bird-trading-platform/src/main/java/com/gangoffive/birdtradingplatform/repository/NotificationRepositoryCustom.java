@@ -0,0 +1,10 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.Notification;
+
+import java.util.List;
+
+public interface NotificationRepositoryCustom {
+    //inserts in one jdbc batch and sets the generated ids back on the notifications
+    List<Notification> insertAllInBatch(List<Notification> notifications);
+}
@@ -0,0 +1,52 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.Notification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+@RequiredArgsConstructor
+public class NotificationRepositoryCustomImpl implements NotificationRepositoryCustom {
+    private static final String INSERT_NOTIFICATION = "INSERT INTO tbl_notification " +
+            "(noti_text, name, noti_date, is_seen, role, receiver_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Notification> insertAllInBatch(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return notifications;
+        }
+        //same zone hibernate writes timestamps in (hibernate.jdbc.time_zone)
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Asia/Bangkok"));
+        return jdbcTemplate.execute((ConnectionCallback<List<Notification>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_NOTIFICATION, Statement.RETURN_GENERATED_KEYS)) {
+                for (Notification notification : notifications) {
+                    statement.setString(1, notification.getNotiText());
+                    statement.setString(2, notification.getName());
+                    statement.setTimestamp(3, new Timestamp(notification.getNotiDate().getTime()), calendar);
+                    statement.setBoolean(4, notification.isSeen());
+                    statement.setString(5, notification.getRole().name());
+                    statement.setLong(6, notification.getAccount().getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Notification notification : notifications) {
+                        keys.next();
+                        notification.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return notifications;
+        });
+    }
+}
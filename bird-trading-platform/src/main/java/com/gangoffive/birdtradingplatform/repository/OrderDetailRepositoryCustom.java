@@ -0,0 +1,10 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.OrderDetail;
+
+import java.util.List;
+
+public interface OrderDetailRepositoryCustom {
+    //inserts the details and their promotion shop links in jdbc batches, sets the generated ids back
+    List<OrderDetail> insertAllInBatch(List<OrderDetail> orderDetails);
+}
@@ -0,0 +1,62 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.OrderDetail;
+import com.gangoffive.birdtradingplatform.entity.PromotionShop;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class OrderDetailRepositoryCustomImpl implements OrderDetailRepositoryCustom {
+    private static final String INSERT_ORDER_DETAIL = "INSERT INTO tbl_order_detail " +
+            "(price, quantity, product_promotion_rate, product_id, order_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ORDER_DETAIL_PROMOTION_SHOP = "INSERT INTO tbl_order_detail_promotion_shop " +
+            "(order_d_id, promotion_s_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<OrderDetail> insertAllInBatch(List<OrderDetail> orderDetails) {
+        if (orderDetails.isEmpty()) {
+            return orderDetails;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ORDER_DETAIL, Statement.RETURN_GENERATED_KEYS)) {
+                for (OrderDetail orderDetail : orderDetails) {
+                    statement.setDouble(1, orderDetail.getPrice());
+                    statement.setInt(2, orderDetail.getQuantity());
+                    statement.setDouble(3, orderDetail.getProductPromotionRate());
+                    statement.setLong(4, orderDetail.getProduct().getId());
+                    statement.setLong(5, orderDetail.getOrder().getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (OrderDetail orderDetail : orderDetails) {
+                        keys.next();
+                        orderDetail.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+        List<Object[]> promotionShopLinks = new ArrayList<>();
+        for (OrderDetail orderDetail : orderDetails) {
+            if (orderDetail.getPromotionShops() != null) {
+                for (PromotionShop promotionShop : orderDetail.getPromotionShops()) {
+                    promotionShopLinks.add(new Object[]{orderDetail.getId(), promotionShop.getId()});
+                }
+            }
+        }
+        if (!promotionShopLinks.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ORDER_DETAIL_PROMOTION_SHOP, promotionShopLinks);
+        }
+        return orderDetails;
+    }
+}
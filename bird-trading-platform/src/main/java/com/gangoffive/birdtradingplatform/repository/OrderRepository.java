@@ -17,7 +17,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
     List<Order> findByShopOwner(ShopOwner shopOwner);
 
     Optional<Order> findByShopOwnerAndId(ShopOwner shopOwner, Long id);
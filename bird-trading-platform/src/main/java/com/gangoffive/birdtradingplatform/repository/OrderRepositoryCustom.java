@@ -0,0 +1,10 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.Order;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+    //inserts in one jdbc batch and sets the generated ids back on the orders
+    List<Order> insertAllInBatch(List<Order> orders);
+}
@@ -0,0 +1,58 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+//identity ids stop hibernate from batching inserts, so checkout writes its orders through jdbc
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+    private static final String INSERT_ORDER = "INSERT INTO tbl_order " +
+            "(total_price, status, shipping_fee, created_date, lasted_update, shop_id, package_order_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Order> insertAllInBatch(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        //same zone hibernate writes timestamps in (hibernate.jdbc.time_zone)
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Asia/Bangkok"));
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return jdbcTemplate.execute((ConnectionCallback<List<Order>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS)) {
+                for (Order order : orders) {
+                    statement.setDouble(1, order.getTotalPrice());
+                    statement.setString(2, order.getStatus().name());
+                    statement.setDouble(3, order.getShippingFee());
+                    statement.setTimestamp(4, now, calendar);
+                    statement.setTimestamp(5, now, calendar);
+                    statement.setLong(6, order.getShopOwner().getId());
+                    statement.setLong(7, order.getPackageOrder().getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Order order : orders) {
+                        keys.next();
+                        order.setId(keys.getLong(1));
+                        order.setCreatedDate(now);
+                        order.setLastedUpdate(now);
+                    }
+                }
+            }
+            return orders;
+        });
+    }
+}
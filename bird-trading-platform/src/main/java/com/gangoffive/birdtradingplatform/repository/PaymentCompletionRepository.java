@@ -0,0 +1,30 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.PaymentCompletion;
+import com.gangoffive.birdtradingplatform.enums.PaymentCompletionStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentCompletionRepository extends JpaRepository<PaymentCompletion, Long> {
+    Optional<PaymentCompletion> findByPaymentId(String paymentId);
+
+    @Query("SELECT c.id FROM tblPayment_Completion c WHERE c.status IN ?1 AND c.nextAttemptDate <= ?2 " +
+            "AND (c.lockedUntil IS NULL OR c.lockedUntil < ?2) ORDER BY c.nextAttemptDate")
+    List<Long> findDueId(Collection<PaymentCompletionStatus> statuses, Date now, Pageable pageable);
+
+    //conditional so only one worker (or instance) wins a due row
+    @Modifying
+    @Query("UPDATE tblPayment_Completion c SET c.lockedUntil = ?2, c.attempts = c.attempts + 1 " +
+            "WHERE c.id = ?1 AND c.status IN ?4 AND c.nextAttemptDate <= ?3 " +
+            "AND (c.lockedUntil IS NULL OR c.lockedUntil < ?3)")
+    int claim(Long id, Date lockedUntil, Date now, Collection<PaymentCompletionStatus> statuses);
+}
@@ -0,0 +1,45 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.dto.ProductCardView;
+import com.gangoffive.birdtradingplatform.entity.ProductCatalog;
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface ProductCatalogRepository extends JpaRepository<ProductCatalog, Long>, ProductCatalogRepositoryCustom {
+    @Query(value = "SELECT c.product_id AS id, c.name AS name, c.price AS price, c.img_url AS imgUrl, " +
+            "c.quantity AS quantity, c.category_id AS categoryId, c.type_id AS typeId, c.type_name AS typeName, " +
+            "c.star AS star, sh.shop_id AS shopId, sh.shop_name AS shopName, sh.avatar_img_url AS shopAvatarImgUrl, " +
+            "a.address_id AS addressId, a.address AS address " +
+            "FROM tbl_product_catalog c " +
+            "INNER JOIN tbl_shop_owner_acc sh ON c.shop_id = sh.shop_id " +
+            "LEFT JOIN tbl_address a ON sh.address_id = a.address_id " +
+            "WHERE c.product_id IN (?1)", nativeQuery = true)
+    List<ProductCardView> findCardViewByIdIn(Collection<Long> ids);
+
+    @Query(value = "SELECT c.id FROM tblProduct_Catalog c",
+            countQuery = "SELECT COUNT(c) FROM tblProduct_Catalog c")
+    Page<Long> findIdPage(Pageable pageable);
+
+    @Query("SELECT c.id FROM tblProduct_Catalog c WHERE c.id > ?1 ORDER BY c.id")
+    List<Long> findIdByIdGreaterThan(long id, Pageable pageable);
+
+    @Query(value = "SELECT c.id FROM tblProduct_Catalog c WHERE c.shopId = ?1 AND c.status IN ?2",
+            countQuery = "SELECT COUNT(c) FROM tblProduct_Catalog c WHERE c.shopId = ?1 AND c.status IN ?2")
+    Page<Long> findIdPageByShopIdAndStatusIn(long shopId, Collection<ProductStatus> statuses, Pageable pageable);
+
+    //newest first, the page starts after (lastUpdated, id)
+    @Query("SELECT c.id FROM tblProduct_Catalog c WHERE c.shopId = ?1 AND c.status IN ?2 " +
+            "AND (c.lastUpdated < ?3 OR (c.lastUpdated = ?3 AND c.id < ?4)) " +
+            "ORDER BY c.lastUpdated DESC, c.id DESC")
+    List<Long> findIdByShopIdAndStatusInBefore(long shopId, Collection<ProductStatus> statuses,
+                                               Date lastUpdated, long id, Pageable pageable);
+}
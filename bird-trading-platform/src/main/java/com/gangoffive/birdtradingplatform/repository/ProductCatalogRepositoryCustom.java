@@ -0,0 +1,16 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductCatalogRepositoryCustom {
+    //copies the products from the source tables and drops the ones that no longer exist
+    int upsertByProductIdIn(Collection<Long> productIds);
+
+    int updateShopStatusByShopIdIn(Collection<Long> shopIds);
+
+    //ids in (afterId, untilId] whose catalog row is missing, stale or left behind by a deleted product
+    List<Long> findDriftedIdBetween(long afterId, long untilId);
+
+    long findMaxProductId();
+}
@@ -0,0 +1,99 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.enums.ProductTable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class ProductCatalogRepositoryCustomImpl implements ProductCatalogRepositoryCustom {
+    private static final List<String> COLUMNS = List.of("product_id", "category_id", "type_id", "type_name", "name",
+            "img_url", "price", "discounted_price", "star", "total_quantity_order", "quantity", "status", "shop_id",
+            "shop_status", "last_updated");
+
+    private static final String UPSERT = "INSERT INTO tbl_product_catalog (" + String.join(", ", COLUMNS) + ") " +
+            "SELECT * FROM (" + source("p.product_id IN (:ids)") + ") AS src " +
+            "ON DUPLICATE KEY UPDATE " + COLUMNS.stream().skip(1)
+            .map(column -> column + " = src." + column)
+            .collect(Collectors.joining(", "));
+
+    private static final String DELETE_MISSING = "DELETE FROM tbl_product_catalog " +
+            "WHERE product_id IN (:ids) AND product_id NOT IN (" + Arrays.stream(ProductTable.values())
+            .map(tables -> "SELECT product_id FROM " + tables.getProductTable() + " WHERE product_id IN (:ids)")
+            .collect(Collectors.joining(" UNION ALL ")) + ")";
+
+    private static final String UPDATE_SHOP_STATUS = "UPDATE tbl_product_catalog c " +
+            "INNER JOIN tbl_shop_owner_acc sh ON sh.shop_id = c.shop_id " +
+            "SET c.shop_status = sh.status WHERE c.shop_id IN (:shopIds)";
+
+    //<=> is null safe so a NULL type or summary value compares equal to itself
+    private static final String FIND_DRIFTED = "SELECT src.product_id " +
+            "FROM (" + source("p.product_id > :afterId AND p.product_id <= :untilId") + ") src " +
+            "LEFT JOIN tbl_product_catalog c ON c.product_id = src.product_id " +
+            "WHERE c.product_id IS NULL OR NOT (" + COLUMNS.stream().skip(1)
+            .map(column -> "c." + column + " <=> src." + column)
+            .collect(Collectors.joining(" AND ")) + ") " +
+            "UNION ALL " +
+            "SELECT c.product_id FROM tbl_product_catalog c " +
+            "WHERE c.product_id > :afterId AND c.product_id <= :untilId " + Arrays.stream(ProductTable.values())
+            .map(tables -> "AND NOT EXISTS (SELECT 1 FROM " + tables.getProductTable() + " p WHERE p.product_id = c.product_id) ")
+            .collect(Collectors.joining());
+
+    private static final String FIND_MAX_PRODUCT_ID = "SELECT GREATEST(" + Arrays.stream(ProductTable.values())
+            .map(tables -> "COALESCE((SELECT MAX(product_id) FROM " + tables.getProductTable() + "), 0)")
+            .collect(Collectors.joining(", ")) +
+            ", COALESCE((SELECT MAX(product_id) FROM tbl_product_catalog), 0))";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    //a product without a summary row yet is listed at its own price with no rating
+    private static String source(String where) {
+        return Arrays.stream(ProductTable.values())
+                .map(tables -> "SELECT p.product_id, " + tables.getCategoryId() + " AS category_id, p.type_id, " +
+                        "ty.name AS type_name, p.name, SUBSTRING_INDEX(p.img_url, ',', 1) AS img_url, p.price, " +
+                        "COALESCE(ps.discounted_price, p.price) AS discounted_price, COALESCE(ps.star, 0) AS star, " +
+                        "COALESCE(ps.total_quantity_order, 0) AS total_quantity_order, p.quantity, p.status, " +
+                        "p.shop_id, sh.status AS shop_status, p.last_updated " +
+                        "FROM " + tables.getProductTable() + " p " +
+                        "INNER JOIN tbl_shop_owner_acc sh ON sh.shop_id = p.shop_id " +
+                        "LEFT JOIN " + tables.getTypeTable() + " ty ON ty." + tables.getTypeIdColumn() + " = p.type_id " +
+                        "LEFT JOIN tbl_product_summary ps ON ps.product_id = p.product_id " +
+                        "WHERE " + where)
+                .collect(Collectors.joining(" UNION ALL "));
+    }
+
+    @Override
+    public int upsertByProductIdIn(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> params = Map.of("ids", productIds);
+        namedParameterJdbcTemplate.update(DELETE_MISSING, params);
+        return namedParameterJdbcTemplate.update(UPSERT, params);
+    }
+
+    @Override
+    public int updateShopStatusByShopIdIn(Collection<Long> shopIds) {
+        if (shopIds.isEmpty()) {
+            return 0;
+        }
+        return namedParameterJdbcTemplate.update(UPDATE_SHOP_STATUS, Map.of("shopIds", shopIds));
+    }
+
+    @Override
+    public List<Long> findDriftedIdBetween(long afterId, long untilId) {
+        return namedParameterJdbcTemplate.queryForList(FIND_DRIFTED,
+                Map.of("afterId", afterId, "untilId", untilId), Long.class);
+    }
+
+    @Override
+    public long findMaxProductId() {
+        Long maxProductId = namedParameterJdbcTemplate.queryForObject(FIND_MAX_PRODUCT_ID, Map.of(), Long.class);
+        return maxProductId == null ? 0 : maxProductId;
+    }
+}
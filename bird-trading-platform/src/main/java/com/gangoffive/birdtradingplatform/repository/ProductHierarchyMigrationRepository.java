@@ -0,0 +1,13 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.ProductHierarchyMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProductHierarchyMigrationRepository extends JpaRepository<ProductHierarchyMigration, Long>,
+        ProductHierarchyMigrationRepositoryCustom {
+    Optional<ProductHierarchyMigration> findFirstByOrderByIdDesc();
+}
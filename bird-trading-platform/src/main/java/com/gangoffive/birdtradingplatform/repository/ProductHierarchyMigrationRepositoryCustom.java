@@ -0,0 +1,21 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+//tbl_product is the base table of the JOINED product hierarchy (see JoinedProduct), category_id is its discriminator
+public interface ProductHierarchyMigrationRepositoryCustom {
+    //triggers on the bird, food and accessory tables that write every change through to the JOINED tables,
+    //returns how many were missing
+    int createSyncTriggers();
+
+    //copies the products in (afterId, untilId] into the base and detail tables and drops the rows left by deleted products
+    int copyBetween(long afterId, long untilId);
+
+    int copyByProductIdIn(Collection<Long> productIds);
+
+    //ids in (afterId, untilId] whose base or detail row is missing, different or left behind by a deleted product
+    List<Long> findMismatchedIdBetween(long afterId, long untilId);
+
+    long findMaxProductId();
+}
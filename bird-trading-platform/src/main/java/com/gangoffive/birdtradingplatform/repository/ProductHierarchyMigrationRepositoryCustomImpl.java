@@ -0,0 +1,187 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.enums.ProductTable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class ProductHierarchyMigrationRepositoryCustomImpl implements ProductHierarchyMigrationRepositoryCustom {
+    //the Product columns, which move to tbl_product; subclass columns move to the detail table of the category
+    private static final List<String> SHARED_COLUMNS = List.of("name", "price", "description", "created_date",
+            "last_updated", "quantity", "quantity_updated", "img_url", "video_url", "status", "shop_id");
+
+    private static final String COPY_BETWEEN = copy("product_id > :afterId AND product_id <= :untilId");
+
+    private static final String COPY_BY_IDS = copy("product_id IN (:ids)");
+
+    //detail rows go first, they reference the base row
+    private static final String DELETE_MISSING_BETWEEN = deleteMissing("product_id > :afterId AND product_id <= :untilId");
+
+    private static final String DELETE_MISSING_BY_IDS = deleteMissing("product_id IN (:ids)");
+
+    private static final String FIND_MISMATCHED = "SELECT src.product_id " +
+            "FROM (" + source("product_id > :afterId AND product_id <= :untilId") + ") src " +
+            "LEFT JOIN tbl_product p ON p.product_id = src.product_id " +
+            "WHERE p.product_id IS NULL OR NOT (p.category_id <=> src.category_id AND " + SHARED_COLUMNS.stream()
+            .map(column -> "p." + column + " <=> src." + column)
+            .collect(Collectors.joining(" AND ")) + ") " +
+            Arrays.stream(ProductTable.values())
+                    .map(table -> "UNION SELECT s.product_id FROM " + table.getProductTable() + " s " +
+                            "LEFT JOIN " + table.getDetailTable() + " d ON d.product_id = s.product_id " +
+                            "WHERE s.product_id > :afterId AND s.product_id <= :untilId " +
+                            "AND (d.product_id IS NULL OR NOT (" + table.getDetailColumns().stream()
+                            .map(column -> "d." + column + " <=> s." + column)
+                            .collect(Collectors.joining(" AND ")) + ")) " +
+                            "UNION SELECT d.product_id FROM " + table.getDetailTable() + " d " +
+                            "WHERE d.product_id > :afterId AND d.product_id <= :untilId " +
+                            "AND NOT EXISTS (SELECT 1 FROM " + table.getProductTable() + " s " +
+                            "WHERE s.product_id = d.product_id) ")
+                    .collect(Collectors.joining()) +
+            "UNION SELECT p.product_id FROM tbl_product p " +
+            "WHERE p.product_id > :afterId AND p.product_id <= :untilId " + notInSourceTables("p");
+
+    private static final String FIND_MAX_PRODUCT_ID = "SELECT GREATEST(" + Arrays.stream(ProductTable.values())
+            .map(table -> "COALESCE((SELECT MAX(product_id) FROM " + table.getProductTable() + "), 0)")
+            .collect(Collectors.joining(", ")) +
+            ", COALESCE((SELECT MAX(product_id) FROM tbl_product), 0))";
+
+    private static final String FIND_SYNC_TRIGGERS = "SELECT trigger_name FROM information_schema.triggers " +
+            "WHERE trigger_schema = DATABASE() AND trigger_name LIKE '%\\_product\\_sync'";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private static String source(String where) {
+        return Arrays.stream(ProductTable.values())
+                .map(table -> "SELECT product_id, " + table.getCategoryId() + " AS category_id, " +
+                        String.join(", ", SHARED_COLUMNS) + " FROM " + table.getProductTable() + " WHERE " + where)
+                .collect(Collectors.joining(" UNION ALL "));
+    }
+
+    private static List<String> copy(String where) {
+        List<String> statements = new ArrayList<>();
+        statements.add("INSERT INTO tbl_product (product_id, category_id, " + String.join(", ", SHARED_COLUMNS) + ") " +
+                "SELECT * FROM (" + source(where) + ") AS src " +
+                "ON DUPLICATE KEY UPDATE category_id = src.category_id, " + SHARED_COLUMNS.stream()
+                .map(column -> column + " = src." + column)
+                .collect(Collectors.joining(", ")));
+        for (ProductTable table : ProductTable.values()) {
+            statements.add("INSERT INTO " + table.getDetailTable() + " (product_id, " +
+                    String.join(", ", table.getDetailColumns()) + ") " +
+                    "SELECT * FROM (SELECT product_id, " + String.join(", ", table.getDetailColumns()) +
+                    " FROM " + table.getProductTable() + " WHERE " + where + ") AS src " +
+                    "ON DUPLICATE KEY UPDATE " + table.getDetailColumns().stream()
+                    .map(column -> column + " = src." + column)
+                    .collect(Collectors.joining(", ")));
+        }
+        return statements;
+    }
+
+    private static List<String> deleteMissing(String where) {
+        List<String> statements = new ArrayList<>();
+        for (ProductTable table : ProductTable.values()) {
+            statements.add("DELETE FROM " + table.getDetailTable() + " WHERE " + where + " " +
+                    "AND NOT EXISTS (SELECT 1 FROM " + table.getProductTable() + " s " +
+                    "WHERE s.product_id = " + table.getDetailTable() + ".product_id)");
+        }
+        statements.add("DELETE FROM tbl_product WHERE " + where + " " + notInSourceTables("tbl_product"));
+        return statements;
+    }
+
+    private static String notInSourceTables(String alias) {
+        return Arrays.stream(ProductTable.values())
+                .map(table -> "AND NOT EXISTS (SELECT 1 FROM " + table.getProductTable() + " s WHERE s.product_id = " + alias + ".product_id) ")
+                .collect(Collectors.joining());
+    }
+
+    //the base row first, the detail row references it
+    private static String upsert(ProductTable table) {
+        return "INSERT INTO tbl_product (product_id, category_id, " + String.join(", ", SHARED_COLUMNS) + ") " +
+                "VALUES (NEW.product_id, " + table.getCategoryId() + ", " + SHARED_COLUMNS.stream()
+                .map(column -> "NEW." + column)
+                .collect(Collectors.joining(", ")) + ") " +
+                "ON DUPLICATE KEY UPDATE category_id = " + table.getCategoryId() + ", " + SHARED_COLUMNS.stream()
+                .map(column -> column + " = NEW." + column)
+                .collect(Collectors.joining(", ")) + "; " +
+                "INSERT INTO " + table.getDetailTable() + " (product_id, " + String.join(", ", table.getDetailColumns()) + ") " +
+                "VALUES (NEW.product_id, " + table.getDetailColumns().stream()
+                .map(column -> "NEW." + column)
+                .collect(Collectors.joining(", ")) + ") " +
+                "ON DUPLICATE KEY UPDATE " + table.getDetailColumns().stream()
+                .map(column -> column + " = NEW." + column)
+                .collect(Collectors.joining(", ")) + ";";
+    }
+
+    //trigger name to statement, three per category table
+    private static Map<String, String> syncTriggers() {
+        Map<String, String> triggers = new LinkedHashMap<>();
+        for (ProductTable table : ProductTable.values()) {
+            String prefix = table.getProductTable();
+            triggers.put(prefix + "_insert_product_sync", "CREATE TRIGGER " + prefix + "_insert_product_sync " +
+                    "AFTER INSERT ON " + prefix + " FOR EACH ROW BEGIN " + upsert(table) + " END");
+            triggers.put(prefix + "_update_product_sync", "CREATE TRIGGER " + prefix + "_update_product_sync " +
+                    "AFTER UPDATE ON " + prefix + " FOR EACH ROW BEGIN " + upsert(table) + " END");
+            triggers.put(prefix + "_delete_product_sync", "CREATE TRIGGER " + prefix + "_delete_product_sync " +
+                    "AFTER DELETE ON " + prefix + " FOR EACH ROW BEGIN " +
+                    "DELETE FROM " + table.getDetailTable() + " WHERE product_id = OLD.product_id; " +
+                    "DELETE FROM tbl_product WHERE product_id = OLD.product_id; END");
+        }
+        return triggers;
+    }
+
+    @Override
+    public int createSyncTriggers() {
+        List<String> existing = namedParameterJdbcTemplate.getJdbcTemplate().queryForList(FIND_SYNC_TRIGGERS, String.class);
+        int created = 0;
+        for (Map.Entry<String, String> trigger : syncTriggers().entrySet()) {
+            if (existing.stream().noneMatch(name -> name.equalsIgnoreCase(trigger.getKey()))) {
+                namedParameterJdbcTemplate.getJdbcTemplate().execute(trigger.getValue());
+                created++;
+            }
+        }
+        return created;
+    }
+
+    @Override
+    public int copyBetween(long afterId, long untilId) {
+        Map<String, Object> params = Map.of("afterId", afterId, "untilId", untilId);
+        DELETE_MISSING_BETWEEN.forEach(statement -> namedParameterJdbcTemplate.update(statement, params));
+        return this.copy(COPY_BETWEEN, params);
+    }
+
+    @Override
+    public int copyByProductIdIn(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> params = Map.of("ids", productIds);
+        DELETE_MISSING_BY_IDS.forEach(statement -> namedParameterJdbcTemplate.update(statement, params));
+        return this.copy(COPY_BY_IDS, params);
+    }
+
+    //returns the base rows written
+    private int copy(List<String> statements, Map<String, Object> params) {
+        int copied = namedParameterJdbcTemplate.update(statements.get(0), params);
+        statements.subList(1, statements.size()).forEach(statement -> namedParameterJdbcTemplate.update(statement, params));
+        return copied;
+    }
+
+    @Override
+    public List<Long> findMismatchedIdBetween(long afterId, long untilId) {
+        return namedParameterJdbcTemplate.queryForList(FIND_MISMATCHED,
+                Map.of("afterId", afterId, "untilId", untilId), Long.class);
+    }
+
+    @Override
+    public long findMaxProductId() {
+        Long maxProductId = namedParameterJdbcTemplate.queryForObject(FIND_MAX_PRODUCT_ID, Map.of(), Long.class);
+        return maxProductId == null ? 0 : maxProductId;
+    }
+}
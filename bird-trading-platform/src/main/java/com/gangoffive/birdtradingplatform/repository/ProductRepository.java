@@ -1,5 +1,8 @@
 package com.gangoffive.birdtradingplatform.repository;
 
+import com.gangoffive.birdtradingplatform.dto.ProductCardView;
+import com.gangoffive.birdtradingplatform.dto.ProductPriceView;
+import com.gangoffive.birdtradingplatform.dto.ProductTagView;
 import com.gangoffive.birdtradingplatform.entity.Product;
 import com.gangoffive.birdtradingplatform.entity.ShopOwner;
 import com.gangoffive.birdtradingplatform.enums.ProductStatus;
@@ -13,6 +16,8 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +29,15 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Page<Product>> findByShopOwner_IdAndStatusIn(long id, List<ProductStatus> productStatuses, Pageable pageable);
     Integer countAllByShopOwner_IdAndStatusIn(Long id, List<ProductStatus> productStatuses);
 
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    //newest first, the page starts after (lastUpDated, id)
+    @Query("SELECT p FROM Product p WHERE p.shopOwner.id = ?1 AND p.status IN ?2 " +
+            "AND (p.lastUpDated < ?3 OR (p.lastUpDated = ?3 AND p.id < ?4)) " +
+            "ORDER BY p.lastUpDated DESC, p.id DESC")
+    List<Product> findByShopOwnerIdAndStatusInBefore(long shopId, List<ProductStatus> productStatuses,
+                                                     Date lastUpDated, Long id, Pageable pageable);
+
     Optional<List<Product>> findByIdInAndQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(List<Long> ids, int quantity,
                                                                                             List<ProductStatus> productStatuses, List<ShopOwnerStatus> shopOwnerStatuses);
 
@@ -34,15 +48,66 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Modifying
     @Transactional
-    @Query(value = "UPDATE Product p SET p.quantity = ?1 WHERE p.id = ?2 AND p.shopOwner.id = ?3 AND p.status = 'ACTIVE' ")
+    @Query(value = "UPDATE Product p SET p.quantity = ?1, p.quantityUpdated = CURRENT_TIMESTAMP WHERE p.id = ?2 AND p.shopOwner.id = ?3 AND p.status = 'ACTIVE' ")
     int updateListProductQuantity(Integer quantity, Long id, Long shopId);
 
     List<Product> findByStatusIn(List<ProductStatus> productStatuses);
 
+    @Query("SELECT p.id FROM Product p WHERE p.id > ?1 ORDER BY p.id")
+    List<Long> findIdByIdGreaterThan(long lastProductId, Pageable pageable);
+
     Optional<Product> findByIdAndStatusInAndShopOwner_Id(long productId, List<ProductStatus> productStatuses, long shopId);
 
     Optional<Product> findByIdAndStatusNotAndShopOwner_StatusNot(long productId, ProductStatus productStatus, ShopOwnerStatus shopOwnerStatus);
 
     @Query(value = "SELECT p FROM Product p JOIN p.promotionShops ps where ps.id IN ?1")
     Optional<List<Product>> findAllProductBaseOnPromotionShopId(List<Long> listPromotionShopId);
+
+    @Query(value = "SELECT DISTINCT pp.product_id FROM tbl_product_promotion pp WHERE pp.promotion_s_id IN (?1)", nativeQuery = true)
+    List<Long> findIdByPromotionShopIdIn(Collection<Long> promotionShopIds);
+
+    @Query("SELECT p.id AS productId, p.price AS price FROM Product p WHERE p.id IN ?1")
+    List<ProductPriceView> findPriceViewByIdIn(Collection<Long> productIds);
+
+    //everything checkout reads from a product in one round trip
+    @Query("SELECT DISTINCT p FROM Product p JOIN FETCH p.shopOwner s JOIN FETCH s.account " +
+            "LEFT JOIN FETCH p.promotionShops WHERE p.id IN ?1")
+    List<Product> findCheckoutProductByIdIn(Collection<Long> productIds);
+
+    @Query(value = "SELECT p.product_id AS id, p.name AS name, p.price AS price, p.img_url AS imgUrl, " +
+            "p.quantity AS quantity, p.category_id AS categoryId, p.type_id AS typeId, p.type_name AS typeName, " +
+            "ps.star AS star, sh.shop_id AS shopId, sh.shop_name AS shopName, sh.avatar_img_url AS shopAvatarImgUrl, " +
+            "a.address_id AS addressId, a.address AS address " +
+            "FROM (" +
+            "SELECT b.product_id, b.name, b.price, b.img_url, b.quantity, b.shop_id, 1 AS category_id, " +
+            "tb.type_b_id AS type_id, tb.name AS type_name " +
+            "FROM tbl_bird b LEFT JOIN tbl_type_bird tb ON b.type_id = tb.type_b_id WHERE b.product_id IN (?1) " +
+            "UNION ALL " +
+            "SELECT f.product_id, f.name, f.price, f.img_url, f.quantity, f.shop_id, 2 AS category_id, " +
+            "tf.type_f_id AS type_id, tf.name AS type_name " +
+            "FROM tbl_food f LEFT JOIN tbl_type_food tf ON f.type_id = tf.type_f_id WHERE f.product_id IN (?1) " +
+            "UNION ALL " +
+            "SELECT ac.product_id, ac.name, ac.price, ac.img_url, ac.quantity, ac.shop_id, 3 AS category_id, " +
+            "ta.type_a_id AS type_id, ta.name AS type_name " +
+            "FROM tbl_accessory ac LEFT JOIN tbl_type_accessory ta ON ac.type_id = ta.type_a_id WHERE ac.product_id IN (?1)" +
+            ") p " +
+            "INNER JOIN tbl_shop_owner_acc sh ON p.shop_id = sh.shop_id " +
+            "LEFT JOIN tbl_product_summary ps ON p.product_id = ps.product_id " +
+            "LEFT JOIN tbl_address a ON sh.address_id = a.address_id", nativeQuery = true)
+    List<ProductCardView> findCardViewByIdIn(Collection<Long> ids);
+
+    @Query(value = "SELECT pt.product_id AS productId, t.tag_id AS tagId, t.name AS tagName " +
+            "FROM (" +
+            "SELECT tb.bird_id AS product_id, tb.tag_id FROM tbl_tag_bird tb WHERE tb.bird_id IN (?1) " +
+            "UNION ALL " +
+            "SELECT tf.food_id AS product_id, tf.tag_id FROM tbl_tag_food tf WHERE tf.food_id IN (?1) " +
+            "UNION ALL " +
+            "SELECT ta.accessory_id AS product_id, ta.tag_id FROM tbl_tag_accessory ta WHERE ta.accessory_id IN (?1)" +
+            ") pt " +
+            "INNER JOIN tbl_tag t ON pt.tag_id = t.tag_id", nativeQuery = true)
+    List<ProductTagView> findTagViewByProductIdIn(Collection<Long> ids);
+
+    @Query(value = "SELECT p.id FROM Product p WHERE p.id IN ?1 AND p.quantity > ?2 AND p.status IN ?3 AND p.shopOwner.status IN ?4")
+    List<Long> findIdByIdInAndQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(List<Long> ids, int quantity,
+                                                                                  List<ProductStatus> productStatuses, List<ShopOwnerStatus> shopOwnerStatuses);
 }
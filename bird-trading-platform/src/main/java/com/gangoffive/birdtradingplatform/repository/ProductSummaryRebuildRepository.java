@@ -0,0 +1,12 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.ProductSummaryRebuild;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProductSummaryRebuildRepository extends JpaRepository<ProductSummaryRebuild, Long> {
+    Optional<ProductSummaryRebuild> findFirstByOrderByIdDesc();
+}
@@ -1,13 +1,17 @@
 package com.gangoffive.birdtradingplatform.repository;
 
+import com.gangoffive.birdtradingplatform.dto.ProductRatingView;
 import com.gangoffive.birdtradingplatform.entity.ProductSummary;
 import com.gangoffive.birdtradingplatform.enums.ProductStatus;
 import com.gangoffive.birdtradingplatform.enums.ShopOwnerStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +24,21 @@ public interface ProductSummaryRepository extends JpaRepository<ProductSummary,L
     Optional<List<ProductSummary>> findByCategoryAndProductQuantityGreaterThanAndDeletedFalseAndProductStatusInAndProduct_ShopOwner_StatusIn
             (String category, int quantity, List<ProductStatus> productStatuses, List<ShopOwnerStatus> shopOwnerStatuses, Pageable pageable);
 
+    @Query("SELECT ps.product.id AS productId, ps.star AS star FROM tblProduct_Summary ps WHERE ps.product.id IN ?1")
+    List<ProductRatingView> findStarByProductIdIn(Collection<Long> productIds);
+
+    //rows created before rating_total existed are skipped for reviews (0 rows updated) so the caller can rebuild them
+    @Modifying
+    @Query("UPDATE tblProduct_Summary ps SET " +
+            "ps.star = CASE WHEN ps.reviewTotal + ?3 = 0 THEN 0.0 " +
+            "ELSE ROUND((ps.ratingTotal + ?4) * 1.0 / (ps.reviewTotal + ?3), 1) END, " +
+            "ps.ratingTotal = ps.ratingTotal + ?4, " +
+            "ps.reviewTotal = ps.reviewTotal + ?3, " +
+            "ps.totalQuantityOrder = ps.totalQuantityOrder + ?2, " +
+            "ps.discountedPrice = COALESCE(?5, ps.discountedPrice), " +
+            "ps.deleted = COALESCE(?6, ps.deleted), " +
+            "ps.lastUpdated = CURRENT_TIMESTAMP " +
+            "WHERE ps.product.id = ?1 AND (?3 = 0 OR ps.ratingTotal > 0 OR ps.reviewTotal = 0)")
+    int applyDelta(Long productId, int quantityOrder, int reviewCount, long ratingTotal,
+                   Double discountedPrice, Boolean deleted);
 }
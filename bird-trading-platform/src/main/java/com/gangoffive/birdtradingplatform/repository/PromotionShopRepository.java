@@ -4,12 +4,15 @@
  */
 package com.gangoffive.birdtradingplatform.repository;
 
+import com.gangoffive.birdtradingplatform.dto.ProductDiscountRateView;
+import com.gangoffive.birdtradingplatform.dto.PromotionShopPeriodView;
 import com.gangoffive.birdtradingplatform.entity.PromotionShop;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -45,4 +48,15 @@ public interface PromotionShopRepository extends JpaRepository<PromotionShop, Lo
 
     @Query(value = "SELECT p.id FROM PromotionShop p where p.endDate = ?1")
     Optional<List<Long>> findAllListPromotionByEndDate(Date endDate );
+
+    @Query(value = "SELECT pp.product_id AS productId, ps.discount_rate AS discountRate " +
+            "FROM tbl_product_promotion pp JOIN tbl_promotion_shop ps ON pp.promotion_s_id = ps.promotion_s_id " +
+            "WHERE pp.product_id IN (?1) AND ps.start_date <= CURRENT_DATE AND ps.end_date >= CURRENT_DATE " +
+            "ORDER BY pp.product_id, ps.promotion_s_id", nativeQuery = true)
+    List<ProductDiscountRateView> findActiveDiscountRateByProductIdIn(Collection<Long> productIds);
+
+    //native so promotions that have not started yet are not hidden by the @Where on PromotionShop
+    @Query(value = "SELECT ps.promotion_s_id AS id, ps.start_date AS startDate, ps.end_date AS endDate " +
+            "FROM tbl_promotion_shop ps WHERE ps.end_date >= ?1", nativeQuery = true)
+    List<PromotionShopPeriodView> findPeriodByEndDateGreaterThanEqual(Date endDate);
 }
@@ -1,5 +1,6 @@
 package com.gangoffive.birdtradingplatform.repository;
 
+import com.gangoffive.birdtradingplatform.dto.ShopAccountView;
 import com.gangoffive.birdtradingplatform.entity.ShopOwner;
 import com.gangoffive.birdtradingplatform.enums.ShopOwnerStatus;
 import jakarta.transaction.Transactional;
@@ -10,6 +11,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -20,6 +22,9 @@ public interface ShopOwnerRepository extends JpaRepository<ShopOwner, Long> {
 
     Optional<ShopOwner> findByAccount_Email(String email);
 
+    @Query("SELECT s.account.id AS accountId, s.id AS shopId FROM tblShop_Owner_Acc s WHERE s.account.id IN ?1")
+    List<ShopAccountView> findShopAccountViewByAccountIdIn(Collection<Long> accountIds);
+
     Optional<Page<ShopOwner>> findById(Long shopOwnerId, Pageable pageable);
 
     Optional<Page<ShopOwner>> findByAccount_EmailLike(String email, Pageable pageable);
@@ -40,4 +45,9 @@ public interface ShopOwnerRepository extends JpaRepository<ShopOwner, Long> {
     @Transactional
     @Query(value = "UPDATE tblShop_Owner_Acc s SET s.status = ?1 WHERE s.id in ?2")
     int updateListShopOwnerStatus(ShopOwnerStatus shopOwnerStatus, List<Long> ids);
+
+    @Modifying
+    @Query(value = "UPDATE tblShop_Owner_Acc s SET s.salesVersion = s.salesVersion + 1 " +
+            "WHERE s.id IN (SELECT p.shopOwner.id FROM Product p WHERE p.id IN ?1)")
+    int increaseSalesVersionByProductIdIn(Collection<Long> productIds);
 }
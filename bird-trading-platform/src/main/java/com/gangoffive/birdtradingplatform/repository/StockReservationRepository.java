@@ -0,0 +1,23 @@
+package com.gangoffive.birdtradingplatform.repository;
+
+import com.gangoffive.birdtradingplatform.entity.StockReservation;
+import com.gangoffive.birdtradingplatform.enums.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    List<StockReservation> findByPaymentIdAndStatusOrderByProductId(String paymentId, ReservationStatus status);
+
+    List<StockReservation> findByStatusAndExpiredDateBeforeOrderByProductId(ReservationStatus status, Date expiredDate);
+
+    //conditional so a confirm and an expiry release never both win the same reservation
+    @Modifying
+    @Query("UPDATE tblStock_Reservation r SET r.status = ?2 WHERE r.id = ?1 AND r.status = ?3")
+    int updateStatus(Long id, ReservationStatus newStatus, ReservationStatus currentStatus);
+}
@@ -0,0 +1,208 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import java.util.*;
+
+//read-only columnar copy of the catalog; rows are sorted by discounted price so a page is a walk over one bitset
+public class CatalogSnapshot {
+    public static final int STAR_BUCKETS = 6;
+
+    private final long[] productIds;
+    private final double[] prices;
+    private final double[] stars;
+    //dense per-row type position so facet counting stays on primitive arrays
+    private final int[] typeOrdinals;
+    private final List<Long> distinctTypeIds = new ArrayList<>();
+    private final long[] shopIds;
+    private final Map<Long, Integer> rowByProductId;
+    private final Map<Integer, BitSet> byCategory = new HashMap<>();
+    private final Map<Long, BitSet> byType = new HashMap<>();
+    private final Map<String, BitSet> byStatus = new HashMap<>();
+    private final Map<String, BitSet> byShopStatus = new HashMap<>();
+    private final BitSet inStock;
+    private final double[] priceBucketEdges;
+
+    public record Row(long productId, int category, double discountedPrice, double star, long typeId, long shopId,
+                      String status, int quantity, String shopStatus) {
+    }
+
+    //position in the price order, the page starts right after it
+    public record Seek(double price, long productId) {
+    }
+
+    //productIds null means no name filter, typeIds null means every type, shopId null means every shop;
+    //pageIndex is ignored when after is set
+    public record Query(int category, Collection<Long> productIds, Collection<Long> typeIds, double minStar,
+                        double minPrice, double maxPrice, Long shopId, Collection<String> statuses,
+                        Collection<String> shopStatuses, boolean descending, int pageIndex, int pageSize, Seek after) {
+    }
+
+    //each facet counts the rows that pass every other filter, so picking a value never hides its siblings;
+    //next is the last row of the page when more rows follow
+    public record Result(List<Long> productIds, long total, Map<Long, Integer> typeCounts,
+                         double[] priceBucketEdges, int[] priceCounts, int[] starCounts, Seek next) {
+    }
+
+    private CatalogSnapshot(int size, double[] priceBucketEdges) {
+        this.productIds = new long[size];
+        this.prices = new double[size];
+        this.stars = new double[size];
+        this.typeOrdinals = new int[size];
+        this.shopIds = new long[size];
+        this.rowByProductId = new HashMap<>(size * 2);
+        this.inStock = new BitSet(size);
+        this.priceBucketEdges = priceBucketEdges;
+    }
+
+    public static CatalogSnapshot build(Collection<Row> rows, double[] priceBucketEdges) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingDouble(Row::discountedPrice).thenComparingLong(Row::productId));
+        CatalogSnapshot snapshot = new CatalogSnapshot(sorted.size(), priceBucketEdges.clone());
+        Map<Long, Integer> typeOrdinalById = new HashMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            Row row = sorted.get(i);
+            snapshot.productIds[i] = row.productId();
+            snapshot.prices[i] = row.discountedPrice();
+            snapshot.stars[i] = row.star();
+            snapshot.typeOrdinals[i] = typeOrdinalById.computeIfAbsent(row.typeId(), typeId -> {
+                snapshot.distinctTypeIds.add(typeId);
+                return snapshot.distinctTypeIds.size() - 1;
+            });
+            snapshot.shopIds[i] = row.shopId();
+            snapshot.rowByProductId.put(row.productId(), i);
+            snapshot.byCategory.computeIfAbsent(row.category(), key -> new BitSet()).set(i);
+            snapshot.byType.computeIfAbsent(row.typeId(), key -> new BitSet()).set(i);
+            snapshot.byStatus.computeIfAbsent(row.status(), key -> new BitSet()).set(i);
+            snapshot.byShopStatus.computeIfAbsent(row.shopStatus(), key -> new BitSet()).set(i);
+            if (row.quantity() > 0) {
+                snapshot.inStock.set(i);
+            }
+        }
+        return snapshot;
+    }
+
+    public int size() {
+        return productIds.length;
+    }
+
+    public Result query(Query query) {
+        BitSet rows = (BitSet) byCategory.getOrDefault(query.category(), new BitSet()).clone();
+        rows.and(inStock);
+        rows.and(this.union(byStatus, query.statuses()));
+        rows.and(this.union(byShopStatus, query.shopStatuses()));
+        if (query.productIds() != null) {
+            BitSet matches = new BitSet(productIds.length);
+            query.productIds().forEach(productId -> {
+                Integer row = rowByProductId.get(productId);
+                if (row != null) {
+                    matches.set(row);
+                }
+            });
+            rows.and(matches);
+        }
+        BitSet types = query.typeIds() == null ? null : this.union(byType, query.typeIds());
+
+        int[] typeCounts = new int[distinctTypeIds.size()];
+        int[] priceCounts = new int[priceBucketEdges.length];
+        int[] starCounts = new int[STAR_BUCKETS];
+        List<Long> page = new ArrayList<>(query.pageSize());
+        long from = (long) query.pageIndex() * query.pageSize();
+        long total = 0;
+        Seek next = null;
+        //rows past the seek position in walk order, found by binary search on the sorted columns
+        int seekRow = query.after() == null ? -1 : query.descending()
+                ? this.firstRowNotBefore(query.after()) - 1
+                : this.firstRowAfter(query.after());
+        int row = query.descending() ? rows.previousSetBit(productIds.length - 1) : rows.nextSetBit(0);
+        while (row >= 0) {
+            if (query.shopId() == null || shopIds[row] == query.shopId()) {
+                boolean typeMatched = types == null || types.get(row);
+                boolean priceMatched = prices[row] >= query.minPrice() && prices[row] <= query.maxPrice();
+                boolean starMatched = stars[row] >= query.minStar();
+                if (priceMatched && starMatched) {
+                    typeCounts[typeOrdinals[row]]++;
+                }
+                if (typeMatched && starMatched) {
+                    int bucket = this.priceBucket(prices[row]);
+                    if (bucket >= 0) {
+                        priceCounts[bucket]++;
+                    }
+                }
+                if (typeMatched && priceMatched) {
+                    starCounts[Math.min(STAR_BUCKETS - 1, Math.max(0, (int) stars[row]))]++;
+                }
+                if (typeMatched && priceMatched && starMatched) {
+                    boolean inPage = query.after() == null
+                            ? total >= from
+                            : (query.descending() ? row <= seekRow : row >= seekRow);
+                    if (inPage && page.size() < query.pageSize()) {
+                        page.add(productIds[row]);
+                    } else if (inPage && next == null) {
+                        int last = rowByProductId.get(page.get(page.size() - 1));
+                        next = new Seek(prices[last], productIds[last]);
+                    }
+                    total++;
+                }
+            }
+            row = query.descending()
+                    ? (row == 0 ? -1 : rows.previousSetBit(row - 1))
+                    : rows.nextSetBit(row + 1);
+        }
+        Map<Long, Integer> typeCountById = new HashMap<>();
+        for (int ordinal = 0; ordinal < typeCounts.length; ordinal++) {
+            if (typeCounts[ordinal] > 0) {
+                typeCountById.put(distinctTypeIds.get(ordinal), typeCounts[ordinal]);
+            }
+        }
+        return new Result(page, total, typeCountById, priceBucketEdges.clone(), priceCounts, starCounts, next);
+    }
+
+    private int firstRowAfter(Seek seek) {
+        int low = 0;
+        int high = productIds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.compare(middle, seek) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int firstRowNotBefore(Seek seek) {
+        int low = 0;
+        int high = productIds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.compare(middle, seek) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compare(int row, Seek seek) {
+        int byPrice = Double.compare(prices[row], seek.price());
+        return byPrice != 0 ? byPrice : Long.compare(productIds[row], seek.productId());
+    }
+
+    private <K> BitSet union(Map<K, BitSet> bitSets, Collection<K> keys) {
+        BitSet union = new BitSet(productIds.length);
+        keys.forEach(key -> {
+            BitSet bitSet = bitSets.get(key);
+            if (bitSet != null) {
+                union.or(bitSet);
+            }
+        });
+        return union;
+    }
+
+    //index of the last edge not above the price, -1 below the first edge
+    private int priceBucket(double price) {
+        int index = Arrays.binarySearch(priceBucketEdges, price);
+        return index >= 0 ? index : -index - 2;
+    }
+}
@@ -0,0 +1,138 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+//approximate number of baskets shared by every pair of products in a fixed amount of memory: a count-min
+//sketch over ordered pairs, plus the partners with the highest estimate kept per product. Estimates never
+//undercount; they overcount by at most e * pairs counted / width with probability 1 - e^-depth.
+public class CoPurchaseSketch {
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x85EBCA77C2B2AE63L, 0x27D4EB2F165667C5L
+    };
+
+    private final int depth;
+    private final int width;
+    private final int partnersPerProduct;
+    private final AtomicIntegerArray counters;
+    private final Map<Long, Partners> partnersByProduct = new ConcurrentHashMap<>();
+
+    public record Partner(long productId, int baskets) {
+    }
+
+    public CoPurchaseSketch(int depth, int width, int partnersPerProduct) {
+        if (depth < 1 || depth > SEEDS.length || width < 1 || partnersPerProduct < 1) {
+            throw new IllegalArgumentException("depth must be 1 to " + SEEDS.length + ", width and partners at least 1");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.partnersPerProduct = partnersPerProduct;
+        this.counters = new AtomicIntegerArray(depth * width);
+    }
+
+    //safe to call from several threads at once
+    public void addBasket(Collection<Long> productIds) {
+        long[] distinct = productIds.stream().mapToLong(Long::longValue).distinct().toArray();
+        for (long productId : distinct) {
+            for (long partnerId : distinct) {
+                if (productId != partnerId) {
+                    int estimate = this.increment(productId, partnerId);
+                    partnersByProduct.computeIfAbsent(productId, key -> new Partners(partnersPerProduct))
+                            .offer(partnerId, estimate);
+                }
+            }
+        }
+    }
+
+    public int estimate(long productId, long partnerId) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(this.slot(row, productId, partnerId)));
+        }
+        return estimate;
+    }
+
+    //most bought together first
+    public List<Partner> top(long productId, int limit) {
+        Partners partners = partnersByProduct.get(productId);
+        if (partners == null) {
+            return List.of();
+        }
+        List<Partner> top = partners.snapshot();
+        top.sort(Comparator.comparingInt(Partner::baskets).reversed().thenComparingLong(Partner::productId));
+        return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+    }
+
+    //every product with the partners kept for it
+    public Map<Long, Map<Long, Integer>> partnerCounts() {
+        Map<Long, Map<Long, Integer>> counts = new HashMap<>();
+        partnersByProduct.forEach((productId, partners) -> {
+            Map<Long, Integer> byPartner = new HashMap<>();
+            partners.snapshot().forEach(partner -> byPartner.put(partner.productId(), partner.baskets()));
+            counts.put(productId, byPartner);
+        });
+        return counts;
+    }
+
+    private int increment(long productId, long partnerId) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(this.slot(row, productId, partnerId)));
+        }
+        return estimate;
+    }
+
+    private int slot(int row, long productId, long partnerId) {
+        long hash = mix(mix(productId ^ SEEDS[row]) + partnerId);
+        return row * width + (int) Long.remainderUnsigned(hash, width);
+    }
+
+    //splitmix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    //a handful of entries, so a linear scan for the smallest beats keeping a heap ordered
+    private static final class Partners {
+        private final long[] productIds;
+        private final int[] baskets;
+        private int size;
+
+        private Partners(int capacity) {
+            this.productIds = new long[capacity];
+            this.baskets = new int[capacity];
+        }
+
+        private synchronized void offer(long partnerId, int estimate) {
+            int smallest = 0;
+            for (int i = 0; i < size; i++) {
+                if (productIds[i] == partnerId) {
+                    baskets[i] = Math.max(baskets[i], estimate);
+                    return;
+                }
+                if (baskets[i] < baskets[smallest]) {
+                    smallest = i;
+                }
+            }
+            if (size < productIds.length) {
+                productIds[size] = partnerId;
+                baskets[size++] = estimate;
+            } else if (estimate > baskets[smallest]) {
+                productIds[smallest] = partnerId;
+                baskets[smallest] = estimate;
+            }
+        }
+
+        private synchronized List<Partner> snapshot() {
+            List<Partner> partners = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                partners.add(new Partner(productIds[i], baskets[i]));
+            }
+            return partners;
+        }
+    }
+}
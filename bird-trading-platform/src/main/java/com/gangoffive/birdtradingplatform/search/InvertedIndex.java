@@ -0,0 +1,123 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//BM25 ranked index; readers never lock, writers replace whole posting lists
+public class InvertedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    //a query word also matches longer words starting with it, ranked below an exact match
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    private final ConcurrentSkipListMap<String, PostingList> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final AtomicLong totalLength = new AtomicLong();
+
+    public record Document(int category, int length, Map<String, Integer> termFrequencies) {
+        public static Document of(int category, Map<String, Integer> termFrequencies) {
+            int length = termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+            return new Document(category, length, Map.copyOf(termFrequencies));
+        }
+    }
+
+    public static InvertedIndex build(Map<Long, Document> documents) {
+        InvertedIndex index = new InvertedIndex();
+        Map<String, TreeMap<Long, Integer>> terms = new HashMap<>();
+        documents.forEach((docId, document) -> {
+            document.termFrequencies().forEach((term, frequency) ->
+                    terms.computeIfAbsent(term, key -> new TreeMap<>()).put(docId, frequency));
+            index.documents.put(docId, document);
+            index.totalLength.addAndGet(document.length());
+        });
+        terms.forEach((term, docs) -> {
+            PostingList.Builder builder = new PostingList.Builder();
+            docs.forEach(builder::add);
+            index.postings.put(term, builder.build());
+        });
+        return index;
+    }
+
+    public synchronized void put(long docId, Document document) {
+        this.remove(docId);
+        document.termFrequencies().forEach((term, frequency) -> postings.compute(term, (key, list) ->
+                (list == null ? PostingList.EMPTY : list).with(docId, frequency)));
+        documents.put(docId, document);
+        totalLength.addAndGet(document.length());
+    }
+
+    public synchronized void remove(long docId) {
+        Document document = documents.remove(docId);
+        if (document == null) {
+            return;
+        }
+        document.termFrequencies().keySet().forEach(term -> postings.computeIfPresent(term, (key, list) -> {
+            PostingList remaining = list.without(docId);
+            return remaining.size() == 0 ? null : remaining;
+        }));
+        totalLength.addAndGet(-document.length());
+    }
+
+    //ids ranked best first; category null searches every category
+    public List<Long> search(String query, Integer category, int limit) {
+        List<String> tokens = TextAnalyzer.tokenize(query);
+        int documentCount = documents.size();
+        if (tokens.isEmpty() || documentCount == 0) {
+            return List.of();
+        }
+        double averageLength = Math.max(1.0, (double) totalLength.get() / documentCount);
+        Map<Long, Double> scores = new HashMap<>();
+        for (String token : new LinkedHashSet<>(tokens)) {
+            this.matchingTerms(token).forEach((term, list) -> {
+                double weight = term.equals(token) ? 1.0 : PREFIX_WEIGHT;
+                double idf = Math.log(1 + (documentCount - list.size() + 0.5) / (list.size() + 0.5));
+                list.forEach((docId, frequency) -> {
+                    Document document = documents.get(docId);
+                    if (document == null || (category != null && document.category() != category)) {
+                        return;
+                    }
+                    double norm = frequency * (K1 + 1)
+                            / (frequency + K1 * (1 - B + B * document.length() / averageLength));
+                    scores.merge(docId, weight * idf * norm, Double::sum);
+                });
+            });
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int documentCount() {
+        return documents.size();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    public long postingBytes() {
+        return postings.values().stream().mapToLong(PostingList::byteSize).sum();
+    }
+
+    private Map<String, PostingList> matchingTerms(String token) {
+        if (token.length() < MIN_PREFIX_LENGTH) {
+            PostingList exact = postings.get(token);
+            return exact == null ? Map.of() : Map.of(token, exact);
+        }
+        Map<String, PostingList> terms = new HashMap<>();
+        for (Map.Entry<String, PostingList> entry : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            if (terms.size() >= MAX_PREFIX_TERMS) {
+                break;
+            }
+            terms.put(entry.getKey(), entry.getValue());
+        }
+        return terms;
+    }
+}
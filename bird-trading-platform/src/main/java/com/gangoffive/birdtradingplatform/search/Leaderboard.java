@@ -0,0 +1,78 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import java.util.*;
+
+//best products of one category by star then units sold. It holds a few more products than it serves so a
+//product dropping out is replaced from memory; only when the spare ones run out does it need a reload
+public class Leaderboard {
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::star).reversed()
+            .thenComparing(Comparator.comparingDouble(Entry::totalQuantityOrder).reversed())
+            .thenComparingLong(Entry::productId);
+
+    private final int size;
+    private final int capacity;
+    private final TreeSet<Entry> entries = new TreeSet<>(ORDER);
+    private final Map<Long, Entry> byProductId = new HashMap<>();
+    //some listed products are not held, all of them rank after the last entry held
+    private boolean truncated;
+
+    public record Entry(long productId, double star, double totalQuantityOrder) {
+    }
+
+    private Leaderboard(int size, int capacity) {
+        this.size = size;
+        this.capacity = Math.max(size, capacity);
+    }
+
+    //best is the top of the category in any order, at most capacity entries
+    public static Leaderboard build(int size, int capacity, Collection<Entry> best) {
+        Leaderboard leaderboard = new Leaderboard(size, capacity);
+        best.forEach(entry -> {
+            leaderboard.entries.add(entry);
+            leaderboard.byProductId.put(entry.productId(), entry);
+        });
+        //a full load may have cut products off
+        leaderboard.truncated = best.size() >= leaderboard.capacity;
+        while (leaderboard.entries.size() > leaderboard.capacity) {
+            leaderboard.byProductId.remove(leaderboard.entries.pollLast().productId());
+        }
+        return leaderboard;
+    }
+
+    public synchronized void put(Entry entry) {
+        Entry old = byProductId.remove(entry.productId());
+        if (old != null) {
+            entries.remove(old);
+        }
+        //a product not held may rank anywhere below the last entry, so one landing there is not held either
+        if (truncated && (entries.isEmpty() || ORDER.compare(entry, entries.last()) > 0)) {
+            return;
+        }
+        entries.add(entry);
+        byProductId.put(entry.productId(), entry);
+        if (entries.size() > capacity) {
+            byProductId.remove(entries.pollLast().productId());
+            truncated = true;
+        }
+    }
+
+    public synchronized void remove(long productId) {
+        Entry old = byProductId.remove(productId);
+        if (old != null) {
+            entries.remove(old);
+        }
+    }
+
+    //fewer products held than served while others exist, the category has to be loaded again
+    public synchronized boolean isStale() {
+        return truncated && entries.size() < size;
+    }
+
+    public synchronized List<Long> top() {
+        return entries.stream().limit(size).map(Entry::productId).toList();
+    }
+
+    public synchronized boolean contains(long productId) {
+        return byProductId.containsKey(productId);
+    }
+}
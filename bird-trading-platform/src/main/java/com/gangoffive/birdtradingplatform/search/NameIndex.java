@@ -0,0 +1,121 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import java.util.*;
+import java.util.function.Function;
+
+//immutable index over the names of a small reference table. Every suffix of every folded name is sorted,
+//so the names containing a text are the suffixes starting with it: one range found by two binary searches
+//answers what LIKE '%text%' did, case and accent insensitive like the database collation
+public final class NameIndex<T> {
+    private final List<T> entries;
+    private final String[] names;
+    //entry and offset of each suffix, sorted by the suffix
+    private final int[] suffixEntries;
+    private final int[] suffixOffsets;
+
+    private NameIndex(List<T> entries, String[] names, int[] suffixEntries, int[] suffixOffsets) {
+        this.entries = entries;
+        this.names = names;
+        this.suffixEntries = suffixEntries;
+        this.suffixOffsets = suffixOffsets;
+    }
+
+    public static <T> NameIndex<T> build(Collection<T> entries, Function<T, String> name) {
+        List<T> list = List.copyOf(entries);
+        String[] names = new String[list.size()];
+        List<int[]> suffixes = new ArrayList<>();
+        for (int entry = 0; entry < list.size(); entry++) {
+            String entryName = name.apply(list.get(entry));
+            //a missing name matches nothing, not even an empty text
+            names[entry] = entryName == null ? null : TextAnalyzer.fold(entryName);
+            if (names[entry] == null) {
+                continue;
+            }
+            for (int offset = 0; offset <= names[entry].length(); offset++) {
+                suffixes.add(new int[]{entry, offset});
+            }
+        }
+        suffixes.sort((left, right) -> compareSuffixes(names, left[0], left[1], right[0], right[1]));
+        int[] suffixEntries = new int[suffixes.size()];
+        int[] suffixOffsets = new int[suffixes.size()];
+        for (int i = 0; i < suffixes.size(); i++) {
+            suffixEntries[i] = suffixes.get(i)[0];
+            suffixOffsets[i] = suffixes.get(i)[1];
+        }
+        return new NameIndex<>(list, names, suffixEntries, suffixOffsets);
+    }
+
+    public List<T> all() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    //entries whose name contains the text, in build order
+    public List<T> containing(String text) {
+        return this.matching(text, false);
+    }
+
+    //entries whose name starts with the text, in build order
+    public List<T> startingWith(String text) {
+        return this.matching(text, true);
+    }
+
+    private List<T> matching(String text, boolean prefixOnly) {
+        String folded = TextAnalyzer.fold(text == null ? "" : text);
+        int from = this.bound(folded, false);
+        int to = this.bound(folded, true);
+        BitSet matched = new BitSet(entries.size());
+        for (int i = from; i < to; i++) {
+            if (!prefixOnly || suffixOffsets[i] == 0) {
+                matched.set(suffixEntries[i]);
+            }
+        }
+        List<T> result = new ArrayList<>(matched.cardinality());
+        matched.stream().forEach(entry -> result.add(entries.get(entry)));
+        return result;
+    }
+
+    //first suffix whose start compares at least (upper: greater than) the text
+    private int bound(String text, boolean upper) {
+        int low = 0;
+        int high = suffixEntries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int compare = this.compareStart(middle, text);
+            if (compare < 0 || (upper && compare == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //the suffix cut to the length of the text against the text, 0 when the suffix starts with it
+    private int compareStart(int suffix, String text) {
+        String name = names[suffixEntries[suffix]];
+        int offset = suffixOffsets[suffix];
+        int length = Math.min(name.length() - offset, text.length());
+        for (int i = 0; i < length; i++) {
+            int compare = Character.compare(name.charAt(offset + i), text.charAt(i));
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return length == text.length() ? 0 : -1;
+    }
+
+    private static int compareSuffixes(String[] names, int leftEntry, int leftOffset, int rightEntry, int rightOffset) {
+        String left = names[leftEntry];
+        String right = names[rightEntry];
+        int compare = CharSequence.compare(left.subSequence(leftOffset, left.length()),
+                right.subSequence(rightOffset, right.length()));
+        if (compare != 0) {
+            return compare;
+        }
+        return leftEntry != rightEntry ? Integer.compare(leftEntry, rightEntry) : Integer.compare(leftOffset, rightOffset);
+    }
+}
@@ -0,0 +1,113 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import java.util.Arrays;
+
+//immutable list of (doc id, term frequency) sorted by doc id, stored as varint encoded id gaps
+public final class PostingList {
+    public static final PostingList EMPTY = new PostingList(new byte[0], 0);
+
+    private final byte[] data;
+    private final int size;
+
+    private PostingList(byte[] data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    public interface Visitor {
+        void visit(long docId, int termFrequency);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int byteSize() {
+        return data.length;
+    }
+
+    public void forEach(Visitor visitor) {
+        int[] position = {0};
+        long docId = 0;
+        for (int i = 0; i < size; i++) {
+            docId += readVarLong(position);
+            visitor.visit(docId, (int) readVarLong(position));
+        }
+    }
+
+    //copy with the doc added, or its frequency replaced when already present
+    public PostingList with(long docId, int termFrequency) {
+        Builder builder = new Builder();
+        boolean[] added = {false};
+        forEach((id, frequency) -> {
+            if (!added[0] && id >= docId) {
+                builder.add(docId, termFrequency);
+                added[0] = true;
+                if (id == docId) {
+                    return;
+                }
+            }
+            builder.add(id, frequency);
+        });
+        if (!added[0]) {
+            builder.add(docId, termFrequency);
+        }
+        return builder.build();
+    }
+
+    public PostingList without(long docId) {
+        Builder builder = new Builder();
+        forEach((id, frequency) -> {
+            if (id != docId) {
+                builder.add(id, frequency);
+            }
+        });
+        return builder.size == size ? this : builder.build();
+    }
+
+    private long readVarLong(int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    //doc ids must be added in ascending order
+    public static final class Builder {
+        private byte[] buffer = new byte[16];
+        private int length;
+        private int size;
+        private long previous;
+
+        public Builder add(long docId, int termFrequency) {
+            if (size > 0 && docId <= previous) {
+                throw new IllegalArgumentException("Doc ids must be ascending: " + docId + " after " + previous);
+            }
+            writeVarLong(docId - previous);
+            writeVarLong(termFrequency);
+            previous = docId;
+            size++;
+            return this;
+        }
+
+        public PostingList build() {
+            return size == 0 ? EMPTY : new PostingList(Arrays.copyOf(buffer, length), size);
+        }
+
+        private void writeVarLong(long value) {
+            if (length + 10 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+    }
+}
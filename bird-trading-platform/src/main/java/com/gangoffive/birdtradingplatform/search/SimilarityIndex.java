@@ -0,0 +1,254 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+//related products precomputed per product; every row is a fixed width slice of one long array,
+//so serving a product detail is a map lookup and a copy, whatever the number of tags
+public class SimilarityIndex {
+    //one column per scored field, candidates are read from primitive arrays rather than records
+    private final long[] productIds;
+    private final int[] categories;
+    private final long[] typeIds;
+    private final int[] tagCounts;
+    private final double[] prices;
+    private final double[] popularity;
+    private final BitSet listed;
+    private final Map<Long, Integer> rowByProductId;
+    //listed rows only, most sold first and cut at the posting limit
+    private final Map<Long, int[]> rowsByTag = new HashMap<>();
+    private final Map<Long, int[]> rowsByType = new HashMap<>();
+    //most sold listed rows of each category, used to fill rows with too few related products
+    private final Map<Integer, int[]> popularByCategory = new HashMap<>();
+    private final Map<Long, Map<Long, Integer>> coPurchases;
+    private final Weights weights;
+    private final int width;
+    private final long[] related;
+    private final int[] relatedCounts;
+
+    //popularity is the number of units sold; only listed items are ever recommended
+    public record Item(long productId, int category, long typeId, long[] tagIds, double price, double popularity,
+                       boolean listed) {
+    }
+
+    public record Weights(double tag, double type, double coPurchase, double price) {
+    }
+
+    private SimilarityIndex(int size, Map<Long, Map<Long, Integer>> coPurchases, Weights weights, int width) {
+        this.productIds = new long[size];
+        this.categories = new int[size];
+        this.typeIds = new long[size];
+        this.tagCounts = new int[size];
+        this.prices = new double[size];
+        this.popularity = new double[size];
+        this.listed = new BitSet(size);
+        this.rowByProductId = new HashMap<>(size * 2);
+        this.coPurchases = coPurchases;
+        this.weights = weights;
+        this.width = width;
+        this.related = new long[size * width];
+        this.relatedCounts = new int[size];
+    }
+
+    //coPurchases holds, per product, the number of baskets it shares with each other product
+    public static SimilarityIndex build(Collection<Item> items, Map<Long, Map<Long, Integer>> coPurchases,
+                                        Weights weights, int width, int maxPostingSize, int chunkSize,
+                                        int parallelism) {
+        Item[] sorted = items.stream().sorted(Comparator.comparingLong(Item::productId)).toArray(Item[]::new);
+        SimilarityIndex index = new SimilarityIndex(sorted.length, Map.copyOf(coPurchases), weights, width);
+        Map<Long, List<Integer>> byTag = new HashMap<>();
+        Map<Long, List<Integer>> byType = new HashMap<>();
+        Map<Integer, List<Integer>> byCategory = new HashMap<>();
+        for (int row = 0; row < sorted.length; row++) {
+            Item item = sorted[row];
+            index.productIds[row] = item.productId();
+            index.categories[row] = item.category();
+            index.typeIds[row] = item.typeId();
+            index.tagCounts[row] = item.tagIds().length;
+            index.prices[row] = item.price();
+            index.popularity[row] = item.popularity();
+            index.rowByProductId.put(item.productId(), row);
+            if (!item.listed()) {
+                continue;
+            }
+            index.listed.set(row);
+            for (long tagId : item.tagIds()) {
+                byTag.computeIfAbsent(tagId, key -> new ArrayList<>()).add(row);
+            }
+            byType.computeIfAbsent(typeKey(item.category(), item.typeId()), key -> new ArrayList<>()).add(row);
+            byCategory.computeIfAbsent(item.category(), key -> new ArrayList<>()).add(row);
+        }
+        byTag.forEach((tagId, rows) -> index.rowsByTag.put(tagId, index.mostSold(rows, maxPostingSize)));
+        byType.forEach((typeKey, rows) -> index.rowsByType.put(typeKey, index.mostSold(rows, maxPostingSize)));
+        byCategory.forEach((category, rows) -> index.popularByCategory.put(category, index.mostSold(rows, width + 1)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            List<Callable<Void>> chunks = new ArrayList<>();
+            for (int from = 0; from < sorted.length; from += chunkSize) {
+                int start = from;
+                int end = Math.min(from + chunkSize, sorted.length);
+                chunks.add(() -> {
+                    Scorer scorer = index.new Scorer();
+                    for (int row = start; row < end; row++) {
+                        long[] best = index.relate(sorted[row], scorer);
+                        System.arraycopy(best, 0, index.related, row * width, best.length);
+                        index.relatedCounts[row] = best.length;
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> chunk : executor.invokeAll(chunks)) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Similarity index build interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not build the similarity index", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return index;
+    }
+
+    public int size() {
+        return productIds.length;
+    }
+
+    //null when the product was not in the catalog at build time
+    public long[] related(long productId) {
+        Integer row = rowByProductId.get(productId);
+        if (row == null) {
+            return null;
+        }
+        return Arrays.copyOfRange(related, row * width, row * width + relatedCounts[row]);
+    }
+
+    //scores a changed or new product against the rows of this index
+    public long[] relate(Item item) {
+        return this.relate(item, new Scorer());
+    }
+
+    private long[] relate(Item item, Scorer scorer) {
+        scorer.clear();
+        for (long tagId : item.tagIds()) {
+            for (int row : rowsByTag.getOrDefault(tagId, new int[0])) {
+                scorer.shareTag(row);
+            }
+        }
+        for (int row : rowsByType.getOrDefault(typeKey(item.category(), item.typeId()), new int[0])) {
+            scorer.touch(row);
+        }
+        Map<Long, Integer> partners = coPurchases.getOrDefault(item.productId(), Map.of());
+        int maxBaskets = 0;
+        for (Map.Entry<Long, Integer> partner : partners.entrySet()) {
+            Integer row = rowByProductId.get(partner.getKey());
+            if (row != null && listed.get(row)) {
+                scorer.touch(row);
+                maxBaskets = Math.max(maxBaskets, partner.getValue());
+            }
+        }
+
+        //best width candidates kept sorted, most candidates lose against the last one and cost one comparison
+        double[] scores = scorer.scores;
+        int[] best = scorer.best;
+        int count = 0;
+        for (int i = 0; i < scorer.touchedCount; i++) {
+            int row = scorer.touched[i];
+            if (productIds[row] == item.productId()) {
+                continue;
+            }
+            scores[row] = this.score(item, row, scorer.sharedTags[row] - 1,
+                    partners.isEmpty() ? null : partners.get(productIds[row]), maxBaskets);
+            if (count == width && this.compare(row, best[count - 1], scores) >= 0) {
+                continue;
+            }
+            int position = count == width ? width - 1 : count++;
+            while (position > 0 && this.compare(row, best[position - 1], scores) < 0) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = row;
+        }
+
+        long[] result = new long[width];
+        Set<Integer> chosen = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            result[i] = productIds[best[i]];
+            chosen.add(best[i]);
+        }
+        for (int row : popularByCategory.getOrDefault(item.category(), new int[0])) {
+            if (count == width) {
+                break;
+            }
+            if (productIds[row] != item.productId() && chosen.add(row)) {
+                result[count++] = productIds[row];
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private double score(Item item, int row, int sharedTags, Integer baskets, int maxBaskets) {
+        int tagUnion = item.tagIds().length + tagCounts[row] - sharedTags;
+        double tag = tagUnion == 0 ? 0 : (double) sharedTags / tagUnion;
+        double type = item.category() == categories[row] && item.typeId() == typeIds[row] ? 1 : 0;
+        double coPurchase = baskets == null ? 0 : Math.log1p(baskets) / Math.log1p(maxBaskets);
+        double highest = Math.max(item.price(), prices[row]);
+        double price = highest <= 0 ? 1 : 1 - Math.abs(item.price() - prices[row]) / highest;
+        return weights.tag() * tag + weights.type() * type + weights.coPurchase() * coPurchase + weights.price() * price;
+    }
+
+    //best first: score, then units sold, then product id
+    private int compare(int left, int right, double[] scores) {
+        int byScore = Double.compare(scores[right], scores[left]);
+        if (byScore != 0) {
+            return byScore;
+        }
+        int byPopularity = Double.compare(popularity[right], popularity[left]);
+        return byPopularity != 0 ? byPopularity : Long.compare(productIds[left], productIds[right]);
+    }
+
+    private int[] mostSold(List<Integer> rows, int limit) {
+        return rows.stream()
+                .sorted(Comparator.comparingDouble((Integer row) -> -popularity[row])
+                        .thenComparingLong(row -> productIds[row]))
+                .limit(limit)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    //type ids are only unique within a category
+    private static long typeKey(int category, long typeId) {
+        return ((long) category << 48) | typeId;
+    }
+
+    //candidate rows touched while relating one item; reused across the rows of a chunk
+    private class Scorer {
+        //shared tag count plus one, zero for rows not touched yet
+        private final int[] sharedTags = new int[productIds.length];
+        private final int[] touched = new int[productIds.length];
+        private final double[] scores = new double[productIds.length];
+        private final int[] best = new int[width];
+        private int touchedCount;
+
+        private void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                sharedTags[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+
+        private void touch(int row) {
+            if (sharedTags[row] == 0) {
+                sharedTags[row] = 1;
+                touched[touchedCount++] = row;
+            }
+        }
+
+        private void shareTag(int row) {
+            this.touch(row);
+            sharedTags[row]++;
+        }
+    }
+}
@@ -12,6 +12,9 @@ public interface AccessoryService {
 
     ResponseEntity<?> retrieveAccessoryByPageNumber(int pageNumber);
 
+    //cursor mode: blank cursor for the first page, then the nextCursor of the previous page
+    ResponseEntity<?> retrieveAccessoryByCursor(String cursor);
+
     List<AccessoryDto> findAccessoryByName(String name);
 
     void updateAccessory(AccessoryDto accessoryDto);
@@ -11,6 +11,9 @@ public interface BirdService {
 
     ResponseEntity<?> retrieveBirdByPageNumber(int pageNumber);
 
+    //cursor mode: blank cursor for the first page, then the nextCursor of the previous page
+    ResponseEntity<?> retrieveBirdByCursor(String cursor);
+
     List<BirdDto> findBirdByName(String name);
 
     void updateBird(BirdDto birdDto);
@@ -0,0 +1,16 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.search.CatalogSnapshot;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface CatalogFilterService {
+    //empty until the first snapshot is loaded, callers fall back to SQL meanwhile
+    Optional<CatalogSnapshot.Result> filter(CatalogSnapshot.Query query);
+
+    //reloads the products from the database once the current transaction commits
+    void refresh(Collection<Long> productIds);
+
+    void reload();
+}
@@ -0,0 +1,14 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.CartDto;
+import com.gangoffive.birdtradingplatform.dto.CheckoutContextDto;
+import com.gangoffive.birdtradingplatform.dto.CheckoutQuoteDto;
+import com.gangoffive.birdtradingplatform.util.CheckoutQuoteSigner;
+
+public interface CheckoutQuoteService {
+    //signs the cart priced on the server from this context for the buyer
+    CheckoutQuoteDto sign(String email, CheckoutContextDto context, CartDto quotedCart);
+
+    //the cart of the context must be the one quoted to the buyer, priced from the same product and voucher values
+    CheckoutQuoteSigner.Verification verify(String quoteToken, String email, CheckoutContextDto context);
+}
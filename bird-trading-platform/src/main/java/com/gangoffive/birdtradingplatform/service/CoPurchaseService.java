@@ -0,0 +1,27 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.CoPurchaseBackfillDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface CoPurchaseService {
+    //counts the products of one checkout as bought together once the current transaction commits
+    void record(Collection<Long> productIds);
+
+    //products most often bought with the product, from memory only
+    List<Long> getTopCoPurchasedProductIds(long productId);
+
+    //true once a backfill has completed since startup
+    boolean isReady();
+
+    //per product, the partners kept in memory with their approximate basket counts
+    Map<Long, Map<Long, Integer>> getPartnerCounts();
+
+    //counts every past package order again into a new sketch, false when a backfill is already running
+    boolean startBackfill();
+
+    //null when no backfill has run since startup
+    CoPurchaseBackfillDto getProgress();
+}
@@ -12,6 +12,9 @@ public interface FoodService {
 
     ResponseEntity<?> retrieveFoodByPageNumber(int pageNumber);
 
+    //cursor mode: blank cursor for the first page, then the nextCursor of the previous page
+    ResponseEntity<?> retrieveFoodByCursor(String cursor);
+
     List<FoodDto> findFoodByName(String name);
 
     //    Food addNewFood(FoodDto id);
@@ -1,9 +1,14 @@
 package com.gangoffive.birdtradingplatform.service;
 
+import com.gangoffive.birdtradingplatform.dto.ShopInfoDto;
+import com.gangoffive.birdtradingplatform.dto.ShopSummaryDto;
 import org.springframework.http.ResponseEntity;
 
 public interface InfoService {
     ResponseEntity<?> getUserInfo(String token);
 
     ResponseEntity<?> getShopInfo(Long id);
+
+    //order and review totals of the shop, loads nothing but its orders and reviews
+    ShopSummaryDto getShopSummary(ShopInfoDto shopInfoDto);
 }
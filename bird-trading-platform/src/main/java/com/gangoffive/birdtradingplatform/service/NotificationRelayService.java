@@ -0,0 +1,9 @@
+package com.gangoffive.birdtradingplatform.service;
+
+public interface NotificationRelayService {
+    //signals the relay, after the current transaction commits when there is one
+    void wakeUp();
+
+    //publishes the next batch of outbox messages without waiting for kafka, returns how many were sent
+    int relay();
+}
@@ -1,13 +1,25 @@
 package com.gangoffive.birdtradingplatform.service;
 
 import com.gangoffive.birdtradingplatform.dto.*;
+import com.gangoffive.birdtradingplatform.entity.Account;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public interface PackageOrderService {
-    ResponseEntity<?> packageOrder(PackageOrderRequestDto packageOrder, String paymentId, String payerId);
+    ResponseEntity<?> packageOrder(PackageOrderRequestDto packageOrder);
+
+    //prices the cart on the server and signs it, packageOrder then accepts it with the token alone
+    ResponseEntity<?> quoteCheckout(PackageOrderRequestDto packageOrder);
+
+    //saves the orders of an executed paypal payment whose stock is already confirmed, returns the package order id
+    Long completePaypalPayment(PackageOrderRequestDto packageOrder, Account account, String paymentId, String payerEmail);
+
+    CheckoutContextDto loadCheckoutContext(PackageOrderRequestDto packageOrder);
+
+    Optional<String> validateCart(CheckoutContextDto context);
 
     boolean checkPromotion(PackageOrderRequestDto packageOrder, Map<Long, Integer> productOrder);
 
@@ -0,0 +1,13 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.PackageOrderRequestDto;
+import org.springframework.http.ResponseEntity;
+
+public interface PaymentCompletionService {
+    //records the approved payment and returns without calling paypal, safe to repeat with the same paymentId
+    ResponseEntity<?> submit(PackageOrderRequestDto packageOrder, String paymentId, String payerId);
+
+    ResponseEntity<?> getCompletion(String paymentId);
+
+    int dispatchDueCompletions();
+}
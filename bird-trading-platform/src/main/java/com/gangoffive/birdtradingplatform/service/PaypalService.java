@@ -56,6 +56,21 @@ public class PaypalService {
         return payment.execute(apiContext, paymentExecute);
     }
 
+    //requestId goes out as PayPal-Request-Id so a retried execute returns the first result instead of charging again
+    public Payment executePayment(String paymentId, String payerId, String requestId) throws PayPalRESTException {
+        APIContext context = new APIContext(apiContext.getAccessToken(), requestId);
+        context.setConfigurationMap(apiContext.getConfigurationMap());
+        Payment payment = new Payment();
+        payment.setId(paymentId);
+        PaymentExecution paymentExecute = new PaymentExecution();
+        paymentExecute.setPayerId(payerId);
+        return payment.execute(context, paymentExecute);
+    }
+
+    public Payment getPayment(String paymentId) throws PayPalRESTException {
+        return Payment.get(apiContext, paymentId);
+    }
+
     public void createPayout(PayoutDto payoutDto) {
         try {
             // Create a payout
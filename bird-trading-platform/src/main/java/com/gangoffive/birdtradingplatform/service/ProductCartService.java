@@ -0,0 +1,9 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
+
+import java.util.List;
+
+public interface ProductCartService {
+    List<ProductCartDto> buildProductCarts(List<Long> productIds);
+}
@@ -0,0 +1,16 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import java.util.Collection;
+
+public interface ProductCatalogService {
+    //false until the first repair pass has filled the table, callers read the product tables meanwhile
+    boolean isReady();
+
+    //copies the products into the catalog once the current transaction commits
+    void sync(Collection<Long> productIds);
+
+    void syncShops(Collection<Long> shopIds);
+
+    //rewrites every row that differs from the product tables, returns how many were rewritten
+    int repair();
+}
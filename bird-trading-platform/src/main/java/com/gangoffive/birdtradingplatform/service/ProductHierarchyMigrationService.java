@@ -0,0 +1,9 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductHierarchyMigrationDto;
+
+public interface ProductHierarchyMigrationService {
+    boolean startMigration(boolean resume);
+
+    ProductHierarchyMigrationDto getProgress();
+}
@@ -0,0 +1,9 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import org.springframework.http.ResponseEntity;
+
+public interface ProductPageService {
+    //product detail, shop summary, relevant products and the first review page in one response; the
+    //sections after the product are left out when they do not finish in time
+    ResponseEntity<?> getProductPage(Long productId, int reviewPageNumber);
+}
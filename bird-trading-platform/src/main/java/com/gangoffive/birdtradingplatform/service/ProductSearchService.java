@@ -0,0 +1,16 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductSearchService {
+    //ids of products matching the query, best match first; categoryId null searches every category.
+    //empty while the index is still being built on startup, callers match the names in SQL meanwhile
+    Optional<List<Long>> search(String query, Integer categoryId, int limit);
+
+    //reloads the products from the database once the current transaction commits
+    void reindex(Collection<Long> productIds);
+
+    void rebuild();
+}
@@ -3,7 +3,9 @@ package com.gangoffive.birdtradingplatform.service;
 import com.gangoffive.birdtradingplatform.dto.*;
 import com.gangoffive.birdtradingplatform.entity.OrderDetail;
 import com.gangoffive.birdtradingplatform.entity.Product;
+import com.gangoffive.birdtradingplatform.entity.ProductSummary;
 import com.gangoffive.birdtradingplatform.entity.PromotionShop;
+import com.gangoffive.birdtradingplatform.enums.Category;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -14,6 +16,9 @@ public interface ProductService {
 
     ResponseEntity<?> retrieveProductByPageNumber(int pageNumber);
 
+    //cursor mode: blank cursor for the first page, then the nextCursor of the previous page
+    ResponseEntity<?> retrieveProductByCursor(String cursor);
+
     double CalculationRating(List<OrderDetail> orderDetails);
 
     double CalculateSaleOff(List<PromotionShop> listPromotion, double price);
@@ -26,6 +31,9 @@ public interface ProductService {
 
     ResponseEntity<?> retrieveProductById(Long id);
 
+    //detail of a product already loaded with its summary, 423 when the product or its shop is banned
+    ResponseEntity<?> retrieveProductDetail(Product product, ProductSummary productSummary);
+
     double CalculateDiscountedPrice(double price, double saleOff);
 
     ProductDto ProductToDto(Product product);
@@ -34,6 +42,8 @@ public interface ProductService {
 
     ResponseEntity<?> retrieveProductByShopId(long shopId, int pageNumber);
 
+    ResponseEntity<?> retrieveProductByShopIdAndCursor(long shopId, String cursor);
+
     ProductCartDto productToProductCart(Product product);
 
     ResponseEntity<?> filter(ProductFilterDto filterDto);
@@ -62,6 +72,11 @@ public interface ProductService {
 
     ResponseEntity<?> getProductRelevantBaseOnId(long productId);
 
+    //related cards from the similarity index, falling back to the products sharing the type and tags
+    List<ProductCartDto> getRelatedProductCarts(Category category, long productId, long typeId, List<Long> tagIds);
+
+    ResponseEntity<?> getProductBoughtTogether(long productId);
+
     ResponseEntity<?> retrieveProductByShopidAndTagId(long shopId, long[] tagId);
 }
 
@@ -0,0 +1,18 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductSimilarityService {
+    //listed products related to the product, empty until the index is built or when the product is not in it
+    Optional<List<Long>> getRelatedProductIds(long productId);
+
+    //scores the products again once the current transaction commits
+    void refresh(Collection<Long> productIds);
+
+    //a shop status change lists or hides all of its products
+    void refreshShops(Collection<Long> shopIds);
+
+    void rebuild();
+}
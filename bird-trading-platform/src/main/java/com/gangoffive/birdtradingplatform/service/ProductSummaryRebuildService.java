@@ -0,0 +1,9 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductSummaryRebuildDto;
+
+public interface ProductSummaryRebuildService {
+    boolean startRebuild(boolean resume);
+
+    ProductSummaryRebuildDto getProgress();
+}
@@ -1,20 +1,30 @@
 package com.gangoffive.birdtradingplatform.service;
 
 import com.gangoffive.birdtradingplatform.dto.ProductFilterDto;
+import com.gangoffive.birdtradingplatform.dto.ProductSummaryEventDto;
 import com.gangoffive.birdtradingplatform.entity.OrderDetail;
 import com.gangoffive.birdtradingplatform.entity.Product;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 
 
 public interface ProductSummaryService {
     double updateProductStar(Product product);
+
+    void publishEvent(ProductSummaryEventDto event);
+
+    void publishEvents(List<ProductSummaryEventDto> events);
     int updateReviewTotal(Product product);
     int updateTotalQuantityOrder(Product product);
     String updateCategory(Product product);
     boolean apply(Product product);
+
+    int rebuildChunk(List<Long> productIds);
+
+    int recalculateDiscountedPrice(Collection<Long> productIds);
     List<Long> getIdTopBird();
 
     List<Long> getIdTopAccessories();
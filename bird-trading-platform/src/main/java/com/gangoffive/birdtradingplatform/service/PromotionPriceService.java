@@ -3,11 +3,15 @@ package com.gangoffive.birdtradingplatform.service;
 import com.gangoffive.birdtradingplatform.entity.Product;
 import com.gangoffive.birdtradingplatform.entity.PromotionShop;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface PromotionPriceService {
     double CalculateSaleOff(List<PromotionShop> listPromotion, double price);
 
+    double calculateSaleOffByDiscountRates(List<Integer> discountRates, double price);
+
     double CalculateDiscountedPrice(double price, double saleOff);
 
     double getDiscountedPrice(Product product);
@@ -15,4 +19,13 @@ public interface PromotionPriceService {
     double calculatePercentDiscountedOfProductByPromotions(
             List<PromotionShop> promotionShops, double discountedPrice
     );
+
+    //discount rates of the active promotions of the product, cached until its promotion set changes
+    int[] getDiscountRates(Product product);
+
+    //the products not cached are read in one query
+    Map<Long, int[]> getDiscountRates(Collection<Long> productIds);
+
+    //the cached rates are dropped once the current transaction commits
+    void evictDiscountRates(Collection<Long> productIds);
 }
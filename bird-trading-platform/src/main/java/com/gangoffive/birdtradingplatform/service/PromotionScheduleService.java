@@ -0,0 +1,16 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.entity.PromotionShop;
+
+import java.util.Date;
+import java.util.List;
+
+public interface PromotionScheduleService {
+    void schedule(PromotionShop promotionShop);
+
+    void reschedule(PromotionShop promotionShop);
+
+    void reload();
+
+    List<Date> pendingBoundaries(Long promotionShopId);
+}
@@ -9,4 +9,6 @@ public interface PromotionShopService {
     ResponseEntity<?> retrieveAllPromotionShop();
 
     ResponseEntity<?> createNewPromotionShop(PromotionShopDto promotionShop);
+
+    ResponseEntity<?> updatePromotionShop(PromotionShopDto promotionShop);
 }
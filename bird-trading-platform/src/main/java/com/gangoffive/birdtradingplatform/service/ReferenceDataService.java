@@ -0,0 +1,13 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.cache.ReferenceData;
+
+public interface ReferenceDataService {
+    //types and tags held by this node, loaded on first use
+    ReferenceData getReferenceData();
+
+    //reloads this node once the current transaction commits and tells the other nodes to do the same
+    void publishChange(ReferenceData.Change change);
+
+    void reload();
+}
@@ -0,0 +1,19 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ResourceVersionDto;
+import com.gangoffive.birdtradingplatform.enums.Category;
+
+import java.util.Collection;
+import java.util.Optional;
+
+//validators for conditional GETs, read with one narrow query before any dto is assembled; empty when the
+//resource would not be answered with 200
+public interface ResourceVersionService {
+    Optional<ResourceVersionDto> getProductVersion(Long productId);
+
+    Optional<ResourceVersionDto> getShopVersion(Long shopId);
+
+    ResourceVersionDto getTypeVersion(Collection<Category> categories);
+
+    Optional<ResourceVersionDto> getShopTagVersion(Long shopId);
+}
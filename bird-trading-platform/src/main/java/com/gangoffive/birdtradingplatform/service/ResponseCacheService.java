@@ -0,0 +1,32 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.cache.CachedRoute;
+import com.gangoffive.birdtradingplatform.cache.ResponseCache;
+import com.gangoffive.birdtradingplatform.dto.ResponseCacheStatsDto;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface ResponseCacheService {
+    Optional<ResponseCache.CachedResponse> get(String key);
+
+    long generation();
+
+    void put(String key, CachedRoute.Match match, int status, String contentType, String eTag, long lastModified,
+             byte[] body, long generation);
+
+    //the evict methods drop the cached responses once the current transaction commits
+    void evictProducts(Collection<Long> productIds);
+
+    void evictReviews(Collection<Long> productIds);
+
+    void evictPromotions();
+
+    //a type was created on this or another node
+    void evictTypes();
+
+    //a shop status change lists or hides all of its products, every response is dropped
+    void evictShops(Collection<Long> shopIds);
+
+    ResponseCacheStatsDto getStats();
+}
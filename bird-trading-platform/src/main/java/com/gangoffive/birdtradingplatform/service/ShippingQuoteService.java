@@ -0,0 +1,9 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ShippingQuoteService {
+    //fee of each distance asked concurrently, -1 where the ship service does not deliver or could not answer
+    Map<Double, Double> quote(Collection<Double> distances);
+}
@@ -0,0 +1,18 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface StockReservationService {
+    //each method returns the id of the first product that could not be reserved, empty when every item succeeded
+    Optional<Long> reserve(Map<Long, Integer> productOrder);
+
+    Optional<Long> reserveForPayment(String paymentId, Map<Long, Integer> productOrder);
+
+    Optional<Long> confirmPayment(String paymentId, Map<Long, Integer> productOrder);
+
+    //gives back the stock of a confirmed payment that paypal refused to execute
+    void cancelPayment(String paymentId, Map<Long, Integer> productOrder);
+
+    int releaseExpiredReservations();
+}
@@ -0,0 +1,20 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
+import com.gangoffive.birdtradingplatform.enums.Category;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TopProductService {
+    //best listed products of the category by star then units sold
+    List<ProductCartDto> getTopProducts(Category category);
+
+    //re-ranks the products once the current transaction commits
+    void refresh(Collection<Long> productIds);
+
+    //a shop status change lists or hides all of its products, every category is loaded again after commit
+    void refreshShops(Collection<Long> shopIds);
+
+    void reload();
+}
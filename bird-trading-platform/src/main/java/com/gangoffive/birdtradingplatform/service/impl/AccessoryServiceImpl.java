@@ -4,6 +4,7 @@ import com.gangoffive.birdtradingplatform.api.response.ErrorResponse;
 import com.gangoffive.birdtradingplatform.common.PagingAndSorting;
 import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
 import com.gangoffive.birdtradingplatform.common.ShopOwnerConstant;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
 import com.gangoffive.birdtradingplatform.dto.AccessoryDto;
 import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
 import com.gangoffive.birdtradingplatform.dto.ProductDto;
@@ -11,6 +12,7 @@ import com.gangoffive.birdtradingplatform.dto.ProductShopDto;
 import com.gangoffive.birdtradingplatform.entity.Accessory;
 import com.gangoffive.birdtradingplatform.entity.Product;
 import com.gangoffive.birdtradingplatform.entity.ShopOwner;
+import com.gangoffive.birdtradingplatform.enums.Category;
 import com.gangoffive.birdtradingplatform.enums.ResponseCode;
 import com.gangoffive.birdtradingplatform.exception.CustomRuntimeException;
 import com.gangoffive.birdtradingplatform.mapper.AccessoryMapper;
@@ -18,8 +20,13 @@ import com.gangoffive.birdtradingplatform.repository.AccessoryRepository;
 import com.gangoffive.birdtradingplatform.repository.AccountRepository;
 import com.gangoffive.birdtradingplatform.repository.TagRepository;
 import com.gangoffive.birdtradingplatform.service.AccessoryService;
+import com.gangoffive.birdtradingplatform.service.ProductSearchService;
 import com.gangoffive.birdtradingplatform.service.ProductService;
 import com.gangoffive.birdtradingplatform.service.ProductSummaryService;
+import com.gangoffive.birdtradingplatform.service.TopProductService;
+import com.gangoffive.birdtradingplatform.util.MyUtils;
+import com.gangoffive.birdtradingplatform.util.PageCursor;
+import com.gangoffive.birdtradingplatform.wrapper.CursorPageWrapper;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
 import lombok.RequiredArgsConstructor;
@@ -44,6 +51,9 @@ public class AccessoryServiceImpl implements AccessoryService {
     private final ProductService productService;
     private final ProductSummaryService productSummaryService;
     private final AccountRepository accountRepository;
+    private final ProductSearchService productSearchService;
+    private final TopProductService topProductService;
+    private final AppProperties appProperties;
 
     @Override
     public List<AccessoryDto> retrieveAllAccessory() {
@@ -82,7 +92,7 @@ public class AccessoryServiceImpl implements AccessoryService {
     public ResponseEntity<?> retrieveAccessoryByPageNumber(int pageNumber) {
         if (pageNumber > 0) {
             pageNumber = pageNumber - 1;
-            PageRequest pageRequest = PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SIZE);
+            PageRequest pageRequest = PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SIZE, Sort.by("id"));
             Page<Accessory> pageAble = accessoryRepository.findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(0,
                     ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER, pageRequest);
             List<AccessoryDto> accessories = pageAble.getContent()
@@ -95,17 +105,36 @@ public class AccessoryServiceImpl implements AccessoryService {
         return ResponseUtils.getErrorResponseBadRequestPageNumber();
     }
 
+    @Override
+    public ResponseEntity<?> retrieveAccessoryByCursor(String cursor) {
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtils.getErrorResponseBadRequestPageCursor();
+        }
+        //seeks on the primary key and skips the count query of the page number mode
+        List<Accessory> accessories = accessoryRepository.findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusInAndIdGreaterThanOrderByIdAsc(0,
+                ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER,
+                after == null ? 0L : after.id(), PageRequest.of(0, PagingAndSorting.DEFAULT_PAGE_SIZE + 1));
+        return ResponseEntity.ok(CursorPageWrapper.of(accessories, PagingAndSorting.DEFAULT_PAGE_SIZE,
+                accessory -> new PageCursor(0, accessory.getId()),
+                accessory -> (AccessoryDto) productService.ProductToDto(accessory)));
+    }
+
     @Override
     public List<AccessoryDto> findAccessoryByName(String name) {
-        List<AccessoryDto> accessories = accessoryRepository
-                .findByNameLikeAndStatusInAndQuantityGreaterThanEqual("%" + name + "%",
-                        ProductStatusConstant.LIST_STATUS_GET_FOR_USER,
-                        ProductStatusConstant.QUANTITY_PRODUCT_FOR_USER)
-                .get()
-                .stream()
+        List<Accessory> accessories = productSearchService.search(name, Category.ACCESSORY.getCategoryId(),
+                        appProperties.getSearch().getResultLimit())
+                .map(ids -> MyUtils.orderByIds(accessoryRepository.findAllById(ids), ids, Accessory::getId))
+                //the search index is still being built
+                .orElseGet(() -> accessoryRepository.findByNameLikeAndStatusInAndQuantityGreaterThanEqual("%" + name + "%",
+                        ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ProductStatusConstant.QUANTITY_PRODUCT_FOR_USER)
+                        .orElse(List.of()));
+        return accessories.stream()
+                .filter(accessory -> accessory.getQuantity() >= ProductStatusConstant.QUANTITY_PRODUCT_FOR_USER)
                 .map(accessory -> (AccessoryDto) productService.ProductToDto(accessory))
                 .collect(Collectors.toList());
-        return accessories;
     }
 
     @Override
@@ -120,12 +149,7 @@ public class AccessoryServiceImpl implements AccessoryService {
 
     @Override
     public ResponseEntity<?> findTopAccessories() {
-        List<Accessory> lists = accessoryRepository.findAllById(productSummaryService.getIdTopAccessories());
-        if (lists != null) {
-            List<ProductCartDto> listDto = lists.stream().map(accessory ->  productService.productToProductCart(accessory)).toList();
-            return ResponseEntity.ok(listDto);
-        }
-        return null;
+        return ResponseEntity.ok(topProductService.getTopProducts(Category.ACCESSORY));
     }
 
     @Override
@@ -4,6 +4,7 @@ import com.gangoffive.birdtradingplatform.api.response.ErrorResponse;
 import com.gangoffive.birdtradingplatform.common.PagingAndSorting;
 import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
 import com.gangoffive.birdtradingplatform.common.ShopOwnerConstant;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
 import com.gangoffive.birdtradingplatform.dto.BirdDto;
 import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
 import com.gangoffive.birdtradingplatform.dto.ProductDto;
@@ -15,8 +16,14 @@ import com.gangoffive.birdtradingplatform.mapper.BirdMapper;
 import com.gangoffive.birdtradingplatform.repository.*;
 import com.gangoffive.birdtradingplatform.service.AuthenticationService;
 import com.gangoffive.birdtradingplatform.service.BirdService;
+import com.gangoffive.birdtradingplatform.service.ProductSearchService;
 import com.gangoffive.birdtradingplatform.service.ProductService;
 import com.gangoffive.birdtradingplatform.service.ProductSummaryService;
+import com.gangoffive.birdtradingplatform.service.TopProductService;
+import com.gangoffive.birdtradingplatform.util.MyUtils;
+import com.gangoffive.birdtradingplatform.util.PageCursor;
+import com.gangoffive.birdtradingplatform.util.ResponseUtils;
+import com.gangoffive.birdtradingplatform.wrapper.CursorPageWrapper;
 import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +51,9 @@ public class BirdServiceImpl implements BirdService {
     private final ProductSummaryRepository productSummaryRepository;
     private final AccountRepository accountRepository;
     private final TypeBirdRepository typeBirdRepository;
+    private final ProductSearchService productSearchService;
+    private final TopProductService topProductService;
+    private final AppProperties appProperties;
     private AuthenticationService authenticationService;
 
     @Override
@@ -60,7 +70,7 @@ public class BirdServiceImpl implements BirdService {
     public ResponseEntity<?> retrieveBirdByPageNumber(int pageNumber) {
         if (pageNumber > 0) {
             pageNumber = pageNumber - 1;
-            PageRequest pageRequest = PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SIZE);
+            PageRequest pageRequest = PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SIZE, Sort.by("id"));
             Page<Bird> pageAble = birdRepository.findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(0,
                     ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER ,pageRequest);
             List<BirdDto> birds = pageAble.getContent()
@@ -75,15 +85,33 @@ public class BirdServiceImpl implements BirdService {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @Override
+    public ResponseEntity<?> retrieveBirdByCursor(String cursor) {
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtils.getErrorResponseBadRequestPageCursor();
+        }
+        //seeks on the primary key and skips the count query of the page number mode
+        List<Bird> birds = birdRepository.findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusInAndIdGreaterThanOrderByIdAsc(0,
+                ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER,
+                after == null ? 0L : after.id(), PageRequest.of(0, PagingAndSorting.DEFAULT_PAGE_SIZE + 1));
+        return ResponseEntity.ok(CursorPageWrapper.of(birds, PagingAndSorting.DEFAULT_PAGE_SIZE,
+                bird -> new PageCursor(0, bird.getId()),
+                bird -> (BirdDto) productService.ProductToDto(bird)));
+    }
+
     @Override
     public List<BirdDto> findBirdByName(String name) {
-        List<BirdDto> birds = birdRepository
-                .findByNameLike("%" + name + "%")
-                .get()
-                .stream()
+        List<Bird> birds = productSearchService.search(name, Category.BIRD.getCategoryId(),
+                        appProperties.getSearch().getResultLimit())
+                .map(ids -> MyUtils.orderByIds(birdRepository.findAllById(ids), ids, Bird::getId))
+                //the search index is still being built
+                .orElseGet(() -> birdRepository.findByNameLike("%" + name + "%").orElse(List.of()));
+        return birds.stream()
                 .map(bird -> (BirdDto) productService.ProductToDto(bird))
                 .collect(Collectors.toList());
-        return birds;
     }
 
     @Override
@@ -98,13 +126,7 @@ public class BirdServiceImpl implements BirdService {
 
     @Override
     public ResponseEntity<?> findTopBirdProduct() {
-        List<Bird> listBirds = birdRepository.findAllById(productSummaryService.getIdTopBird());
-        if (listBirds != null) {
-//            List<BirdDto> birdDtos = listBirds.stream().map(bird -> (BirdDto) productService.ProductToDto(bird)).toList();
-            List<ProductCartDto> birdDtos = listBirds.stream().map(bird -> productService.productToProductCart(bird)).toList();
-            return ResponseEntity.ok(birdDtos);
-        }
-        return new ResponseEntity<>("Not found top products", HttpStatus.BAD_REQUEST);
+        return ResponseEntity.ok(topProductService.getTopProducts(Category.BIRD));
     }
 
     @Override
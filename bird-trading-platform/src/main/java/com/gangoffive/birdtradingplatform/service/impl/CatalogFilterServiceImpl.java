@@ -0,0 +1,147 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ProductsChangedEventDto;
+import com.gangoffive.birdtradingplatform.enums.ProductTable;
+import com.gangoffive.birdtradingplatform.search.CatalogSnapshot;
+import com.gangoffive.birdtradingplatform.service.CatalogFilterService;
+import com.gangoffive.birdtradingplatform.util.AfterCommitCollector;
+import com.gangoffive.birdtradingplatform.util.BackgroundRebuild;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//rows are kept per product and compacted into an immutable snapshot on a short timer, one rebuild for all the
+//commits since the last one, so readers never lock and a page costs one bitset walk
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogFilterServiceImpl implements CatalogFilterService {
+    private static final int RELOAD_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final AppProperties appProperties;
+
+    private final Map<Long, CatalogSnapshot.Row> rows = new ConcurrentHashMap<>();
+    private volatile CatalogSnapshot snapshot;
+    private final BackgroundRebuild<Long> reloads =
+            new BackgroundRebuild<>("catalog filter snapshot", this::reload, this::load);
+    //ids are collected per transaction and loaded in one pass after it commits
+    private final AfterCommitCollector<Long> pendingIds = AfterCommitCollector.distinct(reloads::apply);
+    //rows changed since the last compaction
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reloads.start();
+    }
+
+    //catches shop status changes and changes made by other instances
+    @Scheduled(initialDelayString = "${app.catalogFilter.reloadIntervalMillis}", fixedDelayString = "${app.catalogFilter.reloadIntervalMillis}")
+    public void scheduledReload() {
+        reloads.rebuildIfIdle();
+    }
+
+    @Scheduled(initialDelayString = "${app.catalogFilter.compactIntervalMillis}", fixedDelayString = "${app.catalogFilter.compactIntervalMillis}")
+    public void scheduledCompact() {
+        //a running reload compacts once it is done
+        if (snapshot == null || reloads.isRebuilding() || !dirty.getAndSet(false)) {
+            return;
+        }
+        this.compact();
+    }
+
+    @Override
+    public Optional<CatalogSnapshot.Result> filter(CatalogSnapshot.Query query) {
+        CatalogSnapshot current = snapshot;
+        return current == null ? Optional.empty() : Optional.of(current.query(query));
+    }
+
+    @Override
+    public void refresh(Collection<Long> productIds) {
+        pendingIds.addAll(productIds);
+    }
+
+    @EventListener
+    public void onProductsChanged(ProductsChangedEventDto event) {
+        this.refresh(event.getProductIds());
+    }
+
+    @Override
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        reloads.build(() -> {
+            Map<Long, CatalogSnapshot.Row> loaded = this.loadRows(null);
+            //a row loaded meanwhile may be overwritten here, its id is applied again after the build
+            rows.keySet().retainAll(loaded.keySet());
+            rows.putAll(loaded);
+        });
+        dirty.set(false);
+        this.compact();
+        log.info("Catalog filter snapshot loaded: {} products in {} ms", snapshot.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void load(List<Long> productIds) {
+        for (int from = 0; from < productIds.size(); from += RELOAD_CHUNK_SIZE) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, productIds.size()));
+            Map<Long, CatalogSnapshot.Row> loaded = this.loadRows(chunk);
+            //deleted products and products without a summary row drop out, as they do from the SQL filter
+            chunk.forEach(productId -> {
+                CatalogSnapshot.Row row = loaded.get(productId);
+                if (row == null) {
+                    rows.remove(productId);
+                } else {
+                    rows.put(productId, row);
+                }
+            });
+        }
+        dirty.set(true);
+    }
+
+    private synchronized void compact() {
+        double[] priceBucketEdges = appProperties.getCatalogFilter().getPriceBucketEdges().stream()
+                .mapToDouble(Double::doubleValue)
+                .sorted()
+                .toArray();
+        snapshot = CatalogSnapshot.build(rows.values(), priceBucketEdges);
+    }
+
+    private Map<Long, CatalogSnapshot.Row> loadRows(Collection<Long> productIds) {
+        Map<Long, CatalogSnapshot.Row> loaded = new HashMap<>();
+        Map<String, Object> params = new HashMap<>();
+        if (productIds != null) {
+            params.put("ids", productIds);
+        }
+        Arrays.stream(ProductTable.values()).forEach(tables -> {
+            String sql = "SELECT p.product_id, p.type_id, p.shop_id, p.status, p.quantity, " +
+                    "ps.discounted_price, ps.star, sh.status AS shop_status " +
+                    "FROM " + tables.getProductTable() + " p " +
+                    "INNER JOIN tbl_product_summary ps ON ps.product_id = p.product_id " +
+                    "INNER JOIN tbl_shop_owner_acc sh ON sh.shop_id = p.shop_id " +
+                    (productIds != null ? "WHERE p.product_id IN (:ids)" : "");
+            namedParameterJdbcTemplate.query(sql, params, resultSet -> {
+                long productId = resultSet.getLong("product_id");
+                loaded.put(productId, new CatalogSnapshot.Row(
+                        productId,
+                        tables.getCategoryId(),
+                        resultSet.getDouble("discounted_price"),
+                        resultSet.getDouble("star"),
+                        resultSet.getLong("type_id"),
+                        resultSet.getLong("shop_id"),
+                        resultSet.getString("status"),
+                        resultSet.getInt("quantity"),
+                        resultSet.getString("shop_status")));
+            });
+        });
+        return loaded;
+    }
+}
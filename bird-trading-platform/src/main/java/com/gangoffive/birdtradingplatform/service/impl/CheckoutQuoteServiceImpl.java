@@ -0,0 +1,116 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.CartDto;
+import com.gangoffive.birdtradingplatform.dto.CheckoutContextDto;
+import com.gangoffive.birdtradingplatform.dto.CheckoutQuoteDto;
+import com.gangoffive.birdtradingplatform.dto.ItemByShopDto;
+import com.gangoffive.birdtradingplatform.entity.Product;
+import com.gangoffive.birdtradingplatform.entity.Promotion;
+import com.gangoffive.birdtradingplatform.service.CheckoutQuoteService;
+import com.gangoffive.birdtradingplatform.util.CheckoutQuoteSigner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.*;
+
+@Service
+@Slf4j
+public class CheckoutQuoteServiceImpl implements CheckoutQuoteService {
+    private final AppProperties appProperties;
+    private final CheckoutQuoteSigner signer;
+
+    public CheckoutQuoteServiceImpl(AppProperties appProperties) {
+        this.appProperties = appProperties;
+        this.signer = new CheckoutQuoteSigner(this.key(appProperties.getAuth().getSecretKey()),
+                System::currentTimeMillis);
+    }
+
+    @Override
+    public CheckoutQuoteDto sign(String email, CheckoutContextDto context, CartDto quotedCart) {
+        long expiresAt = System.currentTimeMillis() + appProperties.getCheckoutQuote().getTtlMillis();
+        return CheckoutQuoteDto.builder()
+                .cartInfo(quotedCart)
+                .quoteToken(signer.sign(email, expiresAt, this.priceVersion(context), this.canonical(quotedCart)))
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    @Override
+    public CheckoutQuoteSigner.Verification verify(String quoteToken, String email, CheckoutContextDto context) {
+        return signer.verify(quoteToken, email, this.priceVersion(context),
+                this.canonical(context.getPackageOrder().getCartInfo()));
+    }
+
+    //derived from the jwt secret so every node signs alike, and a quote mac is never a jwt signature
+    private byte[] key(String secretKey) {
+        if (secretKey == null || secretKey.isEmpty()) {
+            log.warn("No secret key configured, checkout quotes are only valid on this node");
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            return key;
+        }
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(("checkout-quote\n" + secretKey).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //every input of the totals; voucher usage moves with each order and is checked on its own
+    private String priceVersion(CheckoutContextDto context) {
+        StringBuilder columns = new StringBuilder();
+        context.getProducts().values().stream()
+                .sorted(Comparator.comparing(Product::getId))
+                .forEach(product -> columns.append(product.getId()).append('|')
+                        .append(product.getPrice()).append('|')
+                        .append(context.getDiscountedPrices().get(product.getId())).append('|'));
+        context.getPromotions().stream()
+                .sorted(Comparator.comparing(Promotion::getId))
+                .forEach(promotion -> columns.append(promotion.getId()).append('|')
+                        .append(promotion.getType()).append('|')
+                        .append(promotion.getDiscount()).append('|')
+                        .append(promotion.getMinimumOrderValue()).append('|')
+                        .append(promotion.getUsageLimit()).append('|')
+                        .append(promotion.getEndDate() != null ? promotion.getEndDate().getTime() : "").append('|'));
+        return DigestUtils.md5DigestAsHex(columns.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    //the cart as the totals read it, independent of the order the client lists shops, items and vouchers in
+    private String canonical(CartDto cart) {
+        StringBuilder result = new StringBuilder();
+        if (cart == null) {
+            return result.toString();
+        }
+        Optional.ofNullable(cart.getItemsByShop()).orElse(List.of()).stream()
+                .sorted(Comparator.comparing(ItemByShopDto::getShopId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(item -> {
+                    result.append(item.getShopId()).append(':')
+                            .append(item.getDistance()).append(':')
+                            .append(item.getShippingFee()).append(':')
+                            .append(item.getTotalShopPrice());
+                    new TreeMap<>(Optional.ofNullable(item.getListItems()).orElse(Map.of()))
+                            .forEach((productId, quantity) -> result.append(':').append(productId)
+                                    .append('x').append(quantity));
+                    result.append(';');
+                });
+        result.append('\n');
+        Optional.ofNullable(cart.getPromotionIds()).orElse(List.of()).stream()
+                .sorted()
+                .forEach(promotionId -> result.append(promotionId).append(';'));
+        result.append('\n');
+        if (cart.getTotal() != null) {
+            result.append(cart.getTotal().getSubTotal()).append(':')
+                    .append(cart.getTotal().getShippingTotal()).append(':')
+                    .append(cart.getTotal().getPromotionFee()).append(':')
+                    .append(cart.getTotal().getPaymentTotal());
+        }
+        return result.toString();
+    }
+}
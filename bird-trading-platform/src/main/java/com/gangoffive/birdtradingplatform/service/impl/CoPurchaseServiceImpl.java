@@ -0,0 +1,194 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.CoPurchaseBackfillDto;
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import com.gangoffive.birdtradingplatform.search.CoPurchaseSketch;
+import com.gangoffive.birdtradingplatform.service.CoPurchaseService;
+import com.gangoffive.birdtradingplatform.util.AfterCommitCollector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+//baskets are package orders, so products bought together from different shops count too. Checkouts are
+//counted after commit; a backfill counts the past package orders into a new sketch, in parallel ranges,
+//and swaps it in when done. Checkouts committed during a backfill are counted into both sketches.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CoPurchaseServiceImpl implements CoPurchaseService {
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final AppProperties appProperties;
+
+    private volatile CoPurchaseSketch sketch;
+    private volatile CoPurchaseSketch building;
+    private volatile boolean ready;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong processedBaskets = new AtomicLong();
+    private volatile RebuildStatus status;
+    private volatile long lastPackageOrderId;
+    private volatile long startedNanoTime;
+    private volatile long finishedNanoTime;
+    private volatile Date startedDate;
+    private volatile Date finishedDate;
+    private final AfterCommitCollector<List<Long>> pendingBaskets =
+            AfterCommitCollector.all(baskets -> baskets.forEach(this::count));
+
+    @Override
+    public void record(Collection<Long> productIds) {
+        if (productIds == null || productIds.size() < 2) {
+            return;
+        }
+        pendingBaskets.add(List.copyOf(productIds));
+    }
+
+    @Override
+    public List<Long> getTopCoPurchasedProductIds(long productId) {
+        return this.getSketch().top(productId, appProperties.getCoPurchase().getSize()).stream()
+                .map(CoPurchaseSketch.Partner::productId)
+                .toList();
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Map<Long, Map<Long, Integer>> getPartnerCounts() {
+        return this.getSketch().partnerCounts();
+    }
+
+    @Override
+    public boolean startBackfill() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            building = this.newSketch();
+            processedBaskets.set(0);
+            lastPackageOrderId = namedParameterJdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(package_order_id), 0) FROM tbl_order", Map.of(), Long.class);
+            status = RebuildStatus.RUNNING;
+            startedDate = new Date();
+            finishedDate = null;
+            startedNanoTime = System.nanoTime();
+            finishedNanoTime = 0;
+            Thread worker = new Thread(this::runBackfill, "co-purchase-backfill");
+            worker.setDaemon(true);
+            worker.start();
+            log.info("Start co-purchase backfill up to package order {}", lastPackageOrderId);
+            return true;
+        } catch (RuntimeException e) {
+            building = null;
+            running.set(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public CoPurchaseBackfillDto getProgress() {
+        if (status == null) {
+            return null;
+        }
+        long endNanoTime = finishedNanoTime == 0 ? System.nanoTime() : finishedNanoTime;
+        double seconds = (endNanoTime - startedNanoTime) / 1_000_000_000.0;
+        return CoPurchaseBackfillDto.builder()
+                .status(status)
+                .lastPackageOrderId(lastPackageOrderId)
+                .processedBaskets(processedBaskets.get())
+                .basketsPerSecond(seconds > 0 ? Math.round(processedBaskets.get() / seconds * 10.0) / 10.0 : 0)
+                .startedDate(startedDate)
+                .finishedDate(finishedDate)
+                .build();
+    }
+
+    private void runBackfill() {
+        AppProperties.CoPurchase config = appProperties.getCoPurchase();
+        int chunkSize = Math.max(1, config.getChunkSize());
+        CoPurchaseSketch target = building;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.getThreads()));
+        boolean failed = false;
+        try {
+            List<Callable<Void>> ranges = new ArrayList<>();
+            for (long afterId = 0; afterId < lastPackageOrderId; afterId += chunkSize) {
+                long from = afterId;
+                long until = Math.min(afterId + chunkSize, lastPackageOrderId);
+                ranges.add(() -> {
+                    this.loadBaskets(from, until).forEach(basket -> {
+                        target.addBasket(basket);
+                        processedBaskets.incrementAndGet();
+                    });
+                    return null;
+                });
+            }
+            for (Future<Void> range : executor.invokeAll(ranges)) {
+                range.get();
+            }
+            sketch = target;
+            ready = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Co-purchase backfill interrupted", e);
+            failed = true;
+        } catch (Exception e) {
+            log.error("Co-purchase backfill failed", e);
+            failed = true;
+        } finally {
+            executor.shutdownNow();
+            building = null;
+            status = failed ? RebuildStatus.FAILED : RebuildStatus.COMPLETED;
+            finishedDate = new Date();
+            finishedNanoTime = System.nanoTime();
+            running.set(false);
+            log.info("Co-purchase backfill {}: {} baskets", status, processedBaskets.get());
+        }
+    }
+
+    //products of each package order in (afterId, untilId]
+    private Collection<List<Long>> loadBaskets(long afterId, long untilId) {
+        Map<Long, List<Long>> baskets = new HashMap<>();
+        String sql = "SELECT o.package_order_id, od.product_id FROM tbl_order o " +
+                "INNER JOIN tbl_order_detail od ON od.order_id = o.order_id " +
+                "WHERE o.package_order_id > :afterId AND o.package_order_id <= :untilId";
+        namedParameterJdbcTemplate.query(sql, Map.of("afterId", afterId, "untilId", untilId), resultSet -> {
+            baskets.computeIfAbsent(resultSet.getLong("package_order_id"), key -> new ArrayList<>())
+                    .add(resultSet.getLong("product_id"));
+        });
+        return baskets.values();
+    }
+
+    private void count(List<Long> basket) {
+        this.getSketch().addBasket(basket);
+        CoPurchaseSketch target = building;
+        if (target != null) {
+            target.addBasket(basket);
+        }
+    }
+
+    private CoPurchaseSketch getSketch() {
+        CoPurchaseSketch current = sketch;
+        if (current == null) {
+            synchronized (this) {
+                if (sketch == null) {
+                    sketch = this.newSketch();
+                }
+                current = sketch;
+            }
+        }
+        return current;
+    }
+
+    private CoPurchaseSketch newSketch() {
+        AppProperties.CoPurchase config = appProperties.getCoPurchase();
+        return new CoPurchaseSketch(config.getDepth(), config.getWidth(), Math.max(config.getSize(),
+                config.getPartnersPerProduct()));
+    }
+}
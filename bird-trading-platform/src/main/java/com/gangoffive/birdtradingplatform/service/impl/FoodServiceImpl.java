@@ -4,6 +4,7 @@ import com.gangoffive.birdtradingplatform.api.response.ErrorResponse;
 import com.gangoffive.birdtradingplatform.common.PagingAndSorting;
 import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
 import com.gangoffive.birdtradingplatform.common.ShopOwnerConstant;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
 import com.gangoffive.birdtradingplatform.dto.FoodDto;
 import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
 import com.gangoffive.birdtradingplatform.dto.ProductDto;
@@ -11,6 +12,7 @@ import com.gangoffive.birdtradingplatform.dto.ProductShopDto;
 import com.gangoffive.birdtradingplatform.entity.Food;
 import com.gangoffive.birdtradingplatform.entity.Product;
 import com.gangoffive.birdtradingplatform.entity.ShopOwner;
+import com.gangoffive.birdtradingplatform.enums.Category;
 import com.gangoffive.birdtradingplatform.enums.ResponseCode;
 import com.gangoffive.birdtradingplatform.exception.CustomRuntimeException;
 import com.gangoffive.birdtradingplatform.mapper.FoodMapper;
@@ -18,8 +20,14 @@ import com.gangoffive.birdtradingplatform.repository.AccountRepository;
 import com.gangoffive.birdtradingplatform.repository.FoodRepository;
 import com.gangoffive.birdtradingplatform.repository.TagRepository;
 import com.gangoffive.birdtradingplatform.service.FoodService;
+import com.gangoffive.birdtradingplatform.service.ProductSearchService;
 import com.gangoffive.birdtradingplatform.service.ProductService;
 import com.gangoffive.birdtradingplatform.service.ProductSummaryService;
+import com.gangoffive.birdtradingplatform.service.TopProductService;
+import com.gangoffive.birdtradingplatform.util.MyUtils;
+import com.gangoffive.birdtradingplatform.util.PageCursor;
+import com.gangoffive.birdtradingplatform.util.ResponseUtils;
+import com.gangoffive.birdtradingplatform.wrapper.CursorPageWrapper;
 import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -43,6 +51,9 @@ public class FoodServiceImpl implements FoodService {
     private final ProductService productService;
     private final ProductSummaryService productSummaryService;
     private final AccountRepository accountRepository;
+    private final ProductSearchService productSearchService;
+    private final TopProductService topProductService;
+    private final AppProperties appProperties;
 
     @Override
     public List<FoodDto> retrieveAllFood() {
@@ -82,7 +93,7 @@ public class FoodServiceImpl implements FoodService {
     public ResponseEntity<?> retrieveFoodByPageNumber(int pageNumber) {
         if (pageNumber > 0) {
             pageNumber = pageNumber - 1;
-            PageRequest page = PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SIZE);
+            PageRequest page = PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SIZE, Sort.by("id"));
             Page<Food> pageAble = foodRepository.findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(0,
                     ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER, page);
             List<FoodDto> lists = pageAble.getContent().stream()
@@ -96,14 +107,33 @@ public class FoodServiceImpl implements FoodService {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @Override
+    public ResponseEntity<?> retrieveFoodByCursor(String cursor) {
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtils.getErrorResponseBadRequestPageCursor();
+        }
+        //seeks on the primary key and skips the count query of the page number mode
+        List<Food> foods = foodRepository.findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusInAndIdGreaterThanOrderByIdAsc(0,
+                ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER,
+                after == null ? 0L : after.id(), PageRequest.of(0, PagingAndSorting.DEFAULT_PAGE_SIZE + 1));
+        return ResponseEntity.ok(CursorPageWrapper.of(foods, PagingAndSorting.DEFAULT_PAGE_SIZE,
+                food -> new PageCursor(0, food.getId()),
+                food -> (FoodDto) productService.ProductToDto(food)));
+    }
+
     @Override
     public List<FoodDto> findFoodByName(String name) {
-        List<FoodDto> lists = foodRepository
-                .findByNameLike("%" + name + "%")
-                .get()
-                .stream()
-                .map(food -> (FoodDto) productService.ProductToDto(food)).collect(Collectors.toList());
-        return lists;
+        List<Food> foods = productSearchService.search(name, Category.FOOD.getCategoryId(),
+                        appProperties.getSearch().getResultLimit())
+                .map(ids -> MyUtils.orderByIds(foodRepository.findAllById(ids), ids, Food::getId))
+                //the search index is still being built
+                .orElseGet(() -> foodRepository.findByNameLike("%" + name + "%").orElse(List.of()));
+        return foods.stream()
+                .map(food -> (FoodDto) productService.ProductToDto(food))
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -118,12 +148,7 @@ public class FoodServiceImpl implements FoodService {
 
     @Override
     public ResponseEntity<?> findTopFood() {
-        List<Food> lists = foodRepository.findAllById(productSummaryService.getIdTopFood());
-        if (lists != null) {
-            List<ProductCartDto> listDto = lists.stream().map(food ->  productService.productToProductCart(food)).toList();
-            return ResponseEntity.ok(listDto);
-        }
-        return null;
+        return ResponseEntity.ok(topProductService.getTopProducts(Category.FOOD));
     }
 
     @Override
@@ -113,28 +113,33 @@ public class InfoServiceImpl implements InfoService {
             if (shopOwner.get().getStatus().equals(ShopOwnerStatus.BAN)) {
                 return ResponseUtils.getErrorResponseLocked("Shop account has been banned.");
             }
-            List<Order> orders = orderRepository.findByShopOwner(shopOwner.get());
-            List<OrderDetail> orderDetails = orderDetailRepository.findOrderDetailByOrderIn(orders);
-            ShopInfoDto shopInfoDto = shopOwnerMapper.modelToShopInfoDto(shopOwner.get());
-            int totalProductOrder = orderDetails.stream().mapToInt(OrderDetail::getQuantity).sum();
-            List<OrderDetail> orderDetailHaveReview = orderDetails.stream().filter(orderDetail -> orderDetail.getReview() != null).toList();
-            List<Review> reviews = reviewRepository.findAllById(
-                    orderDetailHaveReview.stream()
-                            .map(orderDetail -> orderDetail.getReview().getId())
-                            .collect(Collectors.toList())
-            );
-            int sumStar = reviews.stream().mapToInt(review -> review.getRating().getStar()).sum();
-            double avgStar = Math.round((sumStar * 1.0 / reviews.size()) * 100.0) / 100.0;
-            String rating = avgStar + " ("+ reviews.size() +" Rating)";
-            ShopSummaryDto shopSummaryDto = ShopSummaryDto.builder()
-                    .shopInfoDto(shopInfoDto)
-                    .totalProduct(productRepository.countAllByShopOwner_IdAndStatusIn(id, ProductStatusConstant.LIST_STATUS_GET_FOR_SHOP_OWNER))
-                    //rating lam sau
-                    .rating(rating)
-                    .totalProductOrder(totalProductOrder)
-                    .build();
+            ShopSummaryDto shopSummaryDto = this.getShopSummary(shopOwnerMapper.modelToShopInfoDto(shopOwner.get()));
             return ResponseEntity.ok(shopSummaryDto);
         }
         return ResponseUtils.getErrorResponseNotFound("Not found this shop.");
     }
+
+    @Override
+    public ShopSummaryDto getShopSummary(ShopInfoDto shopInfoDto) {
+        Long id = shopInfoDto.getId();
+        List<Order> orders = orderRepository.findByShopOwner(shopOwnerRepository.getReferenceById(id));
+        List<OrderDetail> orderDetails = orderDetailRepository.findOrderDetailByOrderIn(orders);
+        int totalProductOrder = orderDetails.stream().mapToInt(OrderDetail::getQuantity).sum();
+        List<OrderDetail> orderDetailHaveReview = orderDetails.stream().filter(orderDetail -> orderDetail.getReview() != null).toList();
+        List<Review> reviews = reviewRepository.findAllById(
+                orderDetailHaveReview.stream()
+                        .map(orderDetail -> orderDetail.getReview().getId())
+                        .collect(Collectors.toList())
+        );
+        int sumStar = reviews.stream().mapToInt(review -> review.getRating().getStar()).sum();
+        double avgStar = Math.round((sumStar * 1.0 / reviews.size()) * 100.0) / 100.0;
+        String rating = avgStar + " ("+ reviews.size() +" Rating)";
+        return ShopSummaryDto.builder()
+                .shopInfoDto(shopInfoDto)
+                .totalProduct(productRepository.countAllByShopOwner_IdAndStatusIn(id, ProductStatusConstant.LIST_STATUS_GET_FOR_SHOP_OWNER))
+                //rating lam sau
+                .rating(rating)
+                .totalProductOrder(totalProductOrder)
+                .build();
+    }
 }
@@ -0,0 +1,147 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.entity.NotificationOutbox;
+import com.gangoffive.birdtradingplatform.repository.NotificationOutboxRepository;
+import com.gangoffive.birdtradingplatform.service.NotificationRelayService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//single relay thread reading the outbox in id order; sends are fire-and-forget with callbacks,
+//acknowledged rows are deleted in batches and a failed send rewinds the cursor (at-least-once)
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRelayServiceImpl implements NotificationRelayService {
+    private static final int BATCH_SIZE = 500;
+    private static final long POLL_INTERVAL = 1000;
+    //a slow transaction can commit a row behind the cursor, the relay rescans from the start this often
+    private static final long RESCAN_INTERVAL = 5000;
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final Semaphore signal = new Semaphore(0);
+    private final Set<Long> inFlightIds = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Long> publishedIds = new ConcurrentLinkedQueue<>();
+    private final AtomicLong resendFromId = new AtomicLong(Long.MAX_VALUE);
+    private long lastSentId;
+    private long lastRescanAt;
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        worker = new Thread(this::runRelay, "notification-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+        kafkaTemplate.flush();
+        this.deletePublished();
+    }
+
+    @Override
+    public void wakeUp() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    signal.release();
+                }
+            });
+        } else {
+            signal.release();
+        }
+    }
+
+    @Override
+    public synchronized int relay() {
+        this.deletePublished();
+        long resendFrom = resendFromId.getAndSet(Long.MAX_VALUE);
+        if (resendFrom <= lastSentId) {
+            lastSentId = resendFrom - 1;
+        }
+        List<NotificationOutbox> messages = notificationOutboxRepository.findByIdGreaterThanOrderById(lastSentId,
+                PageRequest.of(0, BATCH_SIZE));
+        for (NotificationOutbox message : messages) {
+            lastSentId = message.getId();
+            //still waiting for its ack after a rewind
+            if (!inFlightIds.add(message.getId())) {
+                continue;
+            }
+            try {
+                kafkaTemplate.send(message.getTopic(), message.getMessageKey(), message.getPayload())
+                        .whenComplete((result, ex) -> this.onSendComplete(message.getId(), ex));
+            } catch (Exception e) {
+                this.onSendComplete(message.getId(), e);
+            }
+        }
+        return messages.size();
+    }
+
+    private void onSendComplete(Long outboxId, Throwable ex) {
+        inFlightIds.remove(outboxId);
+        if (ex == null) {
+            publishedIds.add(outboxId);
+        } else {
+            log.warn("Publish notification {} failed, will resend: {}", outboxId, ex.getMessage());
+            resendFromId.accumulateAndGet(outboxId, Math::min);
+        }
+    }
+
+    private void deletePublished() {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = publishedIds.poll()) != null) {
+            ids.add(id);
+        }
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            notificationOutboxRepository.deleteAllByIdInBatch(ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE)));
+        }
+    }
+
+    private void runRelay() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                //committed outbox rows wake the relay right away
+                if (signal.tryAcquire(POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    signal.drainPermits();
+                }
+                //on a timer rather than when idle, steady traffic would otherwise strand those rows
+                long now = System.currentTimeMillis();
+                if (now - lastRescanAt >= RESCAN_INTERVAL) {
+                    lastRescanAt = now;
+                    resendFromId.accumulateAndGet(1, Math::min);
+                }
+                while (this.relay() == BATCH_SIZE) {
+                    //backlog, keep draining
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Relay notifications failed", e);
+            }
+        }
+    }
+}
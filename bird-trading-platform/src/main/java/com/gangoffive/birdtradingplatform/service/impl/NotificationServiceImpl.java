@@ -7,19 +7,22 @@ import com.gangoffive.birdtradingplatform.common.PagingAndSorting;
 import com.gangoffive.birdtradingplatform.dto.NotificationDto;
 import com.gangoffive.birdtradingplatform.entity.Account;
 import com.gangoffive.birdtradingplatform.entity.Notification;
+import com.gangoffive.birdtradingplatform.entity.NotificationOutbox;
 import com.gangoffive.birdtradingplatform.enums.ResponseCode;
 import com.gangoffive.birdtradingplatform.enums.UserRole;
 import com.gangoffive.birdtradingplatform.exception.CustomRuntimeException;
 import com.gangoffive.birdtradingplatform.mapper.NotificationMapper;
-import com.gangoffive.birdtradingplatform.repository.AccountRepository;
+import com.gangoffive.birdtradingplatform.repository.NotificationOutboxRepository;
 import com.gangoffive.birdtradingplatform.repository.NotificationRepository;
 import com.gangoffive.birdtradingplatform.repository.ShopOwnerRepository;
+import com.gangoffive.birdtradingplatform.service.NotificationRelayService;
 import com.gangoffive.birdtradingplatform.service.NotificationService;
 import com.gangoffive.birdtradingplatform.service.ShopOwnerService;
 import com.gangoffive.birdtradingplatform.util.JsonUtil;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
 import com.google.gson.JsonObject;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -27,16 +30,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -45,8 +41,8 @@ public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository notificationRepository;
     private final NotificationMapper notificationMapper;
     private final ShopOwnerRepository shopOwnerRepository;
-    private final KafkaTemplate kafkaTemplate;
-    private final AccountRepository accountRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationRelayService notificationRelayService;
     @Override
     public boolean saveNotify(Notification notification) {
         try {
@@ -113,28 +109,74 @@ public class NotificationServiceImpl implements NotificationService {
         return result;
     }
 
+    //notifications and their outbox messages are written in the caller's transaction with one batch insert
+    //each, the relay publishes them to kafka once that transaction commits
     @Override
-    @Async
-    public void pushNotificationForListUserID(List<Long> userIdList, NotificationDto notificationDto){
-        boolean result = true;
-        for(long id : userIdList) {
-            notificationDto.setReceiveId(id);
-            notificationDto.setId(System.currentTimeMillis());
-            notificationDto.setSeen(false);
-            notificationDto.setNotiDate(new Date());
-            this.handleSendNotification(notificationDto);
+    @Transactional
+    public void pushNotificationForListUserID(List<Long> userIdList, NotificationDto notificationDto) {
+        if (userIdList == null || userIdList.isEmpty()) {
+            return;
         }
+        if (!notificationDto.getRole().equalsIgnoreCase(NotifiConstant.NOTI_USER_ROLE)
+                && !notificationDto.getRole().equalsIgnoreCase(NotifiConstant.NOTI_SHOP_ROLE)) {
+            log.info("Receive name {} not correct", notificationDto.getRole());
+            return;
+        }
+        //shop clients subscribe with the shop id, take it for every account at once
+        Map<Long, Long> receiveIdByAccountId = new HashMap<>();
+        if (notificationDto.getRole().equalsIgnoreCase(NotifiConstant.NOTI_SHOP_ROLE)) {
+            shopOwnerRepository.findShopAccountViewByAccountIdIn(new HashSet<>(userIdList))
+                    .forEach(shop -> receiveIdByAccountId.put(shop.getAccountId(), shop.getShopId()));
+        } else {
+            userIdList.forEach(id -> receiveIdByAccountId.put(id, id));
+        }
+
+        Date notiDate = new Date();
+        List<Notification> notifications = new ArrayList<>();
+        List<Long> receiveIds = new ArrayList<>();
+        for (Long accountId : userIdList) {
+            Long receiveId = receiveIdByAccountId.get(accountId);
+            if (receiveId == null) {
+                log.info("Account {} has no shop, skip notification", accountId);
+                continue;
+            }
+            Notification notification = notificationMapper.dtoToModel(notificationDto);
+            Account account = new Account();
+            account.setId(accountId);
+            notification.setAccount(account);
+            notification.setNotiDate(notiDate);
+            notification.setSeen(false);
+            notifications.add(notification);
+            receiveIds.add(receiveId);
+        }
+        notificationRepository.insertAllInBatch(notifications);
+
+        List<NotificationOutbox> messages = new ArrayList<>();
+        for (int i = 0; i < notifications.size(); i++) {
+            NotificationDto message = new NotificationDto();
+            message.setId(notifications.get(i).getId());
+            message.setNotiText(notificationDto.getNotiText());
+            message.setName(notificationDto.getName());
+            message.setSeen(false);
+            message.setRole(notificationDto.getRole());
+            message.setNotiDate(notiDate);
+            message.setReceiveId(receiveIds.get(i));
+            messages.add(NotificationOutbox.builder()
+                    .topic(KafkaConstant.KAFKA_PRIVATE_NOTIFICATION)
+                    .messageKey(String.valueOf(receiveIds.get(i)))
+                    .payload(JsonUtil.INSTANCE.getJsonString(message))
+                    .build());
+        }
+        notificationOutboxRepository.insertAllInBatch(messages);
+        notificationRelayService.wakeUp();
     }
 
     @Override
+    @Transactional
     public boolean pushNotificationForAUserID(Long userId, NotificationDto notificationDto) {
         if(notificationDto.getRole().equals(NotifiConstant.NOTI_USER_ROLE)
                 || notificationDto.getRole().equals(NotifiConstant.NOTI_SHOP_ROLE)){
-            notificationDto.setReceiveId(userId);
-            notificationDto.setId(System.currentTimeMillis());
-            notificationDto.setSeen(false);
-            notificationDto.setNotiDate(new Date());
-            this.handleSendNotification(notificationDto);
+            this.pushNotificationForListUserID(List.of(userId), notificationDto);
         }else {
             return false;
         }
@@ -142,38 +184,15 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     @Override
+    @Transactional
     public ResponseEntity<?> handleSendNotification(NotificationDto notification) {
-        Notification noti = notificationMapper.dtoToModel(notification);
-        notification.setId(System.currentTimeMillis());
-        //check send to shop or account
-        Account acc = new Account();
-        acc.setId(notification.getReceiveId());
-        noti.setAccount(acc);
-        if(notification.getRole().equalsIgnoreCase(NotifiConstant.NOTI_SHOP_ROLE)) {
-            //take out the shop id base on account id
-            long shopID = accountRepository.findById(notification.getReceiveId()).get().getShopOwner().getId();
-            notification.setReceiveId(shopID);
-            this.sendNotification(notification);
-        } else if(notification.getRole().equalsIgnoreCase(NotifiConstant.NOTI_USER_ROLE)){
-            this.sendNotification(notification);
-        }else {
+        if (!notification.getRole().equalsIgnoreCase(NotifiConstant.NOTI_SHOP_ROLE)
+                && !notification.getRole().equalsIgnoreCase(NotifiConstant.NOTI_USER_ROLE)) {
             return ResponseUtils.getErrorResponseBadRequest("Receive name not correct!");
         }
-        //save notification
-        saveNotify(noti);
+        this.pushNotificationForListUserID(List.of(notification.getReceiveId()), notification);
         return ResponseEntity.ok("Oke");
     }
-    void sendNotification(NotificationDto notificationDto) {
-        String notification = JsonUtil.INSTANCE.getJsonString(notificationDto);
-        CompletableFuture<SendResult<String, String>> future =
-                kafkaTemplate.send(KafkaConstant.KAFKA_PRIVATE_NOTIFICATION, notification);
-        try  {
-            SendResult<String, String> response = future.get();
-            log.info("Record metadata: {}", response.getRecordMetadata());
-        }catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-        }
-    }
 
     private boolean saveNotification(NotificationDto notificationDto) {
         return false;
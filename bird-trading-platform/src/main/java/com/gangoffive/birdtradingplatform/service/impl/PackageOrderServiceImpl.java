@@ -1,8 +1,5 @@
 package com.gangoffive.birdtradingplatform.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gangoffive.birdtradingplatform.api.response.ErrorResponse;
 import com.gangoffive.birdtradingplatform.api.response.SuccessResponse;
 import com.gangoffive.birdtradingplatform.common.NotifiConstant;
@@ -12,10 +9,13 @@ import com.gangoffive.birdtradingplatform.dto.*;
 import com.gangoffive.birdtradingplatform.entity.*;
 import com.gangoffive.birdtradingplatform.enums.Currency;
 import com.gangoffive.birdtradingplatform.enums.*;
+import com.gangoffive.birdtradingplatform.exception.ResourceNotFoundException;
 import com.gangoffive.birdtradingplatform.repository.*;
 import com.gangoffive.birdtradingplatform.service.*;
+import com.gangoffive.birdtradingplatform.util.CheckoutQuoteSigner;
 import com.gangoffive.birdtradingplatform.util.DateUtils;
 import com.gangoffive.birdtradingplatform.util.JsonUtil;
+import com.gangoffive.birdtradingplatform.util.PriceEngine;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
 import com.paypal.api.payments.Links;
@@ -31,8 +31,7 @@ import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -47,7 +46,6 @@ public class PackageOrderServiceImpl implements PackageOrderService {
     private final ProductRepository productRepository;
     private final PromotionRepository promotionRepository;
     private final OrderDetailRepository orderDetailRepository;
-    private final ProductService productService;
     private final AccountRepository accountRepository;
     private final PackageOrderRepository packageOrderRepository;
     private final TransactionRepository transactionRepository;
@@ -57,57 +55,47 @@ public class PackageOrderServiceImpl implements PackageOrderService {
     private final PromotionPriceService promotionPriceService;
     private final NotificationService notificationService;
     private final ProductSummaryService productSummaryService;
+    private final StockReservationService stockReservationService;
+    private final CoPurchaseService coPurchaseService;
+    private final ResponseCacheService responseCacheService;
+    private final ShippingQuoteService shippingQuoteService;
+    private final CheckoutQuoteService checkoutQuoteService;
 
     @Override
     @Transactional
-    public ResponseEntity<?> packageOrder(PackageOrderRequestDto packageOrder, String paymentId, String payerId) {
+    public ResponseEntity<?> packageOrder(PackageOrderRequestDto packageOrder) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
         log.info("username: {}", username);
         Optional<Account> account = accountRepository.findByEmail(username);
-        Map<Long, Integer> productWithQuantityMap = getAllProductWithQuantity(packageOrder.getCartInfo().getItemsByShop());
-        if (paymentId != null && payerId != null) {
-            return handleSuccessPayment(packageOrder, productWithQuantityMap, account.get(), paymentId, payerId);
-        }
-
         if (!checkUserOrderDto(packageOrder.getUserInfo())) {
             return ResponseUtils.getErrorResponseNotAcceptable("Something went wrong in your info.");
         }
 
-        if (!checkListProduct(productWithQuantityMap)) {
-            return ResponseUtils.getErrorResponseNotAcceptable("Something went wrong in list product(Out of stock, or shop has been banned). Please reload page!");
+        CheckoutContextDto context = loadCheckoutContext(packageOrder);
+        //a quoted cart was priced on the server already, only what can move without a price change is checked
+        boolean quoted = packageOrder.getQuoteToken() != null;
+        Optional<String> cartError = quoted ? validateQuotedCart(context, username) : validateCart(context);
+        if (cartError.isPresent()) {
+            return ResponseUtils.getErrorResponseNotAcceptable(cartError.get());
         }
 
-        if (!checkPromotion(packageOrder, productWithQuantityMap)) {
-            return ResponseUtils.getErrorResponseNotAcceptable("Something went wrong in list promotions.");
-        }
-
-        if (!checkTotalShopPrice(packageOrder.getCartInfo().getItemsByShop())) {
-            return ResponseUtils.getErrorResponseNotAcceptable("Something went wrong in total shop price.");
-        }
-
-        if (!checkSubTotal(packageOrder.getCartInfo().getTotal().getSubTotal(), productWithQuantityMap)) {
-            return ResponseUtils.getErrorResponseNotAcceptable("Something went wrong in subtotal order.");
-        }
-
-        if (!checkTotalShippingFee(packageOrder)) {
+        //the only check that leaves the process, run it once everything local has passed
+        if (!quoted && !checkTotalShippingFee(context)) {
             return ResponseUtils.getErrorResponseNotAcceptable("Shipping not support this location.");
         }
 
-        if (!checkTotalDiscount(packageOrder)) {
-            return ResponseUtils.getErrorResponseNotAcceptable("Something went wrong in total discount.");
-        }
-
-        if (!checkTotalPayment(packageOrder.getCartInfo().getTotal())) {
-            return ResponseUtils.getErrorResponseNotAcceptable("Something went wrong in total payment.");
-        }
-
+        Map<Long, Integer> productWithQuantityMap = context.getProductOrder();
         PaymentMethod paymentMethod = packageOrder.getCartInfo().getPaymentMethod();
         if (paymentMethod.equals(PaymentMethod.PAYPAL)) {
-            return handleInitialPayment(packageOrder, account.get());
+            return handleInitialPayment(packageOrder, account.get(), productWithQuantityMap);
         } else if (paymentMethod.equals(PaymentMethod.DELIVERY)) {
-            Long packageOrderId = saveAll(packageOrder, paymentId, null, account.get(), productWithQuantityMap);
-            updateTotalOrderOfListProduct(productWithQuantityMap.keySet().stream().toList());
+            Optional<Long> outOfStockProductId = stockReservationService.reserve(productWithQuantityMap);
+            if (outOfStockProductId.isPresent()) {
+                return getErrorResponseOutOfStock(outOfStockProductId.get());
+            }
+            Long packageOrderId = saveAll(context, null, null, account.get());
+            updateTotalOrderOfListProduct(productWithQuantityMap);
             SuccessResponse successResponse = SuccessResponse.builder()
                     .successCode(String.valueOf(HttpStatus.OK.value()))
                     .successMessage("Order successfully. packageOrderId=" + packageOrderId)
@@ -118,6 +106,72 @@ public class PackageOrderServiceImpl implements PackageOrderService {
         }
     }
 
+    @Override
+    @Transactional
+    public ResponseEntity<?> quoteCheckout(PackageOrderRequestDto packageOrder) {
+        if (packageOrder.getCartInfo() == null || packageOrder.getCartInfo().getItemsByShop() == null
+                || packageOrder.getCartInfo().getItemsByShop().isEmpty()) {
+            return ResponseUtils.getErrorResponseBadRequest("Cart is empty.");
+        }
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        CheckoutContextDto context = loadCheckoutContext(packageOrder);
+        if (!checkListProduct(context)) {
+            return ResponseUtils.getErrorResponseNotAcceptable("Something went wrong in list product(Out of stock, or shop has been banned). Please reload page!");
+        }
+        if (!checkPromotion(context)) {
+            return ResponseUtils.getErrorResponseNotAcceptable("Something went wrong in list promotions.");
+        }
+
+        List<ItemByShopDto> itemsByShop = packageOrder.getCartInfo().getItemsByShop();
+        Map<Double, Double> shippingFees = quoteShippingFees(itemsByShop);
+        Optional<Double> totalShip = calculateTotalShip(itemsByShop, shippingFees);
+        if (totalShip.isEmpty()) {
+            return ResponseUtils.getErrorResponseNotAcceptable("Shipping not support this location.");
+        }
+        //built by the same helpers validateCart and checkTotalShippingFee check a cart with
+        List<ItemByShopDto> quotedItems = itemsByShop.stream()
+                .map(item -> ItemByShopDto.builder()
+                        .shopId(item.getShopId())
+                        .listItems(item.getListItems())
+                        .distance(item.getDistance())
+                        .shippingFee(shippingFees.get(item.getDistance()))
+                        .totalShopPrice(calculateTotalPriceOfAllProduct(context, item.getListItems()))
+                        .build())
+                .toList();
+        double subTotal = calculateTotalPriceOfAllProduct(context, context.getProductOrder());
+        double shippingTotal = hasFreeShipping(context) ? 0 : totalShip.get();
+        double promotionFee = calculatePromotionFee(context);
+        CartDto quotedCart = CartDto.builder()
+                .itemsByShop(quotedItems)
+                .promotionIds(packageOrder.getCartInfo().getPromotionIds())
+                .paymentMethod(packageOrder.getCartInfo().getPaymentMethod())
+                .total(TotalOrderDto.builder()
+                        .subTotal(subTotal)
+                        .shippingTotal(shippingTotal)
+                        .promotionFee(promotionFee)
+                        .paymentTotal(calculatePaymentTotal(subTotal, shippingTotal, promotionFee))
+                        .build())
+                .build();
+        return ResponseEntity.ok(checkoutQuoteService.sign(username, context, quotedCart));
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Long completePaypalPayment(
+            PackageOrderRequestDto packageOrder, Account account, String paymentId, String payerEmail
+    ) {
+        CheckoutContextDto context = loadCheckoutContext(packageOrder);
+        //saveOrderDetails only saves the products of the context, a product banned since the payment would be lost
+        context.getProductOrder().keySet().stream()
+                .filter(productId -> !context.getProducts().containsKey(productId))
+                .findFirst()
+                .ifPresent(productId -> {
+                    throw new ResourceNotFoundException("Product", "id", productId);
+                });
+        updateTotalOrderOfListProduct(context.getProductOrder());
+        return saveAll(context, paymentId, payerEmail, account);
+    }
+
     @Override
     public ResponseEntity<?> viewAllPackageOrderByAccountId(int pageNumber) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -642,72 +696,177 @@ public class PackageOrderServiceImpl implements PackageOrderService {
                 && !(userOrderDto.getAddress() == null || userOrderDto.getAddress().isEmpty());
     }
 
+    @Override
+    public CheckoutContextDto loadCheckoutContext(PackageOrderRequestDto packageOrder) {
+        Map<Long, Integer> productOrder = getAllProductWithQuantity(packageOrder.getCartInfo().getItemsByShop());
+        return loadCheckoutContext(packageOrder, productOrder, packageOrder.getCartInfo().getPromotionIds());
+    }
+
+    @Override
+    public Optional<String> validateCart(CheckoutContextDto context) {
+        TotalOrderDto total = context.getPackageOrder().getCartInfo().getTotal();
+        if (!checkListProduct(context)) {
+            return Optional.of("Something went wrong in list product(Out of stock, or shop has been banned). Please reload page!");
+        }
+
+        if (!checkPromotion(context)) {
+            return Optional.of("Something went wrong in list promotions.");
+        }
+
+        if (!checkTotalShopPrice(context, context.getPackageOrder().getCartInfo().getItemsByShop())) {
+            return Optional.of("Something went wrong in total shop price.");
+        }
+
+        if (!checkSubTotal(context, total.getSubTotal())) {
+            return Optional.of("Something went wrong in subtotal order.");
+        }
+
+        if (!checkTotalDiscount(context)) {
+            return Optional.of("Something went wrong in total discount.");
+        }
+
+        if (!checkTotalPayment(total)) {
+            return Optional.of("Something went wrong in total payment.");
+        }
+        return Optional.empty();
+    }
+
+    //totals are not recomputed, the token covers them as long as the price version holds
+    private Optional<String> validateQuotedCart(CheckoutContextDto context, String email) {
+        if (!checkListProduct(context)) {
+            return Optional.of("Something went wrong in list product(Out of stock, or shop has been banned). Please reload page!");
+        }
+        if (!checkPromotionUsable(context.getPromotions())) {
+            return Optional.of("Something went wrong in list promotions.");
+        }
+        CheckoutQuoteSigner.Verification verification = checkoutQuoteService.verify(
+                context.getPackageOrder().getQuoteToken(), email, context);
+        if (verification != CheckoutQuoteSigner.Verification.VALID) {
+            log.info("Checkout quote of {} refused: {}", email, verification);
+            return Optional.of("Your checkout quote is out of date. Please review your cart again.");
+        }
+        return Optional.empty();
+    }
+
     public boolean checkListProduct(Map<Long, Integer> productOrder) {
-//        for (Long id : productOrder.keySet()) {
-//            if (!productRepository.findById(id).isPresent()) {
-//                return false;
-//            } else {
-//                if (productRepository.findById(id).get().getQuantity() >= productOrder.get(id)) {
-//                    return false;
-//                }
-//            }
-//        }
-//        return true;
+        return checkListProduct(loadCheckoutContext(null, productOrder, null));
+    }
+
+    //Check all condition can use promotion
+    public boolean checkPromotion(PackageOrderRequestDto packageOrder, Map<Long, Integer> productOrder) {
+        return checkPromotion(loadCheckoutContext(packageOrder, productOrder, packageOrder.getCartInfo().getPromotionIds()));
+    }
+
+    @Override
+    public boolean checkTotalShopPrice(List<ItemByShopDto> itemsByShop) {
+        return checkTotalShopPrice(loadCheckoutContext(null, getAllProductWithQuantity(itemsByShop), null), itemsByShop);
+    }
+
+    @Override
+    public boolean checkSubTotal(double subTotal, Map<Long, Integer> productOrder) {
+        return checkSubTotal(loadCheckoutContext(null, productOrder, null), subTotal);
+    }
+
+    @Override
+    public boolean checkTotalShippingFee(PackageOrderRequestDto packageOrder) {
+        return checkTotalShippingFee(loadCheckoutContext(packageOrder, new HashMap<>(), packageOrder.getCartInfo().getPromotionIds()));
+    }
+
+    @Override
+    public boolean checkTotalDiscount(PackageOrderRequestDto packageOrder) {
+        return checkTotalDiscount(loadCheckoutContext(packageOrder, new HashMap<>(), packageOrder.getCartInfo().getPromotionIds()));
+    }
+
+    @Override
+    public boolean checkTotalPayment(TotalOrderDto totalOrderDto) {
+        double totalPayment = calculatePaymentTotal(totalOrderDto.getSubTotal(), totalOrderDto.getShippingTotal(),
+                totalOrderDto.getPromotionFee());
+        log.info("----------------------------checkTotalPayment()--------------------------------------------");
+        log.info("totalOrderDto.getPaymentTotal() {}", totalOrderDto.getPaymentTotal());
+        log.info("totalPayment {}", totalPayment);
+        log.info("------------------------------------------------------------------------");
+        return totalOrderDto.getPaymentTotal() == totalPayment;
+    }
+
+    //Products, their shops and promotion shops come in one query and promotions in another,
+    //whatever the cart size; the validators and the save only read from this snapshot
+    private CheckoutContextDto loadCheckoutContext(
+            PackageOrderRequestDto packageOrder, Map<Long, Integer> productOrder, List<Long> promotionIds
+    ) {
+        Map<Long, Product> products = new HashMap<>();
+        Map<Long, Double> discountedPrices = new HashMap<>();
+        if (productOrder != null && !productOrder.isEmpty()) {
+            productRepository.findCheckoutProductByIdIn(productOrder.keySet()).stream()
+                    .filter(product -> product.getStatus() != null && !product.getStatus().equals(ProductStatus.BAN)
+                            && product.getShopOwner().getStatus() != null
+                            && !product.getShopOwner().getStatus().equals(ShopOwnerStatus.BAN))
+                    .forEach(product -> products.put(product.getId(), product));
+            //priced from the promotions loaded with the products, never from the cached rates
+            List<Product> cart = new ArrayList<>(products.values());
+            double[] prices = new double[cart.size()];
+            int[][] rates = new int[cart.size()][];
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] = cart.get(i).getPrice();
+                rates[i] = PriceEngine.compile(cart.get(i).getPromotionShops());
+            }
+            double[] saleOffs = new double[prices.length];
+            double[] cartDiscountedPrices = new double[prices.length];
+            PriceEngine.quote(prices, rates, saleOffs, cartDiscountedPrices);
+            for (int i = 0; i < prices.length; i++) {
+                discountedPrices.put(cart.get(i).getId(), cartDiscountedPrices[i]);
+            }
+        }
+        List<Promotion> promotions = promotionIds == null || promotionIds.isEmpty()
+                ? new ArrayList<>() : findPromotions(promotionIds);
+        return CheckoutContextDto.builder()
+                .packageOrder(packageOrder)
+                .productOrder(productOrder)
+                .products(products)
+                .discountedPrices(discountedPrices)
+                .promotions(promotions)
+                .shopOwners(getListShopOwners(new ArrayList<>(products.values())))
+                .build();
+    }
+
+    private boolean checkListProduct(CheckoutContextDto context) {
+        Map<Long, Integer> productOrder = context.getProductOrder();
         if (productOrder == null || productOrder.isEmpty()) {
             return false;
         }
-        return productOrder.keySet()
+        return productOrder.entrySet()
                 .stream()
                 .allMatch(
-                        productId -> {
-                            Optional<Product> productOptional = productRepository.findByIdAndStatusNotAndShopOwner_StatusNot(
-                                    productId, ProductStatus.BAN, ShopOwnerStatus.BAN);
-                            if (productOptional.isEmpty()) {
-                                return false;
-                            } else {
-                                Product product = productOptional.get();
-                                return product.getQuantity() >= productOrder.get(productId);
-                            }
+                        entry -> {
+                            Product product = context.getProducts().get(entry.getKey());
+                            return product != null && product.getQuantity() >= entry.getValue();
                         }
                 );
     }
 
-    //Check all condition can use promotion
-    public boolean checkPromotion(PackageOrderRequestDto packageOrder, Map<Long, Integer> productOrder) {
+    private boolean checkPromotion(CheckoutContextDto context) {
+        List<Long> promotionIds = context.getPackageOrder().getCartInfo().getPromotionIds();
         //Return true when don't have promotion
-        if (packageOrder.getCartInfo().getPromotionIds() == null || packageOrder.getCartInfo().getPromotionIds().isEmpty()) {
+        if (promotionIds == null || promotionIds.isEmpty()) {
             return true;
         }
 
         //Return false when don't have product
-        if (productOrder == null || productOrder.isEmpty()) {
+        if (context.getProductOrder() == null || context.getProductOrder().isEmpty()) {
             return false;
         }
 
         //Check list promotion
-        List<Promotion> listPromotion = promotionRepository.findAllById(packageOrder.getCartInfo().getPromotionIds());
-        if (listPromotion.size() != packageOrder.getCartInfo().getPromotionIds().size()) {
+        List<Promotion> listPromotion = context.getPromotions();
+        if (listPromotion.size() != promotionIds.size()) {
             return false;
         }
         if (listPromotion.size() > 2) {
             return false;
         }
 
-        //Check used promotion
-        boolean checkUsed = listPromotion.stream().allMatch(promotion -> promotion.getUsed() < promotion.getUsageLimit());
-        if (!checkUsed) {
+        if (!checkPromotionUsable(listPromotion)) {
             return false;
         }
-
-        //Check end date of promotion
-        ZoneId databaseTimeZone = ZoneId.of("Asia/Bangkok");
-        LocalDateTime currentDate = new Date().toInstant().atZone(databaseTimeZone).toLocalDateTime();
-        //log.info("currentDate {}", currentDate);
-        for (Promotion promotion : listPromotion) {
-            if (!promotion.getEndDate().toInstant().atZone(databaseTimeZone).toLocalDateTime().isAfter(currentDate)) {
-                return false;
-            }
-        }
         //Check have only one promotion of discount and one of shipping
         int shipping = 0;
         int discount = 0;
@@ -723,102 +882,115 @@ public class PackageOrderServiceImpl implements PackageOrderService {
         }
 
         //Calculate total price of all product for check condition of promotion
-        double totalPriceOfAllProduct = calculateTotalPriceOfAllProduct(productOrder);
-        log.info("----------------------------------------------------------------------");
+        if (!hasPrices(context, context.getProductOrder())) {
+            return false;
+        }
+        double totalPriceOfAllProduct = calculateTotalPriceOfAllProduct(context, context.getProductOrder());
         log.info("checkPromotion() totalPriceOfAllProduct: {}", totalPriceOfAllProduct);
         //Check promotion can use with order
-        boolean checkConditionPrice = listPromotion.stream()
+        return listPromotion.stream()
                 .allMatch(
                         promotion -> totalPriceOfAllProduct >= promotion.getMinimumOrderValue()
                 );
-        if (!checkConditionPrice) {
+    }
+
+    private boolean checkPromotionUsable(List<Promotion> listPromotion) {
+        //Check used promotion
+        boolean checkUsed = listPromotion.stream().allMatch(promotion -> promotion.getUsed() < promotion.getUsageLimit());
+        if (!checkUsed) {
             return false;
         }
+
+        //Check end date of promotion
+        ZoneId databaseTimeZone = ZoneId.of("Asia/Bangkok");
+        LocalDateTime currentDate = new Date().toInstant().atZone(databaseTimeZone).toLocalDateTime();
+        for (Promotion promotion : listPromotion) {
+            if (!promotion.getEndDate().toInstant().atZone(databaseTimeZone).toLocalDateTime().isAfter(currentDate)) {
+                return false;
+            }
+        }
         return true;
     }
 
-    @Override
-    public boolean checkTotalShopPrice(List<ItemByShopDto> itemsByShop) {
+    private boolean checkTotalShopPrice(CheckoutContextDto context, List<ItemByShopDto> itemsByShop) {
         for (ItemByShopDto item : itemsByShop) {
-            Map<Long, Integer> productQuantityMap = item.getListItems();
-            if (item.getTotalShopPrice() != calculateTotalPriceOfAllProduct(productQuantityMap)) {
-                log.info("------------------------------checkTotalShopPrice()--------------------------------");
-                log.info("item.getTotalShopPrice() != calculateTotalPriceOfAllProduct(productQuantityMap)");
-                log.info("item.getTotalShopPrice() {}", item.getTotalShopPrice());
-                log.info("calculateTotalPriceOfAllProduct(productQuantityMap) {}", calculateTotalPriceOfAllProduct(productQuantityMap));
-                log.info("--------------------------------------------------------------");
+            if (!hasPrices(context, item.getListItems())) {
+                return false;
+            }
+            double totalShopPrice = calculateTotalPriceOfAllProduct(context, item.getListItems());
+            if (item.getTotalShopPrice() != totalShopPrice) {
+                log.info("checkTotalShopPrice() shop {} totalShopPrice {} != {}", item.getShopId(), item.getTotalShopPrice(), totalShopPrice);
                 return false;
             }
         }
         return true;
     }
 
-    @Override
-    public boolean checkSubTotal(double subTotal, Map<Long, Integer> productOrder) {
-        if (productOrder == null || productOrder.isEmpty()) {
+    private boolean checkSubTotal(CheckoutContextDto context, double subTotal) {
+        if (context.getProductOrder() == null || context.getProductOrder().isEmpty()
+                || !hasPrices(context, context.getProductOrder())) {
             return false;
         }
-        log.info("----------------------------checkSubTotal()----------------------------------");
-        log.info("item.getTotalShopPrice() != calculateTotalPriceOfAllProduct(productQuantityMap)");
-        log.info("subTotal {}", subTotal);
-        log.info("calculateTotalPriceOfAllProduct(productOrder) {}", calculateTotalPriceOfAllProduct(productOrder));
-        log.info("--------------------------------------------------------------");
-        return subTotal == calculateTotalPriceOfAllProduct(productOrder);
+        double totalPriceOfAllProduct = calculateTotalPriceOfAllProduct(context, context.getProductOrder());
+        log.info("checkSubTotal() subTotal {} totalPriceOfAllProduct {}", subTotal, totalPriceOfAllProduct);
+        return subTotal == totalPriceOfAllProduct;
     }
 
-    @Override
-    public boolean checkTotalShippingFee(PackageOrderRequestDto packageOrder) {
+    private boolean checkTotalShippingFee(CheckoutContextDto context) {
+        PackageOrderRequestDto packageOrder = context.getPackageOrder();
         //Check when have promotion with type SHIPPING
-        if (packageOrder.getCartInfo().getPromotionIds() != null && !packageOrder.getCartInfo().getPromotionIds().isEmpty()) {
-            List<Promotion> promotions = findPromotions(packageOrder.getCartInfo().getPromotionIds());
-            for (Promotion promotion : promotions) {
-                if (promotion.getType().equals(PromotionType.SHIPPING) && packageOrder.getCartInfo().getTotal().getShippingTotal() == 0) {
-                    return true;
-                }
-            }
+        if (hasFreeShipping(context) && packageOrder.getCartInfo().getTotal().getShippingTotal() == 0) {
+            return true;
         }
 
         //Check shipping fee when don't have promotion
-        final double[] totalShip = {0};
+        List<ItemByShopDto> itemsByShop = packageOrder.getCartInfo().getItemsByShop();
+        Map<Double, Double> shippingFees = quoteShippingFees(itemsByShop);
+        Optional<Double> totalShip = calculateTotalShip(itemsByShop, shippingFees);
         //Check shipping fee each shop
-        boolean checkShippingFeeEachOrder = packageOrder.getCartInfo().getItemsByShop().stream()
-                .allMatch(item -> {
-                    try {
-                        double shippingFeeWithDistance = getShippingFeeByDistance(item.getDistance());
-                        if (shippingFeeWithDistance == -1) {
-                            return false;
-                        }
-                        totalShip[0] += shippingFeeWithDistance;
-                        return item.getShippingFee() == shippingFeeWithDistance;
-                    } catch (JsonProcessingException e) {
-                        return false;
-                    }
-                });
+        boolean checkShippingFeeEachOrder = totalShip.isPresent() && itemsByShop.stream()
+                .allMatch(item -> item.getShippingFee() == shippingFees.get(item.getDistance()));
         log.info("----------------------------checkTotalShippingFee()----------------------------------");
         log.info("checkShippingFeeEachOrder {}", checkShippingFeeEachOrder);
-        log.info("Math.round(totalShip[0] * 100.0) / 100.0) {}", Math.round(totalShip[0] * 100.0) / 100.0);
+        log.info("totalShip {}", totalShip);
         log.info("packageOrder.getCartInfo().getTotal().getShippingTotal() {}", packageOrder.getCartInfo().getTotal().getShippingTotal());
         log.info("--------------------------------------------------------------");
-        return checkShippingFeeEachOrder && (Math.round(totalShip[0] * 100.0) / 100.0) == packageOrder.getCartInfo().getTotal().getShippingTotal();
+        return checkShippingFeeEachOrder && totalShip.get() == packageOrder.getCartInfo().getTotal().getShippingTotal();
     }
 
-    @Override
-    public boolean checkTotalDiscount(PackageOrderRequestDto packageOrder) {
-        //Check when have promotion with type DISCOUNT
-        if (packageOrder.getCartInfo().getPromotionIds() != null && !packageOrder.getCartInfo().getPromotionIds().isEmpty()) {
-            List<Promotion> promotions = findPromotions(packageOrder.getCartInfo().getPromotionIds());
-            for (Promotion promotion : promotions) {
-                if (
-                        promotion.getType().equals(PromotionType.DISCOUNT)
-                                && packageOrder.getCartInfo().getTotal().getPromotionFee() == promotion.getDiscount()
-                ) {
-                    log.info("packageOrder.getCartInfo().getTotal().getPromotionFee() {}", packageOrder.getCartInfo().getTotal().getPromotionFee());
-                    log.info("promotion.getDiscount()", promotion.getDiscount());
-                    return true;
-                }
+    //every shop is quoted at the same time
+    private Map<Double, Double> quoteShippingFees(List<ItemByShopDto> itemsByShop) {
+        return shippingQuoteService.quote(itemsByShop.stream()
+                .map(ItemByShopDto::getDistance)
+                .toList());
+    }
+
+    //empty when a shop is out of the shipping range
+    private Optional<Double> calculateTotalShip(List<ItemByShopDto> itemsByShop, Map<Double, Double> shippingFees) {
+        double totalShip = 0;
+        for (ItemByShopDto item : itemsByShop) {
+            double shippingFeeWithDistance = shippingFees.getOrDefault(item.getDistance(), -1.0);
+            if (shippingFeeWithDistance == -1) {
+                return Optional.empty();
             }
+            totalShip += shippingFeeWithDistance;
         }
-        if (packageOrder.getCartInfo().getTotal().getPromotionFee() == 0) {
+        return Optional.of(Math.round(totalShip * 100.0) / 100.0);
+    }
+
+    private boolean hasFreeShipping(CheckoutContextDto context) {
+        return context.getPromotions().stream()
+                .anyMatch(promotion -> promotion.getType().equals(PromotionType.SHIPPING));
+    }
+
+    private boolean checkTotalDiscount(CheckoutContextDto context) {
+        double promotionFee = context.getPackageOrder().getCartInfo().getTotal().getPromotionFee();
+        //Check when have promotion with type DISCOUNT
+        if (promotionFee != 0 && promotionFee == calculatePromotionFee(context)) {
+            log.info("promotionFee {}", promotionFee);
+            return true;
+        }
+        if (promotionFee == 0) {
             log.info("Discount 0");
             return true;
         } else {
@@ -827,14 +999,17 @@ public class PackageOrderServiceImpl implements PackageOrderService {
         }
     }
 
-    @Override
-    public boolean checkTotalPayment(TotalOrderDto totalOrderDto) {
-        double totalPayment = totalOrderDto.getSubTotal() + totalOrderDto.getShippingTotal() - totalOrderDto.getPromotionFee();
-        log.info("----------------------------checkTotalPayment()--------------------------------------------");
-        log.info("totalOrderDto.getPaymentTotal() {}", totalOrderDto.getPaymentTotal());
-        log.info("Math.round(totalPayment * 100.0) / 100.0 {}", Math.round(totalPayment * 100.0) / 100.0);
-        log.info("------------------------------------------------------------------------");
-        return totalOrderDto.getPaymentTotal() == Math.round(totalPayment * 100.0) / 100.0;
+    //checkPromotion allows one voucher of type DISCOUNT at most
+    private double calculatePromotionFee(CheckoutContextDto context) {
+        return context.getPromotions().stream()
+                .filter(promotion -> promotion.getType().equals(PromotionType.DISCOUNT))
+                .mapToDouble(Promotion::getDiscount)
+                .findFirst()
+                .orElse(0);
+    }
+
+    private double calculatePaymentTotal(double subTotal, double shippingTotal, double promotionFee) {
+        return Math.round((subTotal + shippingTotal - promotionFee) * 100.0) / 100.0;
     }
 
     private double calculatePriceAfterAddVoucher(double totalPrice, List<Promotion> promotions) {
@@ -854,26 +1029,26 @@ public class PackageOrderServiceImpl implements PackageOrderService {
                 ) * 100.0) / 100.0;
     }
 
-    private double calculateTotalPriceOfAllProduct(Map<Long, Integer> productOrder) {
+    //banned, deleted or unknown products are not priced in the context
+    private boolean hasPrices(CheckoutContextDto context, Map<Long, Integer> productOrder) {
+        return context.getDiscountedPrices().keySet().containsAll(productOrder.keySet());
+    }
+
+    private double calculateTotalPriceOfAllProduct(CheckoutContextDto context, Map<Long, Integer> productOrder) {
         return Math.round(
                 (
                         productOrder.entrySet().stream().mapToDouble(
                                 entry -> {
-                                    Long productId = entry.getKey();
-                                    Integer quantity = entry.getValue();
-                                    Optional<Product> product = productRepository.findById(productId);
-                                    double saleOff = productService.CalculateSaleOff(product.get().getPromotionShops(), product.get().getPrice());
-                                    double priceAfterDiscounted = productService.CalculateDiscountedPrice(product.get().getPrice(), saleOff);
-                                    return Math.round((priceAfterDiscounted * quantity) * 100.0) / 100.0;
+                                    double priceAfterDiscounted = context.getDiscountedPrices().get(entry.getKey());
+                                    return Math.round((priceAfterDiscounted * entry.getValue()) * 100.0) / 100.0;
                                 }
                         ).sum()
                 ) * 100.0
         ) / 100.0;
     }
 
-    private PackageOrder savePackageOrder(
-            PackageOrderRequestDto packageOrderRequest, Account account, Transaction transaction
-    ) {
+    private PackageOrder savePackageOrder(CheckoutContextDto context, Account account, Transaction transaction) {
+        PackageOrderRequestDto packageOrderRequest = context.getPackageOrder();
         Address address = new Address();
         address.setPhone(packageOrderRequest.getUserInfo().getPhoneNumber());
         address.setFullName(packageOrderRequest.getUserInfo().getFullName());
@@ -887,51 +1062,33 @@ public class PackageOrderServiceImpl implements PackageOrderService {
                 .transaction(transaction)
                 .shippingAddress(saveShippingAddress)
                 .build();
-        if (
-                packageOrderRequest.getCartInfo().getPromotionIds() != null
-                        && !packageOrderRequest.getCartInfo().getPromotionIds().isEmpty()
-        ) {
-            packageOrder.setPromotions(findPromotions(packageOrderRequest.getCartInfo().getPromotionIds()));
+        if (!context.getPromotions().isEmpty()) {
+            packageOrder.setPromotions(new ArrayList<>(context.getPromotions()));
         }
         PackageOrder savePackageOrder = packageOrderRepository.save(packageOrder);
         return savePackageOrder;
     }
 
-    private List<Order> saveOrder(PackageOrder packageOrder, PackageOrderRequestDto packageOrderRequestDto, Map<Long, Integer> productOrder) {
-        List<Order> orderList = new ArrayList<>();
-        List<Long> productListId = getListProductId(productOrder);
-
-        List<Product> products = productRepository.findAllById(productListId);
-        products.stream().forEach(s -> log.info("pro {}", s.getId()));
-
-        List<ShopOwner> shops = getListShopOwners(products);
-        shops.stream().forEach(s -> log.info("shop {}", s.getId()));
-
-        List<ItemByShopDto> itemsByShop = packageOrderRequestDto.getCartInfo().getItemsByShop();
-        shops.stream().forEach(shopOwner -> {
-            ItemByShopDto itemByShop = itemsByShop.stream()
-                    .filter(itemByShopDto -> itemByShopDto.getShopId().equals(shopOwner.getId()))
-                    .findFirst().get();
-//            List<PromotionShop> promotionShops = products.stream()
-//                    .filter(
-//                            product -> product.getShopOwner().equals(shopOwner)
-//                    ).map(Product::getPromotionShops)
-//                    .flatMap(List::stream)
-//                    .collect(Collectors.toList());
-            Order order = Order.builder()
-                    .totalPrice(itemByShop.getTotalShopPrice())
-                    .shippingFee(itemByShop.getShippingFee())
-                    .status(OrderStatus.PENDING)
-                    .shopOwner(shopOwner)
-                    .packageOrder(packageOrder)
-                    .build();
-            Order saveOrder = orderRepository.save(order);
-            orderList.add(saveOrder);
-        });
+    private List<Order> saveOrder(PackageOrder packageOrder, CheckoutContextDto context) {
+        List<ShopOwner> shops = context.getShopOwners();
+        Map<Long, ItemByShopDto> itemsByShop = context.getPackageOrder().getCartInfo().getItemsByShop().stream()
+                .collect(Collectors.toMap(ItemByShopDto::getShopId, itemByShop -> itemByShop, (first, second) -> first));
+        List<Order> orderList = shops.stream()
+                .map(shopOwner -> {
+                    ItemByShopDto itemByShop = itemsByShop.get(shopOwner.getId());
+                    return Order.builder()
+                            .totalPrice(itemByShop.getTotalShopPrice())
+                            .shippingFee(itemByShop.getShippingFee())
+                            .status(OrderStatus.PENDING)
+                            .shopOwner(shopOwner)
+                            .packageOrder(packageOrder)
+                            .build();
+                })
+                .collect(Collectors.toList());
+        orderRepository.insertAllInBatch(orderList);
         //push notification for shop
         List<Long> userIdOfShopList = shops.stream().map(shop -> shop.getAccount().getId()).toList();
-        log.info("Here is total shop {}", userIdOfShopList.size());
-        log.info("Here is account shopid {}", userIdOfShopList.toString());
+        log.info("Here is account shopid {}", userIdOfShopList);
         NotificationDto notificationDto = new NotificationDto();
         notificationDto.setRole(NotifiConstant.NOTI_SHOP_ROLE);
         notificationDto.setName(NotifiConstant.NEW_ORDER_FOR_SHOP_OWNER_NAME);
@@ -940,70 +1097,37 @@ public class PackageOrderServiceImpl implements PackageOrderService {
         return orderList;
     }
 
-    private List<OrderDetail> saveOrderDetails(List<Order> orders, Map<Long, Integer> productOrder) {
-        List<Long> productListId = getListProductId(productOrder);
-        List<Product> products = productRepository.findAllById(productListId);
-
-        List<ShopOwner> shopOwners = getListShopOwners(products);
+    private List<OrderDetail> saveOrderDetails(List<Order> orders, CheckoutContextDto context) {
+        Map<Long, List<Product>> productsByShop = context.getProducts().values().stream()
+                .collect(Collectors.groupingBy(product -> product.getShopOwner().getId()));
         List<OrderDetail> orderDetails = new ArrayList<>();
-//        for (Order order : orders) {
-//            for (ShopOwner shopOwner : shopOwners) {
-//                if (order.getShopOwner().equals(shopOwner)) {
-//                    for (Product product : products) {
-//                        if (product.getShopOwner().equals(shopOwner)) {
-//                            double saleOff = productService.CalculateSaleOff(product.getPromotionShops(), product.getPrice());
-//                            double discountedPrice = productService.CalculateDiscountedPrice(product.getPrice(), saleOff);
-//                            OrderDetail orderDetail = OrderDetail.builder()
-//                                    .order(order)
-//                                    .product(product)
-//                                    .price(discountedPrice)
-//                                    .quantity(packageOrderRequestDto.getProductOrder().get(product.getId()))
-//                                    .build();
-//                            orderDetails.add(orderDetail);
-//                            orderDetailRepository.save(orderDetail);
-//                        }
-//                    }
-//                }
-//            }
-//        }
-
-        orders.stream()
-                .forEach(
-                        order -> products.stream()
-                                .filter(product -> product.getShopOwner().equals(order.getShopOwner()))
-                                .forEach(product -> {
-                                    int newQuantity = product.getQuantity() - productOrder.get(product.getId());
-                                    double saleOff = productService.CalculateSaleOff(product.getPromotionShops(), product.getPrice());
-                                    double discountedPrice = productService.CalculateDiscountedPrice(product.getPrice(), saleOff);
-                                    ArrayList<PromotionShop> promotionShops = new ArrayList<>(product.getPromotionShops());
-                                    OrderDetail orderDetail = OrderDetail.builder()
-                                            .order(order)
-                                            .product(product)
-                                            .price(discountedPrice)
-                                            .quantity(productOrder.get(product.getId()))
-                                            .promotionShops(promotionShops)
-                                            .productPromotionRate(promotionPriceService.calculatePercentDiscountedOfProductByPromotions(promotionShops, discountedPrice))
-                                            .build();
-                                    product.setQuantity(newQuantity);
-                                    productRepository.save(product);
-                                    OrderDetail saveOrderDetail = orderDetailRepository.save(orderDetail);
-                                    orderDetails.add(saveOrderDetail);
-                                })
-                );
-        return orderDetails;
+        orders.forEach(
+                order -> productsByShop.getOrDefault(order.getShopOwner().getId(), Collections.emptyList())
+                        .forEach(product -> {
+                            double discountedPrice = context.getDiscountedPrices().get(product.getId());
+                            ArrayList<PromotionShop> promotionShops = new ArrayList<>(product.getPromotionShops());
+                            orderDetails.add(OrderDetail.builder()
+                                    .order(order)
+                                    .product(product)
+                                    .price(discountedPrice)
+                                    .quantity(context.getProductOrder().get(product.getId()))
+                                    .promotionShops(promotionShops)
+                                    .productPromotionRate(promotionPriceService.calculatePercentDiscountedOfProductByPromotions(promotionShops, discountedPrice))
+                                    .build());
+                        })
+        );
+        coPurchaseService.record(context.getProducts().keySet());
+        return orderDetailRepository.insertAllInBatch(orderDetails);
     }
 
-    private Long saveAll(
-            PackageOrderRequestDto packageOrderRequestDto, String paymentId, String payerEmail,
-            Account account, Map<Long, Integer> productOrder
-    ) {
-        List<Long> promotionIds = packageOrderRequestDto.getCartInfo().getPromotionIds();
-        if (promotionIds.size() > 0) {
-            List<Promotion> promotions = promotionRepository.findAllById(promotionIds);
-            promotions.forEach(promotion -> {
-                int used = promotion.getUsed();
-                promotion.setUsed(used + 1);
-            });
+    private Long saveAll(CheckoutContextDto context, String paymentId, String payerEmail, Account account) {
+        PackageOrderRequestDto packageOrderRequestDto = context.getPackageOrder();
+        context.getPromotions().forEach(promotion -> {
+            int used = promotion.getUsed();
+            promotion.setUsed(used + 1);
+        });
+        if (!context.getPromotions().isEmpty()) {
+            responseCacheService.evictPromotions();
         }
         Transaction transaction = Transaction.builder()
                 .amount(packageOrderRequestDto.getCartInfo().getTotal().getPaymentTotal())
@@ -1015,13 +1139,15 @@ public class PackageOrderServiceImpl implements PackageOrderService {
             transaction.setStatus(TransactionStatus.SUCCESS);
         }
         Transaction saveTransaction = transactionRepository.save(transaction);
-        PackageOrder packageOrder = savePackageOrder(packageOrderRequestDto, account, saveTransaction);
-        List<Order> orders = saveOrder(packageOrder, packageOrderRequestDto, productOrder);
-        saveOrderDetails(orders, productOrder);
+        PackageOrder packageOrder = savePackageOrder(context, account, saveTransaction);
+        List<Order> orders = saveOrder(packageOrder, context);
+        saveOrderDetails(orders, context);
         return packageOrder.getId();
     }
 
-    private ResponseEntity<?> handleInitialPayment(PackageOrderRequestDto packageOrderRequestDto, Account account) {
+    private ResponseEntity<?> handleInitialPayment(
+            PackageOrderRequestDto packageOrderRequestDto, Account account, Map<Long, Integer> productOrder
+    ) {
         // Handle initial payment request
         try {
             String description = account.getEmail()
@@ -1036,6 +1162,11 @@ public class PackageOrderServiceImpl implements PackageOrderService {
                     .cancelUrl(appProperties.getPaypal().getCancelUrl())
                     .build();
             Payment payment = paypalService.createPayment(paymentDto);
+            //hold the stock while the buyer approves on paypal, released by the expiry job if never completed
+            Optional<Long> outOfStockProductId = stockReservationService.reserveForPayment(payment.getId(), productOrder);
+            if (outOfStockProductId.isPresent()) {
+                return getErrorResponseOutOfStock(outOfStockProductId.get());
+            }
             for (Links link : payment.getLinks()) {
                 if (link.getRel().equals("approval_url")) {
                     log.info("link approval_url {}", link.getHref());
@@ -1055,46 +1186,11 @@ public class PackageOrderServiceImpl implements PackageOrderService {
         return new ResponseEntity<>(error, HttpStatus.EXPECTATION_FAILED);
     }
 
-    private ResponseEntity<?> handleSuccessPayment(
-            PackageOrderRequestDto packageOrderRequestDto,
-            Map<Long, Integer> productOrder,
-            Account account,
-            String paymentId,
-            String payerId
-    ) {
-        // Handle success payment
-        try {
-            Payment payment = paypalService.executePayment(paymentId, payerId);
-            log.info("Payment {}", payment.toJSON());
-            log.info("payerId id{}", payerId);
-            log.info("paymentId id{}", paymentId);
-            if (payment.getState().equals("approved")) {
-                Long packageOrderId;
-                if (transactionRepository.findByPaypalId(paymentId).isPresent()) {
-                    ErrorResponse error = new ErrorResponse(String.valueOf(HttpStatus.EXPECTATION_FAILED.value()),
-                            "paymentId " + paymentId + " already exist.");
-                    return new ResponseEntity<>(error, HttpStatus.EXPECTATION_FAILED);
-                } else {
-                    String payerEmail = payment.getPayer().getPayerInfo().getEmail();
-                    updateTotalOrderOfListProduct(productOrder.keySet().stream().toList());
-                    packageOrderId = saveAll(packageOrderRequestDto, paymentId, payerEmail, account, productOrder);
-                }
-                SuccessResponse successResponse = SuccessResponse.builder()
-                        .successCode(String.valueOf(HttpStatus.OK.value()))
-                        .successMessage("Payment with paypal successful. packageOrderId=" + packageOrderId)
-                        .build();
-
-                return ResponseEntity.status(HttpStatus.OK)
-                        .body(successResponse);
-            }
-        } catch (PayPalRESTException e) {
-            ErrorResponse error = new ErrorResponse(String.valueOf(HttpStatus.EXPECTATION_FAILED.value()),
-                    "Payment with paypal failed.");
-            return new ResponseEntity<>(error, HttpStatus.EXPECTATION_FAILED);
-        }
-        ErrorResponse error = new ErrorResponse(String.valueOf(HttpStatus.EXPECTATION_FAILED.value()),
-                "Payment with paypal failed.");
-        return new ResponseEntity<>(error, HttpStatus.EXPECTATION_FAILED);
+    private ResponseEntity<?> getErrorResponseOutOfStock(Long productId) {
+        //undo the items already taken before this one
+        TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        return ResponseUtils.getErrorResponseNotAcceptable("Product " + productId
+                + " is out of stock. Please reload page!");
     }
 
     private Map<Long, Integer> getAllProductWithQuantity(List<ItemByShopDto> itemsByShop) {
@@ -1124,60 +1220,14 @@ public class PackageOrderServiceImpl implements PackageOrderService {
                 .collect(Collectors.toList());
     }
 
-    private List<Long> getListProductId(Map<Long, Integer> productOrder) {
-        return productOrder.entrySet()
-                .stream()
-                .map(
-                        entry -> entry.getKey()
-                )
-                .collect(Collectors.toList());
-    }
-
-    private double getShippingFeeByDistance(double distance) throws JsonProcessingException {
-        RestTemplate restTemplate = new RestTemplate();
-        String apiUrl = appProperties.getShip().getUrl();
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
-
-        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(apiUrl)
-                .queryParam("distance", distance);
-
-        HttpEntity<?> entity = new HttpEntity<>(headers);
-
-        try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    builder.toUriString(),
-                    HttpMethod.GET,
-                    entity,
-                    String.class);
-
-            if (response.getStatusCode() == HttpStatus.OK) {
-                String responseBody = response.getBody();
-
-                // Parse the JSON response
-                ObjectMapper objectMapper = new ObjectMapper();
-                Map<String, Object> jsonMap = objectMapper.readValue(responseBody, new TypeReference<Map<String, Object>>() {
-                });
-
-                // Access the 'shippingFee' field
-                Double shippingFee = (Double) jsonMap.get("shippingFee");
-                return shippingFee;
-            } else if (response.getStatusCode() == HttpStatus.NOT_ACCEPTABLE) {
-                return -1;
-            }
-        } catch (Exception ex) {
-            return -1;
-        }
-        return -1;
-    }
-
-    private boolean updateTotalOrderOfListProduct(List<Long> ids) {
-        ids.forEach(id -> {
-            Product product = new Bird();
-            product.setId(id);
-            productSummaryService.updateTotalQuantityOrder(product);
-        });
+    private boolean updateTotalOrderOfListProduct(Map<Long, Integer> productOrder) {
+        productSummaryService.publishEvents(productOrder.entrySet().stream()
+                .map(entry -> ProductSummaryEventDto.builder()
+                        .productId(entry.getKey())
+                        .type(ProductSummaryEventType.ORDER_DETAIL_CREATED)
+                        .quantity(entry.getValue())
+                        .build())
+                .toList());
         return true;
     }
 
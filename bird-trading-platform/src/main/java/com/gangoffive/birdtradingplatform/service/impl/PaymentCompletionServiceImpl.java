@@ -0,0 +1,373 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.api.response.ErrorResponse;
+import com.gangoffive.birdtradingplatform.api.response.SuccessResponse;
+import com.gangoffive.birdtradingplatform.common.NotifiConstant;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ItemByShopDto;
+import com.gangoffive.birdtradingplatform.dto.NotificationDto;
+import com.gangoffive.birdtradingplatform.dto.PackageOrderRequestDto;
+import com.gangoffive.birdtradingplatform.dto.PaymentCompletionDto;
+import com.gangoffive.birdtradingplatform.entity.Account;
+import com.gangoffive.birdtradingplatform.entity.PaymentCompletion;
+import com.gangoffive.birdtradingplatform.enums.PaymentCompletionStatus;
+import com.gangoffive.birdtradingplatform.exception.ResourceNotFoundException;
+import com.gangoffive.birdtradingplatform.repository.AccountRepository;
+import com.gangoffive.birdtradingplatform.repository.PaymentCompletionRepository;
+import com.gangoffive.birdtradingplatform.repository.TransactionRepository;
+import com.gangoffive.birdtradingplatform.service.*;
+import com.gangoffive.birdtradingplatform.util.JsonUtil;
+import com.gangoffive.birdtradingplatform.util.ResponseUtils;
+import com.paypal.api.payments.Payment;
+import com.paypal.base.rest.PayPalRESTException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//the http request only records the approved payment; workers confirm the stock, execute on paypal
+//outside any db transaction and then save the orders, each step safe to repeat for the same payment
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentCompletionServiceImpl implements PaymentCompletionService {
+    private static final List<PaymentCompletionStatus> UNFINISHED_STATUSES =
+            List.of(PaymentCompletionStatus.PENDING, PaymentCompletionStatus.EXECUTING);
+    private static final String PAYMENT_ALREADY_DONE = "PAYMENT_ALREADY_DONE";
+    private static final int DUE_BATCH_SIZE = 100;
+
+    private final AppProperties appProperties;
+    private final PaymentCompletionRepository paymentCompletionRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final PackageOrderService packageOrderService;
+    private final StockReservationService stockReservationService;
+    private final PaypalService paypalService;
+    private final NotificationService notificationService;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        int threads = Math.max(1, appProperties.getPaymentCompletion().getThreads());
+        AtomicInteger count = new AtomicInteger();
+        //a rejected row stays due in the table, the next poll dispatches it again
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), runnable -> {
+            Thread thread = new Thread(runnable, "payment-completion-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdown();
+    }
+
+    @Override
+    public ResponseEntity<?> submit(PackageOrderRequestDto packageOrder, String paymentId, String payerId) {
+        Optional<String> email = getCurrentEmail();
+        if (email.isEmpty()) {
+            return ResponseUtils.getErrorResponseUnauthorized("Not logged in.");
+        }
+        Account account = accountRepository.findByEmail(email.get()).orElse(null);
+        if (account == null) {
+            return ResponseUtils.getErrorResponseNotFound("Not found this account.");
+        }
+        Optional<PaymentCompletion> existing = paymentCompletionRepository.findByPaymentId(paymentId);
+        if (existing.isPresent()) {
+            return getSubmitResponse(existing.get(), account);
+        }
+        //completed before this pipeline existed
+        if (transactionRepository.findByPaypalId(paymentId).isPresent()) {
+            ErrorResponse error = new ErrorResponse(String.valueOf(HttpStatus.EXPECTATION_FAILED.value()),
+                    "paymentId " + paymentId + " already exist.");
+            return new ResponseEntity<>(error, HttpStatus.EXPECTATION_FAILED);
+        }
+        PaymentCompletion completion;
+        try {
+            completion = paymentCompletionRepository.saveAndFlush(PaymentCompletion.builder()
+                    .paymentId(paymentId)
+                    .payerId(payerId)
+                    .accountId(account.getId())
+                    .request(JsonUtil.INSTANCE.getJsonString(packageOrder))
+                    .status(PaymentCompletionStatus.PENDING)
+                    .nextAttemptDate(new Date())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            //the same redirect submitted twice at once, the unique payment id lets only one row in
+            completion = paymentCompletionRepository.findByPaymentId(paymentId).orElseThrow(() -> e);
+            return getSubmitResponse(completion, account);
+        }
+        this.dispatch(completion.getId());
+        return getSubmitResponse(completion, account);
+    }
+
+    @Override
+    public ResponseEntity<?> getCompletion(String paymentId) {
+        Optional<String> email = getCurrentEmail();
+        if (email.isEmpty()) {
+            return ResponseUtils.getErrorResponseUnauthorized("Not logged in.");
+        }
+        Account account = accountRepository.findByEmail(email.get()).orElse(null);
+        Optional<PaymentCompletion> completion = paymentCompletionRepository.findByPaymentId(paymentId);
+        if (account == null || completion.isEmpty() || !completion.get().getAccountId().equals(account.getId())) {
+            return ResponseUtils.getErrorResponseNotFound("Not found this payment.");
+        }
+        return ResponseEntity.ok(PaymentCompletionDto.builder()
+                .paymentId(completion.get().getPaymentId())
+                .status(completion.get().getStatus())
+                .attempts(completion.get().getAttempts())
+                .packageOrderId(completion.get().getPackageOrderId())
+                .errorMessage(completion.get().getErrorMessage())
+                .build());
+    }
+
+    //picks up retries whose backoff elapsed, rows dropped by a full pool and rows of a crashed worker
+    @Override
+    @Scheduled(fixedDelay = 5 * 1000)
+    public int dispatchDueCompletions() {
+        List<Long> dueIds = paymentCompletionRepository.findDueId(UNFINISHED_STATUSES, new Date(),
+                PageRequest.of(0, DUE_BATCH_SIZE));
+        dueIds.forEach(this::dispatch);
+        return dueIds.size();
+    }
+
+    private void dispatch(Long completionId) {
+        workers.execute(() -> {
+            try {
+                this.process(completionId);
+            } catch (Exception e) {
+                log.error("Payment completion {} failed unexpectedly", completionId, e);
+            }
+        });
+    }
+
+    private void process(Long completionId) {
+        AppProperties.PaymentCompletion config = appProperties.getPaymentCompletion();
+        Date now = new Date();
+        Integer claimed = transactionTemplate.execute(status -> paymentCompletionRepository.claim(completionId,
+                new Date(now.getTime() + config.getLeaseMillis()), now, UNFINISHED_STATUSES));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+        PaymentCompletion completion = paymentCompletionRepository.findById(completionId).orElseThrow();
+        PackageOrderRequestDto packageOrder = JsonUtil.INSTANCE.getObject(completion.getRequest(), PackageOrderRequestDto.class);
+        Map<Long, Integer> productOrder = getProductOrder(packageOrder);
+
+        if (completion.getStatus().equals(PaymentCompletionStatus.PENDING)) {
+            Optional<Long> outOfStockProductId = transactionTemplate.execute(status -> {
+                Optional<Long> result = stockReservationService.confirmPayment(completion.getPaymentId(), productOrder);
+                if (result.isPresent()) {
+                    status.setRollbackOnly();
+                } else {
+                    completion.setStatus(PaymentCompletionStatus.EXECUTING);
+                    paymentCompletionRepository.save(completion);
+                }
+                return result;
+            });
+            if (outOfStockProductId.isPresent()) {
+                this.fail(completion, productOrder, "Product " + outOfStockProductId.get() + " is out of stock.");
+                return;
+            }
+        }
+
+        Payment payment;
+        try {
+            payment = this.executePayment(completion);
+        } catch (PayPalRESTException e) {
+            if (!isTransient(e)) {
+                this.fail(completion, productOrder, "PayPal refused the payment: " + e.getMessage());
+                return;
+            }
+            if (completion.getAttempts() < config.getMaxAttempts()) {
+                this.retryLater(completion, "PayPal unavailable: " + e.getMessage());
+                return;
+            }
+            //the last execution may still have gone through, ask paypal before giving the stock back
+            payment = this.lookUpPayment(completion, e);
+            if (payment == null) {
+                return;
+            }
+        }
+        if (!"approved".equals(payment.getState())) {
+            this.fail(completion, productOrder, "Payment state is " + payment.getState() + ".");
+            return;
+        }
+
+        //the buyer is charged from here on: never give the stock back, keep retrying the save instead
+        try {
+            String payerEmail = payment.getPayer().getPayerInfo().getEmail();
+            transactionTemplate.executeWithoutResult(status -> {
+                Account account = accountRepository.findById(completion.getAccountId()).orElseThrow();
+                Long packageOrderId = packageOrderService.completePaypalPayment(packageOrder, account,
+                        completion.getPaymentId(), payerEmail);
+                completion.setPackageOrderId(packageOrderId);
+                completion.setStatus(PaymentCompletionStatus.COMPLETED);
+                completion.setLockedUntil(null);
+                completion.setErrorMessage(null);
+                paymentCompletionRepository.save(completion);
+            });
+        } catch (ResourceNotFoundException e) {
+            //a product left the catalog while the buyer paid, retrying can't bring it back
+            this.fail(completion, productOrder, e.getMessage() + ". The payment has to be refunded.");
+            return;
+        } catch (Exception e) {
+            log.error("Save orders of payment {} failed", completion.getPaymentId(), e);
+            this.retryLater(completion, "Save orders failed: " + e.getMessage());
+            return;
+        }
+        log.info("Payment {} completed with package order {} after {} attempts",
+                completion.getPaymentId(), completion.getPackageOrderId(), completion.getAttempts());
+        this.notifyBuyer(completion.getAccountId(), String.format(NotifiConstant.PAYMENT_COMPLETED_CONTENT,
+                completion.getPaymentId(), completion.getPackageOrderId()));
+    }
+
+    private Payment executePayment(PaymentCompletion completion) throws PayPalRESTException {
+        try {
+            return paypalService.executePayment(completion.getPaymentId(), completion.getPayerId(),
+                    "execute-" + completion.getPaymentId());
+        } catch (PayPalRESTException e) {
+            //executed by an attempt whose response was lost
+            if (e.getDetails() != null && PAYMENT_ALREADY_DONE.equals(e.getDetails().getName())) {
+                return paypalService.getPayment(completion.getPaymentId());
+            }
+            throw e;
+        }
+    }
+
+    //null when paypal cannot tell either, the row is then left for manual reconciliation with its stock held
+    private Payment lookUpPayment(PaymentCompletion completion, PayPalRESTException executeError) {
+        try {
+            return paypalService.getPayment(completion.getPaymentId());
+        } catch (PayPalRESTException e) {
+            transactionTemplate.executeWithoutResult(status -> {
+                completion.setStatus(PaymentCompletionStatus.RECONCILING);
+                completion.setLockedUntil(null);
+                completion.setErrorMessage(truncate("PayPal unavailable: " + executeError.getMessage()));
+                paymentCompletionRepository.save(completion);
+            });
+            log.error("Payment {} outcome unknown after {} attempts, left for reconciliation",
+                    completion.getPaymentId(), completion.getAttempts(), e);
+            return null;
+        }
+    }
+
+    private static boolean isTransient(PayPalRESTException e) {
+        //0 means no http response at all (timeout, connection reset)
+        int responseCode = e.getResponsecode();
+        return responseCode == 0 || responseCode == 429 || responseCode >= 500;
+    }
+
+    private void retryLater(PaymentCompletion completion, String reason) {
+        AppProperties.PaymentCompletion config = appProperties.getPaymentCompletion();
+        long backoff = Math.min(config.getMaxBackoffMillis(),
+                config.getBackoffMillis() << Math.min(20, Math.max(0, completion.getAttempts() - 1)));
+        //jitter so payments failing together do not hit paypal together again
+        long delay = backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        completion.setNextAttemptDate(new Date(System.currentTimeMillis() + delay));
+        completion.setLockedUntil(null);
+        completion.setErrorMessage(truncate(reason));
+        paymentCompletionRepository.save(completion);
+        log.info("Retry payment {} in {} ms (attempt {}): {}", completion.getPaymentId(), delay,
+                completion.getAttempts(), reason);
+    }
+
+    private void fail(PaymentCompletion completion, Map<Long, Integer> productOrder, String reason) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (completion.getStatus().equals(PaymentCompletionStatus.EXECUTING)) {
+                stockReservationService.cancelPayment(completion.getPaymentId(), productOrder);
+            }
+            completion.setStatus(PaymentCompletionStatus.FAILED);
+            completion.setLockedUntil(null);
+            completion.setErrorMessage(truncate(reason));
+            paymentCompletionRepository.save(completion);
+        });
+        log.info("Payment {} failed: {}", completion.getPaymentId(), reason);
+        this.notifyBuyer(completion.getAccountId(), String.format(NotifiConstant.PAYMENT_FAILED_CONTENT,
+                completion.getPaymentId(), reason));
+    }
+
+    //paypal errors carry their whole json body
+    private static String truncate(String reason) {
+        if (reason == null || reason.length() <= PaymentCompletion.ERROR_MESSAGE_LENGTH) {
+            return reason;
+        }
+        return reason.substring(0, PaymentCompletion.ERROR_MESSAGE_LENGTH);
+    }
+
+    private void notifyBuyer(Long accountId, String content) {
+        try {
+            NotificationDto notificationDto = new NotificationDto();
+            notificationDto.setRole(NotifiConstant.NOTI_USER_ROLE);
+            notificationDto.setName(NotifiConstant.ORDER_NAME_NOTI_USER);
+            notificationDto.setNotiText(content);
+            notificationService.pushNotificationForAUserID(accountId, notificationDto);
+        } catch (Exception e) {
+            //the buyer can still poll the completion
+            log.error("Push payment notification to account {} failed", accountId, e);
+        }
+    }
+
+    private ResponseEntity<?> getSubmitResponse(PaymentCompletion completion, Account account) {
+        if (!completion.getAccountId().equals(account.getId())) {
+            return ResponseUtils.getErrorResponseConflict("paymentId " + completion.getPaymentId() + " already exist.");
+        }
+        if (completion.getStatus().equals(PaymentCompletionStatus.COMPLETED)) {
+            SuccessResponse successResponse = SuccessResponse.builder()
+                    .successCode(String.valueOf(HttpStatus.OK.value()))
+                    .successMessage("Payment with paypal successful. packageOrderId=" + completion.getPackageOrderId())
+                    .build();
+            return ResponseEntity.ok(successResponse);
+        }
+        if (completion.getStatus().equals(PaymentCompletionStatus.FAILED)) {
+            ErrorResponse error = new ErrorResponse(String.valueOf(HttpStatus.EXPECTATION_FAILED.value()),
+                    "Payment with paypal failed. " + completion.getErrorMessage());
+            return new ResponseEntity<>(error, HttpStatus.EXPECTATION_FAILED);
+        }
+        SuccessResponse successResponse = SuccessResponse.builder()
+                .successCode(String.valueOf(HttpStatus.ACCEPTED.value()))
+                .successMessage("Payment with paypal is processing. paymentId=" + completion.getPaymentId())
+                .build();
+        return new ResponseEntity<>(successResponse, HttpStatus.ACCEPTED);
+    }
+
+    private Optional<String> getCurrentEmail() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(authentication.getName());
+    }
+
+    private Map<Long, Integer> getProductOrder(PackageOrderRequestDto packageOrder) {
+        Map<Long, Integer> productOrder = new HashMap<>();
+        for (ItemByShopDto item : packageOrder.getCartInfo().getItemsByShop()) {
+            productOrder.putAll(item.getListItems());
+        }
+        return productOrder;
+    }
+}
@@ -0,0 +1,121 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.dto.*;
+import com.gangoffive.birdtradingplatform.repository.ProductCatalogRepository;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import com.gangoffive.birdtradingplatform.service.ProductCartService;
+import com.gangoffive.birdtradingplatform.service.ProductCatalogService;
+import com.gangoffive.birdtradingplatform.service.PromotionPriceService;
+import com.gangoffive.birdtradingplatform.util.MyUtils;
+import com.gangoffive.birdtradingplatform.util.PriceEngine;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Builds product cards for a whole page in a fixed number of queries
+ * (cards with their summary stars, tags, active promotion rates) instead of
+ * walking the lazy associations of every product. Cards are read from the
+ * product catalog table, products it does not hold yet from the product tables.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCartServiceImpl implements ProductCartService {
+    private final ProductRepository productRepository;
+    private final ProductCatalogRepository productCatalogRepository;
+    private final ProductCatalogService productCatalogService;
+    private final PromotionPriceService promotionPriceService;
+
+    @Override
+    public List<ProductCartDto> buildProductCarts(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> ids = new LinkedHashSet<>(productIds);
+
+        Map<Long, ProductCardView> cards = new HashMap<>();
+        if (productCatalogService.isReady()) {
+            productCatalogRepository.findCardViewByIdIn(ids).forEach(card -> cards.put(card.getId(), card));
+        }
+        List<Long> missingIds = ids.stream().filter(id -> !cards.containsKey(id)).toList();
+        if (!missingIds.isEmpty()) {
+            productRepository.findCardViewByIdIn(missingIds).forEach(card -> cards.putIfAbsent(card.getId(), card));
+        }
+
+        Map<Long, List<TagDto>> tags = new HashMap<>();
+        productRepository.findTagViewByProductIdIn(ids).forEach(tag ->
+                tags.computeIfAbsent(tag.getProductId(), id -> new ArrayList<>())
+                        .add(TagDto.builder().id(tag.getTagId()).name(tag.getTagName()).build()));
+
+        Map<Long, int[]> discountRates = promotionPriceService.getDiscountRates(ids);
+
+        List<ProductCardView> found = ids.stream()
+                .map(cards::get)
+                .filter(Objects::nonNull)
+                .toList();
+        //the whole page is priced in one pass
+        double[] prices = new double[found.size()];
+        int[][] rates = new int[found.size()][];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = found.get(i).getPrice();
+            rates[i] = discountRates.get(found.get(i).getId());
+        }
+        double[] saleOffs = new double[prices.length];
+        double[] discountedPrices = new double[prices.length];
+        PriceEngine.quote(prices, rates, saleOffs, discountedPrices);
+
+        List<ProductCartDto> result = new ArrayList<>(found.size());
+        for (int i = 0; i < prices.length; i++) {
+            ProductCardView card = found.get(i);
+            result.add(toProductCart(card,
+                    tags.getOrDefault(card.getId(), new ArrayList<>()),
+                    saleOffs[i],
+                    discountedPrices[i],
+                    card.getStar() != null ? card.getStar() : 0.0));
+        }
+        return result;
+    }
+
+    private ProductCartDto toProductCart(ProductCardView card, List<TagDto> tags, double discountRate,
+                                         double discountedPrice, double star) {
+        TypeDto type = new TypeDto();
+        if (card.getTypeId() != null) {
+            type.setId(card.getTypeId());
+            type.setName(card.getTypeName());
+        }
+
+        AddressDto address = null;
+        if (card.getAddressId() != null) {
+            address = AddressDto.builder()
+                    .id(card.getAddressId())
+                    .address(card.getAddress())
+                    .build();
+        }
+        ShopOwnerDto shopOwner = ShopOwnerDto.builder()
+                .id(card.getShopId())
+                .shopName(card.getShopName())
+                .imgUrl(card.getShopAvatarImgUrl())
+                .address(address)
+                .build();
+
+        return ProductCartDto.builder()
+                .id(card.getId())
+                .name(card.getName())
+                .price(card.getPrice())
+                .imgUrl(MyUtils.toLists(card.getImgUrl(), ",").get(0))
+                .discountRate(discountRate)
+                .discountedPrice(discountedPrice)
+                .quantity(card.getQuantity())
+                .categoryId(card.getCategoryId())
+                .star(Math.round(star * 10.0) / 10.0)
+                .tags(tags)
+                .type(type)
+                .shopOwner(shopOwner)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ProductsChangedEventDto;
+import com.gangoffive.birdtradingplatform.repository.ProductCatalogRepository;
+import com.gangoffive.birdtradingplatform.service.ProductCatalogService;
+import com.gangoffive.birdtradingplatform.util.AfterCommitCollector;
+import com.gangoffive.birdtradingplatform.util.BackgroundRebuild;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+//the catalog is written after the product transaction commits, so a crash in between leaves a stale row
+//until the scheduled repair rewrites it
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalogServiceImpl implements ProductCatalogService {
+    private static final int SYNC_CHUNK_SIZE = 1000;
+
+    private final ProductCatalogRepository productCatalogRepository;
+    private final AppProperties appProperties;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean ready;
+    //the repair writes the table itself, so a change made while it runs needs no replay
+    private final BackgroundRebuild<Long> repairs =
+            new BackgroundRebuild<>("product catalog", this::repair, this::upsert);
+    private final AfterCommitCollector<Long> pendingIds = AfterCommitCollector.distinct(repairs::apply);
+
+    @PostConstruct
+    public void init() {
+        //after commit the finished transaction is still bound to the thread, writes need their own
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        repairs.start();
+    }
+
+    @Scheduled(initialDelayString = "${app.productCatalog.repairIntervalMillis}", fixedDelayString = "${app.productCatalog.repairIntervalMillis}")
+    public void scheduledRepair() {
+        repairs.rebuildIfIdle();
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void sync(Collection<Long> productIds) {
+        pendingIds.addAll(productIds);
+    }
+
+    @EventListener
+    public void onProductsChanged(ProductsChangedEventDto event) {
+        this.sync(event.getProductIds());
+    }
+
+    @Override
+    public void syncShops(Collection<Long> shopIds) {
+        if (shopIds == null || shopIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(shopIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.updateShopStatus(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                updateShopStatus(ids);
+            }
+        });
+    }
+
+    @Override
+    public synchronized int repair() {
+        long start = System.currentTimeMillis();
+        int chunkSize = Math.max(1, appProperties.getProductCatalog().getRepairChunkSize());
+        long maxProductId = productCatalogRepository.findMaxProductId();
+        int repaired = 0;
+        for (long afterId = 0; afterId < maxProductId; afterId += chunkSize) {
+            List<Long> drifted = productCatalogRepository.findDriftedIdBetween(afterId,
+                    Math.min(afterId + chunkSize, maxProductId));
+            if (!drifted.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status ->
+                        productCatalogRepository.upsertByProductIdIn(drifted));
+                repaired += drifted.size();
+            }
+        }
+        ready = true;
+        if (repaired > 0) {
+            log.warn("Product catalog repaired {} drifted rows in {} ms", repaired, System.currentTimeMillis() - start);
+        } else {
+            log.info("Product catalog checked in {} ms, no drift", System.currentTimeMillis() - start);
+        }
+        return repaired;
+    }
+
+    private void upsert(List<Long> productIds) {
+        for (int from = 0; from < productIds.size(); from += SYNC_CHUNK_SIZE) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + SYNC_CHUNK_SIZE, productIds.size()));
+            transactionTemplate.executeWithoutResult(status -> productCatalogRepository.upsertByProductIdIn(chunk));
+        }
+    }
+
+    private void updateShopStatus(List<Long> shopIds) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    productCatalogRepository.updateShopStatusByShopIdIn(shopIds));
+        } catch (Exception e) {
+            log.error("Could not sync product catalog shop status {}", shopIds, e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ProductHierarchyMigrationDto;
+import com.gangoffive.birdtradingplatform.entity.ProductHierarchyMigration;
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import com.gangoffive.birdtradingplatform.repository.ProductHierarchyMigrationRepository;
+import com.gangoffive.birdtradingplatform.service.ProductHierarchyMigrationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+//fills the JOINED product tables (see JoinedProduct) from the bird, food and accessory tables while the shop keeps
+//running. Triggers write every later change through, one pass copies the id ranges in chunks, then verify passes
+//recopy whatever the copy and the triggers disagree on. Once a pass ends with mismatchTotal = 0 the reads can move
+//to the JOINED mapping, the triggers keep it current until then.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductHierarchyMigrationServiceImpl implements ProductHierarchyMigrationService {
+    private final ProductHierarchyMigrationRepository productHierarchyMigrationRepository;
+    private final AppProperties appProperties;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong copiedThisRun = new AtomicLong();
+    private volatile long startedNanoTime;
+    private volatile long finishedNanoTime;
+    private volatile ProductHierarchyMigration currentMigration;
+
+    @Override
+    public boolean startMigration(boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            int triggers = productHierarchyMigrationRepository.createSyncTriggers();
+            if (triggers > 0) {
+                log.info("Created {} product hierarchy sync triggers", triggers);
+            }
+            ProductHierarchyMigration migration = productHierarchyMigrationRepository.findFirstByOrderByIdDesc()
+                    .filter(last -> resume && !last.getStatus().equals(RebuildStatus.COMPLETED))
+                    .orElseGet(ProductHierarchyMigration::new);
+            migration.setStatus(RebuildStatus.RUNNING);
+            currentMigration = productHierarchyMigrationRepository.save(migration);
+            copiedThisRun.set(0);
+            startedNanoTime = System.nanoTime();
+            finishedNanoTime = 0;
+            Thread worker = new Thread(this::runMigration, "product-hierarchy-migration");
+            worker.setDaemon(true);
+            worker.start();
+            log.info("Start product hierarchy migration {} from product id {}", currentMigration.getId(),
+                    currentMigration.getLastProductId());
+            return true;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public ProductHierarchyMigrationDto getProgress() {
+        ProductHierarchyMigration migration = currentMigration;
+        double rowsPerSecond = 0;
+        if (migration == null) {
+            migration = productHierarchyMigrationRepository.findFirstByOrderByIdDesc().orElse(null);
+            if (migration == null) {
+                return null;
+            }
+        } else {
+            long endNanoTime = finishedNanoTime == 0 ? System.nanoTime() : finishedNanoTime;
+            double seconds = (endNanoTime - startedNanoTime) / 1_000_000_000.0;
+            rowsPerSecond = seconds > 0 ? Math.round(copiedThisRun.get() / seconds * 10.0) / 10.0 : 0;
+        }
+        return ProductHierarchyMigrationDto.builder()
+                .id(migration.getId())
+                .status(migration.getStatus())
+                .lastProductId(migration.getLastProductId())
+                .copiedTotal(migration.getCopiedTotal())
+                .recopiedTotal(migration.getRecopiedTotal())
+                .mismatchTotal(migration.getMismatchTotal())
+                .rowsPerSecond(rowsPerSecond)
+                .startedDate(migration.getStartedDate())
+                .updatedDate(migration.getUpdatedDate())
+                .build();
+    }
+
+    private void runMigration() {
+        AppProperties.ProductHierarchyMigration config = appProperties.getProductHierarchyMigration();
+        int chunkSize = Math.max(1, config.getChunkSize());
+        boolean failed = false;
+        try {
+            long maxProductId = productHierarchyMigrationRepository.findMaxProductId();
+            //each range is copied then verified at once, so the checkpoint only moves over verified ranges
+            for (long afterId = currentMigration.getLastProductId(); afterId < maxProductId; afterId += chunkSize) {
+                long untilId = Math.min(afterId + chunkSize, maxProductId);
+                int copied = productHierarchyMigrationRepository.copyBetween(afterId, untilId);
+                this.recopy(productHierarchyMigrationRepository.findMismatchedIdBetween(afterId, untilId));
+                copiedThisRun.addAndGet(copied);
+                currentMigration.setLastProductId(untilId);
+                currentMigration.setCopiedTotal(currentMigration.getCopiedTotal() + copied);
+                currentMigration = productHierarchyMigrationRepository.save(currentMigration);
+            }
+            //products written after their range was copied, including ones created past maxProductId
+            long mismatches = -1;
+            for (int pass = 0; pass < Math.max(1, config.getVerifyPasses()) && mismatches != 0; pass++) {
+                mismatches = this.verifyPass(chunkSize);
+            }
+            currentMigration.setMismatchTotal(mismatches);
+        } catch (Exception e) {
+            log.error("Product hierarchy migration failed", e);
+            failed = true;
+        } finally {
+            currentMigration.setStatus(failed ? RebuildStatus.FAILED : RebuildStatus.COMPLETED);
+            currentMigration = productHierarchyMigrationRepository.save(currentMigration);
+            finishedNanoTime = System.nanoTime();
+            running.set(false);
+            log.info("Product hierarchy migration {} {} at product id {}, {} rows still mismatched",
+                    currentMigration.getId(), currentMigration.getStatus(), currentMigration.getLastProductId(),
+                    currentMigration.getMismatchTotal());
+        }
+    }
+
+    //returns how many rows were found different and copied again
+    private long verifyPass(int chunkSize) {
+        long maxProductId = productHierarchyMigrationRepository.findMaxProductId();
+        long mismatches = 0;
+        for (long afterId = 0; afterId < maxProductId; afterId += chunkSize) {
+            List<Long> mismatched = productHierarchyMigrationRepository.findMismatchedIdBetween(afterId,
+                    Math.min(afterId + chunkSize, maxProductId));
+            this.recopy(mismatched);
+            mismatches += mismatched.size();
+        }
+        currentMigration.setLastProductId(maxProductId);
+        currentMigration = productHierarchyMigrationRepository.save(currentMigration);
+        log.info("Product hierarchy migration {} verify pass recopied {} rows", currentMigration.getId(), mismatches);
+        return mismatches;
+    }
+
+    private void recopy(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        productHierarchyMigrationRepository.copyByProductIdIn(productIds);
+        currentMigration.setRecopiedTotal(currentMigration.getRecopiedTotal() + productIds.size());
+    }
+}
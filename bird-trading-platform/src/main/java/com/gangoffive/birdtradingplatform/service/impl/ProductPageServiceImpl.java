@@ -0,0 +1,172 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
+import com.gangoffive.birdtradingplatform.dto.ShopInfoDto;
+import com.gangoffive.birdtradingplatform.dto.ShopSummaryDto;
+import com.gangoffive.birdtradingplatform.entity.*;
+import com.gangoffive.birdtradingplatform.enums.Category;
+import com.gangoffive.birdtradingplatform.enums.ResponseCode;
+import com.gangoffive.birdtradingplatform.mapper.ShopOwnerMapper;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import com.gangoffive.birdtradingplatform.repository.ProductSummaryRepository;
+import com.gangoffive.birdtradingplatform.service.InfoService;
+import com.gangoffive.birdtradingplatform.service.ProductPageService;
+import com.gangoffive.birdtradingplatform.service.ProductService;
+import com.gangoffive.birdtradingplatform.service.ReviewService;
+import com.gangoffive.birdtradingplatform.util.ResponseUtils;
+import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
+import com.gangoffive.birdtradingplatform.wrapper.ProductDetailWrapper;
+import com.gangoffive.birdtradingplatform.wrapper.ProductPageWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//the product, its summary and its shop are loaded once on the request thread; the other sections get only
+//ids and dtos taken from them, run on a bounded pool in read only transactions of their own and share one
+//deadline. A section that is rejected, fails or is late is left out instead of failing the page.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductPageServiceImpl implements ProductPageService {
+    private static final String SHOP_SECTION = "shop";
+    private static final String RELEVANT_PRODUCTS_SECTION = "relevantProducts";
+    private static final String REVIEWS_SECTION = "reviews";
+
+    private final AppProperties appProperties;
+    private final ProductRepository productRepository;
+    private final ProductSummaryRepository productSummaryRepository;
+    private final ProductService productService;
+    private final ReviewService reviewService;
+    private final InfoService infoService;
+    private final ShopOwnerMapper shopOwnerMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        AppProperties.ProductPage config = appProperties.getProductPage();
+        int threads = Math.max(1, config.getThreads());
+        AtomicInteger count = new AtomicInteger();
+        //a full queue rejects the section, the page goes out without it
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())), runnable -> {
+            Thread thread = new Thread(runnable, "product-page-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    @Override
+    public ResponseEntity<?> getProductPage(Long productId, int reviewPageNumber) {
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isEmpty()) {
+            return new ResponseEntity<>(ResponseCode.NOT_FOUND_THIS_ID.toString(), HttpStatus.NOT_FOUND);
+        }
+        Optional<ProductSummary> productSummary = productSummaryRepository.findByProductIdAndProductStatusIn(
+                productId, ProductStatusConstant.LIST_STATUS_GET_FOR_USER);
+        if (productSummary.isEmpty()) {
+            return ResponseUtils.getErrorResponseNotFound(
+                    String.format("Product Summary not contain product with id %d", productId));
+        }
+        ResponseEntity<?> detail = productService.retrieveProductDetail(product.get(), productSummary.get());
+        if (!detail.getStatusCode().is2xxSuccessful()) {
+            return detail;
+        }
+
+        //everything the sections need is read here, workers never touch these entities
+        ShopInfoDto shopInfo = shopOwnerMapper.modelToShopInfoDto(product.get().getShopOwner());
+        Category category;
+        long typeId;
+        List<Long> tagIds;
+        if (product.get() instanceof Bird bird) {
+            category = Category.BIRD;
+            typeId = bird.getTypeBird().getId();
+            tagIds = bird.getTags().stream().map(Tag::getId).toList();
+        } else if (product.get() instanceof Food food) {
+            category = Category.FOOD;
+            typeId = food.getTypeFood().getId();
+            tagIds = food.getTags().stream().map(Tag::getId).toList();
+        } else {
+            Accessory accessory = (Accessory) product.get();
+            category = Category.ACCESSORY;
+            typeId = accessory.getTypeAccessory().getId();
+            tagIds = accessory.getTags().stream().map(Tag::getId).toList();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(appProperties.getProductPage().getTimeoutMillis());
+        List<String> missingSections = new ArrayList<>();
+        Future<ShopSummaryDto> shop = this.submit(SHOP_SECTION, missingSections,
+                () -> infoService.getShopSummary(shopInfo));
+        Future<List<ProductCartDto>> relevantProducts = this.submit(RELEVANT_PRODUCTS_SECTION, missingSections,
+                () -> productService.getRelatedProductCarts(category, productId, typeId, tagIds));
+        Future<PageNumberWrapper<?>> reviews = this.submit(REVIEWS_SECTION, missingSections, () -> {
+            ResponseEntity<?> response = reviewService.getAllReviewByProductId(productId, reviewPageNumber);
+            return response.getStatusCode().is2xxSuccessful() ? (PageNumberWrapper<?>) response.getBody() : null;
+        });
+
+        return ResponseEntity.ok(ProductPageWrapper.builder()
+                .product((ProductDetailWrapper) detail.getBody())
+                .shop(this.await(SHOP_SECTION, shop, deadline, missingSections))
+                .relevantProducts(this.await(RELEVANT_PRODUCTS_SECTION, relevantProducts, deadline, missingSections))
+                .reviews(this.await(REVIEWS_SECTION, reviews, deadline, missingSections))
+                .missingSections(missingSections)
+                .build());
+    }
+
+    private <T> Future<T> submit(String section, List<String> missingSections, Supplier<T> loader) {
+        try {
+            return workers.submit(() -> transactionTemplate.execute(status -> loader.get()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Product page section {} rejected, the pool is busy", section);
+            missingSections.add(section);
+            return null;
+        }
+    }
+
+    private <T> T await(String section, Future<T> future, long deadline, List<String> missingSections) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            T result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (result == null) {
+                missingSections.add(section);
+            }
+            return result;
+        } catch (TimeoutException e) {
+            log.warn("Product page section {} timed out", section);
+            future.cancel(true);
+        } catch (ExecutionException e) {
+            log.warn("Product page section {} failed: {}", section, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+        }
+        missingSections.add(section);
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
+import com.gangoffive.birdtradingplatform.enums.ProductTable;
+import com.gangoffive.birdtradingplatform.search.InvertedIndex;
+import com.gangoffive.birdtradingplatform.search.TextAnalyzer;
+import com.gangoffive.birdtradingplatform.service.ProductSearchService;
+import com.gangoffive.birdtradingplatform.util.BackgroundRebuild;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchServiceImpl implements ProductSearchService {
+    private static final int NAME_WEIGHT = 2;
+    private static final int RELOAD_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private volatile InvertedIndex index;
+    private final BackgroundRebuild<Long> rebuilds =
+            new BackgroundRebuild<>("product search index", this::rebuild, this::reload);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuilds.start();
+    }
+
+    //catches changes made by other instances
+    @Scheduled(initialDelayString = "${app.search.rebuildIntervalMillis}", fixedDelayString = "${app.search.rebuildIntervalMillis}")
+    public void scheduledRebuild() {
+        rebuilds.rebuildIfIdle();
+    }
+
+    @Override
+    public Optional<List<Long>> search(String query, Integer categoryId, int limit) {
+        InvertedIndex current = index;
+        return current == null ? Optional.empty() : Optional.of(current.search(query, categoryId, limit));
+    }
+
+    @Override
+    public void reindex(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuilds.apply(ids);
+                }
+            });
+        } else {
+            rebuilds.apply(ids);
+        }
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuilds.build(() -> index = InvertedIndex.build(this.loadDocuments(null)));
+        log.info("Product search index built: {} products, {} terms, {} posting bytes in {} ms",
+                index.documentCount(), index.termCount(), index.postingBytes(), System.currentTimeMillis() - start);
+    }
+
+    private void reload(List<Long> productIds) {
+        InvertedIndex current = index;
+        if (current == null) {
+            return;
+        }
+        for (int from = 0; from < productIds.size(); from += RELOAD_CHUNK_SIZE) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, productIds.size()));
+            Map<Long, InvertedIndex.Document> documents = this.loadDocuments(chunk);
+            //products that were deleted or are no longer visible to buyers drop out of the index
+            chunk.forEach(productId -> {
+                InvertedIndex.Document document = documents.get(productId);
+                if (document == null) {
+                    current.remove(productId);
+                } else {
+                    current.put(productId, document);
+                }
+            });
+        }
+    }
+
+    private Map<Long, InvertedIndex.Document> loadDocuments(Collection<Long> productIds) {
+        Map<Long, InvertedIndex.Document> documents = new HashMap<>();
+        Map<String, Object> params = new HashMap<>();
+        params.put("statuses", ProductStatusConstant.LIST_STATUS_GET_FOR_USER.stream().map(Enum::name).toList());
+        if (productIds != null) {
+            params.put("ids", productIds);
+        }
+        for (ProductTable tables : ProductTable.values()) {
+            String sql = "SELECT p.product_id, p.name, ty.name AS type_name, " +
+                    "GROUP_CONCAT(tg.name SEPARATOR ' ') AS tag_names " +
+                    "FROM " + tables.getProductTable() + " p " +
+                    "LEFT JOIN " + tables.getTypeTable() + " ty ON ty." + tables.getTypeIdColumn() + " = p.type_id " +
+                    "LEFT JOIN " + tables.getTagTable() + " pt ON pt." + tables.getTagProductColumn() + " = p.product_id " +
+                    "LEFT JOIN tbl_tag tg ON tg.tag_id = pt.tag_id " +
+                    "WHERE p.status IN (:statuses) " +
+                    (productIds != null ? "AND p.product_id IN (:ids) " : "") +
+                    "GROUP BY p.product_id, p.name, ty.name";
+            namedParameterJdbcTemplate.query(sql, params, resultSet -> {
+                Map<String, Integer> termFrequencies = new HashMap<>();
+                TextAnalyzer.tokenize(resultSet.getString("name"))
+                        .forEach(term -> termFrequencies.merge(term, NAME_WEIGHT, Integer::sum));
+                TextAnalyzer.tokenize(resultSet.getString("type_name"))
+                        .forEach(term -> termFrequencies.merge(term, 1, Integer::sum));
+                TextAnalyzer.tokenize(resultSet.getString("tag_names"))
+                        .forEach(term -> termFrequencies.merge(term, 1, Integer::sum));
+                documents.put(resultSet.getLong("product_id"),
+                        InvertedIndex.Document.of(tables.getCategoryId(), termFrequencies));
+            });
+        }
+        return documents;
+    }
+}
@@ -12,14 +12,27 @@ import com.gangoffive.birdtradingplatform.entity.*;
 import com.gangoffive.birdtradingplatform.enums.*;
 import com.gangoffive.birdtradingplatform.mapper.*;
 import com.gangoffive.birdtradingplatform.repository.*;
+import com.gangoffive.birdtradingplatform.search.CatalogSnapshot;
+import com.gangoffive.birdtradingplatform.service.CatalogFilterService;
+import com.gangoffive.birdtradingplatform.service.CoPurchaseService;
+import com.gangoffive.birdtradingplatform.service.ProductCatalogService;
+import com.gangoffive.birdtradingplatform.service.ProductCartService;
+import com.gangoffive.birdtradingplatform.service.ProductSearchService;
 import com.gangoffive.birdtradingplatform.service.ProductService;
+import com.gangoffive.birdtradingplatform.service.ProductSimilarityService;
 import com.gangoffive.birdtradingplatform.service.ProductSummaryService;
 import com.gangoffive.birdtradingplatform.service.PromotionPriceService;
+import com.gangoffive.birdtradingplatform.service.ReferenceDataService;
 import com.gangoffive.birdtradingplatform.service.ShopOwnerService;
+import com.gangoffive.birdtradingplatform.service.TopProductService;
 import com.gangoffive.birdtradingplatform.util.FileNameUtils;
 import com.gangoffive.birdtradingplatform.util.MyUtils;
+import com.gangoffive.birdtradingplatform.util.PageCursor;
+import com.gangoffive.birdtradingplatform.util.PriceEngine;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import com.gangoffive.birdtradingplatform.util.S3Utils;
+import com.gangoffive.birdtradingplatform.wrapper.CursorPageWrapper;
+import com.gangoffive.birdtradingplatform.wrapper.FacetPageNumberWrapper;
 import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
 import com.gangoffive.birdtradingplatform.wrapper.ProductDetailWrapper;
 import com.google.gson.Gson;
@@ -29,6 +42,7 @@ import com.google.gson.JsonParser;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -47,6 +61,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class ProductServiceImpl implements ProductService {
+    //9999-12-31, later than any last_updated MySQL can hold
+    private static final Date LATEST_CURSOR_DATE = new Date(253402300799000L);
+
     private final ProductRepository productRepository;
     private final BirdMapper birdMapper;
     private final FoodMapper foodMapper;
@@ -73,6 +90,16 @@ public class ProductServiceImpl implements ProductService {
     private final TagMapper tagMapper;
     private final OrderRepository orderRepository;
     private final OrderDetailRepository orderDetailRepository;
+    private final ProductCartService productCartService;
+    private final ProductSearchService productSearchService;
+    private final CatalogFilterService catalogFilterService;
+    private final ProductCatalogService productCatalogService;
+    private final ProductCatalogRepository productCatalogRepository;
+    private final TopProductService topProductService;
+    private final ProductSimilarityService productSimilarityService;
+    private final CoPurchaseService coPurchaseService;
+    private final ReferenceDataService referenceDataService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
     public List<ProductDto> retrieveAllProduct() {
@@ -86,7 +113,14 @@ public class ProductServiceImpl implements ProductService {
     public ResponseEntity<?> retrieveProductByPageNumber(int pageNumber) {
         if (pageNumber > 0) {
             pageNumber = pageNumber - 1;
-            PageRequest page = PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SIZE);
+            PageRequest page = PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SIZE, Sort.by("id"));
+            if (productCatalogService.isReady()) {
+                Page<Long> ids = productCatalogRepository.findIdPage(page);
+                List<ProductDto> lists = this.findProductByIdIn(ids.getContent()).stream()
+                        .map(this::ProductToDto)
+                        .collect(Collectors.toList());
+                return ResponseEntity.ok(new PageNumberWrapper<>(lists, ids.getTotalPages()));
+            }
             Page<Product> pageAble = productRepository.findAll(page);
             List<ProductDto> lists = pageAble.getContent().stream()
                     .map(this::ProductToDto)
@@ -100,6 +134,23 @@ public class ProductServiceImpl implements ProductService {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @Override
+    public ResponseEntity<?> retrieveProductByCursor(String cursor) {
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtils.getErrorResponseBadRequestPageCursor();
+        }
+        PageRequest pageRequest = PageRequest.of(0, PagingAndSorting.DEFAULT_PAGE_SIZE + 1);
+        List<Product> products = productCatalogService.isReady()
+                ? this.findProductByIdIn(productCatalogRepository.findIdByIdGreaterThan(
+                        after == null ? 0L : after.id(), pageRequest))
+                : productRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after.id(), pageRequest);
+        return ResponseEntity.ok(CursorPageWrapper.of(products, PagingAndSorting.DEFAULT_PAGE_SIZE,
+                product -> new PageCursor(0, product.getId()), this::ProductToDto));
+    }
+
     @Override
     public double CalculationRating(List<OrderDetail> orderDetails) {
         return productSummaryService.CalculationRating(orderDetails);
@@ -107,28 +158,14 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<ProductCartDto> retrieveTopProduct() {
-        List<Long> birdIds = productSummaryService.getIdTopBird();
-        List<Long> accessoryIds = productSummaryService.getIdTopAccessories();
-        List<Long> foodIds = productSummaryService.getIdTopFood();
-
-        ArrayList<Long> topProductIds = new ArrayList<>();
-
-        if (birdIds != null && accessoryIds != null && foodIds != null) {
-
-            topProductIds.addAll(birdIds.subList(0, 3));
-            topProductIds.addAll(accessoryIds.subList(0, 3));
-            topProductIds.addAll(foodIds.subList(0, 3));
-
-        } else {
-            PageRequest page = PageRequest.of(0, 8, Sort.by(PagingAndSorting.DEFAULT_SORT_DIRECTION, "star")
-                    .and(Sort.by(PagingAndSorting.DEFAULT_SORT_DIRECTION, "totalQuantityOrder")));
-            List<ProductSummary> listsTemp = productSummaryRepository.findAll(page).getContent();
-            if (listsTemp != null && listsTemp.size() != 0) {
-                topProductIds = (ArrayList<Long>) listsTemp.stream().map(id -> id.getProduct().getId()).toList();
-            }
+        List<ProductCartDto> listDtos = new ArrayList<>();
+        for (Category category : List.of(Category.BIRD, Category.ACCESSORY, Category.FOOD)) {
+            List<ProductCartDto> topProducts = topProductService.getTopProducts(category);
+            listDtos.addAll(topProducts.subList(0, Math.min(3, topProducts.size())));
+        }
+        if (listDtos.isEmpty()) {
+            return null;
         }
-        List<Product> product = productRepository.findAllById(topProductIds);
-        List<ProductCartDto> listDtos = this.listModelToDto(product);
         return listDtos;
     }
 
@@ -156,25 +193,7 @@ public class ProductServiceImpl implements ProductService {
             var productSummary = productSummaryRepository.findByProductIdAndProductStatusIn(id,
                     ProductStatusConstant.LIST_STATUS_GET_FOR_USER);
             if (productSummary.isPresent()) {
-                ProductDto productDto = this.ProductToDto(product.get());
-
-                List<String> listImages = MyUtils.toLists(product.get().getImgUrl(), ",");
-                int numberSold = (int) productSummary.get().getTotalQuantityOrder();
-                int numberReview = productSummary.get().getReviewTotal();
-
-                ProductDetailWrapper productDetailWrapper = ProductDetailWrapper.builder()
-                        .product(productDto)
-                        .listImages(listImages)
-                        .numberSold(numberSold)
-                        .numberReview(numberReview).build();
-                if(product.get().getShopOwner().getStatus().name().equalsIgnoreCase(ShopOwnerStatus.BAN.name())) {
-                    return new ResponseEntity<>(productDetailWrapper, HttpStatus.valueOf(423));
-                }else if(product.get().getStatus().name().equalsIgnoreCase(ProductStatus.BAN.name())){
-                    return new ResponseEntity<>("This product got banned!", HttpStatus.valueOf(423));
-                }else{
-                    return ResponseEntity.ok(productDetailWrapper);
-                }
-
+                return this.retrieveProductDetail(product.get(), productSummary.get());
             }else{
                 return ResponseUtils.getErrorResponseNotFound(String.format("Product Summary not contain product with id %d", id));
             }
@@ -182,6 +201,28 @@ public class ProductServiceImpl implements ProductService {
         return new ResponseEntity<>(ResponseCode.NOT_FOUND_THIS_ID.toString(), HttpStatus.NOT_FOUND);
     }
 
+    @Override
+    public ResponseEntity<?> retrieveProductDetail(Product product, ProductSummary productSummary) {
+        ProductDto productDto = this.ProductToDto(product);
+
+        List<String> listImages = MyUtils.toLists(product.getImgUrl(), ",");
+        int numberSold = (int) productSummary.getTotalQuantityOrder();
+        int numberReview = productSummary.getReviewTotal();
+
+        ProductDetailWrapper productDetailWrapper = ProductDetailWrapper.builder()
+                .product(productDto)
+                .listImages(listImages)
+                .numberSold(numberSold)
+                .numberReview(numberReview).build();
+        if(product.getShopOwner().getStatus().name().equalsIgnoreCase(ShopOwnerStatus.BAN.name())) {
+            return new ResponseEntity<>(productDetailWrapper, HttpStatus.valueOf(423));
+        }else if(product.getStatus().name().equalsIgnoreCase(ProductStatus.BAN.name())){
+            return new ResponseEntity<>("This product got banned!", HttpStatus.valueOf(423));
+        }else{
+            return ResponseEntity.ok(productDetailWrapper);
+        }
+    }
+
     @Override
     public double CalculateDiscountedPrice(double price, double saleOff) {
         return promotionPriceService.CalculateDiscountedPrice(price, saleOff);
@@ -189,13 +230,18 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<ProductDto> findProductByName(String name) {
-        List<ProductDto> products = productRepository
-                .findByNameLike("%" + name + "%")
-                .get()
-                .stream()
+        List<Product> products = productSearchService.search(name, null, appProperties.getSearch().getResultLimit())
+                .map(ids -> MyUtils.orderByIds(productRepository.findAllById(ids), ids, Product::getId))
+                //the search index is still being built
+                .orElseGet(() -> productRepository.findByNameLike("%" + name + "%").orElse(List.of()));
+        return products.stream()
                 .map(this::ProductToDto)
                 .collect(Collectors.toList());
-        return products;
+    }
+
+    //catalog pages hold ids only, the products are loaded by primary key in the page order
+    private List<Product> findProductByIdIn(List<Long> ids) {
+        return MyUtils.orderByIds(productRepository.findAllById(ids), ids, Product::getId);
     }
 
     @Override
@@ -209,21 +255,41 @@ public class ProductServiceImpl implements ProductService {
             productTemp = accessoryMapper.toDto((Accessory) product);
         }
         productTemp.setImgUrl(MyUtils.toLists(product.getImgUrl(), ",").get(0));
-        productTemp.setStar(this.CalculationRating(product.getOrderDetails()));
-        productTemp.setDiscountRate(this.CalculateSaleOff(product.getPromotionShops(), productTemp.getPrice()));
-        productTemp.setDiscountedPrice(promotionPriceService.CalculateDiscountedPrice(productTemp.getPrice(), productTemp.getDiscountRate()));
+        productTemp.setStar(this.getStarFromSummary(product));
+        productTemp.setDiscountRate(PriceEngine.roundedSaleOff(promotionPriceService.getDiscountRates(product), productTemp.getPrice()));
+        productTemp.setDiscountedPrice(PriceEngine.discountedPrice(productTemp.getPrice(), productTemp.getDiscountRate()));
         productTemp.setCategoryId(Category.getCategoryIdByName(productTemp.getClass().getSimpleName()));
         return productTemp;
     }
 
     @Override
     public ResponseEntity<?> retrieveProductByListId(long[] ids) {
-        var lists = productRepository.findByIdInAndQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(Arrays.stream(ids).boxed().toList(),
+        List<Long> listIds = productRepository.findIdByIdInAndQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(Arrays.stream(ids).boxed().toList(),
                 ProductStatusConstant.QUANTITY_PRODUCT_FOR_USER, ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER);
-        if (lists.isPresent()) {
-            return ResponseEntity.ok(lists.get().stream().map(this::productToProductCart).toList());
+        //ids that are gone or hidden are left out, the cart shows what is still for sale
+        return ResponseEntity.ok(productCartService.buildProductCarts(listIds));
+    }
+
+    //same newest first order as the page number mode, seeking on (last_updated, product_id)
+    @Override
+    public ResponseEntity<?> retrieveProductByShopIdAndCursor(long shopId, String cursor) {
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtils.getErrorResponseBadRequestPageCursor();
         }
-        return new ResponseEntity<>(ResponseCode.NOT_FOUND_THIS_LIST_ID.toString(), HttpStatus.NOT_FOUND);
+        Date lastUpdated = after == null ? LATEST_CURSOR_DATE : new Date(after.sortKey());
+        long id = after == null ? Long.MAX_VALUE : after.id();
+        PageRequest pageRequest = PageRequest.of(0, PagingAndSorting.DEFAULT_PAGE_SHOP_SIZE + 1);
+        List<Product> products = productCatalogService.isReady()
+                ? this.findProductByIdIn(productCatalogRepository.findIdByShopIdAndStatusInBefore(shopId,
+                        ProductStatusConstant.LIST_STATUS_GET_FOR_USER, lastUpdated, id, pageRequest))
+                : productRepository.findByShopOwnerIdAndStatusInBefore(shopId,
+                        ProductStatusConstant.LIST_STATUS_GET_FOR_USER, lastUpdated, id, pageRequest);
+        return ResponseEntity.ok(CursorPageWrapper.of(products, PagingAndSorting.DEFAULT_PAGE_SHOP_SIZE,
+                product -> new PageCursor(product.getLastUpDated().getTime(), product.getId()),
+                this::ProductToDto));
     }
 
     @Override
@@ -232,6 +298,16 @@ public class ProductServiceImpl implements ProductService {
             pageNumber = pageNumber - 1;
             PageRequest pageRequest = PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SHOP_SIZE,
                     Sort.by(PagingAndSorting.DEFAULT_SORT_DIRECTION, "lastUpDated"));
+            if (productCatalogService.isReady()) {
+                Page<Long> ids = productCatalogRepository.findIdPageByShopIdAndStatusIn(shopId,
+                        ProductStatusConstant.LIST_STATUS_GET_FOR_USER,
+                        PageRequest.of(pageNumber, PagingAndSorting.DEFAULT_PAGE_SHOP_SIZE,
+                                Sort.by(PagingAndSorting.DEFAULT_SORT_DIRECTION, "lastUpdated", "id")));
+                List<ProductDto> list = this.findProductByIdIn(ids.getContent()).stream()
+                        .map(this::ProductToDto)
+                        .toList();
+                return ResponseEntity.ok(new PageNumberWrapper<>(list, ids.getTotalPages()));
+            }
 
             Optional<Page<Product>> pageAble = productRepository.findByShopOwner_IdAndStatusIn(shopId,
                     ProductStatusConstant.LIST_STATUS_GET_FOR_USER, pageRequest);
@@ -275,7 +351,8 @@ public class ProductServiceImpl implements ProductService {
             productShopDto.setShopId(product.getShopOwner().getId());
             productShopDto.setName(product.getName());
             productShopDto.setPrice(product.getPrice());
-            productShopDto.setDiscountedPrice(CalculateDiscountedPrice(product.getPrice(), promotionPriceService.CalculateSaleOff(product.getPromotionShops(), product.getPrice())));
+            productShopDto.setDiscountedPrice(PriceEngine.discountedPrice(product.getPrice(),
+                    PriceEngine.saleOff(promotionPriceService.getDiscountRates(product), product.getPrice())));
             productShopDto.setQuantity(product.getQuantity());
             productShopDto.setStatus(product.getStatus().getStatusCode());
             productShopDto.setCreateDate(product.getCreatedDate().getTime());
@@ -310,6 +387,14 @@ public class ProductServiceImpl implements ProductService {
             }
             int numberStatusChange = productRepository.updateListProductStatus(product.getProductStatus(),
                     changeStatusListIdDto.getIds());
+            productSummaryService.publishEvents(changeStatusListIdDto.getIds().stream()
+                    .map(id -> ProductSummaryEventDto.builder()
+                            .productId(id)
+                            .type(ProductSummaryEventType.PRODUCT_STATUS_CHANGED)
+                            .status(product.getProductStatus())
+                            .build())
+                    .toList());
+            productSearchService.reindex(changeStatusListIdDto.getIds());
             JsonObject jsonObject = new JsonObject();
             jsonObject.addProperty("numberProductChange", numberStatusChange);
             jsonObject.addProperty("message", ResponseCode.UPDATE_LIST_PRODUCT_STATUS_SUCCESS.getMessage());
@@ -327,14 +412,20 @@ public class ProductServiceImpl implements ProductService {
         long shopId = shopOwnerService.getShopIdByEmail(email);
         int result = 0;
         ArrayList<Long> failId = new ArrayList<>();
+        List<Long> changedIds = new ArrayList<>();
         for (ProductQuantityShopChangeDto product : listProductChange) {
             if (product.getQuantity() >= 0) {
                 result++;
                 productRepository.updateListProductQuantity(product.getQuantity(), product.getId(), shopId);
+                changedIds.add(product.getId());
             } else {
                 failId.add(product.getId());
             }
         }
+        if (!changedIds.isEmpty()) {
+            applicationEventPublisher.publishEvent(
+                    new ProductsChangedEventDto(ProductSummaryEventType.QUANTITY_CHANGED, changedIds));
+        }
         if (failId.size() == 0) {
             return ResponseEntity.ok("Update success");
         } else {
@@ -812,6 +903,7 @@ public class ProductServiceImpl implements ProductService {
                     }
                 }
                 birdRepository.save(bird);
+                this.afterProductSaved(bird.getId());
                 return this.getProductDetailForShop(bird.getId());
             }
             ErrorResponse errorResponse = ErrorResponse.builder()
@@ -926,6 +1018,7 @@ public class ProductServiceImpl implements ProductService {
                     }
                 }
                 foodRepository.save(food);
+                this.afterProductSaved(food.getId());
                 return this.getProductDetailForShop(food.getId());
             }
             ErrorResponse errorResponse = ErrorResponse.builder()
@@ -1041,6 +1134,7 @@ public class ProductServiceImpl implements ProductService {
                     }
                 }
                 accessoryRepository.save(accessory);
+                this.afterProductSaved(accessory.getId());
                 return this.getProductDetailForShop(accessory.getId());
             }
             ErrorResponse errorResponse = ErrorResponse.builder()
@@ -1057,47 +1151,72 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    private void afterProductSaved(Long productId) {
+        productSummaryService.publishEvent(ProductSummaryEventDto.builder()
+                .productId(productId)
+                .type(ProductSummaryEventType.PROMOTION_CHANGED)
+                .build());
+        productSearchService.reindex(List.of(productId));
+    }
+
     @Override
     public ResponseEntity<?> getProductRelevantBaseOnId(long productId) {
+        Optional<List<Long>> relatedIds = productSimilarityService.getRelatedProductIds(productId);
+        if (relatedIds.isPresent()) {
+            return ResponseEntity.ok(productCartService.buildProductCarts(relatedIds.get()));
+        }
         var product = productRepository.findById(productId);
         if(product.isPresent()) {
-            PageRequest pageRequest = PageRequest.of(0, PagingAndSorting.DEFAULT_PAGE_SIZE);
-            List<Product> listProduct = new ArrayList<>();
-            List<Long> tagid;
-            if (product.get() instanceof Bird) {
-                tagid = ((Bird) product.get()).getTags().stream().map(a -> a.getId()).toList();
-                listProduct = birdRepository.findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(((Bird) product.get()).getTypeBird().getId(),
-                        tagid, ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER ,pageRequest );
-            }
-            else if (product.get() instanceof Food) {
-                tagid = ((Food) product.get()).getTags().stream().map(a -> a.getId()).toList();
-                listProduct = foodRepository.findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(((Food) product.get()).getTypeFood().getId(),
-                        tagid, ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER ,pageRequest );
+            List<ProductCartDto> list;
+            if (product.get() instanceof Bird bird) {
+                list = this.getRelatedProductCarts(Category.BIRD, productId, bird.getTypeBird().getId(),
+                        bird.getTags().stream().map(Tag::getId).toList());
+            } else if (product.get() instanceof Food food) {
+                list = this.getRelatedProductCarts(Category.FOOD, productId, food.getTypeFood().getId(),
+                        food.getTags().stream().map(Tag::getId).toList());
             } else {
-                tagid = ((Accessory) product.get()).getTags().stream().map(a -> a.getId()).toList();
-                listProduct = accessoryRepository.findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(((Accessory) product.get()).getTypeAccessory().getId(),
-                        tagid, ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER ,pageRequest );
+                Accessory accessory = (Accessory) product.get();
+                list = this.getRelatedProductCarts(Category.ACCESSORY, productId, accessory.getTypeAccessory().getId(),
+                        accessory.getTags().stream().map(Tag::getId).toList());
             }
-
-            List<ProductCartDto> list =  listProduct.stream().map(this::productToProductCart).toList();
             return ResponseEntity.ok(list);
         }
         return null;
     }
 
+    //reads no entity, so it may run away from the request thread
+    @Override
+    public List<ProductCartDto> getRelatedProductCarts(Category category, long productId, long typeId, List<Long> tagIds) {
+        Optional<List<Long>> relatedIds = productSimilarityService.getRelatedProductIds(productId);
+        if (relatedIds.isPresent()) {
+            return productCartService.buildProductCarts(relatedIds.get());
+        }
+        PageRequest pageRequest = PageRequest.of(0, PagingAndSorting.DEFAULT_PAGE_SIZE);
+        List<Long> listProductId = switch (category) {
+            case BIRD -> birdRepository.findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(typeId,
+                    tagIds, ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER ,pageRequest );
+            case FOOD -> foodRepository.findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(typeId,
+                    tagIds, ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER ,pageRequest );
+            case ACCESSORY -> accessoryRepository.findDistinctBirdsByTypeAndTagsSortedByTotalQuantity(typeId,
+                    tagIds, ProductStatusConstant.LIST_STATUS_GET_FOR_USER, ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER ,pageRequest );
+        };
+        return productCartService.buildProductCarts(listProductId);
+    }
+
+    @Override
+    public ResponseEntity<?> getProductBoughtTogether(long productId) {
+        List<Long> productIds = coPurchaseService.getTopCoPurchasedProductIds(productId);
+        return ResponseEntity.ok(productCartService.buildProductCarts(productIds));
+    }
+
     @Override
     public ResponseEntity<?> retrieveProductByShopidAndTagId(long shopId, long[] tagId) {
-        List<Tag> tags = new ArrayList<>();
-        Arrays.stream(tagId).forEach(id -> {
-            Tag tag = new Tag();
-            tag.setId(id);
-            tags.add(tag);
-        });
-        List<Product> products = new ArrayList<>();
-        products.addAll(accessoryRepository.findByTagsInAndShopOwner_IdAndStatusIn(tags, shopId, ProductStatusConstant.LIST_STATUS_GET_FOR_USER).get());
-        products.addAll(foodRepository.findByTagsInAndShopOwner_IdAndStatusIn(tags, shopId, ProductStatusConstant.LIST_STATUS_GET_FOR_USER).get());
-        products.addAll(birdRepository.findByTagsInAndShopOwner_IdAndStatusIn(tags, shopId, ProductStatusConstant.LIST_STATUS_GET_FOR_USER).get());
-        List<ProductCartDto> result = products.stream().map(pro -> this.productToProductCart(pro)).toList();
+        List<Long> tagIds = Arrays.stream(tagId).boxed().toList();
+        List<Long> productIds = new ArrayList<>();
+        productIds.addAll(accessoryRepository.findIdByTagIdInAndShopOwner_IdAndStatusIn(tagIds, shopId, ProductStatusConstant.LIST_STATUS_GET_FOR_USER));
+        productIds.addAll(foodRepository.findIdByTagIdInAndShopOwner_IdAndStatusIn(tagIds, shopId, ProductStatusConstant.LIST_STATUS_GET_FOR_USER));
+        productIds.addAll(birdRepository.findIdByTagIdInAndShopOwner_IdAndStatusIn(tagIds, shopId, ProductStatusConstant.LIST_STATUS_GET_FOR_USER));
+        List<ProductCartDto> result = productCartService.buildProductCarts(productIds);
         return ResponseEntity.ok(result);
     }
 
@@ -1560,9 +1679,8 @@ public class ProductServiceImpl implements ProductService {
             PageRequest pageRequest, boolean isShopOwner, boolean isAdmin
     ) {
         if (productFilter.getCategory() == 1) {
-            List<TypeBird> typeBirdIds = typeBirdRepository.findAllByNameLike(
-                    "%" + productFilter.getProductSearchInfo().getValue() + "%"
-            );
+            List<TypeBird> typeBirdIds = referenceDataService.getReferenceData().typeBirds()
+                    .containing(productFilter.getProductSearchInfo().getValue());
 
             Optional<Page<Bird>> birds = Optional.empty();
             if (isShopOwner) {
@@ -1589,9 +1707,8 @@ public class ProductServiceImpl implements ProductService {
                     .build();
             return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
         } else if (productFilter.getCategory() == 2) {
-            List<TypeFood> typeFoodIds = typeFoodRepository.findAllByNameLike(
-                    "%" + productFilter.getProductSearchInfo().getValue() + "%"
-            );
+            List<TypeFood> typeFoodIds = referenceDataService.getReferenceData().typeFoods()
+                    .containing(productFilter.getProductSearchInfo().getValue());
 
             Optional<Page<Food>> foods = Optional.empty();
             if (isShopOwner) {
@@ -1618,9 +1735,8 @@ public class ProductServiceImpl implements ProductService {
                     .build();
             return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
         } else if (productFilter.getCategory() == 3) {
-            List<TypeAccessory> typeAccessoryIds = typeAccessoryRepository.findAllByNameLike(
-                    "%" + productFilter.getProductSearchInfo().getValue() + "%"
-            );
+            List<TypeAccessory> typeAccessoryIds = referenceDataService.getReferenceData().typeAccessories()
+                    .containing(productFilter.getProductSearchInfo().getValue());
 
             Optional<Page<Accessory>> accessories = Optional.empty();
             if (isShopOwner) {
@@ -1851,11 +1967,11 @@ public class ProductServiceImpl implements ProductService {
                     .name(product.getName())
                     .price(product.getPrice())
                     .imgUrl(MyUtils.toLists(product.getImgUrl(), ",").get(0))
-                    .discountRate(this.CalculateSaleOff(product.getPromotionShops(), product.getPrice()))
+                    .discountRate(PriceEngine.roundedSaleOff(promotionPriceService.getDiscountRates(product), product.getPrice()))
                     .quantity(product.getQuantity())
-                    .star(this.CalculationRating(product.getOrderDetails()))
+                    .star(this.getStarFromSummary(product))
                     .build();
-            productCartDto.setDiscountedPrice(this.CalculateDiscountedPrice(product.getPrice(),
+            productCartDto.setDiscountedPrice(PriceEngine.discountedPrice(product.getPrice(),
                     productCartDto.getDiscountRate()));
             if (product instanceof Bird) {
                 productCartDto.setCategoryId(Category.getCategoryIdByName(new BirdDto().getClass().getSimpleName()));
@@ -1878,14 +1994,32 @@ public class ProductServiceImpl implements ProductService {
         return null;
     }
 
+    private double getStarFromSummary(Product product) {
+        if (product.getProductSummary() != null) {
+            return product.getProductSummary().getStar();
+        }
+        return 0;
+    }
+
     private PageNumberWrapper<Long> getAllIdBirdByFilter(ProductFilterDto filterDto) {
         filterDto = this.checkProductFilterDto(filterDto);
         PageRequest pageRequest = this.getSortDirect(filterDto);
-        List<String> listName = MyUtils.splitStringToList(filterDto.getName(), " ");
 
-        Page<Long> pageAble = birdRepository.idFilter(filterDto.getName(), filterDto.getListTypeId(),
+        List<Long> productIds = this.getSearchCandidateIds(filterDto, Category.BIRD);
+        if (productIds != null && productIds.isEmpty()) {
+            return new PageNumberWrapper<>(new ArrayList<>(), 0);
+        }
+        Optional<PageNumberWrapper<Long>> fromSnapshot = this.getIdFromCatalogSnapshot(filterDto, productIds, Category.BIRD);
+        if (fromSnapshot.isPresent()) {
+            return fromSnapshot.get();
+        }
+        if (filterDto.getCursor() != null) {
+            return this.getIdAfterCursor(filterDto, productIds, Category.BIRD);
+        }
+        Page<Long> pageAble = birdRepository.idFilter(productIds, filterDto.getListTypeId(),
                 filterDto.getStar(), filterDto.getLowestPrice(), filterDto.getHighestPrice(),filterDto.getShopId()
-                ,filterDto.getCheckListTypeId(), ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING,pageRequest);
+                ,filterDto.getCheckListTypeId(), ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING,
+                productIds == null ? null : 1L,pageRequest);
         PageNumberWrapper<Long> productDtoPageNumberWrapper = new PageNumberWrapper<>();
         productDtoPageNumberWrapper.setLists(pageAble.getContent());
         productDtoPageNumberWrapper.setPageNumber(pageAble.getTotalPages());
@@ -1896,9 +2030,21 @@ public class ProductServiceImpl implements ProductService {
         filterDto = this.checkProductFilterDto(filterDto);
         PageRequest pageRequest = this.getSortDirect(filterDto);
 
-        Page<Long> pageAble = foodRepository.idFilter(filterDto.getName(), filterDto.getListTypeId(),
+        List<Long> productIds = this.getSearchCandidateIds(filterDto, Category.FOOD);
+        if (productIds != null && productIds.isEmpty()) {
+            return new PageNumberWrapper<>(new ArrayList<>(), 0);
+        }
+        Optional<PageNumberWrapper<Long>> fromSnapshot = this.getIdFromCatalogSnapshot(filterDto, productIds, Category.FOOD);
+        if (fromSnapshot.isPresent()) {
+            return fromSnapshot.get();
+        }
+        if (filterDto.getCursor() != null) {
+            return this.getIdAfterCursor(filterDto, productIds, Category.FOOD);
+        }
+        Page<Long> pageAble = foodRepository.idFilter(productIds, filterDto.getListTypeId(),
                 filterDto.getStar(), filterDto.getLowestPrice(), filterDto.getHighestPrice(), filterDto.getShopId()
-                ,filterDto.getCheckListTypeId(), ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING, pageRequest);
+                ,filterDto.getCheckListTypeId(), ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING,
+                productIds == null ? null : 1L, pageRequest);
         PageNumberWrapper<Long> productDtoPageNumberWrapper = new PageNumberWrapper<>();
         productDtoPageNumberWrapper.setLists(pageAble.getContent());
         productDtoPageNumberWrapper.setPageNumber(pageAble.getTotalPages());
@@ -1910,9 +2056,21 @@ public class ProductServiceImpl implements ProductService {
         filterDto = this.checkProductFilterDto(filterDto);
         PageRequest pageRequest = this.getSortDirect(filterDto);
 
-        Page<Long> pageAble = accessoryRepository.idFilter(filterDto.getName(), filterDto.getListTypeId(),
+        List<Long> productIds = this.getSearchCandidateIds(filterDto, Category.ACCESSORY);
+        if (productIds != null && productIds.isEmpty()) {
+            return new PageNumberWrapper<>(new ArrayList<>(), 0);
+        }
+        Optional<PageNumberWrapper<Long>> fromSnapshot = this.getIdFromCatalogSnapshot(filterDto, productIds, Category.ACCESSORY);
+        if (fromSnapshot.isPresent()) {
+            return fromSnapshot.get();
+        }
+        if (filterDto.getCursor() != null) {
+            return this.getIdAfterCursor(filterDto, productIds, Category.ACCESSORY);
+        }
+        Page<Long> pageAble = accessoryRepository.idFilter(productIds, filterDto.getListTypeId(),
                 filterDto.getStar(), filterDto.getLowestPrice(), filterDto.getHighestPrice(), filterDto.getShopId()
-                ,filterDto.getCheckListTypeId(), ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING, pageRequest);
+                ,filterDto.getCheckListTypeId(), ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING,
+                productIds == null ? null : 1L, pageRequest);
         PageNumberWrapper<Long> productDtoPageNumberWrapper = new PageNumberWrapper<>();
         productDtoPageNumberWrapper.setLists(pageAble.getContent());
         productDtoPageNumberWrapper.setPageNumber(pageAble.getTotalPages());
@@ -1920,6 +2078,102 @@ public class ProductServiceImpl implements ProductService {
         return productDtoPageNumberWrapper;
     }
 
+    //same conditions as idFilter, answered in memory together with the facet counts; empty while the snapshot warms up
+    private Optional<PageNumberWrapper<Long>> getIdFromCatalogSnapshot(
+            ProductFilterDto filterDto, List<Long> productIds, Category category
+    ) {
+        PageCursor after = PageCursor.decode(filterDto.getCursor());
+        CatalogSnapshot.Query query = new CatalogSnapshot.Query(category.getCategoryId(), productIds,
+                filterDto.getListTypeId(), filterDto.getStar(), filterDto.getLowestPrice(), filterDto.getHighestPrice(),
+                filterDto.getShopId(), ProductStatusConstant.LIST_STATUS_GET_FOR_USER.stream().map(Enum::name).toList(),
+                ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING, this.isSortPriceDescending(filterDto),
+                filterDto.getPageNumber() - 1, PagingAndSorting.DEFAULT_PAGE_SIZE,
+                after == null ? null : new CatalogSnapshot.Seek(after.price(), after.id()));
+        return catalogFilterService.filter(query).map(result -> new FacetPageNumberWrapper<>(
+                result.productIds(),
+                (int) ((result.total() + PagingAndSorting.DEFAULT_PAGE_SIZE - 1) / PagingAndSorting.DEFAULT_PAGE_SIZE),
+                result.total(),
+                this.toCatalogFacetDto(result),
+                result.next() == null ? null
+                        : PageCursor.ofPrice(result.next().price(), result.next().productId()).encode()));
+    }
+
+    //cursor mode while the snapshot warms up: seeks on (discounted_price, product_id) with no count query,
+    //so the page number and facets are left empty
+    private PageNumberWrapper<Long> getIdAfterCursor(ProductFilterDto filterDto, List<Long> productIds, Category category) {
+        PageCursor after = PageCursor.decode(filterDto.getCursor());
+        boolean descending = this.isSortPriceDescending(filterDto);
+        //the first page starts past either end of the price order
+        double afterPrice = after != null ? after.price() : descending ? Double.MAX_VALUE : -Double.MAX_VALUE;
+        long afterId = after != null ? after.id() : descending ? Long.MAX_VALUE : Long.MIN_VALUE;
+        int limit = PagingAndSorting.DEFAULT_PAGE_SIZE + 1;
+        Long checkProductIds = productIds == null ? null : 1L;
+        List<Long> listTypeId = filterDto.getListTypeId();
+        List<String> shopStatuses = ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING;
+        List<ProductSeekView> rows = switch (category) {
+            case BIRD -> descending
+                    ? birdRepository.idFilterAfterDescending(productIds, listTypeId, filterDto.getStar(),
+                            filterDto.getLowestPrice(), filterDto.getHighestPrice(), filterDto.getShopId(),
+                            filterDto.getCheckListTypeId(), shopStatuses, checkProductIds, afterPrice, afterId, limit)
+                    : birdRepository.idFilterAfterAscending(productIds, listTypeId, filterDto.getStar(),
+                            filterDto.getLowestPrice(), filterDto.getHighestPrice(), filterDto.getShopId(),
+                            filterDto.getCheckListTypeId(), shopStatuses, checkProductIds, afterPrice, afterId, limit);
+            case FOOD -> descending
+                    ? foodRepository.idFilterAfterDescending(productIds, listTypeId, filterDto.getStar(),
+                            filterDto.getLowestPrice(), filterDto.getHighestPrice(), filterDto.getShopId(),
+                            filterDto.getCheckListTypeId(), shopStatuses, checkProductIds, afterPrice, afterId, limit)
+                    : foodRepository.idFilterAfterAscending(productIds, listTypeId, filterDto.getStar(),
+                            filterDto.getLowestPrice(), filterDto.getHighestPrice(), filterDto.getShopId(),
+                            filterDto.getCheckListTypeId(), shopStatuses, checkProductIds, afterPrice, afterId, limit);
+            case ACCESSORY -> descending
+                    ? accessoryRepository.idFilterAfterDescending(productIds, listTypeId, filterDto.getStar(),
+                            filterDto.getLowestPrice(), filterDto.getHighestPrice(), filterDto.getShopId(),
+                            filterDto.getCheckListTypeId(), shopStatuses, checkProductIds, afterPrice, afterId, limit)
+                    : accessoryRepository.idFilterAfterAscending(productIds, listTypeId, filterDto.getStar(),
+                            filterDto.getLowestPrice(), filterDto.getHighestPrice(), filterDto.getShopId(),
+                            filterDto.getCheckListTypeId(), shopStatuses, checkProductIds, afterPrice, afterId, limit);
+        };
+        CursorPageWrapper<Long> page = CursorPageWrapper.of(rows, PagingAndSorting.DEFAULT_PAGE_SIZE,
+                row -> PageCursor.ofPrice(row.getDiscountedPrice(), row.getProductId()), ProductSeekView::getProductId);
+        return new FacetPageNumberWrapper<>(page.getLists(), 0, 0, null, page.getNextCursor());
+    }
+
+    private boolean isSortPriceDescending(ProductFilterDto filterDto) {
+        return Optional.ofNullable(filterDto.getSortPrice())
+                .map(sortPrice -> sortPrice == SortPriceDirection.DECREASE)
+                .orElse(false);
+    }
+
+    private CatalogFacetDto toCatalogFacetDto(CatalogSnapshot.Result result) {
+        double[] edges = result.priceBucketEdges();
+        List<CatalogFacetDto.PriceBucket> prices = new ArrayList<>();
+        for (int i = 0; i < edges.length; i++) {
+            prices.add(new CatalogFacetDto.PriceBucket(edges[i], i + 1 < edges.length ? edges[i + 1] : null,
+                    result.priceCounts()[i]));
+        }
+        return CatalogFacetDto.builder()
+                .types(result.typeCounts())
+                .prices(prices)
+                .stars(result.starCounts())
+                .build();
+    }
+
+    //null when the filter has no name, otherwise the best matches that MySQL narrows down and pages
+    private List<Long> getSearchCandidateIds(ProductFilterDto filterDto, Category category) {
+        if (filterDto.getName() == null) {
+            return null;
+        }
+        int limit = appProperties.getSearch().getMaxCandidates();
+        String name = filterDto.getName();
+        //the search index is still being built, the names are matched in SQL meanwhile
+        return productSearchService.search(name, category.getCategoryId(), limit)
+                .orElseGet(() -> switch (category) {
+                    case BIRD -> birdRepository.findIdByNameLike(name, limit);
+                    case FOOD -> foodRepository.findIdByNameLike(name, limit);
+                    case ACCESSORY -> accessoryRepository.findIdByNameLike(name, limit);
+                });
+    }
+
     private ProductFilterDto checkProductFilterDto(ProductFilterDto filterDto) {
         if (filterDto.getListTypeId() == null || filterDto.getListTypeId().size() == 0){
             filterDto.setListTypeId(null);
@@ -1928,8 +2182,8 @@ public class ProductServiceImpl implements ProductService {
             filterDto.setCheckListTypeId(1l);
         }
 
-        if (filterDto.getName() == null || filterDto.getName().isEmpty())
-            filterDto.setName("%");
+        if (filterDto.getName() == null || filterDto.getName().isBlank())
+            filterDto.setName(null);
         else
             filterDto.setName(filterDto.getName().trim());
         if (filterDto.getHighestPrice() == 0.0)
@@ -1940,6 +2194,8 @@ public class ProductServiceImpl implements ProductService {
             filterDto.setLowestPrice(PagingAndSorting.LOWEST_PRICE_FILTER);
         if(filterDto.getShopId() == null || filterDto.getShopId() == -1 )
             filterDto.setShopId(null);
+        if (filterDto.getCursor() != null && filterDto.getPageNumber() < 1)
+            filterDto.setPageNumber(1);
         return filterDto;
     }
 
@@ -1961,6 +2217,11 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public ResponseEntity<?> filter(ProductFilterDto filterDto) {
+        try {
+            PageCursor.decode(filterDto.getCursor());
+        } catch (IllegalArgumentException e) {
+            return ResponseUtils.getErrorResponseBadRequestPageCursor();
+        }
         PageNumberWrapper<Long> productDtoPageNumberWrapper = new PageNumberWrapper<>();
         List<Long> filterProductIds = new ArrayList<>();
         if (filterDto.getCategory() == 1) {
@@ -1970,8 +2231,7 @@ public class ProductServiceImpl implements ProductService {
         } else if (filterDto.getCategory() == 3) {
             productDtoPageNumberWrapper = this.getAllIdAccessoryFilter(filterDto);
         }
-        List<Product> listTemp = productRepository.findAllById(productDtoPageNumberWrapper.getLists());
-        List<ProductCartDto> listdtos = this.listModelToDto(listTemp);
+        List<ProductCartDto> listdtos = productCartService.buildProductCarts(productDtoPageNumberWrapper.getLists());
         String sortDirect = Optional.ofNullable(filterDto)
                 .map(dto -> dto.getSortPrice())
                 .map(sortPrice -> sortPrice.getSortDirect())
@@ -1999,6 +2259,10 @@ public class ProductServiceImpl implements ProductService {
         }
 
         PageNumberWrapper<ProductCartDto> result = new PageNumberWrapper<>();
+        if (productDtoPageNumberWrapper instanceof FacetPageNumberWrapper<Long> facetPage) {
+            result = new FacetPageNumberWrapper<>(listdtos, facetPage.getPageNumber(), facetPage.getTotalElement(),
+                    facetPage.getFacets(), facetPage.getNextCursor());
+        }
         result.setLists(listdtos);
         result.setPageNumber(productDtoPageNumberWrapper.getPageNumber());
         return ResponseEntity.ok(result);
@@ -2066,8 +2330,7 @@ public class ProductServiceImpl implements ProductService {
                 bird.setColor(productShopOwnerDto.getFeature().getColor());
                 bird.setShopOwner(account.get().getShopOwner());
                 bird.setStatus(ProductStatus.ACTIVE);
-                Bird saveBird = productRepository.save(bird);
-                productSummaryService.updateCategory(saveBird);
+                productRepository.save(bird);
                 if (productShopOwnerDto.getPromotionShopId() != null && !productShopOwnerDto.getPromotionShopId().isEmpty()) {
                     List<PromotionShop> promotionShops = promotionShopRepository.findAllPromotionShopByIdIn(productShopOwnerDto.getPromotionShopId());
                     bird.setPromotionShops(promotionShops);
@@ -2085,6 +2348,7 @@ public class ProductServiceImpl implements ProductService {
 //                    });
                 }
                 productRepository.save(bird);
+                this.afterProductSaved(bird.getId());
             } else if (productShopOwnerDto.getCategoryId() == 2) {
                 Food food = new Food();
                 food.setName(productShopOwnerDto.getName());
@@ -2097,8 +2361,7 @@ public class ProductServiceImpl implements ProductService {
                 food.setWeight(productShopOwnerDto.getFeature().getWeight());
                 food.setShopOwner(account.get().getShopOwner());
                 food.setStatus(ProductStatus.ACTIVE);
-                Food saveFood = productRepository.save(food);
-                productSummaryService.updateCategory(saveFood);
+                productRepository.save(food);
                 if (productShopOwnerDto.getPromotionShopId() != null && !productShopOwnerDto.getPromotionShopId().isEmpty()) {
                     List<PromotionShop> promotionShops = promotionShopRepository.findAllPromotionShopByIdIn(productShopOwnerDto.getPromotionShopId());
                     food.setPromotionShops(promotionShops);
@@ -2116,6 +2379,7 @@ public class ProductServiceImpl implements ProductService {
 //                    });
                 }
                 productRepository.save(food);
+                this.afterProductSaved(food.getId());
             } else if (productShopOwnerDto.getCategoryId() == 3) {
                 Accessory accessory = new Accessory();
                 accessory.setName(productShopOwnerDto.getName());
@@ -2128,8 +2392,7 @@ public class ProductServiceImpl implements ProductService {
                 accessory.setOrigin(productShopOwnerDto.getFeature().getOrigin());
                 accessory.setShopOwner(account.get().getShopOwner());
                 accessory.setStatus(ProductStatus.ACTIVE);
-                Accessory saveAccessory = productRepository.save(accessory);
-                productSummaryService.updateCategory(saveAccessory);
+                productRepository.save(accessory);
                 if (productShopOwnerDto.getPromotionShopId() != null && !productShopOwnerDto.getPromotionShopId().isEmpty()) {
                     List<PromotionShop> promotionShops = promotionShopRepository.findAllPromotionShopByIdIn(productShopOwnerDto.getPromotionShopId());
                     accessory.setPromotionShops(promotionShops);
@@ -2147,6 +2410,7 @@ public class ProductServiceImpl implements ProductService {
 //                    });
                 }
                 productRepository.save(accessory);
+                this.afterProductSaved(accessory.getId());
             }
             SuccessResponse successResponse = SuccessResponse.builder()
                     .successMessage("Add new product successfully.")
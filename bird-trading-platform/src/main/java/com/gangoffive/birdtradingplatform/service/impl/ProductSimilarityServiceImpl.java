@@ -0,0 +1,210 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
+import com.gangoffive.birdtradingplatform.common.ShopOwnerConstant;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ProductsChangedEventDto;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import com.gangoffive.birdtradingplatform.enums.ProductTable;
+import com.gangoffive.birdtradingplatform.search.SimilarityIndex;
+import com.gangoffive.birdtradingplatform.service.CoPurchaseService;
+import com.gangoffive.birdtradingplatform.service.ProductSimilarityService;
+import com.gangoffive.birdtradingplatform.util.AfterCommitCollector;
+import com.gangoffive.birdtradingplatform.util.BackgroundRebuild;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+//the index is rebuilt in the background and swapped in whole; products changed since the build are scored
+//again against it on their own, and products that stopped being listed are skipped when serving
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSimilarityServiceImpl implements ProductSimilarityService {
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final AppProperties appProperties;
+    private final CoPurchaseService coPurchaseService;
+
+    private volatile SimilarityIndex index;
+    private final Map<Long, long[]> rescored = new ConcurrentHashMap<>();
+    private final Set<Long> unlisted = ConcurrentHashMap.newKeySet();
+    private final BackgroundRebuild<Long> rebuilds =
+            new BackgroundRebuild<>("product similarity index", this::rebuild, this::apply);
+    private final AfterCommitCollector<Long> pendingIds = AfterCommitCollector.distinct(rebuilds::apply);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuilds.start();
+    }
+
+    //picks up new products, new co-purchases and changes made by other instances
+    @Scheduled(initialDelayString = "${app.similarity.rebuildIntervalMillis}", fixedDelayString = "${app.similarity.rebuildIntervalMillis}")
+    public void scheduledRebuild() {
+        rebuilds.rebuildIfIdle();
+    }
+
+    @Override
+    public Optional<List<Long>> getRelatedProductIds(long productId) {
+        SimilarityIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        long[] related = rescored.get(productId);
+        if (related == null) {
+            related = current.related(productId);
+        }
+        if (related == null) {
+            return Optional.empty();
+        }
+        int size = appProperties.getSimilarity().getSize();
+        List<Long> productIds = new ArrayList<>(size);
+        for (long relatedId : related) {
+            if (productIds.size() == size) {
+                break;
+            }
+            if (!unlisted.contains(relatedId)) {
+                productIds.add(relatedId);
+            }
+        }
+        return Optional.of(productIds);
+    }
+
+    @Override
+    public void refresh(Collection<Long> productIds) {
+        pendingIds.addAll(productIds);
+    }
+
+    @EventListener
+    public void onProductsChanged(ProductsChangedEventDto event) {
+        //stock moves on every checkout, sold out products are dropped by the scheduled rebuild
+        if (event.getType() == ProductSummaryEventType.QUANTITY_CHANGED) {
+            return;
+        }
+        this.refresh(event.getProductIds());
+    }
+
+    @Override
+    public void refreshShops(Collection<Long> shopIds) {
+        if (shopIds == null || shopIds.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = new ArrayList<>();
+        Arrays.stream(ProductTable.values()).forEach(tables -> productIds.addAll(namedParameterJdbcTemplate.queryForList(
+                "SELECT product_id FROM " + tables.getProductTable() + " WHERE shop_id IN (:shopIds)",
+                Map.of("shopIds", shopIds), Long.class)));
+        this.refresh(productIds);
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        AppProperties.Similarity config = appProperties.getSimilarity();
+        rebuilds.build(() -> {
+            Collection<SimilarityIndex.Item> items = this.loadItems(null).values();
+            //the order tables are only read while the co-purchase counts are not backfilled yet
+            Map<Long, Map<Long, Integer>> coPurchases = coPurchaseService.isReady()
+                    ? coPurchaseService.getPartnerCounts()
+                    : this.loadCoPurchases();
+            index = SimilarityIndex.build(items, coPurchases,
+                    new SimilarityIndex.Weights(config.getTagWeight(), config.getTypeWeight(),
+                            config.getCoPurchaseWeight(), config.getPriceWeight()),
+                    Math.max(config.getSize(), config.getWidth()), config.getMaxPostingSize(),
+                    config.getChunkSize(), config.getThreads());
+            rescored.clear();
+            unlisted.clear();
+        });
+        log.info("Product similarity index built: {} products in {} ms", index.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void apply(List<Long> productIds) {
+        SimilarityIndex current = index;
+        if (current == null) {
+            return;
+        }
+        for (int from = 0; from < productIds.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + LOAD_CHUNK_SIZE, productIds.size()));
+            Map<Long, SimilarityIndex.Item> loaded = this.loadItems(chunk);
+            chunk.forEach(productId -> {
+                SimilarityIndex.Item item = loaded.get(productId);
+                //deleted products drop out of every list they are in
+                if (item == null || !item.listed()) {
+                    unlisted.add(productId);
+                } else {
+                    unlisted.remove(productId);
+                }
+                if (item == null) {
+                    rescored.remove(productId);
+                } else {
+                    rescored.put(productId, current.relate(item));
+                }
+            });
+        }
+    }
+
+    private Map<Long, SimilarityIndex.Item> loadItems(Collection<Long> productIds) {
+        Map<Long, SimilarityIndex.Item> loaded = new HashMap<>();
+        Map<String, Object> params = new HashMap<>();
+        params.put("quantity", ProductStatusConstant.QUANTITY_PRODUCT_FOR_USER);
+        params.put("statuses", ProductStatusConstant.LIST_STATUS_GET_FOR_USER.stream().map(Enum::name).toList());
+        params.put("shopStatuses", ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING);
+        if (productIds != null) {
+            params.put("ids", productIds);
+        }
+        Arrays.stream(ProductTable.values()).forEach(tables -> {
+            Map<Long, List<Long>> tagIds = new HashMap<>();
+            String tagSql = "SELECT t." + tables.getTagProductColumn() + " AS product_id, t.tag_id FROM " +
+                    tables.getTagTable() + " t" +
+                    (productIds != null ? " WHERE t." + tables.getTagProductColumn() + " IN (:ids)" : "");
+            namedParameterJdbcTemplate.query(tagSql, params, resultSet -> {
+                tagIds.computeIfAbsent(resultSet.getLong("product_id"), key -> new ArrayList<>())
+                        .add(resultSet.getLong("tag_id"));
+            });
+            String sql = "SELECT p.product_id, p.type_id, ps.discounted_price, ps.total_quantity_order, " +
+                    "(" + ProductStatusConstant.LISTED_FOR_USER_SQL + ") AS listed " +
+                    "FROM " + tables.getProductTable() + " p " +
+                    "INNER JOIN tbl_product_summary ps ON ps.product_id = p.product_id " +
+                    "INNER JOIN tbl_shop_owner_acc sh ON sh.shop_id = p.shop_id " +
+                    "WHERE ps.is_deleted = FALSE" +
+                    (productIds != null ? " AND p.product_id IN (:ids)" : "");
+            namedParameterJdbcTemplate.query(sql, params, resultSet -> {
+                long productId = resultSet.getLong("product_id");
+                loaded.put(productId, new SimilarityIndex.Item(
+                        productId,
+                        tables.getCategoryId(),
+                        resultSet.getLong("type_id"),
+                        tagIds.getOrDefault(productId, List.of()).stream().mapToLong(Long::longValue).toArray(),
+                        resultSet.getDouble("discounted_price"),
+                        resultSet.getDouble("total_quantity_order"),
+                        resultSet.getBoolean("listed")));
+            });
+        });
+        return loaded;
+    }
+
+    //a basket is a package order, so products bought together from different shops count too
+    private Map<Long, Map<Long, Integer>> loadCoPurchases() {
+        Map<Long, Map<Long, Integer>> coPurchases = new HashMap<>();
+        String sql = "SELECT a.product_id, b.product_id AS partner_id, COUNT(DISTINCT oa.package_order_id) AS baskets " +
+                "FROM tbl_order_detail a " +
+                "INNER JOIN tbl_order oa ON oa.order_id = a.order_id " +
+                "INNER JOIN tbl_order ob ON ob.package_order_id = oa.package_order_id " +
+                "INNER JOIN tbl_order_detail b ON b.order_id = ob.order_id " +
+                "WHERE a.product_id <> b.product_id " +
+                "GROUP BY a.product_id, b.product_id";
+        namedParameterJdbcTemplate.query(sql, Map.of(), resultSet -> {
+            coPurchases.computeIfAbsent(resultSet.getLong("product_id"), key -> new HashMap<>())
+                    .put(resultSet.getLong("partner_id"), resultSet.getInt("baskets"));
+        });
+        return coPurchases;
+    }
+}
@@ -0,0 +1,180 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ProductSummaryRebuildDto;
+import com.gangoffive.birdtradingplatform.entity.ProductSummaryRebuild;
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import com.gangoffive.birdtradingplatform.repository.ProductSummaryRebuildRepository;
+import com.gangoffive.birdtradingplatform.service.ProductSummaryRebuildService;
+import com.gangoffive.birdtradingplatform.service.ProductSummaryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSummaryRebuildServiceImpl implements ProductSummaryRebuildService {
+    private final ProductRepository productRepository;
+    private final ProductSummaryService productSummaryService;
+    private final ProductSummaryRebuildRepository productSummaryRebuildRepository;
+    private final AppProperties appProperties;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong processedThisRun = new AtomicLong();
+    private volatile long startedNanoTime;
+    private volatile long finishedNanoTime;
+    private volatile ProductSummaryRebuild currentRebuild;
+
+    //chunk sequence -> [last product id, size] of chunks finished out of order
+    private final TreeMap<Long, long[]> finishedChunks = new TreeMap<>();
+    private long nextChunkToCheckpoint;
+
+    @Override
+    public boolean startRebuild(boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            ProductSummaryRebuild rebuild = productSummaryRebuildRepository.findFirstByOrderByIdDesc()
+                    .filter(last -> resume && !last.getStatus().equals(RebuildStatus.COMPLETED))
+                    .orElseGet(ProductSummaryRebuild::new);
+            rebuild.setStatus(RebuildStatus.RUNNING);
+            currentRebuild = productSummaryRebuildRepository.save(rebuild);
+            processedThisRun.set(0);
+            startedNanoTime = System.nanoTime();
+            finishedNanoTime = 0;
+            synchronized (finishedChunks) {
+                finishedChunks.clear();
+                nextChunkToCheckpoint = 0;
+            }
+            Thread coordinator = new Thread(this::runRebuild, "product-summary-rebuild");
+            coordinator.setDaemon(true);
+            coordinator.start();
+            log.info("Start rebuild product summary {} from product id {}", currentRebuild.getId(), currentRebuild.getLastProductId());
+            return true;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public ProductSummaryRebuildDto getProgress() {
+        ProductSummaryRebuild rebuild = currentRebuild;
+        double rowsPerSecond = 0;
+        if (rebuild == null) {
+            //nothing started since boot, report the last persisted checkpoint
+            rebuild = productSummaryRebuildRepository.findFirstByOrderByIdDesc().orElse(null);
+            if (rebuild == null) {
+                return null;
+            }
+        } else {
+            long endNanoTime = finishedNanoTime == 0 ? System.nanoTime() : finishedNanoTime;
+            double seconds = (endNanoTime - startedNanoTime) / 1_000_000_000.0;
+            rowsPerSecond = seconds > 0 ? Math.round(processedThisRun.get() / seconds * 10.0) / 10.0 : 0;
+        }
+        return ProductSummaryRebuildDto.builder()
+                .id(rebuild.getId())
+                .status(rebuild.getStatus())
+                .lastProductId(rebuild.getLastProductId())
+                .processedTotal(rebuild.getProcessedTotal())
+                .rowsPerSecond(rowsPerSecond)
+                .startedDate(rebuild.getStartedDate())
+                .updatedDate(rebuild.getUpdatedDate())
+                .build();
+    }
+
+    private void runRebuild() {
+        AppProperties.SummaryRebuild config = appProperties.getSummaryRebuild();
+        int threads = Math.max(1, config.getThreads());
+        //bounded queue + caller runs keeps at most a few chunks of ids in memory
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), namedThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicBoolean failed = new AtomicBoolean(false);
+        try {
+            long lastProductId = currentRebuild.getLastProductId();
+            long chunkSequence = 0;
+            while (!failed.get()) {
+                List<Long> productIds = productRepository.findIdByIdGreaterThan(lastProductId,
+                        PageRequest.of(0, config.getChunkSize()));
+                if (productIds.isEmpty()) {
+                    break;
+                }
+                lastProductId = productIds.get(productIds.size() - 1);
+                long sequence = chunkSequence++;
+                long chunkLastProductId = lastProductId;
+                workers.execute(() -> {
+                    if (failed.get()) {
+                        return;
+                    }
+                    try {
+                        int rebuilt = productSummaryService.rebuildChunk(productIds);
+                        processedThisRun.addAndGet(rebuilt);
+                        checkpoint(sequence, chunkLastProductId, rebuilt);
+                    } catch (Exception e) {
+                        log.error("Rebuild product summary chunk ending at {} failed", chunkLastProductId, e);
+                        failed.set(true);
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("Rebuild product summary failed", e);
+            failed.set(true);
+            workers.shutdownNow();
+        } finally {
+            currentRebuild.setStatus(failed.get() ? RebuildStatus.FAILED : RebuildStatus.COMPLETED);
+            saveCheckpoint();
+            finishedNanoTime = System.nanoTime();
+            running.set(false);
+            log.info("Rebuild product summary {} {} at product id {}", currentRebuild.getId(),
+                    currentRebuild.getStatus(), currentRebuild.getLastProductId());
+        }
+    }
+
+    //only advances over a contiguous prefix of chunks so a resume never skips an unfinished chunk
+    private void checkpoint(long sequence, long chunkLastProductId, int rebuilt) {
+        synchronized (finishedChunks) {
+            finishedChunks.put(sequence, new long[]{chunkLastProductId, rebuilt});
+            boolean advanced = false;
+            while (finishedChunks.containsKey(nextChunkToCheckpoint)) {
+                long[] chunk = finishedChunks.remove(nextChunkToCheckpoint++);
+                currentRebuild.setLastProductId(chunk[0]);
+                currentRebuild.setProcessedTotal(currentRebuild.getProcessedTotal() + chunk[1]);
+                advanced = true;
+            }
+            if (advanced) {
+                saveCheckpoint();
+            }
+        }
+    }
+
+    private void saveCheckpoint() {
+        synchronized (finishedChunks) {
+            currentRebuild = productSummaryRebuildRepository.save(currentRebuild);
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "product-summary-rebuild-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
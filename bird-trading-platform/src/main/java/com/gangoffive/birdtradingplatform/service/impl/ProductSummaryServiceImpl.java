@@ -2,23 +2,34 @@ package com.gangoffive.birdtradingplatform.service.impl;
 
 import com.gangoffive.birdtradingplatform.common.PagingAndSorting;
 import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
-import com.gangoffive.birdtradingplatform.common.ScheduleConstant;
 import com.gangoffive.birdtradingplatform.common.ShopOwnerConstant;
+import com.gangoffive.birdtradingplatform.dto.ProductDiscountRateView;
+import com.gangoffive.birdtradingplatform.dto.ProductPriceView;
+import com.gangoffive.birdtradingplatform.dto.ProductSummaryEventDto;
+import com.gangoffive.birdtradingplatform.dto.ProductsChangedEventDto;
 import com.gangoffive.birdtradingplatform.entity.*;
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import com.gangoffive.birdtradingplatform.enums.ProductTable;
 import com.gangoffive.birdtradingplatform.repository.*;
 import com.gangoffive.birdtradingplatform.service.ProductSummaryService;
 import com.gangoffive.birdtradingplatform.service.PromotionPriceService;
+import com.gangoffive.birdtradingplatform.util.PriceEngine;
 import jakarta.transaction.Transactional;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,18 +45,52 @@ public class ProductSummaryServiceImpl implements ProductSummaryService {
     private final AccessoryRepository accessoryRepository;
     private final PromotionPriceService promotionPriceService;
     private final PromotionShopRepository promotionShopRepository;
+    private final ShopOwnerRepository shopOwnerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
 
     public double updateProductStar(Product product) {
-        double star = this.CalculationRating(product.getOrderDetails());
+        List<Review> listReview = this.getAllReviewOfProduct(product);
+        long ratingTotal = listReview.stream()
+                .mapToLong(review -> review.getRating().getStar())
+                .sum();
+        double star = this.calculateStar(ratingTotal, listReview.size());
 //        var productSummary = productSummaryRepository.findByProductIdAndProductStatusIn(product.getId(), ProductStatusConstant.LIST_STATUS_GET_FOR_USER).orElse(new ProductSummary());
         var productSummary = productSummaryRepository.findByProductId(product.getId()).orElse(new ProductSummary());
         productSummary.setStar(star);
+        productSummary.setRatingTotal(ratingTotal);
+        productSummary.setReviewTotal(listReview.size());
         productSummary.setProduct(product);
         productSummaryRepository.save(productSummary);
         return star;
     }
 
+    @Override
+    @Transactional
+    public void publishEvent(ProductSummaryEventDto event) {
+        this.publishEvents(List.of(event));
+    }
+
+    //events are coalesced per product and written once when the surrounding transaction commits
+    @Override
+    @Transactional
+    public void publishEvents(List<ProductSummaryEventDto> events) {
+        Map<Long, ProductSummaryDelta> pendingDeltas = this.getPendingDeltas();
+        events.forEach(event -> pendingDeltas
+                .computeIfAbsent(event.getProductId(), productId -> new ProductSummaryDelta())
+                .merge(event));
+        //every product, price, star and status change passes through here, the read models reload them after commit
+        events.stream()
+                .collect(Collectors.groupingBy(ProductSummaryEventDto::getType, LinkedHashMap::new,
+                        Collectors.mapping(ProductSummaryEventDto::getProductId, Collectors.toList())))
+                .forEach(this::publishProductsChanged);
+    }
+
+    private void publishProductsChanged(ProductSummaryEventType type, List<Long> productIds) {
+        applicationEventPublisher.publishEvent(new ProductsChangedEventDto(type, List.copyOf(productIds)));
+    }
+
     public int updateReviewTotal(Product product) {
         List<Long> orderDetailIds = product
                 .getOrderDetails()
@@ -90,16 +135,107 @@ public class ProductSummaryServiceImpl implements ProductSummaryService {
         return discountedPrice;
     }
 
+    //full rebuild of one summary row from reviews, order details and promotions, used for repair
     @Transactional
     public boolean apply(Product product) {
-        this.updateReviewTotal(product);
-        this.updateProductStar(product);
-        this.updateTotalQuantityOrder(product);
-        this.updateCategory(product);
-        this.discountedPrice(product);
+        List<Review> listReview = this.getAllReviewOfProduct(product);
+        long ratingTotal = listReview.stream()
+                .mapToLong(review -> review.getRating().getStar())
+                .sum();
+        var productSummary = productSummaryRepository.findByProductId(product.getId()).orElse(new ProductSummary());
+        productSummary.setProduct(product);
+        productSummary.setReviewTotal(listReview.size());
+        productSummary.setRatingTotal(ratingTotal);
+        productSummary.setStar(this.calculateStar(ratingTotal, listReview.size()));
+        productSummary.setTotalQuantityOrder(orderDetailRepository.findTotalQuantityByPId(product.getId()).orElse(0));
+        productSummary.setCategory(Hibernate.unproxy(product).getClass().getSimpleName());
+        productSummary.setDiscountedPrice(Optional.ofNullable(promotionPriceService.getDiscountedPrice(product)).orElse(0.0));
+        productSummary.setDeleted(product.getStatus() == ProductStatus.DELETE);
+        productSummaryRepository.save(productSummary);
         return true;
     }
 
+    //same result as apply() for every product of the chunk, but each aggregate is read for the whole id range
+    //in one query and the rows are written in one batch
+    @Override
+    @Transactional
+    public int rebuildChunk(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        Set<Long> chunk = new HashSet<>(productIds);
+        Object[] range = {Collections.min(productIds), Collections.max(productIds)};
+        Map<Long, ProductTable> tables = new HashMap<>();
+        Set<Long> deleted = new HashSet<>();
+        for (ProductTable table : ProductTable.values()) {
+            jdbcTemplate.query("SELECT product_id, status FROM " + table.getProductTable() +
+                    " WHERE product_id BETWEEN ? AND ?", resultSet -> {
+                long productId = resultSet.getLong("product_id");
+                if (chunk.contains(productId)) {
+                    tables.put(productId, table);
+                    if (ProductStatus.DELETE.name().equals(resultSet.getString("status"))) {
+                        deleted.add(productId);
+                    }
+                }
+            }, range);
+        }
+        Map<Long, long[]> reviews = new HashMap<>();
+        jdbcTemplate.query("SELECT od.product_id, COUNT(*) AS review_total, SUM(r.rating) AS rating_total " +
+                "FROM tbl_review r INNER JOIN tbl_order_detail od ON od.order_d_id = r.order_detail_id " +
+                "WHERE od.product_id BETWEEN ? AND ? GROUP BY od.product_id", resultSet -> {
+            reviews.put(resultSet.getLong("product_id"),
+                    new long[]{resultSet.getLong("review_total"), resultSet.getLong("rating_total")});
+        }, range);
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, SUM(quantity) AS total_quantity_order FROM tbl_order_detail " +
+                "WHERE product_id BETWEEN ? AND ? GROUP BY product_id", resultSet -> {
+            quantities.put(resultSet.getLong("product_id"), resultSet.getInt("total_quantity_order"));
+        }, range);
+        Map<Long, Double> discountedPrices = this.discountedPrices(tables.keySet());
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT product_id FROM tbl_product_summary WHERE product_id BETWEEN ? AND ?", Long.class, range));
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        tables.forEach((productId, table) -> {
+            long[] review = reviews.getOrDefault(productId, new long[2]);
+            Object[] row = {
+                    this.calculateStar(review[1], (int) review[0]),
+                    (int) review[0],
+                    review[1],
+                    table.getEntityClass().getSimpleName(),
+                    quantities.getOrDefault(productId, 0),
+                    discountedPrices.getOrDefault(productId, 0.0),
+                    deleted.contains(productId),
+                    productId
+            };
+            (existing.contains(productId) ? updates : inserts).add(row);
+        });
+        jdbcTemplate.batchUpdate("UPDATE tbl_product_summary SET star = ?, review_total = ?, rating_total = ?, " +
+                "category = ?, total_quantity_order = ?, discounted_price = ?, is_deleted = ?, " +
+                "last_updated = CURRENT_TIMESTAMP WHERE product_id = ?", updates);
+        jdbcTemplate.batchUpdate("INSERT INTO tbl_product_summary (star, review_total, rating_total, category, " +
+                "total_quantity_order, discounted_price, is_deleted, product_id, last_updated) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)", inserts);
+        return tables.size();
+    }
+
+    @Override
+    @Transactional
+    public int recalculateDiscountedPrice(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> discountedPrices = this.discountedPrices(productIds).entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate("UPDATE tbl_product_summary SET discounted_price = ?, last_updated = CURRENT_TIMESTAMP WHERE product_id = ?",
+                discountedPrices);
+        //promotions started or ended, the cached rates of these products are out of date too
+        this.publishProductsChanged(ProductSummaryEventType.PROMOTION_CHANGED, List.copyOf(productIds));
+        return discountedPrices.size();
+    }
+
     @Override
     public List<Long> getIdTopBird() {
         PageRequest page = PageRequest.of(0, PagingAndSorting.DEFAULT_PAGE_SIZE,
@@ -150,6 +286,107 @@ public class ProductSummaryServiceImpl implements ProductSummaryService {
         return null;
     }
 
+    private Map<Long, Double> discountedPrices(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, List<Integer>> discountRates = promotionShopRepository.findActiveDiscountRateByProductIdIn(productIds)
+                .stream()
+                .collect(Collectors.groupingBy(ProductDiscountRateView::getProductId,
+                        Collectors.mapping(ProductDiscountRateView::getDiscountRate, Collectors.toList())));
+        List<ProductPriceView> products = productRepository.findPriceViewByIdIn(productIds);
+        double[] prices = new double[products.size()];
+        int[][] rates = new int[products.size()][];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = products.get(i).getPrice();
+            rates[i] = PriceEngine.toArray(discountRates.get(products.get(i).getProductId()));
+        }
+        double[] newDiscountedPrices = new double[prices.length];
+        PriceEngine.discountedPrices(prices, rates, newDiscountedPrices);
+        Map<Long, Double> discountedPrices = new LinkedHashMap<>();
+        for (int i = 0; i < prices.length; i++) {
+            discountedPrices.put(products.get(i).getProductId(), newDiscountedPrices[i]);
+        }
+        return discountedPrices;
+    }
+
+    private List<Review> getAllReviewOfProduct(Product product) {
+        List<OrderDetail> orderDetails = product.getOrderDetails();
+        if (orderDetails == null || orderDetails.isEmpty()) {
+            return List.of();
+        }
+        List<Long> orderDetailIds = orderDetails.stream().map(OrderDetail::getId).collect(Collectors.toList());
+        return reviewRepository.findAllByOrderDetailIdIn(orderDetailIds).orElse(List.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, ProductSummaryDelta> getPendingDeltas() {
+        var pendingDeltas = (Map<Long, ProductSummaryDelta>) TransactionSynchronizationManager.getResource(this);
+        if (pendingDeltas != null) {
+            return pendingDeltas;
+        }
+        Map<Long, ProductSummaryDelta> newPendingDeltas = new LinkedHashMap<>();
+        TransactionSynchronizationManager.bindResource(this, newPendingDeltas);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                flushDeltas(newPendingDeltas);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ProductSummaryServiceImpl.this);
+            }
+        });
+        return newPendingDeltas;
+    }
+
+    private void flushDeltas(Map<Long, ProductSummaryDelta> pendingDeltas) {
+        if (pendingDeltas.isEmpty()) {
+            return;
+        }
+        List<Long> productIdsNeedPrice = pendingDeltas.entrySet().stream()
+                .filter(entry -> entry.getValue().isRecalculatePrice())
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Long, Product> productsNeedPrice = productIdsNeedPrice.isEmpty() ? Map.of()
+                : productRepository.findAllById(productIdsNeedPrice).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Long> productIdsNeedRebuild = new ArrayList<>();
+        List<Long> productIdsSold = pendingDeltas.entrySet().stream()
+                .filter(entry -> entry.getValue().getQuantityOrder() != 0 || entry.getValue().getReviewCount() != 0)
+                .map(Map.Entry::getKey)
+                .toList();
+        pendingDeltas.forEach((productId, delta) -> {
+            Double discountedPrice = null;
+            if (productsNeedPrice.containsKey(productId)) {
+                discountedPrice = Optional.ofNullable(promotionPriceService.getDiscountedPrice(productsNeedPrice.get(productId)))
+                        .orElse(0.0);
+            }
+            int updated = productSummaryRepository.applyDelta(productId, delta.getQuantityOrder(),
+                    delta.getReviewCount(), delta.getRatingTotal(), discountedPrice, delta.getDeleted());
+            if (updated == 0) {
+                productIdsNeedRebuild.add(productId);
+            }
+        });
+        pendingDeltas.clear();
+        //the shop page version reads this instead of counting the orders and reviews of the shop
+        if (!productIdsSold.isEmpty()) {
+            shopOwnerRepository.increaseSalesVersionByProductIdIn(productIdsSold);
+        }
+        if (!productIdsNeedRebuild.isEmpty()) {
+            log.info("Rebuild product summary of {}", productIdsNeedRebuild);
+            productRepository.findAllById(productIdsNeedRebuild).forEach(this::apply);
+        }
+    }
+
+    private double calculateStar(long ratingTotal, int reviewTotal) {
+        if (reviewTotal == 0) {
+            return 0;
+        }
+        return Math.round((ratingTotal * 1.0 / reviewTotal) * 10.0) / 10.0;
+    }
+
     @Override
     public double CalculationRating(List<OrderDetail> orderDetails) {
         if (orderDetails != null && orderDetails.size() != 0) {
@@ -166,17 +403,24 @@ public class ProductSummaryServiceImpl implements ProductSummaryService {
     }
 
 
-    //schedule auto update discounted price in 12h01p
-    @Scheduled(cron = "0 1 17 * * ?")
-    public void runCalculateDiscountedPrice() {
-        List<Long> listPromotionWithEndDateIsYesterday = promotionShopRepository.
-                findAllListPromotionByEndDate(new Date(System.currentTimeMillis() - ScheduleConstant.TIME_BEFORE_TAKE_THE_VOUCHER)).get();
-        if(listPromotionWithEndDateIsYesterday.size() > 0) {
-            List<Product> listProductNeedUpdate = productRepository.findAllProductBaseOnPromotionShopId(listPromotionWithEndDateIsYesterday).get();
-            if(listProductNeedUpdate.size() > 0){
-                listProductNeedUpdate.stream().forEach(this::discountedPrice);
+    @Getter
+    private static class ProductSummaryDelta {
+        private int quantityOrder;
+        private int reviewCount;
+        private long ratingTotal;
+        private boolean recalculatePrice;
+        private Boolean deleted;
+
+        private void merge(ProductSummaryEventDto event) {
+            switch (event.getType()) {
+                case ORDER_DETAIL_CREATED -> quantityOrder += event.getQuantity();
+                case REVIEW_ADDED -> {
+                    reviewCount++;
+                    ratingTotal += event.getStar();
+                }
+                case PROMOTION_CHANGED -> recalculatePrice = true;
+                case PRODUCT_STATUS_CHANGED -> deleted = event.getStatus() == ProductStatus.DELETE;
             }
         }
-        log.info("Done update schedule");
     }
 }
@@ -1,44 +1,59 @@
 package com.gangoffive.birdtradingplatform.service.impl;
 
+import com.gangoffive.birdtradingplatform.cache.DiscountRateCache;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ProductDiscountRateView;
+import com.gangoffive.birdtradingplatform.dto.ProductsChangedEventDto;
 import com.gangoffive.birdtradingplatform.entity.Product;
 import com.gangoffive.birdtradingplatform.entity.PromotionShop;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import com.gangoffive.birdtradingplatform.repository.PromotionShopRepository;
 import com.gangoffive.birdtradingplatform.service.PromotionPriceService;
+import com.gangoffive.birdtradingplatform.util.AfterCommitCollector;
+import com.gangoffive.birdtradingplatform.util.PriceEngine;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @Service
 @Transactional
 @Slf4j
 public class PromotionPriceServiceImpl implements PromotionPriceService {
+    private final PromotionShopRepository promotionShopRepository;
+    private final DiscountRateCache discountRateCache;
+    private final AfterCommitCollector<Long> evictedIds =
+            AfterCommitCollector.distinct(productIds -> discountRateCache.evict(productIds));
+
+    public PromotionPriceServiceImpl(AppProperties appProperties, PromotionShopRepository promotionShopRepository) {
+        this.promotionShopRepository = promotionShopRepository;
+        AppProperties.PromotionPrice config = appProperties.getPromotionPrice();
+        this.discountRateCache = new DiscountRateCache(config.getTtlMillis(), config.getMaxEntries(),
+                System::currentTimeMillis);
+    }
+
     @Override
     public double CalculateSaleOff(List<PromotionShop> listPromotion, double price) {
-        if (listPromotion != null && listPromotion.size() != 0) {
-            List<Integer> saleOff = listPromotion.stream().map(s -> (Integer) s.getDiscountRate()).collect(Collectors.toList());
-            double priceDiscount = price;
-            for (double sale : saleOff) {
-                priceDiscount = priceDiscount - priceDiscount * sale / 100;
-            }
-            double percentDiscount = (price - priceDiscount) / price;
+        return PriceEngine.saleOff(PriceEngine.compile(listPromotion), price);
+    }
 
-            return percentDiscount;
-        }
-        return 0.0;
+    @Override
+    public double calculateSaleOffByDiscountRates(List<Integer> discountRates, double price) {
+        return PriceEngine.saleOff(PriceEngine.toArray(discountRates), price);
     }
 
     @Override
     public double CalculateDiscountedPrice(double price, double saleOff) {
-        return Math.round((price - (price * saleOff)) * 100.0) / 100.0;
+        return PriceEngine.discountedPrice(price, saleOff);
     }
 
+    //stored in the product summary, so always from the promotions the product holds now
     @Override
     public double getDiscountedPrice(Product product) {
-        double saleOf = this.CalculateSaleOff(product.getPromotionShops(), product.getPrice());
-        double result = this.CalculateDiscountedPrice(product.getPrice(), saleOf);
-        return result;
+        return PriceEngine.discountedPrice(product.getPrice(),
+                PriceEngine.saleOff(PriceEngine.compile(product.getPromotionShops()), product.getPrice()));
     }
 
     @Override
@@ -48,16 +63,66 @@ public class PromotionPriceServiceImpl implements PromotionPriceService {
         if (promotionShops.isEmpty()) {
             return 0;
         }
-        double originPrice = 0;
-        for (int i = 0; i < promotionShops.size(); i++) {
-            if (i == 0) {
-                originPrice = discountedPrice / (1 - (promotionShops.get(i).getDiscountRate() * 1.0 / 100));
-                log.info("originPrice 0 {}", originPrice);
+        double originPrice = discountedPrice;
+        for (PromotionShop promotionShop : promotionShops) {
+            originPrice = originPrice / (1 - (promotionShop.getDiscountRate() * 1.0 / 100));
+        }
+        return Math.round(((originPrice - discountedPrice) / originPrice) * 100.0) / 100.0;
+    }
+
+    @Override
+    public int[] getDiscountRates(Product product) {
+        if (product.getId() == null) {
+            return PriceEngine.compile(product.getPromotionShops());
+        }
+        int[] discountRates = discountRateCache.get(product.getId());
+        if (discountRates == null) {
+            long version = discountRateCache.version();
+            discountRates = PriceEngine.compile(product.getPromotionShops());
+            discountRateCache.put(product.getId(), discountRates, version);
+        }
+        return discountRates;
+    }
+
+    @Override
+    public Map<Long, int[]> getDiscountRates(Collection<Long> productIds) {
+        Map<Long, int[]> result = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long productId : productIds) {
+            int[] discountRates = discountRateCache.get(productId);
+            if (discountRates != null) {
+                result.put(productId, discountRates);
             } else {
-                originPrice = originPrice / (1 - (promotionShops.get(i).getDiscountRate() * 1.0 / 100));
-                log.info("originPrice > 0 {}", originPrice);
+                missingIds.add(productId);
             }
         }
-        return Math.round(((originPrice - discountedPrice) / originPrice) * 100.0) / 100.0;
+        if (missingIds.isEmpty()) {
+            return result;
+        }
+        long version = discountRateCache.version();
+        //ordered by product then promotion id, the order PriceEngine.compile applies them in
+        Map<Long, List<Integer>> missingRates = new HashMap<>();
+        for (ProductDiscountRateView rate : promotionShopRepository.findActiveDiscountRateByProductIdIn(missingIds)) {
+            missingRates.computeIfAbsent(rate.getProductId(), id -> new ArrayList<>()).add(rate.getDiscountRate());
+        }
+        for (Long productId : missingIds) {
+            int[] discountRates = PriceEngine.toArray(missingRates.get(productId));
+            discountRateCache.put(productId, discountRates, version);
+            result.put(productId, discountRates);
+        }
+        return result;
+    }
+
+    @Override
+    public void evictDiscountRates(Collection<Long> productIds) {
+        evictedIds.addAll(productIds);
+    }
+
+    @EventListener
+    public void onProductsChanged(ProductsChangedEventDto event) {
+        //only promotion and product edits change the rates; stock, reviews, orders and status changes don't
+        if (event.getType() == ProductSummaryEventType.PROMOTION_CHANGED) {
+            this.evictDiscountRates(event.getProductIds());
+        }
     }
 }
@@ -0,0 +1,157 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.common.ScheduleConstant;
+import com.gangoffive.birdtradingplatform.entity.PromotionShop;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import com.gangoffive.birdtradingplatform.repository.PromotionShopRepository;
+import com.gangoffive.birdtradingplatform.service.ProductSummaryService;
+import com.gangoffive.birdtradingplatform.service.PromotionScheduleService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromotionScheduleServiceImpl implements PromotionScheduleService {
+    //promotion dates are picked in the shops' time zone, the server may run in another one
+    private static final ZoneId PROMOTION_ZONE = ZoneId.of("Asia/Bangkok");
+
+    private final PromotionShopRepository promotionShopRepository;
+    private final ProductRepository productRepository;
+    private final ProductSummaryService productSummaryService;
+
+    private final DelayQueue<PromotionBoundary> boundaries = new DelayQueue<>();
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        this.reload();
+        worker = new Thread(this::runWorker, "promotion-price-scheduler");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public void schedule(PromotionShop promotionShop) {
+        this.schedule(promotionShop.getId(), promotionShop.getStartDate(), promotionShop.getEndDate(),
+                System.currentTimeMillis() - ScheduleConstant.PROMOTION_CATCH_UP_WINDOW);
+    }
+
+    @Override
+    public void reschedule(PromotionShop promotionShop) {
+        //boundaries of the old dates would only recompute the prices once more, but they would pile up
+        boundaries.removeIf(boundary -> boundary.getPromotionShopId().equals(promotionShop.getId()));
+        this.schedule(promotionShop);
+    }
+
+    @Override
+    public void reload() {
+        long notBefore = System.currentTimeMillis() - ScheduleConstant.PROMOTION_CATCH_UP_WINDOW;
+        boundaries.clear();
+        promotionShopRepository.findPeriodByEndDateGreaterThanEqual(new Date(notBefore - TimeUnit.DAYS.toMillis(1)))
+                .forEach(period -> this.schedule(period.getId(), period.getStartDate(), period.getEndDate(), notBefore));
+        log.info("Loaded {} promotion boundaries", boundaries.size());
+    }
+
+    @Override
+    public List<Date> pendingBoundaries(Long promotionShopId) {
+        return boundaries.stream()
+                .filter(boundary -> boundary.getPromotionShopId().equals(promotionShopId))
+                .map(boundary -> new Date(boundary.triggerAt))
+                .sorted()
+                .toList();
+    }
+
+    //PromotionShop is active while start_date <= CURRENT_DATE and end_date >= CURRENT_DATE,
+    //so it starts applying at the first midnight not before start_date and stops the midnight after end_date
+    private void schedule(Long promotionShopId, Date startDate, Date endDate, long notBefore) {
+        if (promotionShopId == null || startDate == null || endDate == null) {
+            return;
+        }
+        ZoneId zone = PROMOTION_ZONE;
+        LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochMilli(startDate.getTime()), zone);
+        LocalDate activeDay = start.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? start.toLocalDate() : start.toLocalDate().plusDays(1);
+        LocalDate expiredDay = LocalDate.ofInstant(Instant.ofEpochMilli(endDate.getTime()), zone).plusDays(1);
+        long activeAt = activeDay.atStartOfDay(zone).toInstant().toEpochMilli() + ScheduleConstant.PROMOTION_BOUNDARY_DELAY;
+        long expiredAt = expiredDay.atStartOfDay(zone).toInstant().toEpochMilli() + ScheduleConstant.PROMOTION_BOUNDARY_DELAY;
+        if (activeAt >= notBefore && activeAt < expiredAt) {
+            boundaries.offer(new PromotionBoundary(promotionShopId, activeAt));
+        }
+        if (expiredAt >= notBefore) {
+            boundaries.offer(new PromotionBoundary(promotionShopId, expiredAt));
+        }
+    }
+
+    private void runWorker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<PromotionBoundary> dueBoundaries = new ArrayList<>();
+            try {
+                dueBoundaries.add(boundaries.take());
+                //promotions sharing a boundary (usually midnight) are recomputed together
+                boundaries.drainTo(dueBoundaries);
+                List<Long> promotionShopIds = dueBoundaries.stream()
+                        .map(PromotionBoundary::getPromotionShopId)
+                        .distinct()
+                        .toList();
+                List<Long> productIds = productRepository.findIdByPromotionShopIdIn(promotionShopIds);
+                int updated = productSummaryService.recalculateDiscountedPrice(productIds);
+                log.info("Recalculate discounted price of {} products for promotions {}", updated, promotionShopIds);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Recalculate discounted price failed, retry in {} ms", ScheduleConstant.PROMOTION_RETRY_DELAY, e);
+                long retryAt = System.currentTimeMillis() + ScheduleConstant.PROMOTION_RETRY_DELAY;
+                dueBoundaries.forEach(boundary -> boundaries.offer(
+                        new PromotionBoundary(boundary.getPromotionShopId(), retryAt)));
+            }
+        }
+    }
+
+    private static final class PromotionBoundary implements Delayed {
+        private final Long promotionShopId;
+        private final long triggerAt;
+
+        private PromotionBoundary(Long promotionShopId, long triggerAt) {
+            this.promotionShopId = promotionShopId;
+            this.triggerAt = triggerAt;
+        }
+
+        private Long getPromotionShopId() {
+            return promotionShopId;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(triggerAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(triggerAt, ((PromotionBoundary) other).triggerAt);
+        }
+    }
+}
@@ -18,6 +18,7 @@ import com.gangoffive.birdtradingplatform.repository.AccountRepository;
 import com.gangoffive.birdtradingplatform.repository.PromotionRepository;
 import com.gangoffive.birdtradingplatform.service.NotificationService;
 import com.gangoffive.birdtradingplatform.service.PromotionService;
+import com.gangoffive.birdtradingplatform.service.ResponseCacheService;
 import com.gangoffive.birdtradingplatform.util.DateUtils;
 import com.gangoffive.birdtradingplatform.util.JsonUtil;
 import com.gangoffive.birdtradingplatform.util.MyUtils;
@@ -45,6 +46,7 @@ public class PromotionServiceImpl implements PromotionService {
     private final PromotionMapper promotionMapper;
     private final AccountRepository accountRepository;
     private final NotificationService notificationService;
+    private final ResponseCacheService responseCacheService;
     @Override
     public ResponseEntity<?> getAllPromotion() {
         List<Promotion> promotions = promotionRepository.findAll();
@@ -82,6 +84,7 @@ public class PromotionServiceImpl implements PromotionService {
                 }
                 promotion.setUsed(0);
                 promotionRepository.save(promotion);
+                responseCacheService.evictPromotions();
                 SuccessResponse successResponse = SuccessResponse.builder()
                         .successCode(String.valueOf(HttpStatus.CREATED.value()))
                         .successMessage("Create promotion successfully.")
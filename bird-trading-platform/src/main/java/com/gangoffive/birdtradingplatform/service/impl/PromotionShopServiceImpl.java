@@ -8,7 +8,10 @@ import com.gangoffive.birdtradingplatform.entity.PromotionShop;
 import com.gangoffive.birdtradingplatform.enums.ResponseCode;
 import com.gangoffive.birdtradingplatform.mapper.PromotionShopMapper;
 import com.gangoffive.birdtradingplatform.repository.AccountRepository;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
 import com.gangoffive.birdtradingplatform.repository.PromotionShopRepository;
+import com.gangoffive.birdtradingplatform.service.ProductSummaryService;
+import com.gangoffive.birdtradingplatform.service.PromotionScheduleService;
 import com.gangoffive.birdtradingplatform.service.PromotionShopService;
 import com.gangoffive.birdtradingplatform.util.DateUtils;
 import jakarta.transaction.Transactional;
@@ -31,6 +34,9 @@ public class PromotionShopServiceImpl implements PromotionShopService {
     private final PromotionShopRepository promotionShopRepository;
     private final PromotionShopMapper promotionShopMapper;
     private final AccountRepository accountRepository;
+    private final PromotionScheduleService promotionScheduleService;
+    private final ProductRepository productRepository;
+    private final ProductSummaryService productSummaryService;
 
     @Override
     public ResponseEntity<?> retrieveAllPromotionShop() {
@@ -60,6 +66,7 @@ public class PromotionShopServiceImpl implements PromotionShopService {
                         && promotionShop.getDiscountRate() > 0
                         && promotionShop.getStartDate() > 0
                         && promotionShop.getEndDate() > 0
+                        && promotionShop.getStartDate() < promotionShop.getEndDate()
         ) {
             PromotionShop promotion = new PromotionShop();
             promotion.setName(promotionShop.getName());
@@ -69,6 +76,7 @@ public class PromotionShopServiceImpl implements PromotionShopService {
             promotion.setEndDate(DateUtils.timeInMillisecondToDate(promotionShop.getEndDate()));
             promotion.setShopOwner(account.get().getShopOwner());
             promotionShopRepository.save(promotion);
+            promotionScheduleService.schedule(promotion);
             SuccessResponse successResponse = SuccessResponse.builder()
                     .successCode(String.valueOf(HttpStatus.CREATED.value()))
                     .successMessage("Create promotion shop successfully.")
@@ -82,4 +90,65 @@ public class PromotionShopServiceImpl implements PromotionShopService {
             return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
         }
     }
+
+    @Override
+    @Transactional
+    public ResponseEntity<?> updatePromotionShop(PromotionShopDto promotionShop) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Optional<Account> account = accountRepository.findByEmail(authentication.getName());
+        if (
+                promotionShop == null
+                        || promotionShop.getName().isEmpty()
+                        || promotionShop.getDescription().isEmpty()
+                        || promotionShop.getDiscountRate() <= 0
+                        || promotionShop.getStartDate() <= 0
+                        || promotionShop.getEndDate() <= 0
+        ) {
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .errorCode(String.valueOf(HttpStatus.BAD_REQUEST.value()))
+                    .errorMessage("Promotion shop is null.")
+                    .build();
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+        //the id is a primitive, a request without one comes in as 0
+        if (promotionShop.getId() <= 0) {
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .errorCode(String.valueOf(HttpStatus.BAD_REQUEST.value()))
+                    .errorMessage("Promotion shop id is required.")
+                    .build();
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+        if (promotionShop.getStartDate() >= promotionShop.getEndDate()) {
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .errorCode(String.valueOf(HttpStatus.BAD_REQUEST.value()))
+                    .errorMessage("Start date must be before end date.")
+                    .build();
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+        Optional<PromotionShop> promotion = promotionShopRepository.findById(promotionShop.getId());
+        if (promotion.isEmpty()
+                || !promotion.get().getShopOwner().getId().equals(account.get().getShopOwner().getId())) {
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .errorCode(String.valueOf(HttpStatus.NOT_FOUND.value()))
+                    .errorMessage("Not found promotion shop.")
+                    .build();
+            return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+        }
+        PromotionShop updatePromotion = promotion.get();
+        updatePromotion.setName(promotionShop.getName());
+        updatePromotion.setDescription(promotionShop.getDescription());
+        updatePromotion.setDiscountRate(promotionShop.getDiscountRate());
+        updatePromotion.setStartDate(DateUtils.timeInMillisecondToDate(promotionShop.getStartDate()));
+        updatePromotion.setEndDate(DateUtils.timeInMillisecondToDate(promotionShop.getEndDate()));
+        promotionShopRepository.saveAndFlush(updatePromotion);
+        //the new rate or dates may already apply today, later boundaries follow the new dates
+        productSummaryService.recalculateDiscountedPrice(
+                productRepository.findIdByPromotionShopIdIn(List.of(updatePromotion.getId())));
+        promotionScheduleService.reschedule(updatePromotion);
+        SuccessResponse successResponse = SuccessResponse.builder()
+                .successCode(String.valueOf(HttpStatus.OK.value()))
+                .successMessage("Update promotion shop successfully.")
+                .build();
+        return ResponseEntity.ok(successResponse);
+    }
 }
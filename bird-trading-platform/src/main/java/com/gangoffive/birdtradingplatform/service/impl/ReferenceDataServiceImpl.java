@@ -0,0 +1,161 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.cache.ReferenceData;
+import com.gangoffive.birdtradingplatform.common.KafkaConstant;
+import com.gangoffive.birdtradingplatform.entity.Tag;
+import com.gangoffive.birdtradingplatform.entity.TypeAccessory;
+import com.gangoffive.birdtradingplatform.entity.TypeBird;
+import com.gangoffive.birdtradingplatform.entity.TypeFood;
+import com.gangoffive.birdtradingplatform.service.ReferenceDataService;
+import com.gangoffive.birdtradingplatform.service.ResponseCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+//every node keeps its own snapshot of the types and tags in front of the database. A creation reloads the
+//node that made it right away and reaches the others over kafka; each node listens in a group of its own so
+//all of them get the message, and the periodic reload covers one that was missed
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataServiceImpl implements ReferenceDataService {
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ResponseCacheService responseCacheService;
+
+    private volatile ReferenceData referenceData;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        this.reload();
+    }
+
+    @Scheduled(initialDelayString = "${app.referenceData.reloadIntervalMillis}", fixedDelayString = "${app.referenceData.reloadIntervalMillis}")
+    public void scheduledReload() {
+        this.reload();
+    }
+
+    @KafkaListener(
+            topics = KafkaConstant.KAFKA_REFERENCE_DATA,
+            groupId = "${spring.kafka.consumer.group-id}-reference-data-${random.uuid}",
+            properties = "auto.offset.reset=latest"
+    )
+    public void onChange(String change) {
+        log.info("Reference data changed on another node: {}", change);
+        this.apply(this.parse(change));
+    }
+
+    @Override
+    public ReferenceData getReferenceData() {
+        ReferenceData current = referenceData;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (referenceData == null) {
+                referenceData = this.load();
+            }
+            return referenceData;
+        }
+    }
+
+    @Override
+    public void publishChange(ReferenceData.Change change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.publish(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(change);
+            }
+        });
+    }
+
+    @Override
+    public void reload() {
+        try {
+            //one load at a time, so an older snapshot never replaces a newer one
+            synchronized (this) {
+                referenceData = this.load();
+            }
+        } catch (Exception e) {
+            log.error("Could not load the reference data", e);
+        }
+    }
+
+    private void publish(ReferenceData.Change change) {
+        this.apply(change);
+        try {
+            kafkaTemplate.send(KafkaConstant.KAFKA_REFERENCE_DATA, change.name())
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            log.warn("Publish reference data change {} failed: {}", change, ex.getMessage());
+                        }
+                    });
+        } catch (Exception e) {
+            log.warn("Publish reference data change {} failed: {}", change, e.getMessage());
+        }
+    }
+
+    private void apply(ReferenceData.Change change) {
+        this.reload();
+        if (change == null || change.isType()) {
+            responseCacheService.evictTypes();
+        }
+    }
+
+    //null for a change this node does not know, it is handled like a type change
+    private ReferenceData.Change parse(String change) {
+        try {
+            return ReferenceData.Change.valueOf(change);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    private ReferenceData load() {
+        Map<String, Object> params = Map.of();
+        List<TypeBird> typeBirds = namedParameterJdbcTemplate.query(
+                "SELECT type_b_id, name FROM tbl_type_bird ORDER BY type_b_id", params, (resultSet, rowNum) -> {
+                    TypeBird typeBird = new TypeBird();
+                    typeBird.setId(resultSet.getLong("type_b_id"));
+                    typeBird.setName(resultSet.getString("name"));
+                    return typeBird;
+                });
+        List<TypeFood> typeFoods = namedParameterJdbcTemplate.query(
+                "SELECT type_f_id, name FROM tbl_type_food ORDER BY type_f_id", params, (resultSet, rowNum) -> {
+                    TypeFood typeFood = new TypeFood();
+                    typeFood.setId(resultSet.getLong("type_f_id"));
+                    typeFood.setName(resultSet.getString("name"));
+                    return typeFood;
+                });
+        List<TypeAccessory> typeAccessories = namedParameterJdbcTemplate.query(
+                "SELECT type_a_id, name FROM tbl_type_accessory ORDER BY type_a_id", params, (resultSet, rowNum) -> {
+                    TypeAccessory typeAccessory = new TypeAccessory();
+                    typeAccessory.setId(resultSet.getLong("type_a_id"));
+                    typeAccessory.setName(resultSet.getString("name"));
+                    return typeAccessory;
+                });
+        List<Tag> tags = namedParameterJdbcTemplate.query(
+                "SELECT tag_id, name FROM tbl_tag ORDER BY tag_id", params, (resultSet, rowNum) -> {
+                    Tag tag = new Tag();
+                    tag.setId(resultSet.getLong("tag_id"));
+                    tag.setName(resultSet.getString("name"));
+                    return tag;
+                });
+        return ReferenceData.of(typeBirds, typeFoods, typeAccessories, tags);
+    }
+}
@@ -0,0 +1,146 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
+import com.gangoffive.birdtradingplatform.dto.ResourceVersionDto;
+import com.gangoffive.birdtradingplatform.enums.Category;
+import com.gangoffive.birdtradingplatform.enums.ProductTable;
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.enums.ShopOwnerStatus;
+import com.gangoffive.birdtradingplatform.service.ResourceVersionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.stream.Collectors;
+
+//the etag is a digest of the columns a response is assembled from. Bulk writes do not always move a row
+//timestamp, so the changing columns are digested next to it; lists have no timestamp at all and digest an
+//xor of their rows. Last-Modified is only given where every source row is timestamped (product detail).
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResourceVersionServiceImpl implements ResourceVersionService {
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public Optional<ResourceVersionDto> getProductVersion(Long productId) {
+        String sql = Arrays.stream(ProductTable.values())
+                .map(this::productVersionSql)
+                .collect(Collectors.joining(" UNION ALL "));
+        Map<String, Object> params = new HashMap<>();
+        params.put("productId", productId);
+        params.put("statuses", ProductStatusConstant.LIST_STATUS_GET_FOR_USER.stream().map(Enum::name).toList());
+        params.put("bannedShop", ShopOwnerStatus.BAN.name());
+        List<ResourceVersionDto> versions = namedParameterJdbcTemplate.query(sql, params, (resultSet, rowNum) ->
+                ResourceVersionDto.builder()
+                        .eTag(this.digest(resultSet))
+                        .lastModified(this.lastModified(resultSet, "last_updated", "quantity_updated",
+                                "summary_last_updated", "shop_last_updated", "address_last_updated"))
+                        .build());
+        return versions.stream().findFirst();
+    }
+
+    @Override
+    public Optional<ResourceVersionDto> getShopVersion(Long shopId) {
+        String productCounts = Arrays.stream(ProductTable.values())
+                .map(tables -> "(SELECT COUNT(*) FROM " + tables.getProductTable() + " p " +
+                        "WHERE p.shop_id = sh.shop_id AND p.status IN (:statuses))")
+                .collect(Collectors.joining(", "));
+        String sql = "SELECT sh.shop_name, sh.shop_phone, sh.description, sh.avatar_img_url, sh.cover_img_url, " +
+                "sh.last_updated, sh.sales_version, a.last_updated AS address_last_updated, " + productCounts + " " +
+                "FROM tbl_shop_owner_acc sh " +
+                "LEFT JOIN tbl_address a ON a.address_id = sh.address_id " +
+                "WHERE sh.shop_id = :shopId AND sh.status <> :bannedShop";
+        Map<String, Object> params = new HashMap<>();
+        params.put("shopId", shopId);
+        params.put("statuses", ProductStatusConstant.LIST_STATUS_GET_FOR_SHOP_OWNER.stream().map(Enum::name).toList());
+        params.put("bannedShop", ShopOwnerStatus.BAN.name());
+        return this.listVersion(sql, params);
+    }
+
+    @Override
+    public ResourceVersionDto getTypeVersion(Collection<Category> categories) {
+        String sql = "SELECT " + EnumSet.copyOf(categories).stream()
+                .map(ProductTable::of)
+                .map(tables -> "(SELECT CONCAT(COUNT(*), ':', COALESCE(BIT_XOR(CRC32(CONCAT(t." + tables.getTypeIdColumn() +
+                        ", ':', t.name))), 0)) FROM " + tables.getTypeTable() + " t)")
+                .collect(Collectors.joining(", "));
+        return this.listVersion(sql, Map.of()).orElseThrow();
+    }
+
+    @Override
+    public Optional<ResourceVersionDto> getShopTagVersion(Long shopId) {
+        String tagPairs = Arrays.stream(ProductTable.values())
+                .map(tables -> "(SELECT CONCAT(COUNT(*), ':', COALESCE(BIT_XOR(CRC32(CONCAT(t.tag_id, ':', " +
+                        "p.product_id, ':', COALESCE(p.last_updated, '')))), 0)) FROM " + tables.getTagTable() + " t " +
+                        "INNER JOIN " + tables.getProductTable() + " p ON p.product_id = t." +
+                        tables.getTagProductColumn() + " WHERE p.shop_id = sh.shop_id AND p.status = :status)")
+                .collect(Collectors.joining(", "));
+        String sql = "SELECT " + tagPairs + " FROM tbl_shop_owner_acc sh " +
+                "WHERE sh.shop_id = :shopId AND sh.status = :activeShop";
+        Map<String, Object> params = new HashMap<>();
+        params.put("shopId", shopId);
+        params.put("status", ProductStatus.ACTIVE.name());
+        params.put("activeShop", ShopOwnerStatus.ACTIVE.name());
+        return this.listVersion(sql, params);
+    }
+
+    private String productVersionSql(ProductTable tables) {
+        //rows whose stock never moved since the column was added fall back to last_updated
+        return "SELECT p.last_updated, COALESCE(p.quantity_updated, p.last_updated) AS quantity_updated, " +
+                "ps.last_updated AS summary_last_updated, " +
+                "sh.last_updated AS shop_last_updated, a.last_updated AS address_last_updated, " +
+                "p.quantity, p.status, ps.star, ps.review_total, ps.total_quantity_order, ps.discounted_price, " +
+                "sh.shop_name, sh.avatar_img_url, " +
+                "(SELECT COALESCE(BIT_XOR(CRC32(t.tag_id)), 0) FROM " + tables.getTagTable() + " t " +
+                "WHERE t." + tables.getTagProductColumn() + " = p.product_id) AS tags, " +
+                "(SELECT COALESCE(BIT_XOR(CRC32(CONCAT(pr.promotion_s_id, ':', pr.discount_rate))), 0) " +
+                "FROM tbl_product_promotion pp " +
+                "INNER JOIN tbl_promotion_shop pr ON pr.promotion_s_id = pp.promotion_s_id " +
+                "WHERE pp.product_id = p.product_id) AS promotions " +
+                "FROM " + tables.getProductTable() + " p " +
+                "INNER JOIN tbl_product_summary ps ON ps.product_id = p.product_id " +
+                "INNER JOIN tbl_shop_owner_acc sh ON sh.shop_id = p.shop_id " +
+                "LEFT JOIN tbl_address a ON a.address_id = sh.address_id " +
+                "WHERE p.product_id = :productId AND p.status IN (:statuses) AND sh.status <> :bannedShop";
+    }
+
+    private Optional<ResourceVersionDto> listVersion(String sql, Map<String, Object> params) {
+        List<ResourceVersionDto> versions = namedParameterJdbcTemplate.query(sql, params, (resultSet, rowNum) ->
+                ResourceVersionDto.builder()
+                        .eTag(this.digest(resultSet))
+                        .lastModified(-1)
+                        .build());
+        return versions.stream().findFirst();
+    }
+
+    //every column of the row, in select order
+    private String digest(ResultSet resultSet) throws SQLException {
+        StringBuilder columns = new StringBuilder();
+        int columnCount = resultSet.getMetaData().getColumnCount();
+        for (int column = 1; column <= columnCount; column++) {
+            columns.append(Objects.toString(resultSet.getString(column), "")).append('|');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(columns.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    //the latest of the timestamps, -1 when one of them was never written
+    private long lastModified(ResultSet resultSet, String... columns) throws SQLException {
+        long lastModified = -1;
+        for (String column : columns) {
+            Timestamp timestamp = resultSet.getTimestamp(column);
+            if (timestamp == null) {
+                return -1;
+            }
+            lastModified = Math.max(lastModified, timestamp.getTime());
+        }
+        return lastModified;
+    }
+}
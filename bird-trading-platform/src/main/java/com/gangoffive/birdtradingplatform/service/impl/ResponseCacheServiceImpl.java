@@ -0,0 +1,128 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.cache.CachedRoute;
+import com.gangoffive.birdtradingplatform.cache.ResponseCache;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ProductsChangedEventDto;
+import com.gangoffive.birdtradingplatform.dto.ResponseCacheStatsDto;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import com.gangoffive.birdtradingplatform.service.ResponseCacheService;
+import com.gangoffive.birdtradingplatform.util.AfterCommitCollector;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+//dependencies are collected per transaction and dropped once it commits; a response computed meanwhile
+//is not stored, since the cache refuses puts that started before one of their dependencies was invalidated
+@Service
+@Slf4j
+public class ResponseCacheServiceImpl implements ResponseCacheService {
+    //pending marker for dropping every response
+    private static final String EVERYTHING = "*";
+    private static final long DEFAULT_TTL_MILLIS = 30_000;
+    //changes that move a product between listings or change the tags its shop shows; stock, stars and sales
+    //counts only show on the listings until their ttl runs out
+    private static final Set<ProductSummaryEventType> LISTING_CHANGES = EnumSet.of(
+            ProductSummaryEventType.PROMOTION_CHANGED, ProductSummaryEventType.PRODUCT_STATUS_CHANGED);
+
+    private final AppProperties appProperties;
+    private final ResponseCache responseCache;
+    private final AfterCommitCollector<String> pendingDependencies = AfterCommitCollector.distinct(this::apply);
+
+    public ResponseCacheServiceImpl(AppProperties appProperties) {
+        this.appProperties = appProperties;
+        AppProperties.ResponseCache config = appProperties.getResponseCache();
+        this.responseCache = new ResponseCache(config.getMaxBytes(), config.getMaxEntryBytes(),
+                System::currentTimeMillis);
+    }
+
+    @Override
+    public Optional<ResponseCache.CachedResponse> get(String key) {
+        return responseCache.get(key);
+    }
+
+    @Override
+    public long generation() {
+        return responseCache.generation();
+    }
+
+    @Override
+    public void put(String key, CachedRoute.Match match, int status, String contentType, String eTag,
+                    long lastModified, byte[] body, long generation) {
+        long ttlMillis = appProperties.getResponseCache().getTtlMillis()
+                .getOrDefault(match.route().name(), DEFAULT_TTL_MILLIS);
+        responseCache.put(key, status, contentType, eTag, lastModified, body, ttlMillis, match.dependencies(),
+                generation);
+    }
+
+    @Override
+    public void evictProducts(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        this.evict(productIds.stream().map(CachedRoute::productDependency).toList());
+    }
+
+    @EventListener
+    public void onProductsChanged(ProductsChangedEventDto event) {
+        this.evictProducts(event.getProductIds());
+        if (LISTING_CHANGES.contains(event.getType())) {
+            this.evict(List.of(CachedRoute.LISTING.name(), CachedRoute.TAG.name()));
+        }
+    }
+
+    @Override
+    public void evictReviews(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        this.evict(productIds.stream().map(CachedRoute::reviewDependency).toList());
+    }
+
+    @Override
+    public void evictPromotions() {
+        this.evict(List.of(CachedRoute.PROMOTION.name()));
+    }
+
+    @Override
+    public void evictTypes() {
+        this.evict(List.of(CachedRoute.TYPE.name()));
+    }
+
+    @Override
+    public void evictShops(Collection<Long> shopIds) {
+        if (shopIds == null || shopIds.isEmpty()) {
+            return;
+        }
+        this.evict(List.of(EVERYTHING));
+    }
+
+    @Override
+    public ResponseCacheStatsDto getStats() {
+        ResponseCache.Stats stats = responseCache.stats();
+        long requests = stats.hits() + stats.misses();
+        return ResponseCacheStatsDto.builder()
+                .hits(stats.hits())
+                .misses(stats.misses())
+                .hitRatio(requests == 0 ? 0 : Math.round((double) stats.hits() / requests * 1000.0) / 1000.0)
+                .evictions(stats.evictions())
+                .invalidations(stats.invalidations())
+                .entries(stats.entries())
+                .bytes(stats.bytes())
+                .build();
+    }
+
+    private void evict(Collection<String> dependencies) {
+        pendingDependencies.addAll(dependencies);
+    }
+
+    private void apply(Collection<String> dependencies) {
+        if (dependencies.contains(EVERYTHING)) {
+            responseCache.clear();
+            return;
+        }
+        dependencies.forEach(responseCache::invalidate);
+    }
+}
@@ -11,6 +11,7 @@ import com.gangoffive.birdtradingplatform.entity.OrderDetail;
 import com.gangoffive.birdtradingplatform.entity.Review;
 import com.gangoffive.birdtradingplatform.enums.FieldReviewTable;
 import com.gangoffive.birdtradingplatform.enums.Operator;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
 import com.gangoffive.birdtradingplatform.enums.ReviewRating;
 import com.gangoffive.birdtradingplatform.enums.SortReviewColumn;
 import com.gangoffive.birdtradingplatform.mapper.AccountMapper;
@@ -20,6 +21,7 @@ import com.gangoffive.birdtradingplatform.repository.OrderRepository;
 import com.gangoffive.birdtradingplatform.repository.ReviewRepository;
 import com.gangoffive.birdtradingplatform.service.NotificationService;
 import com.gangoffive.birdtradingplatform.service.ProductSummaryService;
+import com.gangoffive.birdtradingplatform.service.ResponseCacheService;
 import com.gangoffive.birdtradingplatform.service.ReviewService;
 import com.gangoffive.birdtradingplatform.util.*;
 import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
@@ -49,6 +51,7 @@ public class ReviewServiceImpl implements ReviewService {
     private final ProductSummaryService productSummaryService;
     private final NotificationService notificationService;
     private final OrderRepository orderRepository;
+    private final ResponseCacheService responseCacheService;
 
 
     @Override
@@ -102,8 +105,12 @@ public class ReviewServiceImpl implements ReviewService {
                     .collect(Collectors.joining(","));
             reviewSave.setImgUrl(imgUrl);
             Review save = reviewRepository.save(reviewSave);
-            productSummaryService.updateReviewTotal(save.getOrderDetail().getProduct());
-            productSummaryService.updateProductStar(save.getOrderDetail().getProduct());
+            productSummaryService.publishEvent(ProductSummaryEventDto.builder()
+                    .productId(save.getOrderDetail().getProduct().getId())
+                    .type(ProductSummaryEventType.REVIEW_ADDED)
+                    .star(save.getRating().getStar())
+                    .build());
+            responseCacheService.evictReviews(List.of(save.getOrderDetail().getProduct().getId()));
             //send notification for shop
             Optional<Long> accountShopId = orderRepository.findAccountIdOfShopByOrderDetailId(orderDetails.get().getId());
             if(accountShopId.isPresent()){
@@ -0,0 +1,159 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.service.ShippingQuoteService;
+import com.gangoffive.birdtradingplatform.util.CircuitBreaker;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//one keep-alive client for the ship service; the distances of a cart are asked at the same time and their
+//fees cached per exact distance, the fee checkout compares the cart against is the one the ship service gave
+//for that distance. A run of failed calls opens the breaker and the quotes fail fast until
+//the ship service is tried again.
+@Service
+@Slf4j
+public class ShippingQuoteServiceImpl implements ShippingQuoteService {
+    private static final double NOT_SHIPPABLE = -1;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final AppProperties.Ship config;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<Long, CachedFee> cache = new ConcurrentHashMap<>();
+
+    private record CachedFee(double fee, long expiresAtMillis) {
+    }
+
+    public ShippingQuoteServiceImpl(AppProperties appProperties) {
+        this.config = appProperties.getShip();
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, config.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "shipping-quote-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMillis()))
+                .executor(executor)
+                .build();
+        this.circuitBreaker = new CircuitBreaker(config.getFailureThreshold(), config.getOpenMillis(),
+                System::currentTimeMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Map<Double, Double> quote(Collection<Double> distances) {
+        Map<Double, Double> fees = new HashMap<>();
+        Map<Double, CompletableFuture<Double>> pending = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        for (Double distance : new LinkedHashSet<>(distances)) {
+            CachedFee cached = cache.get(Double.doubleToLongBits(distance));
+            if (cached != null && cached.expiresAtMillis() > now) {
+                fees.put(distance, cached.fee());
+            } else {
+                pending.put(distance, this.fetch(distance));
+            }
+        }
+        //every request has its own timeout, this only guards against one that never completes
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(config.getConnectTimeoutMillis() + config.getRequestTimeoutMillis());
+        pending.forEach((distance, future) -> {
+            try {
+                fees.put(distance, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | ExecutionException e) {
+                fees.put(distance, NOT_SHIPPABLE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fees.put(distance, NOT_SHIPPABLE);
+            }
+        });
+        return fees;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private CompletableFuture<Double> fetch(double distance) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.completedFuture(NOT_SHIPPABLE);
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(UriComponentsBuilder.fromUriString(config.getUrl())
+                        .queryParam("distance", distance)
+                        .build()
+                        .toUri())
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .timeout(Duration.ofMillis(config.getRequestTimeoutMillis()))
+                .GET()
+                .build();
+        try {
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .handle((response, ex) -> this.onResponse(distance, response, ex));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(this.onResponse(distance, null, e));
+        }
+    }
+
+    private double onResponse(double distance, HttpResponse<String> response, Throwable ex) {
+        if (ex != null) {
+            log.warn("Shipping fee for distance {} failed: {}", distance, ex.toString());
+            circuitBreaker.onFailure();
+            return NOT_SHIPPABLE;
+        }
+        //the ship service does not deliver that far, a real answer
+        if (response.statusCode() == HttpStatus.NOT_ACCEPTABLE.value()) {
+            circuitBreaker.onSuccess();
+            this.cache(distance, NOT_SHIPPABLE);
+            return NOT_SHIPPABLE;
+        }
+        if (response.statusCode() == HttpStatus.OK.value()) {
+            try {
+                JsonNode shippingFee = OBJECT_MAPPER.readTree(response.body()).get("shippingFee");
+                if (shippingFee != null && shippingFee.isNumber()) {
+                    circuitBreaker.onSuccess();
+                    this.cache(distance, shippingFee.asDouble());
+                    return shippingFee.asDouble();
+                }
+            } catch (Exception e) {
+                log.warn("Shipping fee for distance {} unreadable: {}", distance, e.getMessage());
+            }
+        } else {
+            log.warn("Shipping fee for distance {} answered {}", distance, response.statusCode());
+        }
+        circuitBreaker.onFailure();
+        return NOT_SHIPPABLE;
+    }
+
+    private void cache(double distance, double fee) {
+        long now = System.currentTimeMillis();
+        if (cache.size() >= config.getMaxCacheEntries()) {
+            cache.values().removeIf(cached -> cached.expiresAtMillis() <= now);
+            if (cache.size() >= config.getMaxCacheEntries()) {
+                cache.clear();
+            }
+        }
+        cache.put(Double.doubleToLongBits(distance), new CachedFee(fee, now + config.getCacheTtlMillis()));
+    }
+}
@@ -17,7 +17,11 @@ import com.gangoffive.birdtradingplatform.security.UserPrincipal;
 import com.gangoffive.birdtradingplatform.service.ChannelService;
 import com.gangoffive.birdtradingplatform.service.JwtService;
 import com.gangoffive.birdtradingplatform.service.NotificationService;
+import com.gangoffive.birdtradingplatform.service.ProductCatalogService;
+import com.gangoffive.birdtradingplatform.service.ProductSimilarityService;
+import com.gangoffive.birdtradingplatform.service.ResponseCacheService;
 import com.gangoffive.birdtradingplatform.service.ShopOwnerService;
+import com.gangoffive.birdtradingplatform.service.TopProductService;
 import com.gangoffive.birdtradingplatform.util.*;
 import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
 import lombok.RequiredArgsConstructor;
@@ -64,6 +68,10 @@ public class ShopOwnerServiceImpl implements ShopOwnerService {
     private final PasswordEncoder passwordEncoder;
     private final ReviewRepository reviewRepository;
     private final NotificationService notificationService;
+    private final ProductCatalogService productCatalogService;
+    private final TopProductService topProductService;
+    private final ProductSimilarityService productSimilarityService;
+    private final ResponseCacheService responseCacheService;
 
 
     @Override
@@ -993,6 +1001,10 @@ public class ShopOwnerServiceImpl implements ShopOwnerService {
             int numberStatusChange = shopOwnerRepository.updateListShopOwnerStatus(
                     shopOwnerStatus, changeStatusListIdDto.getIds()
             );
+            productCatalogService.syncShops(changeStatusListIdDto.getIds());
+            topProductService.refreshShops(changeStatusListIdDto.getIds());
+            productSimilarityService.refreshShops(changeStatusListIdDto.getIds());
+            responseCacheService.evictShops(changeStatusListIdDto.getIds());
             List<ShopOwner> shopOwners = shopOwnerRepository.findAllById(changeStatusListIdDto.getIds());
             List<Long> listAccountId = shopOwners.stream().map(s -> s.getAccount().getId()).toList();
             if(listAccountId.size() > 0) {
@@ -0,0 +1,159 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.common.ScheduleConstant;
+import com.gangoffive.birdtradingplatform.dto.ProductsChangedEventDto;
+import com.gangoffive.birdtradingplatform.entity.StockReservation;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import com.gangoffive.birdtradingplatform.enums.ReservationStatus;
+import com.gangoffive.birdtradingplatform.repository.AccessoryRepository;
+import com.gangoffive.birdtradingplatform.repository.BirdRepository;
+import com.gangoffive.birdtradingplatform.repository.FoodRepository;
+import com.gangoffive.birdtradingplatform.repository.StockReservationRepository;
+import com.gangoffive.birdtradingplatform.service.StockReservationService;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+//stock is taken with conditional decrements (quantity >= ?) in ascending product id order so concurrent
+//checkouts lock rows in the same order; a failed item does not undo earlier ones, callers roll back instead
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationServiceImpl implements StockReservationService {
+    private final BirdRepository birdRepository;
+    private final FoodRepository foodRepository;
+    private final AccessoryRepository accessoryRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Optional<Long> reserve(Map<Long, Integer> productOrder) {
+        for (Map.Entry<Long, Integer> item : new TreeMap<>(productOrder).entrySet()) {
+            if (!this.decreaseQuantity(item.getKey(), item.getValue())) {
+                log.info("Product {} does not have {} in stock", item.getKey(), item.getValue());
+                return Optional.of(item.getKey());
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Optional<Long> reserveForPayment(String paymentId, Map<Long, Integer> productOrder) {
+        Optional<Long> outOfStock = this.reserve(productOrder);
+        if (outOfStock.isPresent()) {
+            return outOfStock;
+        }
+        Date expiredDate = new Date(System.currentTimeMillis() + ScheduleConstant.STOCK_RESERVATION_TIMEOUT);
+        List<StockReservation> reservations = new TreeMap<>(productOrder).entrySet().stream()
+                .map(item -> StockReservation.builder()
+                        .paymentId(paymentId)
+                        .productId(item.getKey())
+                        .quantity(item.getValue())
+                        .status(ReservationStatus.RESERVED)
+                        .expiredDate(expiredDate)
+                        .build())
+                .toList();
+        stockReservationRepository.saveAll(reservations);
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Optional<Long> confirmPayment(String paymentId, Map<Long, Integer> productOrder) {
+        Map<Long, Integer> stillReserved = new HashMap<>();
+        stockReservationRepository.findByPaymentIdAndStatusOrderByProductId(paymentId, ReservationStatus.RESERVED)
+                .forEach(reservation -> {
+                    if (stockReservationRepository.updateStatus(reservation.getId(),
+                            ReservationStatus.COMMITTED, ReservationStatus.RESERVED) == 1) {
+                        stillReserved.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+                    }
+                });
+        //reservation expired (or the cart changed) while the buyer was on paypal: take the difference now
+        Map<Long, Integer> missing = new TreeMap<>();
+        Map<Long, Integer> surplus = new TreeMap<>();
+        productOrder.forEach((productId, quantity) -> {
+            int reserved = stillReserved.getOrDefault(productId, 0);
+            if (quantity > reserved) {
+                missing.put(productId, quantity - reserved);
+            } else if (quantity < reserved) {
+                surplus.put(productId, reserved - quantity);
+            }
+        });
+        stillReserved.forEach((productId, reserved) -> {
+            if (!productOrder.containsKey(productId)) {
+                surplus.put(productId, reserved);
+            }
+        });
+        Optional<Long> outOfStock = this.reserve(missing);
+        if (outOfStock.isPresent()) {
+            return outOfStock;
+        }
+        surplus.forEach(this::increaseQuantity);
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void cancelPayment(String paymentId, Map<Long, Integer> productOrder) {
+        stockReservationRepository.findByPaymentIdAndStatusOrderByProductId(paymentId, ReservationStatus.COMMITTED)
+                .forEach(reservation -> stockReservationRepository.updateStatus(reservation.getId(),
+                        ReservationStatus.RELEASED, ReservationStatus.COMMITTED));
+        //after confirmPayment exactly the cart quantities are held for the payment
+        new TreeMap<>(productOrder).forEach(this::increaseQuantity);
+    }
+
+    @Override
+    @Scheduled(fixedDelay = 60 * 1000)
+    @Transactional
+    public int releaseExpiredReservations() {
+        int released = 0;
+        List<StockReservation> expiredReservations = stockReservationRepository
+                .findByStatusAndExpiredDateBeforeOrderByProductId(ReservationStatus.RESERVED, new Date());
+        for (StockReservation reservation : expiredReservations) {
+            if (stockReservationRepository.updateStatus(reservation.getId(),
+                    ReservationStatus.RELEASED, ReservationStatus.RESERVED) == 1) {
+                this.increaseQuantity(reservation.getProductId(), reservation.getQuantity());
+                released++;
+            }
+        }
+        if (released > 0) {
+            log.info("Released {} expired stock reservations", released);
+        }
+        return released;
+    }
+
+    //product ids are unique across the bird, food and accessory tables so at most one update matches
+    private boolean decreaseQuantity(Long productId, Integer quantity) {
+        if (productId == null || quantity == null || quantity <= 0) {
+            return false;
+        }
+        boolean decreased = birdRepository.decreaseQuantity(productId, quantity) > 0
+                || foodRepository.decreaseQuantity(productId, quantity) > 0
+                || accessoryRepository.decreaseQuantity(productId, quantity) > 0;
+        if (decreased) {
+            this.publishQuantityChanged(productId);
+        }
+        return decreased;
+    }
+
+    private void increaseQuantity(Long productId, Integer quantity) {
+        if (birdRepository.increaseQuantity(productId, quantity) == 0
+                && foodRepository.increaseQuantity(productId, quantity) == 0) {
+            accessoryRepository.increaseQuantity(productId, quantity);
+        }
+        this.publishQuantityChanged(productId);
+    }
+
+    //the summary row has nothing to add up for stock, only the read models that show it refresh after commit
+    private void publishQuantityChanged(Long productId) {
+        applicationEventPublisher.publishEvent(
+                new ProductsChangedEventDto(ProductSummaryEventType.QUANTITY_CHANGED, List.of(productId)));
+    }
+}
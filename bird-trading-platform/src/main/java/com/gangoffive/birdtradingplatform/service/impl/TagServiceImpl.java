@@ -1,37 +1,40 @@
 package com.gangoffive.birdtradingplatform.service.impl;
 
 import com.gangoffive.birdtradingplatform.api.response.ErrorResponse;
+import com.gangoffive.birdtradingplatform.cache.ReferenceData;
 import com.gangoffive.birdtradingplatform.dto.ProductTagDto;
 import com.gangoffive.birdtradingplatform.dto.TagDto;
 import com.gangoffive.birdtradingplatform.dto.TagShopDto;
-import com.gangoffive.birdtradingplatform.entity.*;
+import com.gangoffive.birdtradingplatform.entity.ShopOwner;
+import com.gangoffive.birdtradingplatform.entity.Tag;
 import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.enums.ProductTable;
 import com.gangoffive.birdtradingplatform.enums.ShopOwnerStatus;
-import com.gangoffive.birdtradingplatform.repository.*;
+import com.gangoffive.birdtradingplatform.repository.ShopOwnerRepository;
+import com.gangoffive.birdtradingplatform.repository.TagRepository;
+import com.gangoffive.birdtradingplatform.service.ReferenceDataService;
 import com.gangoffive.birdtradingplatform.service.TagService;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TagServiceImpl implements TagService {
     private final TagRepository tagRepository;
-    private final ProductRepository productRepository;
     private final ShopOwnerRepository shopOwnerRepository;
-    private final BirdRepository birdRepository;
-    private final AccessoryRepository accessoryRepository;
-    private final FoodRepository foodRepository;
+    private final ReferenceDataService referenceDataService;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     @Override
     public List<Tag> getAllTags() {
-        return tagRepository.findAll();
+        return referenceDataService.getReferenceData().tags().all();
     }
 
     @Override
@@ -47,6 +50,7 @@ public class TagServiceImpl implements TagService {
         Tag newTag = new Tag();
         newTag.setName(name);
         Tag save = tagRepository.save(newTag);
+        referenceDataService.publishChange(ReferenceData.Change.TAG);
         TagDto tagDto = TagDto.builder()
                 .id(save.getId())
                 .name(save.getName())
@@ -57,123 +61,54 @@ public class TagServiceImpl implements TagService {
     @Override
     public ResponseEntity<?> getAllTagByShopOwnerId(Long shopId) {
         Optional<ShopOwner> shopOwner = shopOwnerRepository.findByIdAndStatus(shopId, ShopOwnerStatus.ACTIVE);
-        if (shopOwner.isPresent()) {
-            List<Tag> tags = new ArrayList<>();
-            Optional<List<Bird>> birds = birdRepository.findAllByShopOwnerAndStatus(shopOwner.get(), ProductStatus.ACTIVE);
-            Optional<List<Food>> foods = foodRepository.findAllByShopOwnerAndStatus(shopOwner.get(), ProductStatus.ACTIVE);
-            Optional<List<Accessory>> accessories = accessoryRepository.findAllByShopOwnerAndStatus(shopOwner.get(), ProductStatus.ACTIVE);
-            birds.ifPresent(birdList -> birdList.forEach(bird -> {
-                if (bird.getTags() != null) {
-                    tags.addAll(bird.getTags());
-                }
-            }));
-
-            foods.ifPresent(foodList -> foodList.forEach(food -> {
-                if (food.getTags() != null) {
-                    tags.addAll(food.getTags());
-                }
-            }));
-
-            accessories.ifPresent(accessoryList -> accessoryList.forEach(accessory -> {
-                if (accessory.getTags() != null) {
-                    tags.addAll(accessory.getTags());
-                }
-            }));
-
-            if (tags.size() == 0) {
-                ResponseUtils.getErrorResponseNotFound("Not found tag in this shop.");
-            }
-
-            // Create a map to store the count of each tag
-            Map<Tag, Integer> tagCountMap = new HashMap<>();
-            for (Tag tag : tags) {
-                tagCountMap.put(tag, tagCountMap.getOrDefault(tag, 0) + 1);
-            }
-
-// Filter out the tags that have at least two products
-            List<Tag> tagsWithTwoProducts = tagCountMap.entrySet().stream()
-                    .filter(entry -> entry.getValue() >= 2)
-                    .map(Map.Entry::getKey)
-                    .distinct()
-                    .toList();
-            List<TagShopDto> tagShopList = new ArrayList<>();
-            tagsWithTwoProducts.forEach(tag -> {
-                List<ProductTagDto> productTagList = new ArrayList<>();
-                final int[] count = {0};
-                if (count[0] < 2) {
-                    Optional<List<Bird>> birdList = birdRepository.findByTagsInAndShopOwner_IdAndStatus(
-                            Collections.singletonList(tag), shopId, ProductStatus.ACTIVE
-                    );
-                    if (birdList.isPresent()) {
-                        birdList.get().forEach(bird -> {
-                            if (count[0] >= 2) {
-                                return;
-                            }
-                            productTagList.add(ProductTagDto.builder()
-                                    .id(bird.getId())
-                                    .name(bird.getName())
-                                    .urlImg(Arrays.stream(bird.getImgUrl().split(",")).findFirst().get().toString())
-                                    .build());
-                            count[0]++;
-                        });
-                    }
-                }
-
-                if (count[0] < 2) {
-                    Optional<List<Food>> foodList = foodRepository.findByTagsInAndShopOwner_IdAndStatus(
-                            Collections.singletonList(tag), shopId, ProductStatus.ACTIVE
-                    );
-                    if (foodList.isPresent()) {
-                        foodList.get().forEach(food -> {
-                            if (count[0] >= 2) {
-                                return;
-                            }
-                            productTagList.add(ProductTagDto.builder()
-                                    .id(food.getId())
-                                    .name(food.getName())
-                                    .urlImg(Arrays.stream(food.getImgUrl().split(",")).findFirst().get().toString())
-                                    .build());
-                            count[0]++;
-                        });
-                    }
-                }
-
-                if (count[0] < 2) {
-                    Optional<List<Accessory>> accessoryList = accessoryRepository.findByTagsInAndShopOwner_IdAndStatus(
-                            Collections.singletonList(tag), shopId, ProductStatus.ACTIVE
-                    );
-                    if (accessoryList.isPresent()) {
-                        accessoryList.get().forEach(accessory -> {
-                            if (count[0] >= 2) {
-                                return;
-                            }
-                            productTagList.add(ProductTagDto.builder()
-                                    .id(accessory.getId())
-                                    .name(accessory.getName())
-                                    .urlImg(Arrays.stream(accessory.getImgUrl().split(",")).findFirst().get().toString())
-                                    .build());
-                            count[0]++;
-                        });
-                    }
-                }
-
-                TagShopDto tagShop = TagShopDto.builder()
-                        .tag(tag)
-                        .productTagList(productTagList)
-                        .build();
-                tagShopList.add(tagShop);
-            });
-            if (tagsWithTwoProducts.isEmpty()) {
-                return ResponseUtils.getErrorResponseNotFound("Not found any tag with at least two products in this shop.");
-            } else {
-                return ResponseEntity.ok(tagShopList);
-            }
-//            List<Tag> distinctTags = tags.stream()
-//                    .collect(Collectors.toMap(Tag::getId, Function.identity(), (tag1, tag2) -> tag1))
-//                    .values()
-//                    .stream().toList();
-        } else {
+        if (shopOwner.isEmpty()) {
             return ResponseUtils.getErrorResponseBadRequest("Not found this shop id");
         }
+        //tag and product pairs of the shop, birds then foods then accessories like the pages show them
+        String sql = Arrays.stream(ProductTable.values())
+                .map(tables -> "SELECT t.tag_id, " + tables.getCategoryId() + " AS category, p.product_id, p.name, p.img_url " +
+                        "FROM " + tables.getTagTable() + " t INNER JOIN " + tables.getProductTable() + " p " +
+                        "ON p.product_id = t." + tables.getTagProductColumn() + " " +
+                        "WHERE p.shop_id = :shopId AND p.status = :status")
+                .collect(Collectors.joining(" UNION ALL ")) + " ORDER BY tag_id, category, product_id";
+        Map<String, Object> params = new HashMap<>();
+        params.put("shopId", shopId);
+        params.put("status", ProductStatus.ACTIVE.name());
+        Map<Long, List<ProductTagDto>> productsByTagId = new LinkedHashMap<>();
+        Map<Long, Integer> productCountByTagId = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, params, resultSet -> {
+            long tagId = resultSet.getLong("tag_id");
+            productCountByTagId.merge(tagId, 1, Integer::sum);
+            List<ProductTagDto> productTagList = productsByTagId.computeIfAbsent(tagId, id -> new ArrayList<>());
+            if (productTagList.size() < 2) {
+                productTagList.add(ProductTagDto.builder()
+                        .id(resultSet.getLong("product_id"))
+                        .name(resultSet.getString("name"))
+                        .urlImg(resultSet.getString("img_url").split(",")[0])
+                        .build());
+            }
+        });
+        List<Long> tagIdsWithTwoProducts = productCountByTagId.entrySet().stream()
+                .filter(entry -> entry.getValue() >= 2)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        if (tagIdsWithTwoProducts.isEmpty()) {
+            return ResponseUtils.getErrorResponseNotFound("Not found any tag with at least two products in this shop.");
+        }
+        Map<Long, Tag> tagsById = new HashMap<>(referenceDataService.getReferenceData().tagsById());
+        //created on another node, the change has not reached this one yet
+        List<Long> missingTagIds = tagIdsWithTwoProducts.stream().filter(id -> !tagsById.containsKey(id)).toList();
+        if (!missingTagIds.isEmpty()) {
+            tagRepository.findByIdIn(missingTagIds).forEach(tag -> tagsById.put(tag.getId(), tag));
+        }
+        List<TagShopDto> tagShopList = tagIdsWithTwoProducts.stream()
+                .filter(tagsById::containsKey)
+                .map(tagId -> TagShopDto.builder()
+                        .tag(tagsById.get(tagId))
+                        .productTagList(productsByTagId.get(tagId))
+                        .build())
+                .toList();
+        return ResponseEntity.ok(tagShopList);
     }
 }
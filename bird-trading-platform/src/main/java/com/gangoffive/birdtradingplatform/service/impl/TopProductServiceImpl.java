@@ -0,0 +1,202 @@
+package com.gangoffive.birdtradingplatform.service.impl;
+
+import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
+import com.gangoffive.birdtradingplatform.common.ShopOwnerConstant;
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
+import com.gangoffive.birdtradingplatform.dto.ProductsChangedEventDto;
+import com.gangoffive.birdtradingplatform.enums.Category;
+import com.gangoffive.birdtradingplatform.enums.ProductTable;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import com.gangoffive.birdtradingplatform.search.Leaderboard;
+import com.gangoffive.birdtradingplatform.service.ProductCartService;
+import com.gangoffive.birdtradingplatform.service.TopProductService;
+import com.gangoffive.birdtradingplatform.util.AfterCommitCollector;
+import com.gangoffive.birdtradingplatform.util.BackgroundRebuild;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//one leaderboard per category kept in memory with its rendered cards; a change to a product on a board only
+//bumps the category version, the cards are rendered again by the next request
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TopProductServiceImpl implements TopProductService {
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ProductCartService productCartService;
+    private final AppProperties appProperties;
+
+    private final Map<Category, Leaderboard> leaderboards = new ConcurrentHashMap<>();
+    private final Map<Category, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<Category, RenderedCards> renderedCards = new ConcurrentHashMap<>();
+    //the boards are loaded and changed under one lock, so a change made while loading needs no replay
+    private final BackgroundRebuild<Long> reloads =
+            new BackgroundRebuild<>("top product leaderboards", this::reload, this::apply);
+    private final AfterCommitCollector<Long> pendingIds = AfterCommitCollector.distinct(reloads::apply);
+
+    private record RenderedCards(long version, List<ProductCartDto> cards) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        //a board not loaded yet is loaded by the first request for it
+        reloads.start();
+    }
+
+    //catches changes made by other instances
+    @Scheduled(initialDelayString = "${app.topProducts.reloadIntervalMillis}", fixedDelayString = "${app.topProducts.reloadIntervalMillis}")
+    public void scheduledReload() {
+        reloads.rebuildIfIdle();
+    }
+
+    @Override
+    public List<ProductCartDto> getTopProducts(Category category) {
+        //read before the board, so a board swapped in meanwhile is never cached under its own version
+        long version = this.version(category).get();
+        Leaderboard leaderboard = leaderboards.get(category);
+        if (leaderboard == null) {
+            leaderboard = this.load(category);
+        }
+        RenderedCards rendered = renderedCards.get(category);
+        if (rendered != null && rendered.version() == version) {
+            return rendered.cards();
+        }
+        //a change landing while rendering bumps the version again, so these cards are rendered once more next time
+        List<ProductCartDto> cards = productCartService.buildProductCarts(leaderboard.top());
+        renderedCards.put(category, new RenderedCards(version, cards));
+        return cards;
+    }
+
+    @Override
+    public void refresh(Collection<Long> productIds) {
+        pendingIds.addAll(productIds);
+    }
+
+    @EventListener
+    public void onProductsChanged(ProductsChangedEventDto event) {
+        //stock moves on every checkout; a product that sold out leaves with its order detail event or the reload
+        if (event.getType() == ProductSummaryEventType.QUANTITY_CHANGED) {
+            return;
+        }
+        this.refresh(event.getProductIds());
+    }
+
+    @Override
+    public void refreshShops(Collection<Long> shopIds) {
+        if (shopIds == null || shopIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.reload();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+
+    @Override
+    public void reload() {
+        try {
+            for (Category category : Category.values()) {
+                this.load(category);
+            }
+        } catch (Exception e) {
+            log.error("Could not load the top product leaderboards", e);
+        }
+    }
+
+    private synchronized void apply(List<Long> productIds) {
+        Map<String, Object> params = this.listedParams();
+        params.put("ids", productIds);
+        Set<Long> found = new HashSet<>();
+        Arrays.stream(ProductTable.values()).forEach(tables -> {
+            Category category = tables.getCategory();
+            Leaderboard leaderboard = leaderboards.get(category);
+            if (leaderboard == null) {
+                return;
+            }
+            String sql = "SELECT p.product_id, ps.star, ps.total_quantity_order, " +
+                    "(" + ProductStatusConstant.LISTED_FOR_USER_SQL + ") AS listed " +
+                    this.from(tables.getProductTable()) + "WHERE p.product_id IN (:ids)";
+            boolean[] changed = {false};
+            namedParameterJdbcTemplate.query(sql, params, resultSet -> {
+                long productId = resultSet.getLong("product_id");
+                found.add(productId);
+                boolean held = leaderboard.contains(productId);
+                if (resultSet.getBoolean("listed")) {
+                    leaderboard.put(new Leaderboard.Entry(productId, resultSet.getDouble("star"),
+                            resultSet.getDouble("total_quantity_order")));
+                } else {
+                    leaderboard.remove(productId);
+                }
+                changed[0] |= held || leaderboard.contains(productId);
+            });
+            if (leaderboard.isStale()) {
+                this.load(category);
+            } else if (changed[0]) {
+                this.version(category).incrementAndGet();
+            }
+        });
+        //deleted products and products without a summary row
+        productIds.stream().filter(productId -> !found.contains(productId)).forEach(productId ->
+                leaderboards.forEach((category, leaderboard) -> {
+                    if (leaderboard.contains(productId)) {
+                        leaderboard.remove(productId);
+                        if (leaderboard.isStale()) {
+                            this.load(category);
+                        } else {
+                            this.version(category).incrementAndGet();
+                        }
+                    }
+                }));
+    }
+
+    private synchronized Leaderboard load(Category category) {
+        AppProperties.TopProducts config = appProperties.getTopProducts();
+        int capacity = Math.max(config.getSize(), config.getCapacity());
+        Map<String, Object> params = this.listedParams();
+        params.put("capacity", capacity);
+        String sql = "SELECT p.product_id, ps.star, ps.total_quantity_order " + this.from(ProductTable.of(category).getProductTable()) +
+                "WHERE " + ProductStatusConstant.LISTED_FOR_USER_SQL + " ORDER BY ps.star DESC, ps.total_quantity_order DESC, p.product_id LIMIT :capacity";
+        List<Leaderboard.Entry> best = namedParameterJdbcTemplate.query(sql, params, (resultSet, rowNum) ->
+                new Leaderboard.Entry(resultSet.getLong("product_id"), resultSet.getDouble("star"),
+                        resultSet.getDouble("total_quantity_order")));
+        Leaderboard leaderboard = Leaderboard.build(config.getSize(), capacity, best);
+        leaderboards.put(category, leaderboard);
+        this.version(category).incrementAndGet();
+        return leaderboard;
+    }
+
+    private String from(String productTable) {
+        return "FROM " + productTable + " p " +
+                "INNER JOIN tbl_product_summary ps ON ps.product_id = p.product_id " +
+                "INNER JOIN tbl_shop_owner_acc sh ON sh.shop_id = p.shop_id ";
+    }
+
+    private Map<String, Object> listedParams() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("quantity", ProductStatusConstant.QUANTITY_PRODUCT_FOR_USER);
+        params.put("statuses", ProductStatusConstant.LIST_STATUS_GET_FOR_USER.stream().map(Enum::name).toList());
+        params.put("shopStatuses", ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER_STRING);
+        return params;
+    }
+
+    private AtomicLong version(Category category) {
+        return versions.computeIfAbsent(category, key -> new AtomicLong());
+    }
+}
@@ -1,9 +1,11 @@
 package com.gangoffive.birdtradingplatform.service.impl;
 
+import com.gangoffive.birdtradingplatform.cache.ReferenceData;
 import com.gangoffive.birdtradingplatform.dto.TypeDto;
 import com.gangoffive.birdtradingplatform.entity.TypeAccessory;
 import com.gangoffive.birdtradingplatform.mapper.TypeMapper;
 import com.gangoffive.birdtradingplatform.repository.TypeAccessoryRepository;
+import com.gangoffive.birdtradingplatform.service.ReferenceDataService;
 import com.gangoffive.birdtradingplatform.service.TypeAccessoryService;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import com.sun.mail.iap.Response;
@@ -19,11 +21,12 @@ import java.util.List;
 @Slf4j
 public class TypeAccessoryServiceImpl implements TypeAccessoryService {
     private final TypeAccessoryRepository typeAccessoryRepository;
+    private final ReferenceDataService referenceDataService;
     private final TypeMapper typeMapper;
 
     @Override
     public List<TypeAccessory> getAllTypeAccessory() {
-        return typeAccessoryRepository.findAll();
+        return referenceDataService.getReferenceData().typeAccessories().all();
     }
 
     @Override
@@ -31,6 +34,7 @@ public class TypeAccessoryServiceImpl implements TypeAccessoryService {
         if(typeDto != null) {
             TypeAccessory type = typeMapper.dtoToModelAccessory(typeDto);
             typeAccessoryRepository.save(type);
+            referenceDataService.publishChange(ReferenceData.Change.TYPE_ACCESSORY);
             return ResponseEntity.ok("Create successfully!");
         }
         return ResponseUtils.getErrorResponseBadRequest("Some thing went wrong!");
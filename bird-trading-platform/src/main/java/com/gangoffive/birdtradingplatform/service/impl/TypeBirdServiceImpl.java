@@ -1,10 +1,12 @@
 package com.gangoffive.birdtradingplatform.service.impl;
 
+import com.gangoffive.birdtradingplatform.cache.ReferenceData;
 import com.gangoffive.birdtradingplatform.dto.TypeDto;
 import com.gangoffive.birdtradingplatform.entity.TypeAccessory;
 import com.gangoffive.birdtradingplatform.entity.TypeBird;
 import com.gangoffive.birdtradingplatform.mapper.TypeMapper;
 import com.gangoffive.birdtradingplatform.repository.TypeBirdRepository;
+import com.gangoffive.birdtradingplatform.service.ReferenceDataService;
 import com.gangoffive.birdtradingplatform.service.TypeBirdService;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import lombok.RequiredArgsConstructor;
@@ -19,11 +21,12 @@ import java.util.List;
 @Slf4j
 public class TypeBirdServiceImpl implements TypeBirdService {
     private final TypeBirdRepository typeBirdRepository;
+    private final ReferenceDataService referenceDataService;
     private final TypeMapper typeMapper;
 
     @Override
     public List<TypeBird> getAllTypeBird() {
-        return typeBirdRepository.findAll();
+        return referenceDataService.getReferenceData().typeBirds().all();
     }
 
     @Override
@@ -31,6 +34,7 @@ public class TypeBirdServiceImpl implements TypeBirdService {
         if(typeDto != null) {
             TypeBird type = typeMapper.dtoToModelBird(typeDto);
             typeBirdRepository.save(type);
+            referenceDataService.publishChange(ReferenceData.Change.TYPE_BIRD);
             return ResponseEntity.ok("Create successfully!");
         }
         return ResponseUtils.getErrorResponseBadRequest("Some thing went wrong!");
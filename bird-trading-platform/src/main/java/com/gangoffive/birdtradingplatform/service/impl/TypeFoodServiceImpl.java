@@ -1,10 +1,12 @@
 package com.gangoffive.birdtradingplatform.service.impl;
 
+import com.gangoffive.birdtradingplatform.cache.ReferenceData;
 import com.gangoffive.birdtradingplatform.dto.TypeDto;
 import com.gangoffive.birdtradingplatform.entity.TypeBird;
 import com.gangoffive.birdtradingplatform.entity.TypeFood;
 import com.gangoffive.birdtradingplatform.mapper.TypeMapper;
 import com.gangoffive.birdtradingplatform.repository.TypeFoodRepository;
+import com.gangoffive.birdtradingplatform.service.ReferenceDataService;
 import com.gangoffive.birdtradingplatform.service.TypeFoodService;
 import com.gangoffive.birdtradingplatform.util.ResponseUtils;
 import lombok.RequiredArgsConstructor;
@@ -19,11 +21,12 @@ import java.util.List;
 @Slf4j
 public class TypeFoodServiceImpl implements TypeFoodService {
     private final TypeFoodRepository typeFoodRepository;
+    private final ReferenceDataService referenceDataService;
     private final TypeMapper typeMapper;
 
     @Override
     public List<TypeFood> getAllTypeFood() {
-        return typeFoodRepository.findAll();
+        return referenceDataService.getReferenceData().typeFoods().all();
     }
 
     @Override
@@ -31,6 +34,7 @@ public class TypeFoodServiceImpl implements TypeFoodService {
         if(typeDto != null) {
             TypeFood type = typeMapper.dtoToModelFood(typeDto);
             typeFoodRepository.save(type);
+            referenceDataService.publishChange(ReferenceData.Change.TYPE_FOOD);
             return ResponseEntity.ok("Create successfully!");
         }
         return ResponseUtils.getErrorResponseBadRequest("Some thing went wrong!");
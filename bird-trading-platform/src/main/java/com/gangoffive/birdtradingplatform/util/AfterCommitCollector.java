@@ -0,0 +1,66 @@
+package com.gangoffive.birdtradingplatform.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+//collects what a transaction changed and hands it over in one batch once it commits, straight away when no
+//transaction is running; a rolled back transaction drops what it collected
+public final class AfterCommitCollector<T> {
+    private final Supplier<Collection<T>> bufferFactory;
+    private final Consumer<List<T>> action;
+
+    private AfterCommitCollector(Supplier<Collection<T>> bufferFactory, Consumer<List<T>> action) {
+        this.bufferFactory = bufferFactory;
+        this.action = action;
+    }
+
+    //the same key added twice in a transaction is handed over once
+    public static <T> AfterCommitCollector<T> distinct(Consumer<List<T>> action) {
+        return new AfterCommitCollector<>(LinkedHashSet::new, action);
+    }
+
+    public static <T> AfterCommitCollector<T> all(Consumer<List<T>> action) {
+        return new AfterCommitCollector<>(ArrayList::new, action);
+    }
+
+    public void add(T item) {
+        this.addAll(List.of(item));
+    }
+
+    public void addAll(Collection<? extends T> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(List.copyOf(items));
+            return;
+        }
+        this.getPending().addAll(items);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<T> getPending() {
+        var pending = (Collection<T>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Collection<T> newPending = bufferFactory.get();
+        TransactionSynchronizationManager.bindResource(this, newPending);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.accept(List.copyOf(newPending));
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AfterCommitCollector.this);
+            }
+        });
+        return newPending;
+    }
+}
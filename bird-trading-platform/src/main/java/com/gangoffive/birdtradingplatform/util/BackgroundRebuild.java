@@ -0,0 +1,81 @@
+package com.gangoffive.birdtradingplatform.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+//an in-memory copy of some tables that is built in full in the background and kept up to date by applying
+//changed keys; keys applied while a build is reading the tables are applied again on the new copy, and a
+//change that fails to apply is picked up by the next scheduled build
+@Slf4j
+public final class BackgroundRebuild<T> {
+    private final String name;
+    private final Runnable rebuild;
+    private final Consumer<List<T>> apply;
+
+    private volatile boolean rebuilding;
+    private final Set<T> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    //rebuild is the full build, it calls build with the part that reads the tables
+    public BackgroundRebuild(String name, Runnable rebuild, Consumer<List<T>> apply) {
+        this.name = name;
+        this.rebuild = rebuild;
+        this.apply = apply;
+    }
+
+    //callers are served from SQL until the first build finishes, startup never waits for it
+    public void start() {
+        Thread builder = new Thread(() -> {
+            try {
+                rebuild.run();
+            } catch (Exception e) {
+                log.error("Could not build the {}", name, e);
+            }
+        }, name.replace(' ', '-') + "-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    //for the scheduled builds; the running build already reads the latest rows
+    public void rebuildIfIdle() {
+        if (rebuilding) {
+            return;
+        }
+        rebuild.run();
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding;
+    }
+
+    public synchronized void build(Runnable load) {
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        try {
+            load.run();
+        } finally {
+            rebuilding = false;
+        }
+        List<T> changed = new ArrayList<>(changedDuringRebuild);
+        changedDuringRebuild.clear();
+        this.apply(changed);
+    }
+
+    public void apply(List<T> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (rebuilding) {
+            changedDuringRebuild.addAll(keys);
+        }
+        try {
+            apply.accept(keys);
+        } catch (Exception e) {
+            log.error("Could not apply {} to the {}", keys, name, e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.gangoffive.birdtradingplatform.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.function.LongSupplier;
+
+//token over a checkout quote: expiry.priceVersion.mac, the mac covering who asked, both header fields and the
+//cart as quoted, so any total or item the client changes afterwards fails it
+public class CheckoutQuoteSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    public enum Verification {
+        VALID, MALFORMED, TAMPERED, EXPIRED, PRICE_CHANGED
+    }
+
+    private final SecretKeySpec key;
+    private final LongSupplier clock;
+
+    public CheckoutQuoteSigner(byte[] key, LongSupplier clock) {
+        this.key = new SecretKeySpec(key, ALGORITHM);
+        this.clock = clock;
+    }
+
+    public String sign(String subject, long expiresAtMillis, String priceVersion, String cart) {
+        String header = expiresAtMillis + "." + priceVersion;
+        return header + "." + this.mac(subject, header, cart);
+    }
+
+    public Verification verify(String token, String subject, String priceVersion, String cart) {
+        String[] parts = token == null ? new String[0] : token.split("\\.");
+        if (parts.length != 3) {
+            return Verification.MALFORMED;
+        }
+        long expiresAtMillis;
+        try {
+            expiresAtMillis = Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            return Verification.MALFORMED;
+        }
+        byte[] expected = this.mac(subject, parts[0] + "." + parts[1], cart).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, parts[2].getBytes(StandardCharsets.US_ASCII))) {
+            return Verification.TAMPERED;
+        }
+        if (expiresAtMillis <= clock.getAsLong()) {
+            return Verification.EXPIRED;
+        }
+        if (!parts[1].equals(priceVersion)) {
+            return Verification.PRICE_CHANGED;
+        }
+        return Verification.VALID;
+    }
+
+    private String mac(String subject, String header, String cart) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] signature = mac.doFinal((subject + "\n" + header + "\n" + cart).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,10 +1,8 @@
 package com.gangoffive.birdtradingplatform.util;
 
 import java.text.SimpleDateFormat;
-import java.util.Arrays;
-import java.util.Date;
-import java.util.List;
-import java.util.Random;
+import java.util.*;
+import java.util.function.Function;
 
 public class MyUtils {
     public static List<String> toLists(String str, String patternSplit) {
@@ -39,4 +37,15 @@ public class MyUtils {
 
         return formattedDate;
     }
+
+    //findAllById does not keep the order of the ids it was given
+    public static <T> List<T> orderByIds(List<T> items, List<Long> ids, Function<T, Long> getId) {
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positions.putIfAbsent(ids.get(i), i);
+        }
+        List<T> ordered = new ArrayList<>(items);
+        ordered.sort(Comparator.comparing(item -> positions.getOrDefault(getId.apply(item), Integer.MAX_VALUE)));
+        return ordered;
+    }
 }
@@ -0,0 +1,36 @@
+package com.gangoffive.birdtradingplatform.util;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+//opaque continuation token: sort key and id of the last row sent, the next page seeks past them
+public record PageCursor(long sortKey, long id) {
+    private static final byte VERSION = 1;
+    private static final int LENGTH = 1 + Long.BYTES * 2;
+
+    public static PageCursor ofPrice(double price, long id) {
+        return new PageCursor(Double.doubleToLongBits(price), id);
+    }
+
+    public double price() {
+        return Double.longBitsToDouble(sortKey);
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH).put(VERSION).putLong(sortKey).putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    //null or blank is the first page; a malformed token throws IllegalArgumentException
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        byte[] bytes = Base64.getUrlDecoder().decode(token.trim());
+        if (bytes.length != LENGTH || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, Long.BYTES * 2);
+        return new PageCursor(buffer.getLong(), buffer.getLong());
+    }
+}
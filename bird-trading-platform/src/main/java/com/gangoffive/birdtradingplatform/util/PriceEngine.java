@@ -0,0 +1,73 @@
+package com.gangoffive.birdtradingplatform.util;
+
+import com.gangoffive.birdtradingplatform.entity.PromotionShop;
+
+import java.util.Comparator;
+import java.util.List;
+
+//promotion prices over primitive arrays. The active promotions of a product compile to their discount rates in
+//promotion id order, the order the catalog queries read them in; rates are applied one after the other on the
+//price itself, a folded multiplier would move about one price in five hundred by a cent.
+public final class PriceEngine {
+    public static final int[] NO_DISCOUNT = new int[0];
+
+    private PriceEngine() {
+    }
+
+    public static int[] compile(List<PromotionShop> promotionShops) {
+        if (promotionShops == null || promotionShops.isEmpty()) {
+            return NO_DISCOUNT;
+        }
+        return promotionShops.stream()
+                .sorted(Comparator.comparing(PromotionShop::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .mapToInt(PromotionShop::getDiscountRate)
+                .toArray();
+    }
+
+    public static int[] toArray(List<Integer> discountRates) {
+        if (discountRates == null || discountRates.isEmpty()) {
+            return NO_DISCOUNT;
+        }
+        int[] result = new int[discountRates.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = discountRates.get(i);
+        }
+        return result;
+    }
+
+    //share of the price taken off, 0 without promotions
+    public static double saleOff(int[] discountRates, double price) {
+        if (discountRates == null || discountRates.length == 0) {
+            return 0.0;
+        }
+        double priceDiscount = price;
+        for (int sale : discountRates) {
+            priceDiscount = priceDiscount - priceDiscount * sale / 100;
+        }
+        return (price - priceDiscount) / price;
+    }
+
+    //the sale off the product cards show
+    public static double roundedSaleOff(int[] discountRates, double price) {
+        return Math.round(saleOff(discountRates, price) * 100.0) / 100.0;
+    }
+
+    public static double discountedPrice(double price, double saleOff) {
+        return Math.round((price - (price * saleOff)) * 100.0) / 100.0;
+    }
+
+    //product cards and checkout discount the price by the rounded sale off
+    public static void quote(double[] prices, int[][] discountRates, double[] saleOffs, double[] discountedPrices) {
+        for (int i = 0; i < prices.length; i++) {
+            saleOffs[i] = roundedSaleOff(discountRates[i], prices[i]);
+            discountedPrices[i] = discountedPrice(prices[i], saleOffs[i]);
+        }
+    }
+
+    //the product summary stores the price discounted by the exact sale off
+    public static void discountedPrices(double[] prices, int[][] discountRates, double[] discountedPrices) {
+        for (int i = 0; i < prices.length; i++) {
+            discountedPrices[i] = discountedPrice(prices[i], saleOff(discountRates[i], prices[i]));
+        }
+    }
+}
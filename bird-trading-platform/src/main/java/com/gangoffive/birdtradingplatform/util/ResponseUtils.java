@@ -1,8 +1,12 @@
 package com.gangoffive.birdtradingplatform.util;
 
 import com.gangoffive.birdtradingplatform.api.response.ErrorResponse;
+import com.gangoffive.birdtradingplatform.dto.ResourceVersionDto;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
 
 public class ResponseUtils {
     public static ResponseEntity<?> getErrorResponseNotFound(String message) {
@@ -53,6 +57,14 @@ public class ResponseUtils {
         return new ResponseEntity<>(errorResponse, HttpStatus.UNAUTHORIZED);
     }
 
+    public static ResponseEntity<?> getErrorResponseBadRequestPageCursor() {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .errorCode(String.valueOf(HttpStatus.BAD_REQUEST.value()))
+                .errorMessage("Invalid page cursor.")
+                .build();
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     public static ResponseEntity<?> getErrorResponseBadRequestPageNumber() {
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .errorCode(String.valueOf(HttpStatus.BAD_REQUEST.value()))
@@ -85,4 +97,9 @@ public class ResponseUtils {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    //sets ETag and Last-Modified on the response; true when a 304 was written and the handler should return null
+    public static boolean isNotModified(WebRequest webRequest, Optional<ResourceVersionDto> version) {
+        return version.isPresent()
+                && webRequest.checkNotModified(version.get().getETag(), version.get().getLastModified());
+    }
 }
@@ -0,0 +1,27 @@
+package com.gangoffive.birdtradingplatform.wrapper;
+
+import com.gangoffive.birdtradingplatform.util.PageCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+//page of a cursor listing; nextCursor is null on the last page
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageWrapper<T> {
+    private List<T> lists;
+
+    private String nextCursor;
+
+    //rows holds up to pageSize + 1 entries, the extra one only tells that another page follows
+    public static <E, T> CursorPageWrapper<T> of(List<E> rows, int pageSize, Function<E, PageCursor> cursorOf,
+                                                 Function<E, T> mapper) {
+        List<E> page = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        String nextCursor = rows.size() > pageSize ? cursorOf.apply(page.get(pageSize - 1)).encode() : null;
+        return new CursorPageWrapper<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+}
@@ -0,0 +1,26 @@
+package com.gangoffive.birdtradingplatform.wrapper;
+
+import com.gangoffive.birdtradingplatform.dto.CatalogFacetDto;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class FacetPageNumberWrapper<T> extends PageNumberWrapper<T> {
+    private CatalogFacetDto facets;
+
+    //continuation token for the next page, null on the last page
+    private String nextCursor;
+
+    public FacetPageNumberWrapper() {
+    }
+
+    public FacetPageNumberWrapper(List<T> lists, int pageNumber, long totalElement, CatalogFacetDto facets,
+                                  String nextCursor) {
+        super(lists, pageNumber, totalElement);
+        this.facets = facets;
+        this.nextCursor = nextCursor;
+    }
+}
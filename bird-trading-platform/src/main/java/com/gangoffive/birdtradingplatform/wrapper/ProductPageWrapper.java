@@ -0,0 +1,21 @@
+package com.gangoffive.birdtradingplatform.wrapper;
+
+import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
+import com.gangoffive.birdtradingplatform.dto.ShopSummaryDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class ProductPageWrapper {
+    private ProductDetailWrapper product;
+    private ShopSummaryDto shop;
+    private List<ProductCartDto> relevantProducts;
+    private PageNumberWrapper<?> reviews;
+    //sections left out of this page, the client loads them from their own endpoints
+    private List<String> missingSections;
+}
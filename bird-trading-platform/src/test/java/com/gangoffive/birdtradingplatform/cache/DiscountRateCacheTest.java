@@ -0,0 +1,62 @@
+package com.gangoffive.birdtradingplatform.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Test
+public class DiscountRateCacheTest {
+    @Test
+    public void keepsRatesUntilTheProductChanges() {
+        DiscountRateCache cache = new DiscountRateCache(1000, 10, () -> 0);
+        Assert.assertNull(cache.get(1L));
+        Assert.assertTrue(cache.put(1L, new int[]{10, 20}, cache.version()));
+        Assert.assertTrue(cache.put(2L, new int[0], cache.version()));
+        Assert.assertEquals(cache.get(1L), new int[]{10, 20});
+        Assert.assertEquals(cache.get(2L), new int[0]);
+
+        cache.evict(List.of(1L));
+        Assert.assertNull(cache.get(1L));
+        Assert.assertEquals(cache.get(2L), new int[0]);
+    }
+
+    @Test
+    public void refusesRatesReadBeforeAChange() {
+        DiscountRateCache cache = new DiscountRateCache(1000, 10, () -> 0);
+        long version = cache.version();
+        //the product changed while these rates were loaded
+        cache.evict(List.of(1L));
+        Assert.assertFalse(cache.put(1L, new int[]{10}, version));
+        Assert.assertNull(cache.get(1L));
+        Assert.assertTrue(cache.put(1L, new int[]{10}, cache.version()));
+    }
+
+    @Test
+    public void keepsRatesReadBeforeAnotherProductChanged() {
+        DiscountRateCache cache = new DiscountRateCache(1000, 10, () -> 0);
+        long version = cache.version();
+        cache.evict(List.of(9L));
+        Assert.assertTrue(cache.put(1L, new int[]{10}, version));
+        Assert.assertEquals(cache.get(1L), new int[]{10});
+
+        cache.clear();
+        Assert.assertFalse(cache.put(2L, new int[]{10}, version));
+    }
+
+    @Test
+    public void expiresAndStaysBounded() {
+        AtomicLong now = new AtomicLong();
+        DiscountRateCache cache = new DiscountRateCache(1000, 3, now::get);
+        cache.put(1L, new int[]{5}, cache.version());
+        now.set(1000);
+        Assert.assertNull(cache.get(1L));
+
+        for (long productId = 1; productId <= 5; productId++) {
+            cache.put(productId, new int[]{5}, cache.version());
+        }
+        Assert.assertTrue(cache.size() <= 3);
+        Assert.assertEquals(cache.get(5L), new int[]{5});
+    }
+}
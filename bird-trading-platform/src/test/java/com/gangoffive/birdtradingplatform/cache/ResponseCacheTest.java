@@ -0,0 +1,146 @@
+package com.gangoffive.birdtradingplatform.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Test
+@Slf4j
+public class ResponseCacheTest {
+    private static final String JSON = "application/json";
+
+    @Test
+    public void evictsLeastRecentlyUsedOverTheByteLimit() {
+        ResponseCache cache = new ResponseCache(300, 200, () -> 0);
+        Assert.assertTrue(cache.put("a", 200, JSON, null, -1, new byte[100],
+                1000, Set.of("LISTING"), cache.generation()));
+        Assert.assertTrue(cache.put("b", 200, JSON, null, -1, new byte[100],
+                1000, Set.of("LISTING"), cache.generation()));
+        Assert.assertTrue(cache.put("c", 200, JSON, null, -1, new byte[100],
+                1000, Set.of("LISTING"), cache.generation()));
+        //reading a makes b the least recently used
+        Assert.assertTrue(cache.get("a").isPresent());
+        Assert.assertTrue(cache.put("d", 200, JSON, null, -1, new byte[100],
+                1000, Set.of("LISTING"), cache.generation()));
+
+        Assert.assertTrue(cache.get("b").isEmpty());
+        Assert.assertTrue(cache.get("a").isPresent());
+        Assert.assertTrue(cache.get("c").isPresent());
+        Assert.assertTrue(cache.get("d").isPresent());
+        //over the entry limit
+        Assert.assertFalse(cache.put("e", 200, JSON, null, -1, new byte[201],
+                1000, Set.of("LISTING"), cache.generation()));
+        ResponseCache.Stats stats = cache.stats();
+        Assert.assertEquals(stats.entries(), 3);
+        Assert.assertEquals(stats.bytes(), 300);
+        Assert.assertEquals(stats.evictions(), 1);
+    }
+
+    @Test
+    public void expiresAfterTheTtl() {
+        AtomicLong now = new AtomicLong(1000);
+        ResponseCache cache = new ResponseCache(1000, 1000, now::get);
+        cache.put("/api/v1/promotions", 200, JSON, null, -1, new byte[10],
+                500, Set.of("PROMOTION"), cache.generation());
+
+        now.set(1499);
+        Assert.assertTrue(cache.get("/api/v1/promotions").isPresent());
+        now.set(1500);
+        Assert.assertTrue(cache.get("/api/v1/promotions").isEmpty());
+        Assert.assertEquals(cache.stats().entries(), 0);
+        Assert.assertEquals(cache.stats().bytes(), 0);
+    }
+
+    @Test
+    public void invalidatesOnlyTheDependentEntries() {
+        ResponseCache cache = new ResponseCache(1000, 1000, () -> 0);
+        cache.put("/api/v1/products/1", 200, JSON, null, -1, new byte[10], 1000,
+                Set.of(CachedRoute.productDependency(1)), cache.generation());
+        cache.put("/api/v1/products/2", 200, JSON, null, -1, new byte[10], 1000,
+                Set.of(CachedRoute.productDependency(2)), cache.generation());
+        cache.put("/api/v1/products?pageNumber=1", 200, JSON, null, -1, new byte[10], 1000, Set.of("LISTING"),
+                cache.generation());
+
+        Assert.assertEquals(cache.invalidate(CachedRoute.productDependency(1)), 1);
+        Assert.assertEquals(cache.invalidate("LISTING"), 1);
+        Assert.assertEquals(cache.invalidate("LISTING"), 0);
+
+        Assert.assertTrue(cache.get("/api/v1/products/1").isEmpty());
+        Assert.assertTrue(cache.get("/api/v1/products/2").isPresent());
+        Assert.assertTrue(cache.get("/api/v1/products?pageNumber=1").isEmpty());
+        Assert.assertEquals(cache.stats().invalidations(), 2);
+        Assert.assertEquals(cache.stats().bytes(), 10);
+    }
+
+    @Test
+    public void refusesResponsesComputedBeforeAnInvalidation() {
+        ResponseCache cache = new ResponseCache(1000, 1000, () -> 0);
+        long generation = cache.generation();
+        //a product changes while the response is being computed
+        cache.invalidate(CachedRoute.productDependency(1));
+
+        Assert.assertFalse(cache.put("/api/v1/products/1", 200, JSON, null, -1, new byte[10], 1000,
+                Set.of(CachedRoute.productDependency(1)), generation));
+        Assert.assertTrue(cache.get("/api/v1/products/1").isEmpty());
+        Assert.assertTrue(cache.put("/api/v1/products/1", 200, JSON, null, -1, new byte[10], 1000,
+                Set.of(CachedRoute.productDependency(1)), cache.generation()));
+        cache.clear();
+        Assert.assertTrue(cache.get("/api/v1/products/1").isEmpty());
+        Assert.assertEquals(cache.stats().hits(), 0);
+        Assert.assertEquals(cache.stats().misses(), 2);
+    }
+
+    @Test
+    public void storesResponsesWhoseDependenciesDidNotChange() {
+        ResponseCache cache = new ResponseCache(1000, 1000, () -> 0);
+        long generation = cache.generation();
+        //another product changes while the response is being computed
+        cache.invalidate(CachedRoute.productDependency(2));
+
+        Assert.assertTrue(cache.put("/api/v1/products/1", 200, JSON, null, -1, new byte[10], 1000,
+                Set.of(CachedRoute.productDependency(1)), generation));
+        Assert.assertTrue(cache.get("/api/v1/products/1").isPresent());
+        //clearing drops every dependency
+        cache.clear();
+        Assert.assertFalse(cache.put("/api/v1/products/1", 200, JSON, null, -1, new byte[10], 1000,
+                Set.of(CachedRoute.productDependency(1)), generation));
+    }
+
+    @Test
+    public void keepsTheValidators() {
+        ResponseCache cache = new ResponseCache(1000, 1000, () -> 0);
+        cache.put("/api/v1/products/1", 200, JSON, "\"abc\"", 1_700_000_000_000L, new byte[10], 1000,
+                Set.of(CachedRoute.productDependency(1)), cache.generation());
+
+        ResponseCache.CachedResponse response = cache.get("/api/v1/products/1").orElseThrow();
+        Assert.assertEquals(response.eTag(), "\"abc\"");
+        Assert.assertEquals(response.lastModified(), 1_700_000_000_000L);
+        Assert.assertEquals(response.contentType(), JSON);
+    }
+
+    @Test
+    public void matchesTheCatalogRoutes() {
+        assertMatch("/api/v1/products/pages/0", CachedRoute.LISTING, "LISTING");
+        assertMatch("/api/v1/birds/search", CachedRoute.LISTING, "LISTING");
+        assertMatch("/api/v1/products/7/bought-together", CachedRoute.LISTING, "LISTING");
+        assertMatch("/api/v1/products/7", CachedRoute.PRODUCT, CachedRoute.productDependency(7));
+        assertMatch("/api/v1/reviews/products/7", CachedRoute.REVIEW, CachedRoute.reviewDependency(7));
+        Assert.assertEquals(CachedRoute.match("/api/v1/products/7/page").orElseThrow().dependencies(),
+                Set.of(CachedRoute.productDependency(7), CachedRoute.reviewDependency(7), "LISTING"));
+        assertMatch("/api/v1/types/foods", CachedRoute.TYPE, "TYPE");
+        assertMatch("/api/v1/tags/shops/3", CachedRoute.TAG, "TAG");
+        Assert.assertTrue(CachedRoute.match("/api/v1/users/account").isEmpty());
+        Assert.assertTrue(CachedRoute.match("/api/v1/products/7/edit").isEmpty());
+    }
+
+    private void assertMatch(String path, CachedRoute route, String dependency) {
+        Optional<CachedRoute.Match> match = CachedRoute.match(path);
+        Assert.assertTrue(match.isPresent(), path);
+        Assert.assertEquals(match.get().route(), route);
+        Assert.assertEquals(match.get().dependencies(), Set.of(dependency));
+    }
+}
@@ -0,0 +1,118 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+@Test
+@Slf4j
+public class CatalogSnapshotTest {
+    private static final int BIRD = 1;
+    private static final int FOOD = 2;
+    private static final double[] EDGES = {0, 100, 500};
+    private static final List<String> ACTIVE = List.of("ACTIVE");
+
+    private final CatalogSnapshot snapshot = CatalogSnapshot.build(List.of(
+            row(1, BIRD, 50, 4.5, 10, 100, "ACTIVE", 3, "ACTIVE"),
+            row(2, BIRD, 150, 3.0, 10, 100, "ACTIVE", 1, "ACTIVE"),
+            row(3, BIRD, 600, 5.0, 11, 200, "ACTIVE", 2, "ACTIVE"),
+            row(4, BIRD, 80, 2.0, 11, 200, "ACTIVE", 5, "ACTIVE"),
+            //hidden: out of stock, banned product, banned shop, other category
+            row(5, BIRD, 90, 4.0, 10, 100, "ACTIVE", 0, "ACTIVE"),
+            row(6, BIRD, 90, 4.0, 10, 100, "BAN", 4, "ACTIVE"),
+            row(7, BIRD, 90, 4.0, 10, 300, "ACTIVE", 4, "BAN"),
+            row(8, FOOD, 20, 4.0, 20, 100, "ACTIVE", 4, "ACTIVE")
+    ), EDGES);
+
+    @Test
+    public void pagesByPriceInBothDirections() {
+        CatalogSnapshot.Result ascending = snapshot.query(query(null, null, 0, 0, 10000, null, false, 0, 3));
+        Assert.assertEquals(ascending.productIds(), List.of(1L, 4L, 2L));
+        Assert.assertEquals(ascending.total(), 4);
+
+        Assert.assertEquals(snapshot.query(query(null, null, 0, 0, 10000, null, false, 1, 3)).productIds(),
+                List.of(3L));
+        Assert.assertEquals(snapshot.query(query(null, null, 0, 0, 10000, null, true, 0, 3)).productIds(),
+                List.of(3L, 2L, 4L));
+    }
+
+    @Test
+    public void seeksPastTheLastRowSent() {
+        CatalogSnapshot.Result first = snapshot.query(query(null, null, 0, 0, 10000, null, false, 0, 2));
+        Assert.assertEquals(first.productIds(), List.of(1L, 4L));
+        Assert.assertEquals(first.next(), new CatalogSnapshot.Seek(80, 4));
+
+        CatalogSnapshot.Result second = snapshot.query(seek(first.next(), false, 2));
+        Assert.assertEquals(second.productIds(), List.of(2L, 3L));
+        Assert.assertNull(second.next());
+        Assert.assertEquals(second.total(), 4);
+
+        //the seek position does not have to be a visible row
+        Assert.assertEquals(snapshot.query(seek(new CatalogSnapshot.Seek(90, 6), false, 8)).productIds(),
+                List.of(2L, 3L));
+        Assert.assertEquals(snapshot.query(seek(new CatalogSnapshot.Seek(150, 2), true, 8)).productIds(),
+                List.of(4L, 1L));
+    }
+
+    @Test
+    public void appliesEveryFilter() {
+        Assert.assertEquals(snapshot.query(query(null, List.of(11L), 0, 0, 10000, null, false, 0, 8)).productIds(),
+                List.of(4L, 3L));
+        Assert.assertEquals(snapshot.query(query(null, null, 3.0, 60, 1000, null, false, 0, 8)).productIds(),
+                List.of(2L, 3L));
+        Assert.assertEquals(snapshot.query(query(null, null, 0, 0, 10000, 200L, false, 0, 8)).productIds(),
+                List.of(4L, 3L));
+        Assert.assertEquals(snapshot.query(query(List.of(3L, 5L, 99L), null, 0, 0, 10000, null, false, 0, 8))
+                .productIds(), List.of(3L));
+    }
+
+    @Test
+    public void countsFacetsIgnoringTheirOwnFilter() {
+        CatalogSnapshot.Result result = snapshot.query(query(null, List.of(10L), 3.0, 0, 500, null, false, 0, 8));
+        Assert.assertEquals(result.productIds(), List.of(1L, 2L));
+        //types: price and star applied, so the 600 priced type 11 bird is left out
+        Assert.assertEquals(result.typeCounts(), Map.of(10L, 2));
+        //prices: type and star applied
+        Assert.assertEquals(result.priceCounts(), new int[]{1, 1, 0});
+        //stars: type and price applied
+        Assert.assertEquals(result.starCounts(), new int[]{0, 0, 0, 1, 1, 0});
+    }
+
+    @Test
+    public void filterLatencyOnLargeCatalog() {
+        Random random = new Random(42);
+        List<CatalogSnapshot.Row> rows = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            rows.add(row(id, 1 + random.nextInt(3), random.nextInt(5000), random.nextInt(51) / 10.0,
+                    1 + random.nextInt(30), 1 + random.nextInt(500), "ACTIVE", random.nextInt(20), "ACTIVE"));
+        }
+        CatalogSnapshot large = CatalogSnapshot.build(rows, new double[]{0, 50, 100, 200, 500, 1000, 2000, 5000});
+        long[] latencies = new long[200];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            large.query(query(null, List.of(1L + i % 30, 2L + i % 29), 3.0, 100, 3000, null, i % 2 == 0, i % 5, 8));
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        log.info("{} products: p50 {} us, p95 {} us", large.size(), latencies[100] / 1000, latencies[190] / 1000);
+    }
+
+    private static CatalogSnapshot.Query query(Collection<Long> productIds, Collection<Long> typeIds, double minStar,
+                                               double minPrice, double maxPrice, Long shopId, boolean descending,
+                                               int pageIndex, int pageSize) {
+        return new CatalogSnapshot.Query(BIRD, productIds, typeIds, minStar, minPrice, maxPrice, shopId, ACTIVE,
+                ACTIVE, descending, pageIndex, pageSize, null);
+    }
+
+    private static CatalogSnapshot.Query seek(CatalogSnapshot.Seek after, boolean descending, int pageSize) {
+        return new CatalogSnapshot.Query(BIRD, null, null, 0, 0, 10000, null, ACTIVE, ACTIVE, descending, 0,
+                pageSize, after);
+    }
+
+    private static CatalogSnapshot.Row row(long productId, int category, double price, double star, long typeId,
+                                           long shopId, String status, int quantity, String shopStatus) {
+        return new CatalogSnapshot.Row(productId, category, price, star, typeId, shopId, status, quantity, shopStatus);
+    }
+}
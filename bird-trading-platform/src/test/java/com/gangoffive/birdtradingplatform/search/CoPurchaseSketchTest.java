@@ -0,0 +1,96 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Test
+@Slf4j
+public class CoPurchaseSketchTest {
+
+    @Test
+    public void countsBasketsPerPair() {
+        CoPurchaseSketch sketch = new CoPurchaseSketch(4, 1 << 16, 4);
+        sketch.addBasket(List.of(1L, 2L, 3L));
+        sketch.addBasket(List.of(1L, 2L));
+        //a product ordered twice in one basket counts once
+        sketch.addBasket(List.of(1L, 3L, 1L));
+        sketch.addBasket(List.of(2L, 4L));
+
+        Assert.assertEquals(sketch.estimate(1, 2), 2);
+        Assert.assertEquals(sketch.estimate(1, 3), 2);
+        Assert.assertEquals(sketch.estimate(2, 4), 1);
+        Assert.assertEquals(sketch.estimate(3, 4), 0);
+        Assert.assertEquals(sketch.top(2, 8), List.of(new CoPurchaseSketch.Partner(1, 2),
+                new CoPurchaseSketch.Partner(3, 1), new CoPurchaseSketch.Partner(4, 1)));
+        Assert.assertEquals(sketch.top(2, 1), List.of(new CoPurchaseSketch.Partner(1, 2)));
+        Assert.assertEquals(sketch.top(99, 8), List.of());
+    }
+
+    @Test
+    public void keepsHeavyHittersInANarrowSketch() {
+        Random random = new Random(42);
+        Map<Long, Map<Long, Integer>> exact = new HashMap<>();
+        //narrow on purpose, so pairs collide
+        CoPurchaseSketch sketch = new CoPurchaseSketch(4, 4096, 5);
+        for (int i = 0; i < 50_000; i++) {
+            List<Long> basket = new ArrayList<>();
+            long product = 1 + random.nextInt(200);
+            basket.add(product);
+            //every product has one partner it is sold with most of the time
+            basket.add(random.nextInt(10) < 6 ? product + 1000 : 1 + random.nextInt(5000));
+            sketch.addBasket(basket);
+            if (basket.get(0).equals(basket.get(1))) {
+                continue;
+            }
+            exact.computeIfAbsent(basket.get(0), key -> new HashMap<>()).merge(basket.get(1), 1, Integer::sum);
+            exact.computeIfAbsent(basket.get(1), key -> new HashMap<>()).merge(basket.get(0), 1, Integer::sum);
+        }
+        exact.forEach((productId, partners) -> partners.forEach((partnerId, baskets) ->
+                Assert.assertTrue(sketch.estimate(productId, partnerId) >= baskets)));
+        for (long product = 1; product <= 200; product++) {
+            Assert.assertEquals(sketch.top(product, 1).get(0).productId(), product + 1000);
+        }
+    }
+
+    @Test
+    public void concurrentBasketsCountLikeSequentialOnes() throws InterruptedException {
+        Random random = new Random(7);
+        List<List<Long>> baskets = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            baskets.add(random.longs(2 + random.nextInt(3), 1, 300).boxed().toList());
+        }
+        CoPurchaseSketch sequential = new CoPurchaseSketch(3, 1 << 14, 6);
+        baskets.forEach(sequential::addBasket);
+        CoPurchaseSketch concurrent = new CoPurchaseSketch(3, 1 << 14, 6);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        baskets.forEach(basket -> executor.submit(() -> concurrent.addBasket(basket)));
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        for (long productId = 1; productId < 300; productId++) {
+            for (long partnerId = 1; partnerId < 300; partnerId += 7) {
+                Assert.assertEquals(concurrent.estimate(productId, partnerId), sequential.estimate(productId, partnerId));
+            }
+        }
+    }
+
+    @Test
+    public void addLatency() {
+        Random random = new Random(42);
+        CoPurchaseSketch sketch = new CoPurchaseSketch(4, 1 << 18, 20);
+        long[] latencies = new long[10_000];
+        for (int i = 0; i < latencies.length; i++) {
+            List<Long> basket = random.longs(1 + random.nextInt(6), 1, 100_000).boxed().toList();
+            long start = System.nanoTime();
+            sketch.addBasket(basket);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        log.info("basket added: p50 {} ns, p95 {} ns", latencies[5_000], latencies[9_500]);
+    }
+}
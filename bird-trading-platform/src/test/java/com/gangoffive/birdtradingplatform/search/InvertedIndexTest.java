@@ -0,0 +1,93 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+@Test
+@Slf4j
+public class InvertedIndexTest {
+    private static final int BIRD = 1;
+    private static final int FOOD = 2;
+
+    @Test
+    public void foldsVietnameseDiacritics() {
+        Assert.assertEquals(TextAnalyzer.tokenize("Chim Vẹt Đuôi Dài - 2 tháng"),
+                List.of("chim", "vet", "duoi", "dai", "2", "thang"));
+    }
+
+    @Test
+    public void ranksCloserMatchesFirst() {
+        InvertedIndex index = InvertedIndex.build(Map.of(
+                1L, document(BIRD, "Vẹt xám châu Phi"),
+                2L, document(BIRD, "Chim vẹt đuôi dài vẹt Úc"),
+                3L, document(FOOD, "Hạt cho vẹt"),
+                4L, document(BIRD, "Chào mào")));
+
+        Assert.assertEquals(index.search("vet", null, 10), List.of(2L, 3L, 1L));
+        Assert.assertEquals(index.search("vẹt", BIRD, 10), List.of(2L, 1L));
+        //a word matches longer words starting with it
+        Assert.assertEquals(index.search("cha", null, 10), List.of(4L, 1L));
+        Assert.assertTrue(index.search("se", null, 10).isEmpty());
+    }
+
+    @Test
+    public void updatesIncrementally() {
+        InvertedIndex index = InvertedIndex.build(Map.of(1L, document(BIRD, "Vẹt xám")));
+        index.put(2L, document(BIRD, "Vẹt xanh"));
+        Assert.assertEquals(new HashSet<>(index.search("vet", null, 10)), Set.of(1L, 2L));
+
+        index.put(1L, document(BIRD, "Chào mào"));
+        Assert.assertEquals(index.search("vet", null, 10), List.of(2L));
+        Assert.assertEquals(index.search("chao", null, 10), List.of(1L));
+
+        index.remove(2L);
+        Assert.assertTrue(index.search("vet", null, 10).isEmpty());
+        Assert.assertEquals(index.documentCount(), 1);
+    }
+
+    @Test
+    public void postingListRoundTrips() {
+        PostingList list = new PostingList.Builder().add(3, 1).add(300, 2).add(70000, 1).build();
+        list = list.with(150, 4).with(300, 5).without(3);
+        List<long[]> postings = new ArrayList<>();
+        list.forEach((docId, frequency) -> postings.add(new long[]{docId, frequency}));
+        Assert.assertEquals(postings.size(), 3);
+        Assert.assertEquals(postings.get(0), new long[]{150, 4});
+        Assert.assertEquals(postings.get(1), new long[]{300, 5});
+        Assert.assertEquals(postings.get(2), new long[]{70000, 1});
+    }
+
+    @Test
+    public void searchLatencyOnLargeCatalog() {
+        String[] words = {"chim", "vẹt", "xám", "chào", "mào", "khuyên", "sáo", "hạt", "lồng", "cám", "cu", "gáy",
+                "yến", "phụng", "họa", "mi", "chích", "chòe", "than", "lửa"};
+        Random random = new Random(42);
+        Map<Long, InvertedIndex.Document> documents = new HashMap<>();
+        for (long id = 1; id <= 50_000; id++) {
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                name.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            documents.put(id, document(1 + random.nextInt(3), name.toString()));
+        }
+        InvertedIndex index = InvertedIndex.build(documents);
+        long[] latencies = new long[200];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            index.search(words[i % words.length] + " " + words[(i * 7) % words.length], BIRD, 2000);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        log.info("{} products, {} terms, {} posting bytes: p50 {} us, p95 {} us", index.documentCount(),
+                index.termCount(), index.postingBytes(), latencies[100] / 1000, latencies[190] / 1000);
+    }
+
+    private InvertedIndex.Document document(int category, String text) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        TextAnalyzer.tokenize(text).forEach(term -> termFrequencies.merge(term, 1, Integer::sum));
+        return InvertedIndex.Document.of(category, termFrequencies);
+    }
+}
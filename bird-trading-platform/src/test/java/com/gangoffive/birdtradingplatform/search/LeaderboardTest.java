@@ -0,0 +1,91 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+@Test
+public class LeaderboardTest {
+    @Test
+    public void ordersByStarThenUnitsSold() {
+        Leaderboard leaderboard = Leaderboard.build(3, 5, List.of(
+                entry(1, 4.0, 10), entry(2, 5.0, 1), entry(3, 4.0, 30), entry(4, 3.0, 100)));
+        Assert.assertEquals(leaderboard.top(), List.of(2L, 3L, 1L));
+        Assert.assertFalse(leaderboard.isStale());
+    }
+
+    @Test
+    public void replacesDroppedProductsFromSpareEntries() {
+        //products 1..5 held, 6 and below were cut off by the load
+        Leaderboard leaderboard = Leaderboard.build(3, 5, List.of(
+                entry(1, 5, 0), entry(2, 4.5, 0), entry(3, 4, 0), entry(4, 3.5, 0), entry(5, 3, 0)));
+        leaderboard.remove(1);
+        Assert.assertEquals(leaderboard.top(), List.of(2L, 3L, 4L));
+
+        //a new best seller moves in and pushes the last spare out
+        leaderboard.put(entry(7, 4.8, 0));
+        Assert.assertEquals(leaderboard.top(), List.of(7L, 2L, 3L));
+
+        //a held product falling below every held one may rank under products that are not held
+        leaderboard.put(entry(2, 1, 0));
+        Assert.assertFalse(leaderboard.contains(2));
+        Assert.assertEquals(leaderboard.top(), List.of(7L, 3L, 4L));
+        Assert.assertFalse(leaderboard.isStale());
+
+        leaderboard.remove(3);
+        leaderboard.remove(4);
+        Assert.assertTrue(leaderboard.isStale());
+    }
+
+    @Test
+    public void keepsEverythingWhileNothingWasCutOff() {
+        Leaderboard leaderboard = Leaderboard.build(2, 4, List.of(entry(1, 5, 0)));
+        leaderboard.put(entry(2, 1, 0));
+        leaderboard.put(entry(3, 2, 0));
+        Assert.assertEquals(leaderboard.top(), List.of(1L, 3L));
+        leaderboard.remove(1);
+        leaderboard.remove(3);
+        Assert.assertEquals(leaderboard.top(), List.of(2L));
+        Assert.assertFalse(leaderboard.isStale());
+    }
+
+    @Test
+    public void matchesFullSortUnderRandomUpdates() {
+        Random random = new Random(7);
+        Map<Long, Leaderboard.Entry> all = new HashMap<>();
+        for (long id = 1; id <= 200; id++) {
+            all.put(id, entry(id, random.nextInt(11) / 2.0, random.nextInt(50)));
+        }
+        Leaderboard leaderboard = Leaderboard.build(8, 16, best(all.values(), 16));
+        for (int i = 0; i < 5000; i++) {
+            long id = 1 + random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                all.remove(id);
+                leaderboard.remove(id);
+            } else {
+                Leaderboard.Entry entry = entry(id, random.nextInt(11) / 2.0, random.nextInt(50));
+                all.put(id, entry);
+                leaderboard.put(entry);
+            }
+            if (leaderboard.isStale()) {
+                leaderboard = Leaderboard.build(8, 16, best(all.values(), 16));
+            }
+            Assert.assertEquals(leaderboard.top(), best(all.values(), 8).stream()
+                    .map(Leaderboard.Entry::productId).toList());
+        }
+    }
+
+    private static List<Leaderboard.Entry> best(Collection<Leaderboard.Entry> entries, int limit) {
+        return entries.stream()
+                .sorted(Comparator.comparingDouble(Leaderboard.Entry::star).reversed()
+                        .thenComparing(Comparator.comparingDouble(Leaderboard.Entry::totalQuantityOrder).reversed())
+                        .thenComparingLong(Leaderboard.Entry::productId))
+                .limit(limit)
+                .toList();
+    }
+
+    private static Leaderboard.Entry entry(long productId, double star, double totalQuantityOrder) {
+        return new Leaderboard.Entry(productId, star, totalQuantityOrder);
+    }
+}
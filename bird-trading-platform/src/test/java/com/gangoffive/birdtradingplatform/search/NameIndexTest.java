@@ -0,0 +1,66 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.Function;
+
+@Test
+public class NameIndexTest {
+    private static final List<String> NAMES = List.of("Chào Mào", "Vẹt Đuôi Dài", "Khuyên", "Chích Chòe Lửa", "Vẹt Xám");
+
+    @Test
+    public void findsNamesContainingTheText() {
+        NameIndex<String> index = NameIndex.build(NAMES, Function.identity());
+        Assert.assertEquals(index.containing("vet"), List.of("Vẹt Đuôi Dài", "Vẹt Xám"));
+        Assert.assertEquals(index.containing("CH"), List.of("Chào Mào", "Chích Chòe Lửa"));
+        Assert.assertEquals(index.containing("duoi"), List.of("Vẹt Đuôi Dài"));
+        Assert.assertEquals(index.containing("ao"), List.of("Chào Mào"));
+        Assert.assertTrue(index.containing("sẻ").isEmpty());
+        //like '%%'
+        Assert.assertEquals(index.containing(""), NAMES);
+    }
+
+    @Test
+    public void findsNamesStartingWithTheText() {
+        NameIndex<String> index = NameIndex.build(NAMES, Function.identity());
+        Assert.assertEquals(index.startingWith("ch"), List.of("Chào Mào", "Chích Chòe Lửa"));
+        Assert.assertTrue(index.startingWith("mao").isEmpty());
+        Assert.assertEquals(index.startingWith("vet x"), List.of("Vẹt Xám"));
+    }
+
+    @Test
+    public void skipsMissingNames() {
+        NameIndex<String> index = NameIndex.build(List.of("Khuyên", "-", "Sáo"),
+                name -> name.equals("-") ? null : name);
+        Assert.assertEquals(index.containing(""), List.of("Khuyên", "Sáo"));
+        Assert.assertEquals(index.size(), 3);
+    }
+
+    @Test
+    public void matchesALinearScan() {
+        Random random = new Random(11);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                name.append("abc ".charAt(random.nextInt(4)));
+            }
+            names.add(name.toString());
+        }
+        NameIndex<String> index = NameIndex.build(names, Function.identity());
+        for (int i = 0; i < 500; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(4);
+            for (int j = 0; j < length; j++) {
+                text.append("abc ".charAt(random.nextInt(4)));
+            }
+            Assert.assertEquals(index.containing(text.toString()),
+                    names.stream().filter(name -> name.contains(text)).toList());
+            Assert.assertEquals(index.startingWith(text.toString()),
+                    names.stream().filter(name -> name.startsWith(text.toString())).toList());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.gangoffive.birdtradingplatform.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+@Test
+@Slf4j
+public class SimilarityIndexTest {
+    private static final int BIRD = 1;
+    private static final int FOOD = 2;
+    private static final SimilarityIndex.Weights WEIGHTS = new SimilarityIndex.Weights(1, 0.5, 1, 0.25);
+
+    private final List<SimilarityIndex.Item> birds = List.of(
+            item(1, BIRD, 10, new long[]{1, 2}, 100, 1, true),
+            item(2, BIRD, 10, new long[]{1, 2}, 100, 5, true),
+            item(3, BIRD, 11, new long[]{1}, 100, 10, true),
+            item(4, BIRD, 11, new long[]{}, 100, 50, true),
+            //shares everything with 1 but is out of stock
+            item(5, BIRD, 10, new long[]{1, 2}, 100, 99, false)
+    );
+
+    @Test
+    public void ranksByTagsAndTypeThenFillsWithBestSellers() {
+        SimilarityIndex index = SimilarityIndex.build(birds, Map.of(), WEIGHTS, 3, 100, 2, 2);
+        Assert.assertEquals(index.related(1), new long[]{2, 3, 4});
+        //no candidate at all, only best sellers of the category
+        Assert.assertEquals(index.related(4), new long[]{3, 2, 1});
+        Assert.assertNull(index.related(99));
+    }
+
+    @Test
+    public void coPurchasesCrossCategories() {
+        List<SimilarityIndex.Item> items = new ArrayList<>(birds);
+        items.add(item(6, FOOD, 10, new long[]{}, 100, 0, true));
+        SimilarityIndex index = SimilarityIndex.build(items, Map.of(1L, Map.of(6L, 3)), WEIGHTS, 3, 100, 2, 2);
+        Assert.assertEquals(index.related(1), new long[]{2, 6, 3});
+    }
+
+    @Test
+    public void relatesAChangedProductLikeTheBuild() {
+        SimilarityIndex index = SimilarityIndex.build(birds, Map.of(), WEIGHTS, 3, 100, 2, 2);
+        Assert.assertEquals(index.relate(birds.get(0)), index.related(1));
+        //lost its tags: type only, then best sellers
+        Assert.assertEquals(index.relate(item(1, BIRD, 11, new long[]{}, 100, 1, true)), new long[]{4, 3, 2});
+    }
+
+    @Test
+    public void chunkingDoesNotChangeTheResult() {
+        List<SimilarityIndex.Item> items = randomItems(new Random(7), 2000);
+        SimilarityIndex sequential = SimilarityIndex.build(items, Map.of(), WEIGHTS, 8, 200, items.size(), 1);
+        SimilarityIndex parallel = SimilarityIndex.build(items, Map.of(), WEIGHTS, 8, 200, 37, 4);
+        for (SimilarityIndex.Item item : items) {
+            Assert.assertEquals(parallel.related(item.productId()), sequential.related(item.productId()));
+        }
+    }
+
+    @Test
+    public void lookupLatencyOnLargeIndex() {
+        List<SimilarityIndex.Item> items = randomItems(new Random(42), 50_000);
+        long start = System.currentTimeMillis();
+        SimilarityIndex index = SimilarityIndex.build(items, Map.of(), WEIGHTS, 16, 1000, 500, 4);
+        log.info("{} products indexed in {} ms", index.size(), System.currentTimeMillis() - start);
+        long[] latencies = new long[200];
+        for (int i = 0; i < latencies.length; i++) {
+            long lookup = System.nanoTime();
+            index.related(1 + i * 249L);
+            latencies[i] = System.nanoTime() - lookup;
+        }
+        Arrays.sort(latencies);
+        log.info("lookup: p50 {} us, p95 {} us", latencies[100] / 1000, latencies[190] / 1000);
+    }
+
+    private static List<SimilarityIndex.Item> randomItems(Random random, int count) {
+        List<SimilarityIndex.Item> items = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            long[] tagIds = random.longs(random.nextInt(4), 1, 60).distinct().toArray();
+            items.add(item(id, 1 + random.nextInt(3), 1 + random.nextInt(30), tagIds, random.nextInt(5000),
+                    random.nextInt(200), random.nextInt(10) > 0));
+        }
+        return items;
+    }
+
+    private static SimilarityIndex.Item item(long productId, int category, long typeId, long[] tagIds, double price,
+                                             double popularity, boolean listed) {
+        return new SimilarityIndex.Item(productId, category, typeId, tagIds, price, popularity, listed);
+    }
+}
@@ -0,0 +1,126 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.*;
+import com.gangoffive.birdtradingplatform.enums.PaymentMethod;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+//cart validation must cost the same number of queries whatever the cart size
+@SpringBootTest
+@Test
+@Slf4j
+public class CheckoutContextBenchmarkTest extends AbstractTestNGSpringContextTests {
+    private static final int MAX_CART_SIZE = 32;
+    private static final int WARM_UP = 5;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private PackageOrderService packageOrderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    //product id -> shop id
+    private final Map<Long, Long> products = new LinkedHashMap<>();
+
+    @BeforeClass
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> productRepository.findAll(PageRequest.of(0, MAX_CART_SIZE))
+                .forEach(product -> products.put(product.getId(), product.getShopOwner().getId())));
+    }
+
+    @Test
+    public void queryCountStaysFlatAsCartGrows() {
+        Assert.assertTrue(products.size() > 1, "need products to build carts");
+        long smallCart = benchmark(1);
+        long largeCart = benchmark(products.size());
+        Assert.assertEquals(largeCart, smallCart);
+    }
+
+    //returns the statements prepared per checkout
+    private long benchmark(int cartSize) {
+        PackageOrderRequestDto request = buildRequest(cartSize);
+        for (int i = 0; i < WARM_UP; i++) {
+            validate(request);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            validate(request);
+            latencies[i] = System.nanoTime() - start;
+        }
+        long statements = statistics.getPrepareStatementCount() / ITERATIONS;
+        statistics.setStatisticsEnabled(false);
+        Arrays.sort(latencies);
+        log.info("cart size {}: {} statements, p50 {} us, p95 {} us", cartSize, statements,
+                latencies[ITERATIONS / 2] / 1000, latencies[ITERATIONS * 95 / 100] / 1000);
+        return statements;
+    }
+
+    private void validate(PackageOrderRequestDto request) {
+        transactionTemplate.executeWithoutResult(status ->
+                packageOrderService.validateCart(packageOrderService.loadCheckoutContext(request)));
+    }
+
+    private PackageOrderRequestDto buildRequest(int cartSize) {
+        Map<Long, ItemByShopDto> itemsByShop = new LinkedHashMap<>();
+        products.entrySet().stream().limit(cartSize).forEach(product -> itemsByShop
+                .computeIfAbsent(product.getValue(), shopId -> ItemByShopDto.builder()
+                        .shopId(shopId)
+                        .listItems(new HashMap<>())
+                        .build())
+                .getListItems().put(product.getKey(), 1));
+        PackageOrderRequestDto request = PackageOrderRequestDto.builder()
+                .userInfo(UserOrderDto.builder().fullName("Benchmark").phoneNumber("0900000000").address("HCM").build())
+                .cartInfo(CartDto.builder()
+                        .itemsByShop(new ArrayList<>(itemsByShop.values()))
+                        .promotionIds(new ArrayList<>())
+                        .paymentMethod(PaymentMethod.DELIVERY)
+                        .build())
+                .build();
+        //price the cart the way the client would so validation runs all the way through
+        Map<Long, Double> discountedPrices = transactionTemplate.execute(status ->
+                packageOrderService.loadCheckoutContext(request).getDiscountedPrices());
+        double subTotal = 0;
+        for (ItemByShopDto item : itemsByShop.values()) {
+            double totalShopPrice = item.getListItems().entrySet().stream()
+                    .mapToDouble(entry -> Math.round(discountedPrices.getOrDefault(entry.getKey(), 0.0)
+                            * entry.getValue() * 100.0) / 100.0)
+                    .sum();
+            item.setTotalShopPrice(Math.round(totalShopPrice * 100.0) / 100.0);
+            subTotal += item.getTotalShopPrice();
+        }
+        subTotal = Math.round(subTotal * 100.0) / 100.0;
+        request.getCartInfo().setTotal(TotalOrderDto.builder()
+                .subTotal(subTotal)
+                .paymentTotal(subTotal)
+                .build());
+        return request;
+    }
+}
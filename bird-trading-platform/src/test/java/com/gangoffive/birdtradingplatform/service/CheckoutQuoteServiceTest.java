@@ -0,0 +1,168 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.*;
+import com.gangoffive.birdtradingplatform.entity.Account;
+import com.gangoffive.birdtradingplatform.entity.Bird;
+import com.gangoffive.birdtradingplatform.enums.PaymentMethod;
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.repository.AccountRepository;
+import com.gangoffive.birdtradingplatform.repository.BirdRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@Test
+@Slf4j
+public class CheckoutQuoteServiceTest extends AbstractTestNGSpringContextTests {
+    private static final int STOCK = 10;
+
+    @Autowired
+    private PackageOrderService packageOrderService;
+
+    @Autowired
+    private BirdRepository birdRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Bird bird;
+    private int originalQuantity;
+
+    @TestConfiguration
+    static class StubShippingConfiguration {
+        //10 per unit of distance, the ship service is not called
+        @Bean
+        @Primary
+        ShippingQuoteService stubShippingQuoteService() {
+            return distances -> distances.stream()
+                    .distinct()
+                    .collect(Collectors.toMap(distance -> distance, distance -> distance * 10));
+        }
+    }
+
+    @BeforeClass
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        bird = birdRepository.findAll(PageRequest.of(0, 20)).stream()
+                .filter(product -> ProductStatus.ACTIVE.equals(product.getStatus()))
+                .findFirst()
+                .orElseThrow();
+        originalQuantity = bird.getQuantity();
+        jdbcTemplate.update("UPDATE tbl_bird SET quantity = ? WHERE product_id = ?", STOCK, bird.getId());
+        Account account = accountRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(account.getEmail(), null, List.of()));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        jdbcTemplate.update("UPDATE tbl_bird SET quantity = ? WHERE product_id = ?", originalQuantity, bird.getId());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void acceptsAFreshQuote() {
+        CheckoutQuoteDto quote = this.quote();
+
+        Assert.assertEquals(this.placeOrder(quote).getStatusCode(), HttpStatus.OK);
+    }
+
+    @Test
+    public void refusesTheQuoteAfterAPriceChange() {
+        CheckoutQuoteDto quote = this.quote();
+        jdbcTemplate.update("UPDATE tbl_bird SET price = ? WHERE product_id = ?", bird.getPrice() + 1, bird.getId());
+        try {
+            Assert.assertEquals(this.placeOrder(quote).getStatusCode(), HttpStatus.NOT_ACCEPTABLE);
+        } finally {
+            jdbcTemplate.update("UPDATE tbl_bird SET price = ? WHERE product_id = ?", bird.getPrice(), bird.getId());
+        }
+    }
+
+    @Test
+    public void refusesTheQuoteAfterAPromotionChange() {
+        CheckoutQuoteDto quote = this.quote();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("INSERT INTO tbl_promotion_shop " +
+                    "(name, description, discount_rate, start_date, end_date, shop_id) " +
+                    "VALUES ('Test promotion', 'Test promotion', 10, CURRENT_DATE, CURRENT_DATE + INTERVAL 1 DAY, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            statement.setLong(1, bird.getShopOwner().getId());
+            return statement;
+        }, keyHolder);
+        long promotionShopId = keyHolder.getKey().longValue();
+        try {
+            jdbcTemplate.update("INSERT INTO tbl_product_promotion (product_id, promotion_s_id) VALUES (?, ?)",
+                    bird.getId(), promotionShopId);
+
+            Assert.assertEquals(this.placeOrder(quote).getStatusCode(), HttpStatus.NOT_ACCEPTABLE);
+        } finally {
+            jdbcTemplate.update("DELETE FROM tbl_product_promotion WHERE promotion_s_id = ?", promotionShopId);
+            jdbcTemplate.update("DELETE FROM tbl_promotion_shop WHERE promotion_s_id = ?", promotionShopId);
+        }
+    }
+
+    private CheckoutQuoteDto quote() {
+        ItemByShopDto item = ItemByShopDto.builder()
+                .shopId(bird.getShopOwner().getId())
+                .listItems(new HashMap<>(Map.of(bird.getId(), 1)))
+                .distance(5)
+                .build();
+        PackageOrderRequestDto request = PackageOrderRequestDto.builder()
+                .cartInfo(CartDto.builder()
+                        .itemsByShop(new ArrayList<>(List.of(item)))
+                        .promotionIds(new ArrayList<>())
+                        .paymentMethod(PaymentMethod.DELIVERY)
+                        .build())
+                .build();
+        ResponseEntity<?> response = packageOrderService.quoteCheckout(request);
+        Assert.assertEquals(response.getStatusCode(), HttpStatus.OK);
+        CheckoutQuoteDto quote = (CheckoutQuoteDto) response.getBody();
+        Assert.assertEquals(quote.getCartInfo().getTotal().getShippingTotal(), 50.0);
+        return quote;
+    }
+
+    //the order is rolled back, only the answer matters
+    private ResponseEntity<?> placeOrder(CheckoutQuoteDto quote) {
+        PackageOrderRequestDto request = PackageOrderRequestDto.builder()
+                .userInfo(UserOrderDto.builder().fullName("Test Buyer").phoneNumber("0900000000").address("HCM").build())
+                .cartInfo(quote.getCartInfo())
+                .quoteToken(quote.getQuoteToken())
+                .build();
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return packageOrderService.packageOrder(request);
+        });
+    }
+}
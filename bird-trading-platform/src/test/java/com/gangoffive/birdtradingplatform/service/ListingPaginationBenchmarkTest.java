@@ -0,0 +1,110 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.BirdDto;
+import com.gangoffive.birdtradingplatform.wrapper.CursorPageWrapper;
+import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+//a deep page must cost about the same as the first one in cursor mode, and never run a count query
+@SpringBootTest
+@Test
+@Slf4j
+public class ListingPaginationBenchmarkTest extends AbstractTestNGSpringContextTests {
+    private static final int DEEP_PAGE = 500;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private BirdService birdService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    //cursor that opens each page, index 0 is the first page
+    private final List<String> cursors = new ArrayList<>();
+
+    @BeforeClass
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        String cursor = "";
+        while (cursor != null && cursors.size() < DEEP_PAGE) {
+            cursors.add(cursor);
+            cursor = cursorPage(cursor).getNextCursor();
+        }
+    }
+
+    @Test
+    public void cursorPagesMatchPageNumberPages() {
+        int deepest = cursors.size();
+        Assert.assertEquals(ids(cursorPage(cursors.get(0)).getLists()), ids(numberPage(1).getLists()));
+        Assert.assertEquals(ids(cursorPage(cursors.get(deepest - 1)).getLists()), ids(numberPage(deepest).getLists()));
+    }
+
+    @Test
+    public void deepPageCostsLikeTheFirstInCursorMode() {
+        int deepest = cursors.size();
+        if (deepest < DEEP_PAGE) {
+            log.warn("only {} bird pages available, page {} is benchmarked instead of {}", deepest, deepest, DEEP_PAGE);
+        }
+        benchmark("page number, page 1", () -> numberPage(1));
+        long numberStatements = benchmark("page number, page " + deepest, () -> numberPage(deepest));
+        benchmark("cursor, page 1", () -> cursorPage(cursors.get(0)));
+        long cursorStatements = benchmark("cursor, page " + deepest, () -> cursorPage(cursors.get(deepest - 1)));
+        //same rows, minus the count query whenever the page is full
+        Assert.assertTrue(cursorStatements <= numberStatements);
+    }
+
+    //returns the statements prepared per request
+    private long benchmark(String name, Supplier<?> request) {
+        request.get();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            request.get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        long statements = statistics.getPrepareStatementCount() / ITERATIONS;
+        statistics.setStatisticsEnabled(false);
+        Arrays.sort(latencies);
+        log.info("{}: {} statements, p50 {} us, p95 {} us", name, statements,
+                latencies[ITERATIONS / 2] / 1000, latencies[ITERATIONS * 95 / 100] / 1000);
+        return statements;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PageNumberWrapper<BirdDto> numberPage(int pageNumber) {
+        return transactionTemplate.execute(status ->
+                (PageNumberWrapper<BirdDto>) birdService.retrieveBirdByPageNumber(pageNumber).getBody());
+    }
+
+    @SuppressWarnings("unchecked")
+    private CursorPageWrapper<BirdDto> cursorPage(String cursor) {
+        return transactionTemplate.execute(status ->
+                (CursorPageWrapper<BirdDto>) birdService.retrieveBirdByCursor(cursor).getBody());
+    }
+
+    private List<Long> ids(List<BirdDto> birds) {
+        return birds.stream().map(BirdDto::getId).toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.common.KafkaConstant;
+import com.gangoffive.birdtradingplatform.common.NotifiConstant;
+import com.gangoffive.birdtradingplatform.dto.NotificationDto;
+import com.gangoffive.birdtradingplatform.entity.Account;
+import com.gangoffive.birdtradingplatform.repository.AccountRepository;
+import com.gangoffive.birdtradingplatform.util.JsonUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.*;
+
+//publishes through the outbox and relay to an embedded broker and reports end to end throughput
+@SpringBootTest
+@EmbeddedKafka(partitions = 3, topics = KafkaConstant.KAFKA_PRIVATE_NOTIFICATION,
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+@Test
+@Slf4j
+public class NotificationRelayThroughputTest extends AbstractTestNGSpringContextTests {
+    private static final int RECIPIENTS = 5000;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String runName = "RELAY-THROUGHPUT-" + UUID.randomUUID();
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM tbl_notification WHERE name = ?", runName);
+    }
+
+    @Test
+    public void everyRecipientIsPublished() {
+        List<Long> accountIds = accountRepository.findAll(PageRequest.of(0, 50)).stream()
+                .map(Account::getId)
+                .toList();
+        Assert.assertFalse(accountIds.isEmpty());
+        List<Long> recipients = new ArrayList<>();
+        for (int i = 0; i < RECIPIENTS; i++) {
+            recipients.add(accountIds.get(i % accountIds.size()));
+        }
+        NotificationDto notificationDto = new NotificationDto();
+        notificationDto.setRole(NotifiConstant.NOTI_USER_ROLE);
+        notificationDto.setName(runName);
+        notificationDto.setNotiText("Relay throughput test");
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(runName, "false", embeddedKafkaBroker);
+        consumerProps.put("auto.offset.reset", "earliest");
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafkaBroker.consumeFromAnEmbeddedTopic(consumer, KafkaConstant.KAFKA_PRIVATE_NOTIFICATION);
+
+            long start = System.nanoTime();
+            notificationService.pushNotificationForListUserID(recipients, notificationDto);
+            long written = System.nanoTime();
+
+            Set<String> received = new HashSet<>();
+            long deadline = System.currentTimeMillis() + 60 * 1000;
+            while (received.size() < RECIPIENTS && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(200))) {
+                    if (record.value().contains(runName)) {
+                        received.add(String.valueOf(JsonUtil.INSTANCE
+                                .getObject(record.value(), NotificationDto.class).getId()));
+                    }
+                }
+            }
+            long published = System.nanoTime();
+
+            double writeMillis = (written - start) / 1_000_000.0;
+            double totalSeconds = (published - start) / 1_000_000_000.0;
+            log.info("{} notifications: outbox write {} ms, all published in {} s ({} msg/s)", RECIPIENTS,
+                    Math.round(writeMillis), Math.round(totalSeconds * 100) / 100.0, Math.round(RECIPIENTS / totalSeconds));
+            //at-least-once: duplicates are possible, missing messages are not
+            Assert.assertEquals(received.size(), RECIPIENTS);
+        }
+    }
+}
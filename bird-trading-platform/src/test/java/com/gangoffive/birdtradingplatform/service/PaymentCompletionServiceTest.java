@@ -0,0 +1,287 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.*;
+import com.gangoffive.birdtradingplatform.entity.Account;
+import com.gangoffive.birdtradingplatform.entity.Bird;
+import com.gangoffive.birdtradingplatform.enums.PaymentCompletionStatus;
+import com.gangoffive.birdtradingplatform.enums.PaymentMethod;
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.repository.AccountRepository;
+import com.gangoffive.birdtradingplatform.repository.BirdRepository;
+import com.gangoffive.birdtradingplatform.repository.PaymentCompletionRepository;
+import com.paypal.api.payments.Payer;
+import com.paypal.api.payments.PayerInfo;
+import com.paypal.api.payments.Payment;
+import com.paypal.base.rest.PayPalRESTException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@SpringBootTest(properties = {
+        "app.paymentCompletion.backoffMillis=100",
+        "app.paymentCompletion.maxBackoffMillis=500",
+        "app.paymentCompletion.maxAttempts=3"
+})
+@Test
+@Slf4j
+public class PaymentCompletionServiceTest extends AbstractTestNGSpringContextTests {
+    private static final int STOCK = 10;
+
+    @Autowired
+    private PaymentCompletionService paymentCompletionService;
+
+    @Autowired
+    private PaymentCompletionRepository paymentCompletionRepository;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private PackageOrderService packageOrderService;
+
+    @Autowired
+    private BirdRepository birdRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StubPaypalService paypalService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Bird bird;
+    private int originalQuantity;
+
+    @TestConfiguration
+    static class StubPaypalConfiguration {
+        @Bean
+        @Primary
+        StubPaypalService stubPaypalService() {
+            return new StubPaypalService();
+        }
+    }
+
+    //fails the first execute like a paypal outage, then approves; remembers the idempotency keys it saw.
+    //Payments in timeouts time out on every execute but were charged, the ones in lostPayments can't be looked up
+    static class StubPaypalService extends PaypalService {
+        private final List<String> requestIds = new CopyOnWriteArrayList<>();
+        private final Set<String> timeouts = ConcurrentHashMap.newKeySet();
+        private final Set<String> lostPayments = ConcurrentHashMap.newKeySet();
+
+        StubPaypalService() {
+            super(null);
+        }
+
+        @Override
+        public Payment executePayment(String paymentId, String payerId, String requestId) throws PayPalRESTException {
+            if (timeouts.contains(paymentId)) {
+                throw timeout();
+            }
+            requestIds.add(requestId);
+            if (requestIds.size() == 1) {
+                PayPalRESTException e = new PayPalRESTException("Service Unavailable");
+                e.setResponsecode(503);
+                throw e;
+            }
+            return getPayment(paymentId);
+        }
+
+        @Override
+        public Payment getPayment(String paymentId) throws PayPalRESTException {
+            if (lostPayments.contains(paymentId)) {
+                throw timeout();
+            }
+            PayerInfo payerInfo = new PayerInfo();
+            payerInfo.setEmail("buyer@sandbox.test");
+            Payer payer = new Payer();
+            payer.setPayerInfo(payerInfo);
+            Payment payment = new Payment();
+            payment.setId(paymentId);
+            payment.setState("approved");
+            payment.setPayer(payer);
+            return payment;
+        }
+
+        private static PayPalRESTException timeout() {
+            //no http response at all
+            PayPalRESTException e = new PayPalRESTException("Read timed out");
+            e.setResponsecode(0);
+            return e;
+        }
+    }
+
+    @BeforeClass
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        bird = birdRepository.findAll(PageRequest.of(0, 20)).stream()
+                .filter(product -> ProductStatus.ACTIVE.equals(product.getStatus()))
+                .findFirst()
+                .orElseThrow();
+        originalQuantity = bird.getQuantity();
+        jdbcTemplate.update("UPDATE tbl_bird SET quantity = ? WHERE product_id = ?", STOCK, bird.getId());
+        Account account = accountRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(account.getEmail(), null, List.of()));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        jdbcTemplate.update("UPDATE tbl_bird SET quantity = ? WHERE product_id = ?", originalQuantity, bird.getId());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void duplicateSubmitCompletesOnceAfterRetry() throws Exception {
+        String paymentId = "PAYID-TEST-" + UUID.randomUUID();
+        PackageOrderRequestDto request = buildRequest();
+        //what handleInitialPayment does before redirecting the buyer to paypal
+        transactionTemplate.executeWithoutResult(status ->
+                stockReservationService.reserveForPayment(paymentId, Map.of(bird.getId(), 1)));
+
+        ResponseEntity<?> first = paymentCompletionService.submit(request, paymentId, "PAYER");
+        ResponseEntity<?> second = paymentCompletionService.submit(request, paymentId, "PAYER");
+        Assert.assertEquals(first.getStatusCode(), HttpStatus.ACCEPTED);
+        Assert.assertTrue(second.getStatusCode().is2xxSuccessful());
+
+        PaymentCompletionDto completion = awaitFinished(paymentId);
+        Assert.assertEquals(completion.getStatus(), PaymentCompletionStatus.COMPLETED);
+        Assert.assertNotNull(completion.getPackageOrderId());
+        Assert.assertEquals(paypalService.requestIds.size(), 2);
+        Assert.assertEquals(new HashSet<>(paypalService.requestIds).size(), 1);
+        Assert.assertEquals(birdRepository.findById(bird.getId()).map(Bird::getQuantity).orElseThrow(), STOCK - 1);
+
+        ResponseEntity<?> afterCompletion = paymentCompletionService.submit(request, paymentId, "PAYER");
+        Assert.assertEquals(afterCompletion.getStatusCode(), HttpStatus.OK);
+        Assert.assertEquals(paypalService.requestIds.size(), 2);
+    }
+
+    @Test
+    public void timedOutPaymentThatPaypalExecutedCompletes() throws Exception {
+        String paymentId = "PAYID-TEST-" + UUID.randomUUID();
+        paypalService.timeouts.add(paymentId);
+        int quantity = reserve(paymentId);
+
+        paymentCompletionService.submit(buildRequest(), paymentId, "PAYER");
+
+        PaymentCompletionDto completion = awaitFinished(paymentId);
+        Assert.assertEquals(completion.getStatus(), PaymentCompletionStatus.COMPLETED);
+        Assert.assertEquals(birdRepository.findById(bird.getId()).map(Bird::getQuantity).orElseThrow(), quantity - 1);
+    }
+
+    @Test
+    public void unknownPaymentOutcomeKeepsTheStockForReconciliation() throws Exception {
+        String paymentId = "PAYID-TEST-" + UUID.randomUUID();
+        paypalService.timeouts.add(paymentId);
+        paypalService.lostPayments.add(paymentId);
+        int quantity = reserve(paymentId);
+
+        paymentCompletionService.submit(buildRequest(), paymentId, "PAYER");
+
+        PaymentCompletionDto completion = awaitFinished(paymentId);
+        Assert.assertEquals(completion.getStatus(), PaymentCompletionStatus.RECONCILING);
+        Assert.assertTrue(completion.getErrorMessage().length() <= 255);
+        Assert.assertEquals(birdRepository.findById(bird.getId()).map(Bird::getQuantity).orElseThrow(), quantity - 1);
+        Assert.assertEquals(paymentCompletionService.dispatchDueCompletions(), 0);
+    }
+
+    @Test
+    public void productBannedWhileTheBuyerPaidFailsTheCompletion() throws Exception {
+        String paymentId = "PAYID-TEST-" + UUID.randomUUID();
+        PackageOrderRequestDto request = buildRequest();
+        int quantity = reserve(paymentId);
+        jdbcTemplate.update("UPDATE tbl_bird SET status = ? WHERE product_id = ?", ProductStatus.BAN.name(), bird.getId());
+        try {
+            paymentCompletionService.submit(request, paymentId, "PAYER");
+
+            PaymentCompletionDto completion = awaitFinished(paymentId);
+            Assert.assertEquals(completion.getStatus(), PaymentCompletionStatus.FAILED);
+            Assert.assertNull(completion.getPackageOrderId());
+            Assert.assertEquals(birdRepository.findById(bird.getId()).map(Bird::getQuantity).orElseThrow(), quantity);
+        } finally {
+            jdbcTemplate.update("UPDATE tbl_bird SET status = ? WHERE product_id = ?", bird.getStatus().name(), bird.getId());
+        }
+    }
+
+    @Test
+    public void refusesAnonymousCallers() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        try {
+            Assert.assertEquals(paymentCompletionService.getCompletion("PAYID-TEST").getStatusCode(),
+                    HttpStatus.UNAUTHORIZED);
+        } finally {
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+    }
+
+    //what handleInitialPayment does before redirecting the buyer to paypal, returns the quantity before
+    private int reserve(String paymentId) {
+        int quantity = birdRepository.findById(bird.getId()).map(Bird::getQuantity).orElseThrow();
+        transactionTemplate.executeWithoutResult(status ->
+                stockReservationService.reserveForPayment(paymentId, Map.of(bird.getId(), 1)));
+        return quantity;
+    }
+
+    private PaymentCompletionDto awaitFinished(String paymentId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60 * 1000;
+        while (System.currentTimeMillis() < deadline) {
+            PaymentCompletionDto completion = (PaymentCompletionDto) paymentCompletionService.getCompletion(paymentId).getBody();
+            if (completion.getStatus().equals(PaymentCompletionStatus.COMPLETED)
+                    || completion.getStatus().equals(PaymentCompletionStatus.FAILED)
+                    || completion.getStatus().equals(PaymentCompletionStatus.RECONCILING)) {
+                log.info("payment {} finished {} after {} attempts", paymentId, completion.getStatus(), completion.getAttempts());
+                return completion;
+            }
+            Thread.sleep(200);
+        }
+        Assert.fail("payment " + paymentId + " did not finish: " + paymentCompletionRepository.findByPaymentId(paymentId));
+        return null;
+    }
+
+    private PackageOrderRequestDto buildRequest() {
+        ItemByShopDto item = ItemByShopDto.builder()
+                .shopId(bird.getShopOwner().getId())
+                .listItems(new HashMap<>(Map.of(bird.getId(), 1)))
+                .build();
+        PackageOrderRequestDto request = PackageOrderRequestDto.builder()
+                .userInfo(UserOrderDto.builder().fullName("Test Buyer").phoneNumber("0900000000").address("HCM").build())
+                .cartInfo(CartDto.builder()
+                        .itemsByShop(new ArrayList<>(List.of(item)))
+                        .promotionIds(new ArrayList<>())
+                        .paymentMethod(PaymentMethod.PAYPAL)
+                        .build())
+                .build();
+        double price = transactionTemplate.execute(status ->
+                packageOrderService.loadCheckoutContext(request).getDiscountedPrices().get(bird.getId()));
+        item.setTotalShopPrice(price);
+        request.getCartInfo().setTotal(TotalOrderDto.builder().subTotal(price).paymentTotal(price).build());
+        return request;
+    }
+}
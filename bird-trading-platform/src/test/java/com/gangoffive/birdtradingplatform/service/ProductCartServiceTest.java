@@ -0,0 +1,86 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.common.ProductStatusConstant;
+import com.gangoffive.birdtradingplatform.common.ShopOwnerConstant;
+import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
+import com.gangoffive.birdtradingplatform.repository.BirdRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Test
+@Slf4j
+public class ProductCartServiceTest extends AbstractTestNGSpringContextTests {
+    //cards with their ratings (catalog, then product tables for the ones it misses), tags, promotion rates
+    private static final long CARD_QUERY_BUDGET = 4;
+
+    @Autowired
+    private ProductCartService productCartService;
+
+    @Autowired
+    private BirdRepository birdRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private List<Long> pageIds;
+
+    @BeforeClass
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        pageIds = birdRepository.findAllByQuantityGreaterThanAndStatusInAndShopOwner_StatusIn(
+                        ProductStatusConstant.QUANTITY_PRODUCT_FOR_USER,
+                        ProductStatusConstant.LIST_STATUS_GET_FOR_USER,
+                        ShopOwnerConstant.STATUS_SHOP_PRODUCT_FOR_USER,
+                        PageRequest.of(0, 20))
+                .map(bird -> bird.getId())
+                .getContent();
+    }
+
+    @Test
+    public void buildProductCartsUsesFixedNumberOfQueries() {
+        statistics.clear();
+        List<ProductCartDto> carts = productCartService.buildProductCarts(pageIds);
+        long queryCount = statistics.getPrepareStatementCount();
+        log.info("build {} carts with {} queries", carts.size(), queryCount);
+        Assert.assertEquals(carts.size(), pageIds.size());
+        Assert.assertTrue(queryCount <= CARD_QUERY_BUDGET);
+    }
+
+    @Test
+    public void queryCountDoesNotGrowWithPageSize() {
+        if (pageIds.isEmpty()) {
+            return;
+        }
+        statistics.clear();
+        productCartService.buildProductCarts(pageIds.subList(0, 1));
+        long singleCount = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        productCartService.buildProductCarts(pageIds);
+        long pageCount = statistics.getPrepareStatementCount();
+        Assert.assertEquals(pageCount, singleCount);
+    }
+
+    @Test
+    public void buildProductCartsKeepsRequestedOrder() {
+        List<Long> reversed = pageIds.stream().sorted((a, b) -> Long.compare(b, a)).toList();
+        List<Long> actual = productCartService.buildProductCarts(reversed).stream()
+                .map(ProductCartDto::getId)
+                .toList();
+        Assert.assertEquals(actual, reversed);
+    }
+}
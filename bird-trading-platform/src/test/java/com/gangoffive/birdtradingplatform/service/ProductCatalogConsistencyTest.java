@@ -0,0 +1,102 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductCardView;
+import com.gangoffive.birdtradingplatform.entity.ProductCatalog;
+import com.gangoffive.birdtradingplatform.repository.ProductCatalogRepository;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import com.gangoffive.birdtradingplatform.util.MyUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@Test(singleThreaded = true)
+@Slf4j
+public class ProductCatalogConsistencyTest extends AbstractTestNGSpringContextTests {
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ProductCatalogRepository productCatalogRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> pageIds;
+
+    @BeforeClass
+    public void setUp() {
+        productCatalogService.repair();
+        pageIds = productCatalogRepository.findAll(PageRequest.of(0, 20, Sort.by("id"))).stream()
+                .map(ProductCatalog::getId)
+                .toList();
+    }
+
+    @Test
+    public void catalogCardsMatchProductTableCards() {
+        Map<Long, ProductCardView> expected = this.byId(productRepository.findCardViewByIdIn(pageIds));
+        Map<Long, ProductCardView> actual = this.byId(productCatalogRepository.findCardViewByIdIn(pageIds));
+        Assert.assertEquals(actual.keySet(), expected.keySet());
+        expected.forEach((id, card) -> {
+            ProductCardView copy = actual.get(id);
+            Assert.assertEquals(copy.getName(), card.getName());
+            Assert.assertEquals(copy.getPrice(), card.getPrice());
+            Assert.assertEquals(copy.getImgUrl(), MyUtils.toLists(card.getImgUrl(), ",").get(0));
+            Assert.assertEquals(copy.getQuantity(), card.getQuantity());
+            Assert.assertEquals(copy.getCategoryId(), card.getCategoryId());
+            Assert.assertEquals(copy.getTypeId(), card.getTypeId());
+            Assert.assertEquals(copy.getShopId(), card.getShopId());
+            Assert.assertEquals(copy.getStar(), card.getStar() == null ? 0.0 : card.getStar());
+        });
+    }
+
+    @Test
+    public void repairRewritesDriftedAndMissingRows() {
+        if (pageIds.size() < 2) {
+            return;
+        }
+        long stale = pageIds.get(0);
+        long missing = pageIds.get(1);
+        ProductCatalog before = productCatalogRepository.findById(stale).orElseThrow();
+        jdbcTemplate.update("UPDATE tbl_product_catalog SET price = price + 1, shop_status = NULL WHERE product_id = ?", stale);
+        jdbcTemplate.update("DELETE FROM tbl_product_catalog WHERE product_id = ?", missing);
+
+        Assert.assertTrue(productCatalogService.repair() >= 2);
+        ProductCatalog after = productCatalogRepository.findById(stale).orElseThrow();
+        Assert.assertEquals(after.getPrice(), before.getPrice());
+        Assert.assertEquals(after.getShopStatus(), before.getShopStatus());
+        Assert.assertTrue(productCatalogRepository.existsById(missing));
+    }
+
+    @Test
+    public void syncCopiesTheProductBack() {
+        if (pageIds.isEmpty()) {
+            return;
+        }
+        long id = pageIds.get(0);
+        ProductCatalog before = productCatalogRepository.findById(id).orElseThrow();
+        jdbcTemplate.update("UPDATE tbl_product_catalog SET quantity = quantity + 7 WHERE product_id = ?", id);
+
+        productCatalogService.sync(List.of(id));
+        Assert.assertEquals(productCatalogRepository.findById(id).orElseThrow().getQuantity(), before.getQuantity());
+    }
+
+    private Map<Long, ProductCardView> byId(List<ProductCardView> cards) {
+        return cards.stream().collect(Collectors.toMap(ProductCardView::getId, Function.identity()));
+    }
+}
@@ -0,0 +1,256 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductHierarchyMigrationDto;
+import com.gangoffive.birdtradingplatform.entity.Food;
+import com.gangoffive.birdtradingplatform.entity.JoinedFood;
+import com.gangoffive.birdtradingplatform.entity.JoinedProduct;
+import com.gangoffive.birdtradingplatform.entity.Product;
+import com.gangoffive.birdtradingplatform.entity.ShopOwner;
+import com.gangoffive.birdtradingplatform.entity.TypeFood;
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import com.gangoffive.birdtradingplatform.repository.FoodRepository;
+import com.gangoffive.birdtradingplatform.repository.JoinedProductRepository;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.Supplier;
+
+//seeds a million foods (-Dbenchmark.products to change it), migrates them and times lookup, listing and insert
+//through the TABLE_PER_CLASS mapping (Product) against the JOINED one (JoinedProduct)
+@SpringBootTest
+@Test(singleThreaded = true)
+@Slf4j
+public class ProductHierarchyBenchmarkTest extends AbstractTestNGSpringContextTests {
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int ITERATIONS = 50;
+    private static final int INSERTS = 200;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JoinedProductRepository joinedProductRepository;
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private ProductHierarchyMigrationService productHierarchyMigrationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private long shopId;
+    private long typeFoodId;
+    private long firstSeededId;
+    private long lastSeededId;
+    private final List<Long> insertedIds = new ArrayList<>();
+    private final List<Long> joinedInsertedIds = new ArrayList<>();
+
+    @BeforeClass
+    public void setUp() throws InterruptedException {
+        String products = System.getProperty("benchmark.products", "1000000");
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        shopId = jdbcTemplate.queryForObject("SELECT shop_id FROM tbl_shop_owner_acc LIMIT 1", Long.class);
+        typeFoodId = jdbcTemplate.queryForObject("SELECT type_f_id FROM tbl_type_food LIMIT 1", Long.class);
+        this.seed(Integer.parseInt(products));
+
+        Assert.assertTrue(productHierarchyMigrationService.startMigration(false));
+        ProductHierarchyMigrationDto progress = productHierarchyMigrationService.getProgress();
+        while (progress.getStatus() == RebuildStatus.RUNNING) {
+            Thread.sleep(1000);
+            progress = productHierarchyMigrationService.getProgress();
+        }
+        log.info("migration {}: {} rows at {} rows/s", progress.getStatus(), progress.getCopiedTotal(),
+                progress.getRowsPerSecond());
+        Assert.assertEquals(progress.getStatus(), RebuildStatus.COMPLETED);
+        Assert.assertEquals(progress.getMismatchTotal(), 0);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        //the catalog may have picked the seeded foods up in the meantime, the sync triggers remove the rest too
+        List<String> tables = List.of("tbl_product_catalog", "tbl_product_food", "tbl_product", "tbl_food");
+        for (long from = firstSeededId; lastSeededId != 0 && from <= lastSeededId; from += SEED_BATCH_SIZE) {
+            long until = Math.min(from + SEED_BATCH_SIZE - 1, lastSeededId);
+            for (String table : tables) {
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE product_id BETWEEN ? AND ?", from, until);
+            }
+        }
+        insertedIds.forEach(id -> tables.forEach(table ->
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE product_id = ?", id)));
+        joinedInsertedIds.forEach(id -> List.of("tbl_product_food", "tbl_product").forEach(table ->
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE product_id = ?", id)));
+    }
+
+    @Test
+    public void lookupById() {
+        long productId = this.randomSeededId(new Random(7));
+        Product product = transactionTemplate.execute(status -> productRepository.findById(productId).orElseThrow());
+        JoinedProduct joinedProduct = transactionTemplate.execute(status ->
+                joinedProductRepository.findById(productId).orElseThrow());
+        Assert.assertTrue(product instanceof Food);
+        Assert.assertTrue(joinedProduct instanceof JoinedFood);
+        Assert.assertEquals(joinedProduct.getName(), product.getName());
+        Assert.assertEquals(((JoinedFood) joinedProduct).getWeight(), ((Food) product).getWeight());
+
+        Random random = new Random(42);
+        benchmark("lookup, table per class", () -> transactionTemplate.execute(status ->
+                productRepository.findById(this.randomSeededId(random)).orElseThrow()));
+        benchmark("lookup, joined", () -> transactionTemplate.execute(status ->
+                joinedProductRepository.findById(this.randomSeededId(random)).orElseThrow()));
+    }
+
+    @Test
+    public void deepListingPage() {
+        int deepPage = (int) ((lastSeededId - firstSeededId) / PAGE_SIZE / 2);
+        PageRequest pageRequest = PageRequest.of(deepPage, PAGE_SIZE, Sort.by("id"));
+        List<Long> ids = transactionTemplate.execute(status -> productRepository.findAll(pageRequest).stream()
+                .map(Product::getId).toList());
+        List<Long> joinedIds = transactionTemplate.execute(status -> joinedProductRepository.findAll(pageRequest)
+                .stream().map(JoinedProduct::getId).toList());
+        Assert.assertEquals(joinedIds, ids);
+
+        benchmark("listing page " + deepPage + ", table per class", () -> transactionTemplate.execute(status ->
+                productRepository.findAll(pageRequest).getContent()));
+        benchmark("listing page " + deepPage + ", joined", () -> transactionTemplate.execute(status ->
+                joinedProductRepository.findAll(pageRequest).getContent()));
+    }
+
+    //pooled-lo fetches ids once per 50 inserts; the JOINED mapping writes a base and a detail row per product
+    @Test
+    public void insert() {
+        double statementsPerInsert = this.benchmarkInserts("insert, table per class", () -> {
+            Food food = transactionTemplate.execute(status -> foodRepository.save(this.newFood()));
+            insertedIds.add(food.getId());
+        });
+        Assert.assertTrue(statementsPerInsert < 1.5);
+        //written through by the sync triggers
+        Long lastInsertedId = insertedIds.get(insertedIds.size() - 1);
+        Assert.assertTrue(transactionTemplate.execute(status ->
+                joinedProductRepository.findById(lastInsertedId).orElseThrow()) instanceof JoinedFood);
+
+        double joinedStatementsPerInsert = this.benchmarkInserts("insert, joined", () -> {
+            JoinedFood food = transactionTemplate.execute(status -> joinedProductRepository.save(this.newJoinedFood()));
+            joinedInsertedIds.add(food.getId());
+        });
+        Assert.assertTrue(joinedStatementsPerInsert < 2.5);
+    }
+
+    //returns the statements per insert
+    private double benchmarkInserts(String name, Runnable insert) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        long[] latencies = new long[INSERTS];
+        for (int i = 0; i < INSERTS; i++) {
+            long start = System.nanoTime();
+            insert.run();
+            latencies[i] = System.nanoTime() - start;
+        }
+        double statementsPerInsert = (double) statistics.getPrepareStatementCount() / INSERTS;
+        statistics.setStatisticsEnabled(false);
+        Arrays.sort(latencies);
+        log.info("{}: {} statements per insert, p50 {} us, p95 {} us", name, statementsPerInsert,
+                latencies[INSERTS / 2] / 1000, latencies[INSERTS * 95 / 100] / 1000);
+        return statementsPerInsert;
+    }
+
+    private void benchmark(String name, Supplier<?> request) {
+        request.get();
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            request.get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        log.info("{}: p50 {} us, p95 {} us", name, latencies[ITERATIONS / 2] / 1000,
+                latencies[ITERATIONS * 95 / 100] / 1000);
+    }
+
+    //reserves the id block in product_id_seq so the application never hands the seeded ids out
+    private void seed(int products) {
+        firstSeededId = transactionTemplate.execute(status -> {
+            long next = jdbcTemplate.queryForObject("SELECT next_val FROM product_id_seq FOR UPDATE", Long.class);
+            jdbcTemplate.update("UPDATE product_id_seq SET next_val = ?", next + products);
+            return next;
+        });
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        long start = System.currentTimeMillis();
+        for (long from = firstSeededId; from < firstSeededId + products; from += SEED_BATCH_SIZE) {
+            List<Object[]> rows = new ArrayList<>(SEED_BATCH_SIZE);
+            for (long id = from; id < Math.min(from + SEED_BATCH_SIZE, firstSeededId + products); id++) {
+                rows.add(new Object[]{id, "Benchmark food " + id, 10 + id % 500, "Benchmark", now, now, 100,
+                        "benchmark.jpg", ProductStatus.ACTIVE.name(), shopId, 1.0, typeFoodId});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO tbl_food (product_id, name, price, description, created_date, " +
+                    "last_updated, quantity, img_url, status, shop_id, weight, type_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+            lastSeededId = from + rows.size() - 1;
+        }
+        log.info("seeded {} foods in {} ms", products, System.currentTimeMillis() - start);
+    }
+
+    private long randomSeededId(Random random) {
+        return firstSeededId + (long) (random.nextDouble() * (lastSeededId - firstSeededId + 1));
+    }
+
+    private Food newFood() {
+        Food food = new Food();
+        food.setName("Benchmark insert");
+        food.setPrice(10);
+        food.setDescription("Benchmark");
+        food.setQuantity(1);
+        food.setImgUrl("benchmark.jpg");
+        food.setStatus(ProductStatus.ACTIVE);
+        food.setWeight(1);
+        food.setShopOwner(entityManager.getReference(ShopOwner.class, shopId));
+        food.setTypeFood(entityManager.getReference(TypeFood.class, typeFoodId));
+        return food;
+    }
+
+    private JoinedFood newJoinedFood() {
+        JoinedFood food = new JoinedFood();
+        food.setName("Benchmark insert");
+        food.setPrice(10);
+        food.setDescription("Benchmark");
+        food.setQuantity(1);
+        food.setImgUrl("benchmark.jpg");
+        food.setStatus(ProductStatus.ACTIVE);
+        food.setWeight(1);
+        food.setShopOwner(entityManager.getReference(ShopOwner.class, shopId));
+        food.setTypeFood(entityManager.getReference(TypeFood.class, typeFoodId));
+        return food;
+    }
+}
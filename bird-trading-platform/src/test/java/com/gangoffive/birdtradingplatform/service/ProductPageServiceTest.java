@@ -0,0 +1,126 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
+import com.gangoffive.birdtradingplatform.entity.Bird;
+import com.gangoffive.birdtradingplatform.entity.ShopOwner;
+import com.gangoffive.birdtradingplatform.entity.TypeBird;
+import com.gangoffive.birdtradingplatform.enums.Gender;
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.enums.ShopOwnerStatus;
+import com.gangoffive.birdtradingplatform.repository.BirdRepository;
+import com.gangoffive.birdtradingplatform.wrapper.PageNumberWrapper;
+import com.gangoffive.birdtradingplatform.wrapper.ProductPageWrapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//a generous deadline, so every section makes it into the page even on a slow database
+@SpringBootTest(properties = "app.productPage.timeoutMillis=10000")
+@Test
+@Slf4j
+public class ProductPageServiceTest extends AbstractTestNGSpringContextTests {
+    @Autowired
+    private ProductPageService productPageService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BirdRepository birdRepository;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private long productId;
+
+    //a fixture bird in an active shop, with its summary row
+    @BeforeClass
+    public void setUp() {
+        long shopId = jdbcTemplate.queryForObject("SELECT shop_id FROM tbl_shop_owner_acc WHERE status = ? LIMIT 1",
+                Long.class, ShopOwnerStatus.ACTIVE.name());
+        long typeBirdId = jdbcTemplate.queryForObject("SELECT type_b_id FROM tbl_type_bird LIMIT 1", Long.class);
+        productId = new TransactionTemplate(transactionManager).execute(status -> {
+            Bird bird = new Bird();
+            bird.setName("Product page fixture");
+            bird.setPrice(10);
+            bird.setDescription("Product page fixture");
+            bird.setQuantity(5);
+            bird.setImgUrl("fixture.jpg");
+            bird.setStatus(ProductStatus.ACTIVE);
+            bird.setAge(1);
+            bird.setGender(Gender.MALE);
+            bird.setColor("Blue");
+            bird.setTags(new ArrayList<>());
+            bird.setShopOwner(entityManager.getReference(ShopOwner.class, shopId));
+            bird.setTypeBird(entityManager.getReference(TypeBird.class, typeBirdId));
+            long id = birdRepository.save(bird).getId();
+            productSummaryService.rebuildChunk(List.of(id));
+            return id;
+        });
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM tbl_product_summary WHERE product_id = ?", productId);
+        jdbcTemplate.update("DELETE FROM tbl_bird WHERE product_id = ?", productId);
+    }
+
+    @Test
+    public void assemblesTheSectionsOfTheSeparateEndpoints() {
+        //the request thread keeps its session open in the app
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        long start = System.nanoTime();
+        ResponseEntity<?> response = transactionTemplate.execute(status -> productPageService.getProductPage(productId, 1));
+        log.info("product page assembled in {} ms", (System.nanoTime() - start) / 1_000_000);
+        Assert.assertEquals(response.getStatusCode(), HttpStatus.OK);
+        ProductPageWrapper page = (ProductPageWrapper) response.getBody();
+        Assert.assertEquals((long) page.getProduct().getProduct().getId(), productId);
+        Assert.assertEquals(page.getMissingSections(), List.of());
+
+        List<Long> relevant = transactionTemplate.execute(status -> ((List<?>) productService
+                .getProductRelevantBaseOnId(productId).getBody()).stream()
+                .map(card -> ((ProductCartDto) card).getId())
+                .toList());
+        Assert.assertEquals(page.getRelevantProducts().stream().map(ProductCartDto::getId).toList(),
+                relevant);
+        PageNumberWrapper<?> reviews = transactionTemplate.execute(status ->
+                (PageNumberWrapper<?>) reviewService.getAllReviewByProductId(productId, 1).getBody());
+        Assert.assertEquals(page.getReviews().getTotalElement(), reviews.getTotalElement());
+        Assert.assertEquals(page.getShop().getShopInfoDto().getId(),
+                (long) jdbcTemplate.queryForObject("SELECT shop_id FROM tbl_bird WHERE product_id = ?", Long.class,
+                        productId));
+    }
+
+    @Test
+    public void answersNotFoundForAMissingProduct() {
+        ResponseEntity<?> response = productPageService.getProductPage(-1L, 1);
+        Assert.assertEquals(response.getStatusCode(), HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,172 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductSummaryEventDto;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import com.gangoffive.birdtradingplatform.repository.ProductSummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@SpringBootTest
+@Test
+@Slf4j
+public class ProductSummaryEventTest extends AbstractTestNGSpringContextTests {
+    private static final String SUMMARY_ROW = "SELECT star, review_total, rating_total, category, " +
+            "total_quantity_order, discounted_price, is_deleted FROM tbl_product_summary WHERE product_id = ?";
+
+    //arguments of every applyDelta call followed by the number of rows it updated
+    private static final List<List<Object>> applyDeltaCalls = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Long productId;
+    private Map<String, Object> rebuiltRow;
+
+    @TestConfiguration
+    static class RecordingRepositoryConfiguration {
+        @Bean
+        @Primary
+        ProductSummaryRepository recordingProductSummaryRepository(
+                @Qualifier("productSummaryRepository") ProductSummaryRepository productSummaryRepository) {
+            return (ProductSummaryRepository) Proxy.newProxyInstance(ProductSummaryRepository.class.getClassLoader(),
+                    new Class<?>[]{ProductSummaryRepository.class}, (proxy, method, args) -> {
+                        Object result;
+                        try {
+                            result = method.invoke(productSummaryRepository, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (method.getName().equals("applyDelta")) {
+                            List<Object> call = new ArrayList<>(Arrays.asList(args));
+                            call.add(result);
+                            applyDeltaCalls.add(call);
+                        }
+                        return result;
+                    });
+        }
+    }
+
+    @BeforeClass
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        productId = productRepository.findIdByIdGreaterThan(0, PageRequest.of(0, 1)).get(0);
+    }
+
+    //the row as rebuilt from the reviews, order details and promotions
+    @BeforeMethod
+    public void rebuildRow() {
+        productSummaryService.rebuildChunk(List.of(productId));
+        rebuiltRow = jdbcTemplate.queryForMap(SUMMARY_ROW, productId);
+        applyDeltaCalls.clear();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void restoreRow() {
+        productSummaryService.rebuildChunk(List.of(productId));
+    }
+
+    @Test
+    public void eventsOfOneTransactionAreWrittenInOneUpdate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            productSummaryService.publishEvent(orderDetailCreated(2));
+            productSummaryService.publishEvent(orderDetailCreated(3));
+            productSummaryService.publishEvent(reviewAdded(4));
+        });
+
+        Assert.assertEquals(applyDeltaCalls.size(), 1);
+        Assert.assertEquals(applyDeltaCalls.get(0), Arrays.asList(productId, 5, 1, 4L, null, null, 1));
+        Map<String, Object> row = jdbcTemplate.queryForMap(SUMMARY_ROW, productId);
+        Assert.assertEquals(((Number) row.get("total_quantity_order")).doubleValue(),
+                ((Number) rebuiltRow.get("total_quantity_order")).doubleValue() + 5);
+        Assert.assertEquals(((Number) row.get("review_total")).intValue(),
+                ((Number) rebuiltRow.get("review_total")).intValue() + 1);
+        Assert.assertEquals(((Number) row.get("rating_total")).longValue(),
+                ((Number) rebuiltRow.get("rating_total")).longValue() + 4);
+    }
+
+    @Test
+    public void rolledBackTransactionWritesNothing() {
+        transactionTemplate.executeWithoutResult(status -> {
+            productSummaryService.publishEvent(orderDetailCreated(2));
+            productSummaryService.publishEvent(reviewAdded(5));
+            status.setRollbackOnly();
+        });
+
+        Assert.assertTrue(applyDeltaCalls.isEmpty());
+        Assert.assertEquals(jdbcTemplate.queryForMap(SUMMARY_ROW, productId), rebuiltRow);
+    }
+
+    @Test
+    public void missingRowIsRebuilt() {
+        jdbcTemplate.update("DELETE FROM tbl_product_summary WHERE product_id = ?", productId);
+
+        productSummaryService.publishEvent(orderDetailCreated(1));
+
+        Assert.assertEquals(applyDeltaCalls.size(), 1);
+        Assert.assertEquals(applyDeltaCalls.get(0).get(6), 0);
+        Assert.assertEquals(jdbcTemplate.queryForMap(SUMMARY_ROW, productId), rebuiltRow);
+    }
+
+    @Test
+    public void rowWithoutRatingTotalIsRebuiltOnReview() {
+        //written before rating_total existed: reviews counted, their stars not
+        jdbcTemplate.update("UPDATE tbl_product_summary SET review_total = 3, rating_total = 0, star = 4 " +
+                "WHERE product_id = ?", productId);
+
+        productSummaryService.publishEvent(reviewAdded(5));
+
+        Assert.assertEquals(applyDeltaCalls.size(), 1);
+        Assert.assertEquals(applyDeltaCalls.get(0).get(6), 0);
+        Assert.assertEquals(jdbcTemplate.queryForMap(SUMMARY_ROW, productId), rebuiltRow);
+    }
+
+    private ProductSummaryEventDto orderDetailCreated(int quantity) {
+        return ProductSummaryEventDto.builder()
+                .productId(productId)
+                .type(ProductSummaryEventType.ORDER_DETAIL_CREATED)
+                .quantity(quantity)
+                .build();
+    }
+
+    private ProductSummaryEventDto reviewAdded(int star) {
+        return ProductSummaryEventDto.builder()
+                .productId(productId)
+                .type(ProductSummaryEventType.REVIEW_ADDED)
+                .star(star)
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductSummaryRebuildDto;
+import com.gangoffive.birdtradingplatform.enums.RebuildStatus;
+import com.gangoffive.birdtradingplatform.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+@SpringBootTest(properties = {
+        "app.summaryRebuild.chunkSize=2",
+        "app.summaryRebuild.threads=1"
+})
+@Test
+@Slf4j
+public class ProductSummaryRebuildServiceTest extends AbstractTestNGSpringContextTests {
+    private static final String SUMMARY_COLUMNS = "SELECT product_id, star, review_total, rating_total, category, " +
+            "total_quantity_order, discounted_price, is_deleted FROM tbl_product_summary ";
+
+    //first product id of the chunk that fails, 0 for none
+    private static final AtomicLong failingChunk = new AtomicLong();
+    private static final List<List<Long>> rebuiltChunks = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private ProductSummaryRebuildService productSummaryRebuildService;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TestConfiguration
+    static class FailingChunkConfiguration {
+        //records the chunks handed to the summary service and fails the chosen one like a lost connection
+        @Bean
+        @Primary
+        ProductSummaryService failingChunkProductSummaryService(
+                @Qualifier("productSummaryServiceImpl") ProductSummaryService productSummaryService) {
+            return (ProductSummaryService) Proxy.newProxyInstance(ProductSummaryService.class.getClassLoader(),
+                    new Class<?>[]{ProductSummaryService.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("rebuildChunk")) {
+                            @SuppressWarnings("unchecked")
+                            List<Long> productIds = (List<Long>) args[0];
+                            if (productIds.get(0) == failingChunk.get()) {
+                                throw new IllegalStateException("Communications link failure");
+                            }
+                            rebuiltChunks.add(productIds);
+                        }
+                        try {
+                            return method.invoke(productSummaryService, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void resumesFromTheCheckpointAfterAFailedChunk() throws InterruptedException {
+        List<Long> productIds = productRepository.findIdByIdGreaterThan(0, PageRequest.of(0, 5));
+        Assert.assertEquals(productIds.size(), 5);
+        failingChunk.set(productIds.get(4));
+        rebuiltChunks.clear();
+
+        Assert.assertTrue(productSummaryRebuildService.startRebuild(false));
+        ProductSummaryRebuildDto stopped = awaitFinished();
+        //the first two chunks are checkpointed, the third stopped the job
+        Assert.assertEquals(stopped.getStatus(), RebuildStatus.FAILED);
+        Assert.assertEquals(stopped.getLastProductId(), (long) productIds.get(3));
+        Assert.assertEquals(stopped.getProcessedTotal(), 4);
+
+        failingChunk.set(0);
+        rebuiltChunks.clear();
+        Assert.assertTrue(productSummaryRebuildService.startRebuild(true));
+        ProductSummaryRebuildDto resumed = awaitFinished();
+        Assert.assertEquals(resumed.getStatus(), RebuildStatus.COMPLETED);
+        Assert.assertEquals(resumed.getId(), stopped.getId());
+        Assert.assertEquals(rebuiltChunks.get(0).get(0), productIds.get(4));
+        Assert.assertTrue(rebuiltChunks.stream().flatMap(List::stream).allMatch(productId -> productId > productIds.get(3)));
+        Assert.assertEquals(resumed.getProcessedTotal(),
+                4 + rebuiltChunks.stream().mapToLong(List::size).sum());
+    }
+
+    @Test
+    public void rebuildsTheSameRowsAsTheSingleProductRepair() {
+        List<Long> productIds = productRepository.findIdByIdGreaterThan(0, PageRequest.of(0, 50));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status ->
+                productRepository.findAllById(productIds).forEach(productSummaryService::apply));
+        List<Map<String, Object>> repaired = this.summaryRows(productIds);
+
+        jdbcTemplate.update("UPDATE tbl_product_summary SET star = 0, review_total = 0, rating_total = 0, " +
+                "total_quantity_order = 0 WHERE product_id BETWEEN ? AND ?",
+                productIds.get(0), productIds.get(productIds.size() - 1));
+        jdbcTemplate.update("DELETE FROM tbl_product_summary WHERE product_id = ?", productIds.get(0));
+        Assert.assertEquals(productSummaryService.rebuildChunk(productIds), productIds.size());
+
+        Assert.assertEquals(this.summaryRows(productIds), repaired);
+    }
+
+    private List<Map<String, Object>> summaryRows(List<Long> productIds) {
+        return jdbcTemplate.queryForList(SUMMARY_COLUMNS + "WHERE product_id BETWEEN ? AND ? ORDER BY product_id",
+                productIds.get(0), productIds.get(productIds.size() - 1));
+    }
+
+    private ProductSummaryRebuildDto awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60 * 1000;
+        while (System.currentTimeMillis() < deadline) {
+            ProductSummaryRebuildDto progress = productSummaryRebuildService.getProgress();
+            if (progress.getStatus() != RebuildStatus.RUNNING) {
+                log.info("product summary rebuild {} {} at product id {}", progress.getId(), progress.getStatus(),
+                        progress.getLastProductId());
+                return progress;
+            }
+            Thread.sleep(100);
+        }
+        Assert.fail("product summary rebuild did not finish");
+        return null;
+    }
+}
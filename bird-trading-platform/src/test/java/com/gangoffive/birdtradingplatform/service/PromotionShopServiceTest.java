@@ -0,0 +1,139 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.PromotionShopDto;
+import com.gangoffive.birdtradingplatform.entity.Bird;
+import com.gangoffive.birdtradingplatform.entity.PromotionShop;
+import com.gangoffive.birdtradingplatform.enums.ProductStatus;
+import com.gangoffive.birdtradingplatform.repository.BirdRepository;
+import com.gangoffive.birdtradingplatform.repository.PromotionShopRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@Test
+@Slf4j
+public class PromotionShopServiceTest extends AbstractTestNGSpringContextTests {
+    private static final ZoneId PROMOTION_ZONE = ZoneId.of("Asia/Bangkok");
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private PromotionShopService promotionShopService;
+
+    @Autowired
+    private PromotionScheduleService promotionScheduleService;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private PromotionShopRepository promotionShopRepository;
+
+    @Autowired
+    private BirdRepository birdRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Bird bird;
+    private PromotionShop promotion;
+
+    @BeforeClass
+    public void setUp() {
+        bird = birdRepository.findAll(PageRequest.of(0, 20)).stream()
+                .filter(product -> ProductStatus.ACTIVE.equals(product.getStatus()) && product.getPrice() > 0)
+                .findFirst()
+                .orElseThrow();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                bird.getShopOwner().getAccount().getEmail(), null, List.of()));
+        //started before the catch-up window, so only its end is queued
+        PromotionShop newPromotion = new PromotionShop();
+        newPromotion.setName("Test promotion");
+        newPromotion.setDescription("Half price");
+        newPromotion.setDiscountRate(50);
+        newPromotion.setStartDate(new Date(System.currentTimeMillis() - 3 * DAY));
+        newPromotion.setEndDate(new Date(System.currentTimeMillis() + 3 * DAY));
+        newPromotion.setShopOwner(bird.getShopOwner());
+        promotion = promotionShopRepository.save(newPromotion);
+        jdbcTemplate.update("INSERT INTO tbl_product_promotion (product_id, promotion_s_id) VALUES (?, ?)",
+                bird.getId(), promotion.getId());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM tbl_product_promotion WHERE promotion_s_id = ?", promotion.getId());
+        jdbcTemplate.update("DELETE FROM tbl_promotion_shop WHERE promotion_s_id = ?", promotion.getId());
+        promotionScheduleService.reload();
+        productSummaryService.recalculateDiscountedPrice(List.of(bird.getId()));
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void dueBoundaryRecomputesTheDiscountedPrice() throws InterruptedException {
+        //the price from before the promotion started
+        jdbcTemplate.update("UPDATE tbl_product_summary SET discounted_price = ? WHERE product_id = ?",
+                bird.getPrice(), bird.getId());
+        //its start boundary passed at the last midnight, inside the catch-up window, so it is due straight away
+        PromotionShop startedToday = new PromotionShop();
+        startedToday.setId(promotion.getId());
+        startedToday.setStartDate(Date.from(LocalDate.now(PROMOTION_ZONE).atStartOfDay(PROMOTION_ZONE).toInstant()));
+        startedToday.setEndDate(promotion.getEndDate());
+
+        promotionScheduleService.schedule(startedToday);
+
+        long deadline = System.currentTimeMillis() + 30 * 1000;
+        double discountedPrice = bird.getPrice();
+        while (discountedPrice >= bird.getPrice() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+            discountedPrice = jdbcTemplate.queryForObject(
+                    "SELECT discounted_price FROM tbl_product_summary WHERE product_id = ?", Double.class, bird.getId());
+        }
+        Assert.assertTrue(discountedPrice < bird.getPrice(), "discounted price was not recomputed: " + discountedPrice);
+    }
+
+    @Test
+    public void updateReplacesTheQueuedBoundaries() {
+        promotionScheduleService.reschedule(promotion);
+        List<Date> before = promotionScheduleService.pendingBoundaries(promotion.getId());
+        Assert.assertEquals(before.size(), 1);
+
+        PromotionShopDto moved = new PromotionShopDto(promotion.getId(), promotion.getName(),
+                promotion.getDescription(), promotion.getDiscountRate(), promotion.getStartDate().getTime(),
+                promotion.getEndDate().getTime() + 2 * DAY);
+        Assert.assertEquals(promotionShopService.updatePromotionShop(moved).getStatusCode(), HttpStatus.OK);
+
+        //the end moved two days, the old end is no longer queued
+        List<Date> after = promotionScheduleService.pendingBoundaries(promotion.getId());
+        Assert.assertEquals(after.size(), 1);
+        Assert.assertEquals(after.get(0).getTime() - before.get(0).getTime(), 2 * DAY);
+        promotion.setEndDate(new Date(moved.getEndDate()));
+    }
+
+    @Test
+    public void updateRefusesAMissingIdOrDatesOutOfOrder() {
+        long start = promotion.getStartDate().getTime();
+        PromotionShopDto withoutId = new PromotionShopDto(0, "Test promotion", "Half price", 50, start, start + DAY);
+        Assert.assertEquals(promotionShopService.updatePromotionShop(withoutId).getStatusCode(), HttpStatus.BAD_REQUEST);
+
+        PromotionShopDto endBeforeStart = new PromotionShopDto(promotion.getId(), "Test promotion", "Half price", 50,
+                start, start - DAY);
+        Assert.assertEquals(promotionShopService.updatePromotionShop(endBeforeStart).getStatusCode(),
+                HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,98 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductSummaryEventDto;
+import com.gangoffive.birdtradingplatform.dto.ResourceVersionDto;
+import com.gangoffive.birdtradingplatform.enums.Category;
+import com.gangoffive.birdtradingplatform.enums.ProductSummaryEventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest
+@Test(singleThreaded = true)
+@Slf4j
+public class ResourceVersionServiceTest extends AbstractTestNGSpringContextTests {
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void productVersionFollowsBulkQuantityUpdates() {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT p.product_id FROM tbl_bird p " +
+                "INNER JOIN tbl_product_summary ps ON ps.product_id = p.product_id " +
+                "INNER JOIN tbl_shop_owner_acc sh ON sh.shop_id = p.shop_id " +
+                "WHERE p.status = 'ACTIVE' AND sh.status = 'ACTIVE' LIMIT 1", Long.class);
+        if (ids.isEmpty()) {
+            return;
+        }
+        long productId = ids.get(0);
+        ResourceVersionDto before = resourceVersionService.getProductVersion(productId).orElseThrow();
+        Assert.assertEquals(resourceVersionService.getProductVersion(productId).orElseThrow().getETag(),
+                before.getETag());
+
+        //a bulk update does not move last_updated, the etag still changes
+        jdbcTemplate.update("UPDATE tbl_bird SET quantity = quantity + 1 WHERE product_id = ?", productId);
+        try {
+            Assert.assertNotEquals(resourceVersionService.getProductVersion(productId).orElseThrow().getETag(),
+                    before.getETag());
+        } finally {
+            jdbcTemplate.update("UPDATE tbl_bird SET quantity = quantity - 1 WHERE product_id = ?", productId);
+        }
+        Assert.assertEquals(resourceVersionService.getProductVersion(productId).orElseThrow().getETag(),
+                before.getETag());
+        Assert.assertTrue(resourceVersionService.getProductVersion(-1L).isEmpty());
+    }
+
+    @Test
+    public void typeVersionAggregatesTheRequestedCategories() {
+        ResourceVersionDto birds = resourceVersionService.getTypeVersion(List.of(Category.BIRD));
+        Assert.assertEquals(resourceVersionService.getTypeVersion(List.of(Category.BIRD)).getETag(), birds.getETag());
+        Assert.assertNotEquals(resourceVersionService.getTypeVersion(
+                List.of(Category.BIRD, Category.FOOD, Category.ACCESSORY)).getETag(), birds.getETag());
+        Assert.assertEquals(birds.getLastModified(), -1);
+    }
+
+    @Test
+    public void shopVersionFollowsOrderDetailsAndReviews() {
+        List<Map<String, Object>> products = jdbcTemplate.queryForList("SELECT p.product_id, p.shop_id " +
+                "FROM tbl_bird p INNER JOIN tbl_product_summary ps ON ps.product_id = p.product_id " +
+                "INNER JOIN tbl_shop_owner_acc sh ON sh.shop_id = p.shop_id WHERE sh.status = 'ACTIVE' LIMIT 1");
+        if (products.isEmpty()) {
+            return;
+        }
+        long productId = ((Number) products.get(0).get("product_id")).longValue();
+        long shopId = ((Number) products.get(0).get("shop_id")).longValue();
+        String before = resourceVersionService.getShopVersion(shopId).orElseThrow().getETag();
+
+        try {
+            productSummaryService.publishEvent(ProductSummaryEventDto.builder()
+                    .productId(productId)
+                    .type(ProductSummaryEventType.REVIEW_ADDED)
+                    .star(5)
+                    .build());
+            String reviewed = resourceVersionService.getShopVersion(shopId).orElseThrow().getETag();
+            Assert.assertNotEquals(reviewed, before);
+
+            productSummaryService.publishEvent(ProductSummaryEventDto.builder()
+                    .productId(productId)
+                    .type(ProductSummaryEventType.ORDER_DETAIL_CREATED)
+                    .quantity(1)
+                    .build());
+            Assert.assertNotEquals(resourceVersionService.getShopVersion(shopId).orElseThrow().getETag(), reviewed);
+        } finally {
+            productSummaryService.rebuildChunk(List.of(productId));
+        }
+    }
+}
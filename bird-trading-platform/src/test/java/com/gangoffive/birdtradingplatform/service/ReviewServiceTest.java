@@ -0,0 +1,87 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ReviewDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest
+@Test
+@Slf4j
+public class ReviewServiceTest extends AbstractTestNGSpringContextTests {
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long orderDetailId;
+    private Long productId;
+    private final List<Long> addedReviewIds = new ArrayList<>();
+
+    @BeforeClass
+    public void setUp() {
+        Map<String, Object> orderDetail = jdbcTemplate.queryForMap("SELECT od.order_d_id, od.product_id, a.email " +
+                "FROM tbl_order_detail od " +
+                "INNER JOIN tbl_order o ON o.order_id = od.order_id " +
+                "INNER JOIN tbl_package_order po ON po.package_order_id = o.package_order_id " +
+                "INNER JOIN tbl_account a ON a.account_id = po.buyer_id " +
+                "LIMIT 1");
+        orderDetailId = ((Number) orderDetail.get("order_d_id")).longValue();
+        productId = ((Number) orderDetail.get("product_id")).longValue();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                orderDetail.get("email"), null, List.of()));
+        //start from a row that matches the reviews, whatever earlier runs left in it
+        productSummaryService.rebuildChunk(List.of(productId));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        addedReviewIds.forEach(reviewId -> jdbcTemplate.update("DELETE FROM tbl_review WHERE review_id = ?", reviewId));
+        productSummaryService.rebuildChunk(List.of(productId));
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void storedStarIsTheAverageOfTheReviews() {
+        for (int rating : new int[]{5, 2, 4, 4}) {
+            ResponseEntity<?> response = reviewService.addNewReviewByOrderDetailId(null, ReviewDto.builder()
+                    .orderDetailId(orderDetailId)
+                    .description("Test review")
+                    .rating(rating)
+                    .build());
+            Assert.assertEquals(response.getStatusCode(), HttpStatus.OK);
+            addedReviewIds.add(((ReviewDto) response.getBody()).getId());
+        }
+
+        //the rating column holds the star, the enum is stored by ordinal
+        Map<String, Object> reviews = jdbcTemplate.queryForMap("SELECT COUNT(*) AS review_total, " +
+                "COALESCE(SUM(r.rating), 0) AS rating_total FROM tbl_review r " +
+                "INNER JOIN tbl_order_detail od ON od.order_d_id = r.order_detail_id WHERE od.product_id = ?", productId);
+        long reviewTotal = ((Number) reviews.get("review_total")).longValue();
+        long ratingTotal = ((Number) reviews.get("rating_total")).longValue();
+        Map<String, Object> summary = jdbcTemplate.queryForMap("SELECT star, review_total, rating_total " +
+                "FROM tbl_product_summary WHERE product_id = ?", productId);
+        Assert.assertEquals(((Number) summary.get("review_total")).longValue(), reviewTotal);
+        Assert.assertEquals(((Number) summary.get("rating_total")).longValue(), ratingTotal);
+        Assert.assertEquals(((Number) summary.get("star")).doubleValue(),
+                Math.round(ratingTotal * 1.0 / reviewTotal * 10.0) / 10.0);
+    }
+}
@@ -0,0 +1,156 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.config.AppProperties;
+import com.gangoffive.birdtradingplatform.service.impl.ShippingQuoteServiceImpl;
+import com.gangoffive.birdtradingplatform.util.CircuitBreaker;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Test
+public class ShippingQuoteServiceTest {
+    private static final long SHIP_DELAY_MILLIS = 500;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger requests = new AtomicInteger();
+    //the stub answers 10 per unit of distance, 406 past 100 and 500 while failing
+    private volatile boolean failing;
+    private volatile long delayMillis;
+
+    @BeforeMethod
+    public void startShipService() throws IOException {
+        requests.set(0);
+        failing = false;
+        delayMillis = SHIP_DELAY_MILLIS;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/ship", this::answer);
+        server.start();
+    }
+
+    @AfterMethod
+    public void stopShipService() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void quotesTheShopsConcurrently() {
+        ShippingQuoteServiceImpl service = new ShippingQuoteServiceImpl(this.properties(2000));
+        try {
+            long start = System.nanoTime();
+            Map<Double, Double> fees = service.quote(List.of(1.5, 2.0, 3.25, 4.0));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            Assert.assertEquals(fees, Map.of(1.5, 15.0, 2.0, 20.0, 3.25, 32.5, 4.0, 40.0));
+            //one after the other would take four delays
+            Assert.assertTrue(elapsedMillis < 3 * SHIP_DELAY_MILLIS, "took " + elapsedMillis + " ms");
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    public void answersRepeatedDistancesFromTheCache() {
+        ShippingQuoteServiceImpl service = new ShippingQuoteServiceImpl(this.properties(2000));
+        try {
+            Assert.assertEquals(service.quote(List.of(2.0, 2.0, 120.0)), Map.of(2.0, 20.0, 120.0, -1.0));
+            Assert.assertEquals(requests.get(), 2);
+            //the ship service not delivering that far is an answer too
+            Assert.assertEquals(service.quote(List.of(2.0, 120.0)), Map.of(2.0, 20.0, 120.0, -1.0));
+            Assert.assertEquals(requests.get(), 2);
+            //a close distance gets its own fee, checkout compares the cart against it exactly
+            Assert.assertEquals(service.quote(List.of(2.0004)), Map.of(2.0004, 2.0004 * 10));
+            Assert.assertEquals(requests.get(), 3);
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    public void failsFastWhileTheShipServiceIsDown() throws InterruptedException {
+        AppProperties properties = this.properties(2000);
+        properties.getShip().setFailureThreshold(2);
+        properties.getShip().setOpenMillis(300);
+        ShippingQuoteServiceImpl service = new ShippingQuoteServiceImpl(properties);
+        try {
+            failing = true;
+            delayMillis = 0;
+            Assert.assertEquals(service.quote(List.of(1.0, 2.0)), Map.of(1.0, -1.0, 2.0, -1.0));
+            Assert.assertEquals(service.getCircuitState(), CircuitBreaker.State.OPEN);
+            Assert.assertEquals(service.quote(List.of(3.0)), Map.of(3.0, -1.0));
+            Assert.assertEquals(requests.get(), 2);
+
+            failing = false;
+            Thread.sleep(400);
+            //the trial call closes the breaker again
+            Assert.assertEquals(service.quote(List.of(3.0)), Map.of(3.0, 30.0));
+            Assert.assertEquals(service.getCircuitState(), CircuitBreaker.State.CLOSED);
+            Assert.assertEquals(requests.get(), 3);
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    public void givesUpOnASlowShipService() {
+        ShippingQuoteServiceImpl service = new ShippingQuoteServiceImpl(this.properties(100));
+        try {
+            delayMillis = 2000;
+            long start = System.nanoTime();
+            Assert.assertEquals(service.quote(List.of(1.0)), Map.of(1.0, -1.0));
+            Assert.assertTrue((System.nanoTime() - start) / 1_000_000 < 1500);
+        } finally {
+            service.stop();
+        }
+    }
+
+    private AppProperties properties(long requestTimeoutMillis) {
+        AppProperties properties = new AppProperties();
+        AppProperties.Ship ship = properties.getShip();
+        ship.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/ship");
+        ship.setRequestTimeoutMillis(requestTimeoutMillis);
+        return properties;
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String query = exchange.getRequestURI().getQuery();
+        double distance = Double.parseDouble(query.substring(query.indexOf('=') + 1));
+        int status;
+        String body = "";
+        if (failing) {
+            status = 500;
+        } else if (distance > 100) {
+            status = 406;
+        } else {
+            status = 200;
+            body = "{\"shippingFee\":" + distance * 10 + "}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
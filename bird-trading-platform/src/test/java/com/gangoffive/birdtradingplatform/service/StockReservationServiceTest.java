@@ -0,0 +1,123 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.entity.Bird;
+import com.gangoffive.birdtradingplatform.repository.BirdRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+@Test
+@Slf4j
+public class StockReservationServiceTest extends AbstractTestNGSpringContextTests {
+    private static final int STOCK = 10;
+    private static final int BUYERS = 64;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private BirdRepository birdRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, Integer> originalQuantities = new HashMap<>();
+
+    @BeforeClass
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        birdRepository.findAll(PageRequest.of(0, 2))
+                .forEach(bird -> originalQuantities.put(bird.getId(), bird.getQuantity()));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        originalQuantities.forEach(this::setQuantity);
+    }
+
+    @Test
+    public void concurrentCheckoutsNeverOversell() throws Exception {
+        Long productId = originalQuantities.keySet().iterator().next();
+        setQuantity(productId, STOCK);
+
+        int reserved = runBuyers(() -> Map.of(productId, 1));
+
+        Assert.assertEquals(reserved, STOCK);
+        Assert.assertEquals(getQuantity(productId), 0);
+    }
+
+    @Test
+    public void cartsSharingProductsDoNotDeadlock() throws Exception {
+        Assert.assertEquals(originalQuantities.size(), 2);
+        List<Long> productIds = new ArrayList<>(originalQuantities.keySet());
+        productIds.forEach(productId -> setQuantity(productId, STOCK));
+
+        //insertion order differs between buyers, reservation must still lock in id order
+        int reserved = runBuyers(() -> {
+            List<Long> shuffled = new ArrayList<>(productIds);
+            Collections.shuffle(shuffled);
+            Map<Long, Integer> cart = new LinkedHashMap<>();
+            shuffled.forEach(productId -> cart.put(productId, 1));
+            return cart;
+        });
+
+        Assert.assertEquals(reserved, STOCK);
+        productIds.forEach(productId -> Assert.assertEquals(getQuantity(productId), 0));
+    }
+
+    private int runBuyers(Callable<Map<Long, Integer>> cartSupplier) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            futures.add(executor.submit(() -> {
+                Map<Long, Integer> cart = cartSupplier.call();
+                start.await();
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (stockReservationService.reserve(cart).isPresent()) {
+                        status.setRollbackOnly();
+                    } else {
+                        reserved.incrementAndGet();
+                    }
+                });
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            //a deadlock or lock timeout surfaces here as an ExecutionException
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        log.info("{} of {} buyers reserved", reserved.get(), BUYERS);
+        return reserved.get();
+    }
+
+    private void setQuantity(Long productId, int quantity) {
+        jdbcTemplate.update("UPDATE tbl_bird SET quantity = ? WHERE product_id = ?", quantity, productId);
+    }
+
+    private int getQuantity(Long productId) {
+        return birdRepository.findById(productId).map(Bird::getQuantity).orElseThrow();
+    }
+}
@@ -0,0 +1,94 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductTagDto;
+import com.gangoffive.birdtradingplatform.dto.TagShopDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@SpringBootTest
+@Test
+@Slf4j
+public class TagServiceTest extends AbstractTestNGSpringContextTests {
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long shopId;
+    private List<Long> birdIds;
+    //on three birds of the shop, on one bird of the shop
+    private Long sharedTagId;
+    private Long singleTagId;
+
+    @BeforeClass
+    public void setUp() {
+        shopId = jdbcTemplate.queryForObject("SELECT b.shop_id FROM tbl_bird b " +
+                "INNER JOIN tbl_shop_owner_acc sh ON sh.shop_id = b.shop_id " +
+                "WHERE b.status = 'ACTIVE' AND sh.status = 'ACTIVE' " +
+                "GROUP BY b.shop_id HAVING COUNT(*) >= 3 LIMIT 1", Long.class);
+        birdIds = jdbcTemplate.queryForList("SELECT product_id FROM tbl_bird " +
+                "WHERE shop_id = ? AND status = 'ACTIVE' ORDER BY product_id LIMIT 3", Long.class, shopId);
+        //written past the service, like a tag created on another node, so the reference data does not know them
+        sharedTagId = this.insertTag();
+        singleTagId = this.insertTag();
+        birdIds.forEach(birdId -> jdbcTemplate.update("INSERT INTO tbl_tag_bird (bird_id, tag_id) VALUES (?, ?)",
+                birdId, sharedTagId));
+        jdbcTemplate.update("INSERT INTO tbl_tag_bird (bird_id, tag_id) VALUES (?, ?)", birdIds.get(0), singleTagId);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        for (Long tagId : new Long[]{sharedTagId, singleTagId}) {
+            if (tagId != null) {
+                jdbcTemplate.update("DELETE FROM tbl_tag_bird WHERE tag_id = ?", tagId);
+                jdbcTemplate.update("DELETE FROM tbl_tag WHERE tag_id = ?", tagId);
+            }
+        }
+    }
+
+    @Test
+    public void listsTagsWithTwoProductsOrMore() {
+        Assert.assertFalse(referenceDataService.getReferenceData().tagsById().containsKey(sharedTagId));
+
+        ResponseEntity<?> response = tagService.getAllTagByShopOwnerId(shopId);
+
+        Assert.assertEquals(response.getStatusCode(), HttpStatus.OK);
+        @SuppressWarnings("unchecked")
+        List<TagShopDto> tags = (List<TagShopDto>) response.getBody();
+        Assert.assertTrue(tags.stream().noneMatch(tag -> tag.getTag().getId().equals(singleTagId)));
+        //every tag listed has at least two products and shows two of them
+        tags.forEach(tag -> Assert.assertEquals(tag.getProductTagList().size(), 2));
+
+        //filled in from the tag table
+        Optional<TagShopDto> shared = tags.stream()
+                .filter(tag -> tag.getTag().getId().equals(sharedTagId))
+                .findFirst();
+        Assert.assertTrue(shared.isPresent());
+        Assert.assertNotNull(shared.get().getTag().getName());
+        Assert.assertEquals(shared.get().getProductTagList().stream().map(ProductTagDto::getId).toList(),
+                birdIds.subList(0, 2));
+    }
+
+    private Long insertTag() {
+        String name = "test-tag-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO tbl_tag (name) VALUES (?)", name);
+        return jdbcTemplate.queryForObject("SELECT tag_id FROM tbl_tag WHERE name = ?", Long.class, name);
+    }
+}
@@ -0,0 +1,54 @@
+package com.gangoffive.birdtradingplatform.service;
+
+import com.gangoffive.birdtradingplatform.dto.ProductCartDto;
+import com.gangoffive.birdtradingplatform.enums.Category;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+@SpringBootTest
+@Test
+@Slf4j
+public class TopProductServiceTest extends AbstractTestNGSpringContextTests {
+    @Autowired
+    private TopProductService topProductService;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void ranksLikeTheSummaryQuery() {
+        List<ProductCartDto> birds = topProductService.getTopProducts(Category.BIRD);
+        List<Long> expected = productSummaryService.getIdTopBird();
+        Assert.assertEquals(birds.size(), expected.size());
+        //same products by star, ties may come in another order
+        for (int i = 1; i < birds.size(); i++) {
+            Assert.assertTrue(birds.get(i - 1).getStar() >= birds.get(i).getStar());
+        }
+    }
+
+    @Test
+    public void servesRenderedCardsWithoutQueries() {
+        topProductService.getTopProducts(Category.FOOD);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        long start = System.nanoTime();
+        topProductService.getTopProducts(Category.FOOD);
+        log.info("top foods served in {} us", (System.nanoTime() - start) / 1000);
+        long statements = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+        Assert.assertEquals(statements, 0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.gangoffive.birdtradingplatform.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Test
+public class BackgroundRebuildTest {
+
+    @Test
+    public void appliesChangesMadeDuringTheBuildAgainAfterIt() {
+        List<List<Long>> applied = new ArrayList<>();
+        AtomicReference<BackgroundRebuild<Long>> rebuilds = new AtomicReference<>();
+        rebuilds.set(new BackgroundRebuild<>("test index",
+                () -> rebuilds.get().build(() -> rebuilds.get().apply(List.of(1L, 2L))),
+                applied::add));
+
+        rebuilds.get().rebuildIfIdle();
+
+        //once while the tables were read, once more on the new copy
+        Assert.assertEquals(applied.size(), 2);
+        Assert.assertEquals(applied.get(0), List.of(1L, 2L));
+        Assert.assertEqualsNoOrder(applied.get(1).toArray(), new Long[]{1L, 2L});
+        Assert.assertFalse(rebuilds.get().isRebuilding());
+    }
+
+    @Test
+    public void appliesChangesOnceOutsideABuild() {
+        List<List<Long>> applied = new ArrayList<>();
+        BackgroundRebuild<Long> rebuilds = new BackgroundRebuild<>("test index", () -> {
+        }, applied::add);
+
+        rebuilds.apply(List.of(3L));
+        rebuilds.apply(List.of());
+
+        Assert.assertEquals(applied, List.of(List.of(3L)));
+    }
+
+    @Test
+    public void skipsAScheduledBuildWhileOneIsRunning() {
+        AtomicInteger builds = new AtomicInteger();
+        AtomicReference<BackgroundRebuild<Long>> rebuilds = new AtomicReference<>();
+        rebuilds.set(new BackgroundRebuild<>("test index", () -> rebuilds.get().build(() -> {
+            builds.incrementAndGet();
+            rebuilds.get().rebuildIfIdle();
+        }), ids -> {
+        }));
+
+        rebuilds.get().rebuildIfIdle();
+
+        Assert.assertEquals(builds.get(), 1);
+    }
+
+    @Test
+    public void keepsAFailedChangeFromReachingTheCaller() {
+        BackgroundRebuild<Long> rebuilds = new BackgroundRebuild<>("test index", () -> {
+        }, ids -> {
+            throw new IllegalStateException("database down");
+        });
+
+        rebuilds.apply(List.of(4L));
+    }
+}
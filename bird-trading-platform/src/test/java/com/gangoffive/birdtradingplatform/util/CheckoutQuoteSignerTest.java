@@ -0,0 +1,59 @@
+package com.gangoffive.birdtradingplatform.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Test
+public class CheckoutQuoteSignerTest {
+    private static final String BUYER = "buyer@gmail.com";
+    private static final String CART = "1:150.0:7.5:141.8:90026x4:90043x2;\n\n141.8:7.5:0.0:149.3";
+    private static final String PRICE_VERSION = "5d41402abc4b2a76b9719d911017c592";
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final CheckoutQuoteSigner signer = new CheckoutQuoteSigner(
+            "secret".getBytes(StandardCharsets.UTF_8), now::get);
+
+    @Test
+    public void acceptsTheQuotedCart() {
+        String token = signer.sign(BUYER, 2_000, PRICE_VERSION, CART);
+        Assert.assertEquals(signer.verify(token, BUYER, PRICE_VERSION, CART), CheckoutQuoteSigner.Verification.VALID);
+    }
+
+    @Test
+    public void refusesAChangedCartOrAnotherBuyer() {
+        String token = signer.sign(BUYER, 2_000, PRICE_VERSION, CART);
+        Assert.assertEquals(signer.verify(token, BUYER, PRICE_VERSION, CART.replace("149.3", "49.3")),
+                CheckoutQuoteSigner.Verification.TAMPERED);
+        Assert.assertEquals(signer.verify(token, "other@gmail.com", PRICE_VERSION, CART),
+                CheckoutQuoteSigner.Verification.TAMPERED);
+        //a later expiry is part of what is signed
+        Assert.assertEquals(signer.verify(token.replaceFirst("2000", "9000"), BUYER, PRICE_VERSION, CART),
+                CheckoutQuoteSigner.Verification.TAMPERED);
+        CheckoutQuoteSigner otherKey = new CheckoutQuoteSigner("other".getBytes(StandardCharsets.UTF_8), now::get);
+        Assert.assertEquals(otherKey.verify(token, BUYER, PRICE_VERSION, CART),
+                CheckoutQuoteSigner.Verification.TAMPERED);
+    }
+
+    @Test
+    public void refusesAnExpiredQuoteOrMovedPrices() {
+        String token = signer.sign(BUYER, 2_000, PRICE_VERSION, CART);
+        Assert.assertEquals(signer.verify(token, BUYER, "0cc175b9c0f1b6a831c399e269772661", CART),
+                CheckoutQuoteSigner.Verification.PRICE_CHANGED);
+        now.set(2_000);
+        Assert.assertEquals(signer.verify(token, BUYER, PRICE_VERSION, CART),
+                CheckoutQuoteSigner.Verification.EXPIRED);
+    }
+
+    @Test
+    public void refusesMalformedTokens() {
+        Assert.assertEquals(signer.verify(null, BUYER, PRICE_VERSION, CART),
+                CheckoutQuoteSigner.Verification.MALFORMED);
+        Assert.assertEquals(signer.verify("abc", BUYER, PRICE_VERSION, CART),
+                CheckoutQuoteSigner.Verification.MALFORMED);
+        Assert.assertEquals(signer.verify("soon." + PRICE_VERSION + ".mac", BUYER, PRICE_VERSION, CART),
+                CheckoutQuoteSigner.Verification.MALFORMED);
+    }
+}
@@ -0,0 +1,124 @@
+package com.gangoffive.birdtradingplatform.util;
+
+import com.gangoffive.birdtradingplatform.entity.PromotionShop;
+import lombok.extern.slf4j.Slf4j;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+//prices a page of products the way the product cards did before, boxing the rates of every product on every
+//call, and with the compiled rates in one pass; both must agree to the cent
+@Test
+@Slf4j
+public class PriceEngineBenchmarkTest {
+    private static final int PRODUCTS = 10_000;
+    private static final int WARM_UP = 20;
+    private static final int ITERATIONS = 50;
+
+    private final double[] prices = new double[PRODUCTS];
+    private final List<List<PromotionShop>> promotions = new ArrayList<>();
+
+    public PriceEngineBenchmarkTest() {
+        Random random = new Random(24);
+        long promotionId = 0;
+        for (int i = 0; i < PRODUCTS; i++) {
+            prices[i] = random.nextBoolean() ? random.nextInt(5_000) * 1000 : random.nextInt(10_000_000) / 100.0 + 1;
+            List<PromotionShop> productPromotions = new ArrayList<>();
+            int count = random.nextInt(4);
+            for (int j = 0; j < count; j++) {
+                PromotionShop promotionShop = new PromotionShop();
+                promotionShop.setId(++promotionId);
+                promotionShop.setDiscountRate(1 + random.nextInt(90));
+                productPromotions.add(promotionShop);
+            }
+            promotions.add(productPromotions);
+        }
+    }
+
+    @Test
+    public void compiledRatesPriceLikeTheBoxedPath() {
+        int[][] rates = this.compile();
+        double[] saleOffs = new double[PRODUCTS];
+        double[] discountedPrices = new double[PRODUCTS];
+        double[] summaryPrices = new double[PRODUCTS];
+        PriceEngine.quote(prices, rates, saleOffs, discountedPrices);
+        PriceEngine.discountedPrices(prices, rates, summaryPrices);
+        for (int i = 0; i < PRODUCTS; i++) {
+            double saleOff = legacySaleOff(promotions.get(i), prices[i]);
+            double roundedSaleOff = Math.round(saleOff * 100.0) / 100.0;
+            Assert.assertEquals(saleOffs[i], roundedSaleOff);
+            Assert.assertEquals(discountedPrices[i], legacyDiscountedPrice(prices[i], roundedSaleOff));
+            Assert.assertEquals(summaryPrices[i], legacyDiscountedPrice(prices[i], saleOff));
+        }
+    }
+
+    @Test
+    public void comparesTheBoxedAndCompiledPaths() {
+        int[][] rates = this.compile();
+        double[] saleOffs = new double[PRODUCTS];
+        double[] discountedPrices = new double[PRODUCTS];
+        double sink = 0;
+        for (int i = 0; i < WARM_UP; i++) {
+            sink += this.legacyPage();
+            PriceEngine.quote(prices, rates, saleOffs, discountedPrices);
+            sink += discountedPrices[i];
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += this.legacyPage();
+        }
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            PriceEngine.quote(prices, rates, saleOffs, discountedPrices);
+            sink += discountedPrices[i];
+        }
+        long compiledNanos = System.nanoTime() - start;
+
+        log.info("{} products: boxed {} ns/product, compiled {} ns/product ({})", PRODUCTS,
+                legacyNanos / ITERATIONS / PRODUCTS, compiledNanos / ITERATIONS / PRODUCTS, sink > 0);
+    }
+
+    //what the cache holds, compiled once per promotion set change
+    private int[][] compile() {
+        int[][] rates = new int[PRODUCTS][];
+        for (int i = 0; i < PRODUCTS; i++) {
+            rates[i] = PriceEngine.compile(promotions.get(i));
+        }
+        return rates;
+    }
+
+    private double legacyPage() {
+        double total = 0;
+        for (int i = 0; i < PRODUCTS; i++) {
+            double saleOff = Math.round(legacySaleOff(promotions.get(i), prices[i]) * 100.0) / 100.0;
+            total += legacyDiscountedPrice(prices[i], saleOff);
+        }
+        return total;
+    }
+
+    //PromotionPriceServiceImpl.CalculateSaleOff before the rates were compiled
+    private static double legacySaleOff(List<PromotionShop> listPromotion, double price) {
+        if (listPromotion != null && listPromotion.size() != 0) {
+            List<Integer> discountRates = listPromotion.stream()
+                    .map(s -> (Integer) s.getDiscountRate())
+                    .collect(Collectors.toList());
+            double priceDiscount = price;
+            for (double sale : discountRates) {
+                priceDiscount = priceDiscount - priceDiscount * sale / 100;
+            }
+            return (price - priceDiscount) / price;
+        }
+        return 0.0;
+    }
+
+    private static double legacyDiscountedPrice(double price, double saleOff) {
+        return Math.round((price - (price * saleOff)) * 100.0) / 100.0;
+    }
+}
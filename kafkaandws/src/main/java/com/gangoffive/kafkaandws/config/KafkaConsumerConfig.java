@@ -0,0 +1,25 @@
+package com.gangoffive.kafkaandws.config;
+
+import com.gangoffive.kafkaandws.constant.KafkaConstant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.UUID;
+
+@Configuration
+public class KafkaConsumerConfig {
+    //each replica reads every record under its own group and only delivers to the sessions it holds
+    private final String groupId;
+
+    public KafkaConsumerConfig(@Value("${app.instance-id:}") String instanceId) {
+        if (!StringUtils.hasText(instanceId)) {
+            instanceId = UUID.randomUUID().toString();
+        }
+        this.groupId = KafkaConstant.KAFKA_GROUP_ID + "-" + instanceId;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+}
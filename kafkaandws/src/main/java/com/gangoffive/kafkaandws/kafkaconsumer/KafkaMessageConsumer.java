@@ -6,6 +6,7 @@ import com.gangoffive.kafkaandws.constant.NotifiConstant;
 import com.gangoffive.kafkaandws.dto.MessageDto;
 import com.gangoffive.kafkaandws.dto.NotificationDto;
 import com.gangoffive.kafkaandws.util.JsonUtil;
+import com.gangoffive.kafkaandws.websocket.LocalSubscriptionRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,9 +20,11 @@ import org.springframework.stereotype.Component;
 public class KafkaMessageConsumer {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private LocalSubscriptionRegistry subscriptionRegistry;
     private Logger log = LoggerFactory.getLogger(Logger.class);
 
-    @KafkaListener(topics = KafkaConstant.KAFKA_PRIVATE_CHAT, groupId = KafkaConstant.KAFKA_GROUP_ID)
+    @KafkaListener(topics = KafkaConstant.KAFKA_PRIVATE_CHAT, groupId = "#{@kafkaConsumerConfig.groupId}")
     public void consumeMessagePrivate(String message) {
         MessageDto messDto = JsonUtil.INSTANCE.getObject(message, MessageDto.class);
         try {
@@ -38,7 +41,7 @@ public class KafkaMessageConsumer {
 
     }
 
-    @KafkaListener(topics = KafkaConstant.KAFKA_PRIVATE_NOTIFICATION, groupId = KafkaConstant.KAFKA_GROUP_ID)
+    @KafkaListener(topics = KafkaConstant.KAFKA_PRIVATE_NOTIFICATION, groupId = "#{@kafkaConsumerConfig.groupId}")
     public void consumeNotificationPrivate(String notification) {
         NotificationDto noti = JsonUtil.INSTANCE.getObject(notification, NotificationDto.class);
         this.sendNotificationPrivate(noti);
@@ -64,6 +67,9 @@ public class KafkaMessageConsumer {
             message.setShopID(-1);
             destination = String.format("/chatroom/%d/shop",receiveId);
         }
+        if (destination == null || !subscriptionRegistry.hasSubscribers(destination)) {
+            return;
+        }
         log.info("detini {}", destination);
         log.info(String.format(MessageConstant.MESSAGE_SEND_LOG,receiveId, message.toString(),destination));
         //send to websocket
@@ -86,6 +92,9 @@ public class KafkaMessageConsumer {
         }else if (notification.getRole().equalsIgnoreCase(NotifiConstant.NOTI_USER_ROLE)) {
             destination = String.format("/notification/%d/user",notification.getReceiveId());
         }
+        if (!subscriptionRegistry.hasSubscribers(destination)) {
+            return;
+        }
         messagingTemplate.convertAndSend(destination, notification);
     }
 
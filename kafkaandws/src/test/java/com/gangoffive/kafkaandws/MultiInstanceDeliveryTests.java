@@ -0,0 +1,137 @@
+package com.gangoffive.kafkaandws;
+
+import com.gangoffive.kafkaandws.constant.KafkaConstant;
+import com.gangoffive.kafkaandws.constant.NotifiConstant;
+import com.gangoffive.kafkaandws.dto.NotificationDto;
+import com.gangoffive.kafkaandws.util.JsonUtil;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//runs several replicas against one broker and checks a record reaches the subscriber on every replica
+@EmbeddedKafka(partitions = 3, topics = {KafkaConstant.KAFKA_PRIVATE_NOTIFICATION, KafkaConstant.KAFKA_PRIVATE_CHAT})
+class MultiInstanceDeliveryTests {
+    private static final int NODES = 3;
+    private static final int RECORDS = 50;
+    private static final long RECEIVE_ID = 42;
+    private static final long TIMEOUT_MILLIS = 30 * 1000;
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private final List<StompSession> sessions = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        sessions.forEach(StompSession::disconnect);
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void everyNodeDeliversToItsOwnSubscribers(EmbeddedKafkaBroker broker) throws Exception {
+        String destination = String.format("/notification/%d/user", RECEIVE_ID);
+        List<BlockingQueue<String>> received = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            ConfigurableApplicationContext node = new SpringApplicationBuilder(KafkaandwsApplication.class).run(
+                    "--server.port=0",
+                    "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                    "--app.instance-id=node-" + i);
+            nodes.add(node);
+            for (MessageListenerContainer container : node.getBean(KafkaListenerEndpointRegistry.class).getListenerContainers()) {
+                ContainerTestUtils.waitForAssignment(container, broker.getPartitionsPerTopic());
+            }
+            BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+            received.add(queue);
+            sessions.add(subscribe(node, destination, queue));
+        }
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        try (Producer<String, String> producer = new DefaultKafkaProducerFactory<>(producerProps,
+                new StringSerializer(), new StringSerializer()).createProducer()) {
+            //the broker registers a subscription just after the client sends it, so wait for a probe to land everywhere
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (received.stream().anyMatch(Collection::isEmpty)) {
+                assertTrue(System.currentTimeMillis() < deadline, "subscriptions were never live on every node");
+                send(producer, "probe");
+                Thread.sleep(200);
+            }
+            received.forEach(Collection::clear);
+
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < RECORDS; i++) {
+                expected.add("record-" + i);
+                send(producer, "record-" + i);
+            }
+            producer.flush();
+
+            for (int i = 0; i < NODES; i++) {
+                Set<String> delivered = new HashSet<>();
+                deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+                while (!delivered.containsAll(expected) && System.currentTimeMillis() < deadline) {
+                    String text = received.get(i).poll(200, TimeUnit.MILLISECONDS);
+                    if (text != null && !text.equals("probe")) {
+                        delivered.add(text);
+                    }
+                }
+                assertEquals(expected, delivered, "node-" + i + " missed records");
+            }
+        }
+    }
+
+    private void send(Producer<String, String> producer, String text) {
+        NotificationDto notification = new NotificationDto(0, text, "TEST", false,
+                NotifiConstant.NOTI_USER_ROLE, new Date(), RECEIVE_ID);
+        producer.send(new ProducerRecord<>(KafkaConstant.KAFKA_PRIVATE_NOTIFICATION,
+                String.valueOf(RECEIVE_ID), JsonUtil.INSTANCE.getJsonString(notification)));
+    }
+
+    private StompSession subscribe(ConfigurableApplicationContext node, String destination,
+                                   BlockingQueue<String> queue) throws Exception {
+        int port = ((ServletWebServerApplicationContext) node).getWebServer().getPort();
+        WebSocketStompClient client = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        StompSession session = client.connectAsync("ws://localhost:" + port + "/kafka/ws/",
+                new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return NotificationDto.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                queue.add(((NotificationDto) payload).getNotiText());
+            }
+        });
+        return session;
+    }
+}